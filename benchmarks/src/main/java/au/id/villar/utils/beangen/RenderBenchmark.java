@@ -0,0 +1,58 @@
+package au.id.villar.utils.beangen;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Cost of rendering one bean shaped like the test {@code PersonEntity}: six properties, a builder constructor and two
+ * type parameters. Run with {@code -prof gc} to see the bytes allocated per rendered bean.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RenderBenchmark {
+
+	private BeanDefinition definition;
+
+	@Setup
+	public void setUp() {
+		final List<VariableDefinition> parameters = List.of(
+				new VariableDefinition("id", "int"),
+				new VariableDefinition("givenName", "java.lang.String"),
+				new VariableDefinition("lastName", "java.lang.String"),
+				new VariableDefinition("amount", "java.math.BigDecimal"),
+				new VariableDefinition("scores", "int[]"),
+				new VariableDefinition("otherField", "java.util.List<R>"));
+
+		definition = new BeanDefinition(true, "sample.PersonEntity", "sample.TestingBean");
+		definition.setEntityName("person");
+		definition.setWithSetters(true);
+		definition.setTypeParameters(List.of("R", "S"));
+		definition.setConstructors(List.of(new ConstructorDefinition("public", parameters, true)));
+		definition.setProperties(parameters.stream()
+				.map(p -> new PropertyDefinition(p.name(), p.type()))
+				.toList());
+	}
+
+	@Benchmark
+	public StringWriter writeSourceCode() throws IOException {
+		final StringWriter writer = new StringWriter();
+		definition.writeSourceCode(writer);
+		return writer;
+	}
+}
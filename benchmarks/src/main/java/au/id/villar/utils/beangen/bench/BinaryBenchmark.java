@@ -0,0 +1,59 @@
+package au.id.villar.utils.beangen.bench;
+
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The generated {@code PersonEntityBinaryCodec} writing to and reading from a reused direct buffer, as an off-heap
+ * cache would. {@code readOneProperty} reads a single property of the record without decoding the rest.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BinaryBenchmark {
+
+	private PersonEntity<String> person;
+	private ByteBuffer buffer;
+
+	@Setup
+	public void setUp() {
+		person = new PersonEntity<>(42, "Ada", "Lovelace", new BigDecimal("1815.12"), new int[] {9, 8, 10},
+				List.of("analytical", "engine"));
+		buffer = ByteBuffer.allocateDirect(1024);
+		PersonEntityBinaryCodec.INSTANCE.write(person, buffer);
+		if (!PersonEntityBinaryCodec.INSTANCE.read(buffer.flip()).equals(person)) {
+			throw new IllegalStateException("The codec doesn't round-trip " + person);
+		}
+	}
+
+	@Benchmark
+	public int write() {
+		PersonEntityBinaryCodec.INSTANCE.write(person, buffer.clear());
+		return buffer.position();
+	}
+
+	@Benchmark
+	public PersonEntity<?> read() {
+		return PersonEntityBinaryCodec.INSTANCE.read(buffer.position(0));
+	}
+
+	@Benchmark
+	public String readOneProperty() {
+		return PersonEntityBinaryCodec.INSTANCE.readLastName(buffer, 0);
+	}
+}
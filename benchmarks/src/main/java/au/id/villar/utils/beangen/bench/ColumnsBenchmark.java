@@ -0,0 +1,77 @@
+package au.id.villar.utils.beangen.bench;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Sums a property of a million beans, held as a list of beans, created in random order as a long-lived heap would
+ * end up laying them out, and as a {@code PersonEntityColumns}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class ColumnsBenchmark {
+
+	@Param("1000000")
+	private int size;
+
+	private List<PersonEntity<String>> people;
+	private PersonEntityColumns<String> columns;
+
+	@Setup
+	public void setUp() {
+		people = new ArrayList<>(size);
+		for (int i = 0; i < size; i++) {
+			people.add(new PersonEntity<>(i, "Ada", "Lovelace", BigDecimal.ONE, null, List.of()));
+		}
+		Collections.shuffle(people, new Random(42));
+		columns = PersonEntityColumns.of(people);
+	}
+
+	@Benchmark
+	public long beanListSum() {
+		long sum = 0;
+		for (PersonEntity<String> person : people) {
+			sum += person.getId();
+		}
+		return sum;
+	}
+
+	@Benchmark
+	public long cursorSum() {
+		long sum = 0;
+		final PersonEntityColumns<String>.Cursor cursor = columns.cursor();
+		while (cursor.next()) {
+			sum += cursor.getId();
+		}
+		return sum;
+	}
+
+	@Benchmark
+	public long columnSum() {
+		final int[] ids = columns.idColumn();
+		long sum = 0;
+		for (int i = 0; i < columns.size(); i++) {
+			sum += ids[i];
+		}
+		return sum;
+	}
+}
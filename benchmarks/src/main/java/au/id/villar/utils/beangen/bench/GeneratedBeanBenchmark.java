@@ -0,0 +1,157 @@
+package au.id.villar.utils.beangen.bench;
+
+import java.lang.reflect.Method;
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Runtime cost of the code generated for {@link PersonTemplate}. Run with {@code -prof gc} to see the bytes allocated
+ * per operation.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@SuppressWarnings({"rawtypes", "unchecked"})
+public class GeneratedBeanBenchmark {
+
+	private int id;
+	private String givenName;
+	private String lastName;
+	private BigDecimal amount;
+	private int[] scores;
+	private List<String> otherField;
+	private PersonEntity<String> person;
+	private PersonEntity<String> equalPerson;
+	private Method[] getters;
+	private PersonEntity.PersonEntityBuilder<String> reusedBuilder;
+	private PersonEntity<String> target;
+
+	@Setup
+	public void setUp() {
+		id = 42;
+		givenName = "Ada";
+		lastName = "Lovelace";
+		amount = new BigDecimal("1815.12");
+		scores = new int[] {9, 8, 10};
+		otherField = List.of("analytical", "engine");
+		person = new PersonEntity<>(id, givenName, lastName, amount, scores, otherField);
+		equalPerson = new PersonEntity<>(id, new String(givenName), lastName, amount, scores.clone(), otherField);
+		reusedBuilder = PersonEntity.builder();
+		target = new PersonEntity<>();
+		getters = new Method[PersonEntityAccessor.INSTANCE.propertyCount()];
+		for (int i = 0; i < getters.length; i++) {
+			final String name = PersonEntityAccessor.INSTANCE.propertyName(i);
+			getters[i] = getMethod("get" + Character.toUpperCase(name.charAt(0)) + name.substring(1));
+		}
+	}
+
+	@Benchmark
+	public PersonEntity constructor() {
+		return new PersonEntity<>(id, givenName, lastName, amount, scores, otherField);
+	}
+
+	@Benchmark
+	public PersonEntity builder() {
+		return PersonEntity.builder()
+				.id(id)
+				.givenName(givenName)
+				.lastName(lastName)
+				.amount(amount)
+				.scores(scores)
+				.otherField(otherField)
+				.build();
+	}
+
+	@Benchmark
+	public PersonEntity toBuilderRoundTrip() {
+		return person.toBuilder().id(id + 1).build();
+	}
+
+	@Benchmark
+	public PersonEntity reusedBuilderFrom() {
+		return reusedBuilder.from(person).id(id + 1).build();
+	}
+
+	@Benchmark
+	public PersonEntity reusedBuilderBuildInto() {
+		return reusedBuilder.reset()
+				.id(id)
+				.givenName(givenName)
+				.lastName(lastName)
+				.amount(amount)
+				.scores(scores)
+				.otherField(otherField)
+				.buildInto(target);
+	}
+
+	@Benchmark
+	public int getters() {
+		return person.getId() + person.getGivenName().length() + person.getLastName().length()
+				+ person.getScores().length + person.getOtherField().size() + person.getAmount().scale();
+	}
+
+	@Benchmark
+	public PersonEntity setters() {
+		person.setId(id);
+		person.setGivenName(givenName);
+		person.setLastName(lastName);
+		person.setAmount(amount);
+		person.setScores(scores);
+		person.setOtherField(otherField);
+		return person;
+	}
+
+	@Benchmark
+	public boolean equalsEqual() {
+		return person.equals(equalPerson);
+	}
+
+	@Benchmark
+	public int hashCodeOf() {
+		return person.hashCode();
+	}
+
+	@Benchmark
+	public String toStringOf() {
+		return person.toString();
+	}
+
+	@Benchmark
+	public void accessorReadAll(Blackhole blackhole) {
+		final PersonEntityAccessor accessor = PersonEntityAccessor.INSTANCE;
+		blackhole.consume(accessor.getInt(person, 0));
+		for (int i = 1; i < accessor.propertyCount(); i++) {
+			blackhole.consume(accessor.get(person, i));
+		}
+	}
+
+	@Benchmark
+	public void reflectiveReadAll(Blackhole blackhole) throws ReflectiveOperationException {
+		for (Method getter : getters) {
+			blackhole.consume(getter.invoke(person));
+		}
+	}
+
+	private static Method getMethod(String name) {
+		try {
+			return PersonEntity.class.getMethod(name);
+		} catch (NoSuchMethodException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+}
@@ -0,0 +1,79 @@
+package au.id.villar.utils.beangen.bench;
+
+import au.id.villar.utils.beangen.runtime.JsonBytesWriter;
+import au.id.villar.utils.beangen.runtime.JsonReader;
+import au.id.villar.utils.beangen.runtime.JsonWriter;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The generated {@code PersonEntityJsonCodec} against Jackson's databind, writing to and reading from UTF-8 bytes. The
+ * codec's writer and reader are reused between operations, as a server would keep one per thread.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JsonBenchmark {
+
+	private static final TypeReference<PersonEntity<String>> PERSON_TYPE = new TypeReference<>() {};
+
+	private PersonEntity<String> person;
+	private byte[] json;
+	private JsonBytesWriter writer;
+	private JsonReader reader;
+	private ObjectMapper mapper;
+
+	@Setup
+	public void setUp() throws IOException {
+		person = new PersonEntity<>(42, "Ada", "Lovelace", new BigDecimal("1815.12"), new int[] {9, 8, 10},
+				List.of("analytical", "engine"));
+		json = PersonEntityJsonCodec.INSTANCE.toJsonBytes(person);
+		writer = JsonWriter.toBytes();
+		reader = JsonReader.of(json);
+		mapper = new ObjectMapper();
+		if (!mapper.readValue(mapper.writeValueAsBytes(person), PERSON_TYPE).equals(person)) {
+			throw new IllegalStateException("Jackson doesn't round-trip " + person);
+		}
+	}
+
+	@Benchmark
+	public int codecWrite() {
+		writer.reset();
+		PersonEntityJsonCodec.INSTANCE.write(person, writer);
+		return writer.size();
+	}
+
+	@Benchmark
+	public byte[] jacksonWrite() throws JsonProcessingException {
+		return mapper.writeValueAsBytes(person);
+	}
+
+	@Benchmark
+	public PersonEntity<?> codecRead() {
+		reader.reset(json);
+		return PersonEntityJsonCodec.INSTANCE.read(reader);
+	}
+
+	@Benchmark
+	public PersonEntity<String> jacksonRead() throws IOException {
+		return mapper.readValue(json, PERSON_TYPE);
+	}
+}
@@ -0,0 +1,37 @@
+package au.id.villar.utils.beangen.bench;
+
+import au.id.villar.utils.beangen.BeanTemplate;
+import au.id.villar.utils.beangen.Builder;
+import java.math.BigDecimal;
+import java.util.List;
+
+@BeanTemplate(typeName = "PersonEntity", noArgsConstructor = true, accessor = true,
+		jsonCodec = true, binaryCodec = true, columns = true)
+public class PersonTemplate<R> {
+
+	protected int id;
+
+	protected String givenName;
+
+	protected String lastName;
+
+	protected BigDecimal amount;
+
+	protected int[] scores;
+
+	protected List<R> otherField;
+
+	public PersonTemplate() {
+	}
+
+	@Builder(reusable = true)
+	public PersonTemplate(int id, String givenName, String lastName, BigDecimal amount, int[] scores,
+			List<R> otherField) {
+		this.id = id;
+		this.givenName = givenName;
+		this.lastName = lastName;
+		this.amount = amount;
+		this.scores = scores;
+		this.otherField = otherField;
+	}
+}
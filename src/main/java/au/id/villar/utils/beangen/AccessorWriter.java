@@ -0,0 +1,241 @@
+package au.id.villar.utils.beangen;
+
+import java.util.List;
+import java.util.function.Predicate;
+
+/**
+ * Writes the {@code <Bean>Accessor} companion, an implementation of
+ * {@link au.id.villar.utils.beangen.runtime.BeanAccessor} that reaches every property through the bean's getters and
+ * setters with {@code switch} statements, so generic code can walk a bean's properties without reflection or boxing.
+ */
+class AccessorWriter extends CompanionWriter {
+
+	static final String ACCESSOR_INTERFACE = "au.id.villar.utils.beangen.runtime.BeanAccessor";
+
+	private static final List<String> PRIMITIVE_TYPES
+			= List.of("boolean", "byte", "short", "char", "int", "long", "float", "double");
+
+	AccessorWriter() {
+		super("Accessor");
+	}
+
+	@Override
+	boolean isEnabledFor(BeanDefinition definition) {
+		return definition.isWithAccessor();
+	}
+
+	@Override
+	protected void writeClass(BeanDefinition definition, SourceWriter writer) {
+
+		final String name = getSingleName(definition);
+		final String beanType = beanType(definition);
+		final List<PropertyDefinition> properties = definition.getAllProperties();
+
+		writer.append("@SuppressWarnings({\"rawtypes\", \"unchecked\"})").newLine()
+				.append("public final class ").append(name).append(" implements ").append(ACCESSOR_INTERFACE)
+				.append('<').append(beanType).append("> {").newLine()
+				.newLine()
+				.indent(1).append("public static final ").append(name).append(" INSTANCE = new ").append(name)
+				.append("();").newLine()
+				.newLine()
+				.indent(1).append("private static final String[] NAMES = {");
+		for (int i = 0; i < properties.size(); i++) {
+			writer.append(i > 0 ? ", \"" : "\"").append(properties.get(i).getName()).append('"');
+		}
+		writer.append("};").newLine()
+				.newLine()
+				.indent(1).append("private static final Class<?>[] TYPES = {");
+		for (int i = 0; i < properties.size(); i++) {
+			writer.append(i > 0 ? ", " : "").append(properties.get(i).getErasedType()).append(".class");
+		}
+		writer.append("};").newLine()
+				.newLine()
+				.indent(1).append("private ").append(name).append("() {").newLine()
+				.indent(1).append('}').newLine();
+
+		writeMetadataMethods(definition, writer, properties);
+		writeGet(definition, writer, beanType, properties);
+		writeSet(definition, writer, beanType, properties);
+		for (String primitiveType : PRIMITIVE_TYPES) {
+			writePrimitiveMethods(definition, writer, beanType, properties, primitiveType);
+		}
+
+		writer.append('}').newLine();
+	}
+
+	private void writeMetadataMethods(BeanDefinition definition, SourceWriter writer,
+			List<PropertyDefinition> properties) {
+
+		writer.newLine()
+				.indent(1).append("@Override").newLine()
+				.indent(1).append("public int propertyCount() {").newLine()
+				.indent(2).append("return ").append(properties.size()).append(';').newLine()
+				.indent(1).append('}').newLine()
+				.newLine()
+				.indent(1).append("@Override").newLine()
+				.indent(1).append("public String propertyName(int index) {").newLine()
+				.indent(2).append("return NAMES[index];").newLine()
+				.indent(1).append('}').newLine()
+				.newLine()
+				.indent(1).append("@Override").newLine()
+				.indent(1).append("public Class<?> propertyType(int index) {").newLine()
+				.indent(2).append("return TYPES[index];").newLine()
+				.indent(1).append('}').newLine()
+				.newLine()
+				.indent(1).append("@Override").newLine()
+				.indent(1).append("public int indexOf(String name) {").newLine()
+				.indent(2).append("switch (name) {").newLine();
+		for (int i = 0; i < properties.size(); i++) {
+			writer.indent(3).append("case \"").append(properties.get(i).getName()).append("\": return ").append(i)
+					.append(';').newLine();
+		}
+		writer.indent(3).append("default: return -1;").newLine()
+				.indent(2).append('}').newLine()
+				.indent(1).append('}').newLine()
+				.newLine()
+				.indent(1).append("@Override").newLine()
+				.indent(1).append("public boolean isWritable(int index) {").newLine()
+				.indent(2).append("switch (index) {").newLine();
+		boolean anyWritable = false;
+		for (int i = 0; i < properties.size(); i++) {
+			if (definition.hasSetter(properties.get(i))) {
+				writer.indent(3).append("case ").append(i).append(':').newLine();
+				anyWritable = true;
+			}
+		}
+		if (anyWritable) {
+			writer.indent(4).append("return true;").newLine();
+		}
+		writer.indent(3).append("default:").newLine()
+				.indent(4).append("return false;").newLine()
+				.indent(2).append('}').newLine()
+				.indent(1).append('}').newLine();
+	}
+
+	private void writeGet(BeanDefinition definition, SourceWriter writer, String beanType,
+			List<PropertyDefinition> properties) {
+
+		writer.newLine()
+				.indent(1).append("@Override").newLine()
+				.indent(1).append("public Object get(").append(beanType).append(" bean, int index) {").newLine()
+				.indent(2).append("switch (index) {").newLine();
+		for (int i = 0; i < properties.size(); i++) {
+			if (definition.hasGetter(properties.get(i))) {
+				writer.indent(3).append("case ").append(i).append(": return bean.")
+						.append(properties.get(i).getGetterName()).append("();").newLine();
+			}
+		}
+		writeUnsupportedCases(writer, properties, null, p -> !definition.hasGetter(p),
+				definition.getSingleName() + " has no getter");
+		writeDefaultCase(writer, "IndexOutOfBoundsException", "\"No property \" + index + \" in "
+				+ definition.getSingleName() + '"');
+		writer.indent(2).append('}').newLine()
+				.indent(1).append('}').newLine();
+	}
+
+	private void writeSet(BeanDefinition definition, SourceWriter writer, String beanType,
+			List<PropertyDefinition> properties) {
+
+		writer.newLine()
+				.indent(1).append("@Override").newLine()
+				.indent(1).append("public void set(").append(beanType).append(" bean, int index, Object value) {")
+				.newLine()
+				.indent(2).append("switch (index) {").newLine();
+		for (int i = 0; i < properties.size(); i++) {
+			final PropertyDefinition property = properties.get(i);
+			if (definition.hasSetter(property)) {
+				final String valueType = property.isPrimitive() ? property.getWrapperType() : property.getErasedType();
+				writer.indent(3).append("case ").append(i).append(": ");
+				writeReceiver(definition, writer);
+				writer.append(property.getSetterName()).append("((").append(valueType).append(") value); return;")
+						.newLine();
+			}
+		}
+		writeUnsupportedCases(writer, properties, null, p -> !definition.hasSetter(p),
+				definition.getSingleName() + " is read-only");
+		writeDefaultCase(writer, "IndexOutOfBoundsException", "\"No property \" + index + \" in "
+				+ definition.getSingleName() + '"');
+		writer.indent(2).append('}').newLine()
+				.indent(1).append('}').newLine();
+	}
+
+	private void writePrimitiveMethods(BeanDefinition definition, SourceWriter writer, String beanType,
+			List<PropertyDefinition> properties, String primitiveType) {
+
+		if (properties.stream().noneMatch(p -> p.getType().equals(primitiveType))) {
+			return;
+		}
+
+		final String capitalizedType = Character.toUpperCase(primitiveType.charAt(0)) + primitiveType.substring(1);
+		final String typeError = "\"Property \" + index + \" of " + definition.getSingleName() + " isn't of type "
+				+ primitiveType + '"';
+
+		writer.newLine()
+				.indent(1).append("@Override").newLine()
+				.indent(1).append("public ").append(primitiveType).append(" get").append(capitalizedType).append('(')
+				.append(beanType).append(" bean, int index) {").newLine()
+				.indent(2).append("switch (index) {").newLine();
+		for (int i = 0; i < properties.size(); i++) {
+			if (properties.get(i).getType().equals(primitiveType) && definition.hasGetter(properties.get(i))) {
+				writer.indent(3).append("case ").append(i).append(": return bean.")
+						.append(properties.get(i).getGetterName()).append("();").newLine();
+			}
+		}
+		writeUnsupportedCases(writer, properties, primitiveType, p -> !definition.hasGetter(p),
+				definition.getSingleName() + " has no getter");
+		writeDefaultCase(writer, "IllegalArgumentException", typeError);
+		writer.indent(2).append('}').newLine()
+				.indent(1).append('}').newLine();
+
+		writer.newLine()
+				.indent(1).append("@Override").newLine()
+				.indent(1).append("public void set").append(capitalizedType).append('(').append(beanType)
+				.append(" bean, int index, ").append(primitiveType).append(" value) {").newLine()
+				.indent(2).append("switch (index) {").newLine();
+		for (int i = 0; i < properties.size(); i++) {
+			final PropertyDefinition property = properties.get(i);
+			if (property.getType().equals(primitiveType) && definition.hasSetter(property)) {
+				writer.indent(3).append("case ").append(i).append(": ");
+				writeReceiver(definition, writer);
+				writer.append(property.getSetterName()).append("(value); return;").newLine();
+			}
+		}
+		writeUnsupportedCases(writer, properties, primitiveType, p -> !definition.hasSetter(p),
+				definition.getSingleName() + " is read-only");
+		writeDefaultCase(writer, "IllegalArgumentException", typeError);
+		writer.indent(2).append('}').newLine()
+				.indent(1).append('}').newLine();
+	}
+
+	/** Generic beans are set through their raw type, as a wildcard-typed bean accepts no value for {@code T}. */
+	private void writeReceiver(BeanDefinition definition, SourceWriter writer) {
+		if (definition.getTypeParameters().isEmpty()) {
+			writer.append("bean.");
+		} else {
+			writer.append("((").append(definition.getSingleName()).append(") bean).");
+		}
+	}
+
+	/** Writes the cases of the properties, of the given type if not null, that can't be read or written. */
+	private void writeUnsupportedCases(SourceWriter writer, List<PropertyDefinition> properties,
+			String primitiveType, Predicate<PropertyDefinition> unsupported, String reason) {
+
+		boolean anyUnsupported = false;
+		for (int i = 0; i < properties.size(); i++) {
+			final PropertyDefinition property = properties.get(i);
+			if (unsupported.test(property) && (primitiveType == null || property.getType().equals(primitiveType))) {
+				writer.indent(3).append("case ").append(i).append(':').newLine();
+				anyUnsupported = true;
+			}
+		}
+		if (anyUnsupported) {
+			writer.indent(4).append("throw new UnsupportedOperationException(\"Property \" + NAMES[index] + \" of ")
+					.append(reason).append("\");").newLine();
+		}
+	}
+
+	private static void writeDefaultCase(SourceWriter writer, String exception, String message) {
+		writer.indent(3).append("default:").newLine()
+				.indent(4).append("throw new ").append(exception).append('(').append(message).append(");").newLine();
+	}
+}
@@ -5,7 +5,7 @@ import java.lang.annotation.Retention;
 import java.lang.annotation.RetentionPolicy;
 import java.lang.annotation.Target;
 
-@Retention(RetentionPolicy.SOURCE)
+@Retention(RetentionPolicy.CLASS)
 @Target(ElementType.TYPE)
 public @interface Bean {
 
@@ -13,5 +13,41 @@ public @interface Bean {
 
 	boolean noArgsConstructor() default false;
 
+	/** See {@link BeanTemplate#objectMethods()}. */
+	boolean objectMethods() default true;
+
+	/** See {@link BeanTemplate#cachedHashCode()}. */
+	boolean cachedHashCode() default false;
+
 	boolean setters() default true;
+
+	/** Generates a final bean without setters, with a {@code withX} method per @{@link Builder} parameter. */
+	boolean immutable() default false;
+
+	/** See {@link BeanTemplate#concurrent()}. */
+	boolean concurrent() default false;
+
+	/** See {@link BeanTemplate#externalizable()}. */
+	boolean externalizable() default false;
+
+	/** See {@link BeanTemplate#accessor()}. */
+	boolean accessor() default false;
+
+	/** See {@link BeanTemplate#jsonCodec()}. */
+	boolean jsonCodec() default false;
+
+	/** See {@link BeanTemplate#binaryCodec()}. */
+	boolean binaryCodec() default false;
+
+	/** See {@link BeanTemplate#columns()}. */
+	boolean columns() default false;
+
+	/** See {@link BeanTemplate#comparators()}. */
+	boolean comparators() default false;
+
+	/** See {@link BeanTemplate#query()}. */
+	boolean query() default false;
+
+	/** See {@link BeanTemplate#diff()}. */
+	boolean diff() default false;
 }
@@ -2,30 +2,57 @@ package au.id.villar.utils.beangen;
 
 import java.io.IOException;
 import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Set;
+import javax.lang.model.element.Element;
 
 /** Contains information about a bean to be generated and is responsible for writing the bean to be generated into
  * a @{@link java.io.Writer}.  */
 class BeanDefinition {
 
-	private static final String GENERATOR_NAME = "Simple bean generator";
-	private static final String LINE_END = System.lineSeparator();
-	private static final String INDENTATION_UNIT = "\t";
+	static final String GENERATOR_NAME = "Simple bean generator";
+	private static final Set<String> NUMERIC_PRIMITIVES = Set.of("byte", "short", "int", "long", "float", "double");
+	private static final ConstructorDefinition DEFAULT_CONSTRUCTOR
+			= new ConstructorDefinition("public", Collections.emptyList(), false);
 
 	private final boolean entityTemplate;
 	private final String qualifiedName;
 	private final String packageName;
 	private final String singleName;
 	private final String extendsFrom;
+	private Element originatingElement;
 	private String entityName;
+	private String tableName;
 	private boolean withSetters;
+	private boolean withEquals;
+	private boolean withHashCode;
+	private boolean withToString;
+	private boolean cachedHashCode;
+	private boolean immutable;
+	private boolean dirtyTracking;
+	private boolean concurrent;
+	private boolean externalizable;
+	private boolean withAccessor;
+	private boolean withJsonCodec;
+	private boolean withBinaryCodec;
+	private boolean withColumns;
+	private boolean withJdbcMapper;
+	private boolean withIndex;
+	private boolean withComparators;
+	private boolean withQuery;
+	private boolean withDiff;
 	private ConstructorDefinition builderConstructor;
 	private List<String> typeParameters = new ArrayList<>();
 	private List<ConstructorDefinition> constructors = new ArrayList<>();
 	private List<PropertyDefinition> properties = new ArrayList<>();
+	private List<PropertyDefinition> inheritedProperties = new ArrayList<>();
+	private List<OrderingDefinition> orderings = new ArrayList<>();
 
 	/**
 	 * Creates a new BeanDefinition
@@ -64,6 +91,18 @@ class BeanDefinition {
 		return singleName;
 	}
 
+	/**
+	 * The template element this bean is generated from. It's passed to the {@link javax.annotation.processing.Filer}
+	 * so incremental builds can tie the generated file to its template and nothing else.
+	 */
+	public Element getOriginatingElement() {
+		return originatingElement;
+	}
+
+	public void setOriginatingElement(Element originatingElement) {
+		this.originatingElement = originatingElement;
+	}
+
 	public String getEntityName() {
 		return entityName;
 	}
@@ -72,6 +111,18 @@ class BeanDefinition {
 		this.entityName = entityName;
 	}
 
+	/** Name of the table the bean is mapped to: that of its {@code @Table}, or else its entity name or its own name. */
+	public String getTableName() {
+		if (tableName != null) {
+			return tableName;
+		}
+		return entityName != null && !entityName.isEmpty() ? entityName : singleName;
+	}
+
+	public void setTableName(String tableName) {
+		this.tableName = tableName;
+	}
+
 	public boolean isWithSetters() {
 		return withSetters;
 	}
@@ -80,6 +131,186 @@ class BeanDefinition {
 		this.withSetters = withSetters;
 	}
 
+	public boolean isWithEquals() {
+		return withEquals;
+	}
+
+	public void setWithEquals(boolean withEquals) {
+		this.withEquals = withEquals;
+	}
+
+	public boolean isWithHashCode() {
+		return withHashCode;
+	}
+
+	public void setWithHashCode(boolean withHashCode) {
+		this.withHashCode = withHashCode;
+	}
+
+	public boolean isWithToString() {
+		return withToString;
+	}
+
+	public void setWithToString(boolean withToString) {
+		this.withToString = withToString;
+	}
+
+	public boolean isCachedHashCode() {
+		return cachedHashCode;
+	}
+
+	public void setCachedHashCode(boolean cachedHashCode) {
+		this.cachedHashCode = cachedHashCode;
+	}
+
+	public boolean isImmutable() {
+		return immutable;
+	}
+
+	public void setImmutable(boolean immutable) {
+		this.immutable = immutable;
+	}
+
+	public boolean isDirtyTracking() {
+		return dirtyTracking;
+	}
+
+	public void setDirtyTracking(boolean dirtyTracking) {
+		this.dirtyTracking = dirtyTracking;
+	}
+
+	/**
+	 * The properties whose changes are tracked when {@link #isDirtyTracking()}: those the template declares that
+	 * have a setter, generated or the template's own. A property's index in this list is its bit in the dirty masks.
+	 */
+	public List<PropertyDefinition> getDirtyTrackedProperties() {
+		if (!dirtyTracking) {
+			return List.of();
+		}
+		return properties.stream().filter(this::hasSetter).toList();
+	}
+
+	public boolean isConcurrent() {
+		return concurrent;
+	}
+
+	public void setConcurrent(boolean concurrent) {
+		this.concurrent = concurrent;
+	}
+
+	/**
+	 * The properties accessed through VarHandles when {@link #isConcurrent()}: those the template declares that are
+	 * neither final nor lazy.
+	 */
+	public List<PropertyDefinition> getConcurrentProperties() {
+		if (!concurrent) {
+			return List.of();
+		}
+		return properties.stream().filter(p -> !p.isFinal() && !p.isLazy()).toList();
+	}
+
+	public boolean isExternalizable() {
+		return externalizable;
+	}
+
+	public void setExternalizable(boolean externalizable) {
+		this.externalizable = externalizable;
+	}
+
+	/**
+	 * The properties written by {@code writeExternal}: all of them but the transient ones. The processor rejects
+	 * externalizable beans with final properties that aren't transient, as {@code readExternal} can't assign them.
+	 */
+	public List<PropertyDefinition> getExternalizedProperties() {
+		return getAllProperties().stream().filter(p -> !p.isTransient()).toList();
+	}
+
+	/** True if the bean can be created without arguments by anyone, as {@link java.io.Externalizable} needs. */
+	public boolean hasPublicNoArgsConstructor() {
+		return constructors.isEmpty()
+				|| constructors.stream().anyMatch(c -> c.parameters().isEmpty() && c.accessModifier().equals("public"));
+	}
+
+	public boolean isWithAccessor() {
+		return withAccessor;
+	}
+
+	public void setWithAccessor(boolean withAccessor) {
+		this.withAccessor = withAccessor;
+	}
+
+	public boolean isWithJsonCodec() {
+		return withJsonCodec;
+	}
+
+	public void setWithJsonCodec(boolean withJsonCodec) {
+		this.withJsonCodec = withJsonCodec;
+	}
+
+	public boolean isWithBinaryCodec() {
+		return withBinaryCodec;
+	}
+
+	public void setWithBinaryCodec(boolean withBinaryCodec) {
+		this.withBinaryCodec = withBinaryCodec;
+	}
+
+	public boolean isWithColumns() {
+		return withColumns;
+	}
+
+	public void setWithColumns(boolean withColumns) {
+		this.withColumns = withColumns;
+	}
+
+	public boolean isWithJdbcMapper() {
+		return withJdbcMapper;
+	}
+
+	public void setWithJdbcMapper(boolean withJdbcMapper) {
+		this.withJdbcMapper = withJdbcMapper;
+	}
+
+	public boolean isWithIndex() {
+		return withIndex;
+	}
+
+	public void setWithIndex(boolean withIndex) {
+		this.withIndex = withIndex;
+	}
+
+	public boolean isWithComparators() {
+		return withComparators;
+	}
+
+	public void setWithComparators(boolean withComparators) {
+		this.withComparators = withComparators;
+	}
+
+	public boolean isWithQuery() {
+		return withQuery;
+	}
+
+	public void setWithQuery(boolean withQuery) {
+		this.withQuery = withQuery;
+	}
+
+	public boolean isWithDiff() {
+		return withDiff;
+	}
+
+	public void setWithDiff(boolean withDiff) {
+		this.withDiff = withDiff;
+	}
+
+	public List<OrderingDefinition> getOrderings() {
+		return orderings;
+	}
+
+	public void setOrderings(List<OrderingDefinition> orderings) {
+		this.orderings = orderings != null ? orderings : new ArrayList<>();
+	}
+
 	public List<String> getTypeParameters() {
 		return typeParameters;
 	}
@@ -100,6 +331,20 @@ class BeanDefinition {
 				.orElse(null);
 	}
 
+	public boolean hasBuilder() {
+		return builderConstructor != null;
+	}
+
+	/** The constructor used by the generated builder, or null if the bean has no builder. */
+	public ConstructorDefinition getBuilderConstructor() {
+		return builderConstructor;
+	}
+
+	/** True if the generated bean can be created without arguments, by an explicit or a default constructor. */
+	public boolean hasNoArgsConstructor() {
+		return constructors.isEmpty() || constructors.stream().anyMatch(c -> c.parameters().isEmpty());
+	}
+
 	public List<PropertyDefinition> getProperties() {
 		return properties;
 	}
@@ -108,24 +353,127 @@ class BeanDefinition {
 		this.properties = properties != null ? properties : new ArrayList<>();
 	}
 
-	void writeSourceCode(Writer writer) throws IOException {
-		writePackage(writer);
-		writeImports(writer);
-		writeClassNameDeclaration(writer);
-		writeConstructors(writer);
-		writeGettersAndSetters(writer);
-		writeBuilder(writer);
+	/** Properties the bean inherits from the superclasses of its template, closest superclass first. */
+	public List<PropertyDefinition> getInheritedProperties() {
+		return inheritedProperties;
+	}
+
+	public void setInheritedProperties(List<PropertyDefinition> inheritedProperties) {
+		this.inheritedProperties = inheritedProperties != null ? inheritedProperties : new ArrayList<>();
+	}
+
+	/** Properties declared by the template followed by the inherited ones. */
+	public List<PropertyDefinition> getAllProperties() {
+		if (inheritedProperties.isEmpty()) {
+			return properties;
+		}
+		final List<PropertyDefinition> allProperties = new ArrayList<>(properties.size() + inheritedProperties.size());
+		allProperties.addAll(properties);
+		allProperties.addAll(inheritedProperties);
+		return allProperties;
+	}
+
+	/** True if the bean can be read through a getter named after the property, its own or inherited. */
+	public boolean hasGetter(PropertyDefinition property) {
+		return !property.isInherited() || property.hasInheritedGetter();
+	}
+
+	/** True if the bean can be written through a setter named after the property, its own or inherited. */
+	public boolean hasSetter(PropertyDefinition property) {
+		if (property.isInherited()) {
+			return property.hasInheritedSetter();
+		}
+		return !property.isFinal() && (!property.needsSetter() || withSetters);
+	}
+
+	/**
+	 * Returns a canonical description of everything that affects the generated source code, so two definitions with
+	 * the same fingerprint render exactly the same source.
+	 */
+	String fingerprint() {
+		final StringBuilder builder = new StringBuilder()
+				.append("bean ").append(qualifiedName).append('\n')
+				.append("extends ").append(extendsFrom).append('\n')
+				.append("entity ").append(entityTemplate).append(' ').append(entityName).append('\n')
+				.append("setters ").append(withSetters).append('\n')
+				.append("objectMethods ").append(withEquals).append(' ').append(withHashCode).append(' ')
+				.append(withToString).append(' ').append(cachedHashCode).append('\n')
+				.append("immutable ").append(immutable).append('\n')
+				.append("dirtyTracking ").append(dirtyTracking).append('\n')
+				.append("concurrent ").append(concurrent).append('\n')
+				.append("externalizable ").append(externalizable).append('\n')
+				.append("accessor ").append(withAccessor).append('\n')
+				.append("jsonCodec ").append(withJsonCodec).append('\n')
+				.append("binaryCodec ").append(withBinaryCodec).append('\n')
+				.append("columns ").append(withColumns).append('\n')
+				.append("jdbcMapper ").append(withJdbcMapper).append(' ').append(tableName).append('\n')
+				.append("index ").append(withIndex).append('\n')
+				.append("comparators ").append(withComparators).append(' ').append(orderings).append('\n')
+				.append("query ").append(withQuery).append('\n')
+				.append("diff ").append(withDiff).append('\n')
+				.append("typeParameters ").append(typeParameters).append('\n');
+
+		for (ConstructorDefinition constructor : constructors) {
+			builder.append("constructor ").append(constructor).append('\n');
+		}
+
+		for (PropertyDefinition property : properties) {
+			builder.append("property ").append(property.getName()).append(' ').append(property.getType())
+					.append(' ').append(property.getErasedType()).append(' ').append(property.isFinal())
+					.append(' ').append(property.needsGetter())
+					.append(' ').append(property.needsSetter())
+					.append(' ').append(property.getLazyMethod()).append(' ').append(property.getLazyPublication())
+					.append(' ').append(property.getColumn()).append(' ').append(property.isComparable())
+					.append(' ').append(property.isTransient())
+					.append('\n');
+		}
 
-		// TODO add support for "toString", "equals", "hashCode" (writeToString(), writeEquals(), writeHashCode())
+		for (PropertyDefinition property : inheritedProperties) {
+			builder.append("inherited ").append(property.getName()).append(' ').append(property.getType())
+					.append(' ').append(property.getErasedType()).append(' ').append(property.isFinal())
+					.append(' ').append(property.hasInheritedGetter()).append(' ').append(property.hasInheritedSetter())
+					.append(' ').append(property.getColumn()).append(' ').append(property.isComparable())
+					.append(' ').append(property.isTransient())
+					.append('\n');
+		}
 
-		writeClassEnding(writer);
+		return builder.toString();
 	}
 
-	private void writeClassEnding(Writer writer) throws IOException {
-		writer.append("}").append(LINE_END);
+	/** Renders the bean's source code and writes it to the given writer in a single call. */
+	void writeSourceCode(Writer writer) throws IOException {
+		writer.write(renderSourceCode());
+	}
+
+	String renderSourceCode() {
+		final SourceWriter writer = SourceWriter.acquire();
+		try {
+			writePackage(writer);
+			writeImports(writer);
+			writeClassNameDeclaration(writer);
+			writeSerialVersionUid(writer);
+			writeHandles(writer);
+			writeConstructors(writer);
+			writeGettersAndSetters(writer);
+			writeDirtyTracking(writer);
+			writeWithers(writer);
+			writeBuilder(writer);
+			writeExternalization(writer);
+			writeEquals(writer);
+			writeHashCode(writer);
+			writeToString(writer);
+			writeClassEnding(writer);
+			return writer.toString();
+		} finally {
+			writer.release();
+		}
+	}
+
+	private void writeClassEnding(SourceWriter writer) {
+		writer.append('}').newLine();
 	}
 
-	private void writeImports(Writer writer) throws IOException {
+	private void writeImports(SourceWriter writer) {
 		List<String> imports = new ArrayList<>();
 
 		imports.add("javax.annotation.processing.Generated");
@@ -138,38 +486,70 @@ class BeanDefinition {
 		Collections.sort(imports);
 
 		for (String importStatement : imports) {
-			writer.append("import ").append(importStatement).append(";").append(LINE_END);
+			writer.append("import ").append(importStatement).append(';').newLine();
 		}
-		writer.append(LINE_END);
+		writer.newLine();
 	}
 
-	private void writePackage(Writer writer) throws IOException {
+	private void writePackage(SourceWriter writer) {
 		final String packageName = getPackageName();
 
 		if (!packageName.isEmpty()) {
-			writer.append("package ").append(packageName).append(";").append(LINE_END).append(LINE_END);
+			writer.append("package ").append(packageName).append(';').newLine().newLine();
 		}
 	}
 
-	private void writeClassNameDeclaration(Writer writer) throws IOException {
-		writer.append("@Generated(\"").append(GENERATOR_NAME).append("\")").append(LINE_END);
+	private void writeClassNameDeclaration(SourceWriter writer) {
+		writer.append("@Generated(\"").append(GENERATOR_NAME).append("\")").newLine();
 		if (entityTemplate) {
 			writer.append("@Entity");
 			if (entityName != null && !entityName.isEmpty()) {
 				writer.append("(name=\"").append(entityName).append("\")");
 			}
-			writer.append(LINE_END);
+			writer.newLine();
 		}
 		final String superClassName = inferSuperClassName();
-		writer.append("public class ").append(getSingleName());
+		writer.append(immutable ? "public final class " : "public class ").append(getSingleName());
 		writeTypeParameters(writer);
-		writer.append(" extends ").append(superClassName).append(" {").append(LINE_END);
+		writer.append(" extends ").append(superClassName);
+		writeTypeParameters(writer);
+		if (externalizable) {
+			writer.append(" implements java.io.Externalizable");
+		}
+		writer.append(" {").newLine();
 	}
 
-	private void writeConstructors(Writer writer) throws IOException {
+	/**
+	 * Declares the serialVersionUID of an externalizable bean as the first eight bytes of the SHA-256 of the names and
+	 * erased types of the properties it writes, so streams are only read by beans writing the same properties.
+	 */
+	private void writeSerialVersionUid(SourceWriter writer) {
+
+		if (!externalizable) {
+			return;
+		}
+
+		final StringBuilder schema = new StringBuilder();
+		for (PropertyDefinition property : getExternalizedProperties()) {
+			schema.append(property.getName()).append(' ').append(property.getErasedType()).append('\n');
+		}
+		final long serialVersionUid;
+		try {
+			serialVersionUid = ByteBuffer.wrap(MessageDigest.getInstance("SHA-256")
+					.digest(schema.toString().getBytes(StandardCharsets.UTF_8))).getLong();
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+
+		writer.newLine()
+				.indent(1).append("private static final long serialVersionUID = ")
+				.append(Long.toString(serialVersionUid)).append("L;").newLine();
+	}
+
+	private void writeConstructors(SourceWriter writer) {
 
 		if (constructors.size() == 0) {
-			writeConstructor(writer, new ConstructorDefinition("public", Collections.emptyList(), false));
+			writeConstructor(writer, DEFAULT_CONSTRUCTOR);
 			return;
 		}
 
@@ -178,51 +558,455 @@ class BeanDefinition {
 		}
 	}
 
-	private void writeGettersAndSetters(Writer writer) throws IOException {
+	private void writeGettersAndSetters(SourceWriter writer) {
+
+		final List<PropertyDefinition> dirtyProperties = getDirtyTrackedProperties();
+		final List<PropertyDefinition> concurrentProperties = getConcurrentProperties();
 
 		for (PropertyDefinition property : properties) {
-			if (property.needsGetter()) {
-				writer.append(LINE_END).append(indentation(1)).append("public ").append(property.getType())
-						.append(" get").append(Character.toUpperCase(property.getName().charAt(0)))
-						.append(property.getName().substring(1)).append("() {").append(LINE_END)
-						.append(indentation(2)).append("return ").append(property.getName()).append(";")
-						.append(LINE_END)
-						.append(indentation(1)).append("}").append(LINE_END);
+			final boolean atomic = concurrentProperties.contains(property);
+			if (property.isLazy()) {
+				writeLazyGetter(writer, property);
+			} else if (atomic && property.needsGetter()) {
+				writer.newLine();
+				writeUncheckedSuppression(writer, property);
+				writer.indent(1).append("public ").append(property.getType()).append(' ')
+						.append(property.getGetterName()).append("() {").newLine()
+						.indent(2).append("return (").append(property.getType()).append(") ")
+						.append(handleName(property)).append(".getAcquire(this);").newLine()
+						.indent(1).append('}').newLine();
+			} else if (property.needsGetter()) {
+				writer.newLine().indent(1).append("public ").append(property.getType())
+						.append(' ').append(property.getGetterName()).append("() {").newLine()
+						.indent(2).append("return ").append(property.getName()).append(';').newLine()
+						.indent(1).append('}').newLine();
 			}
 
+			final int dirtyIndex = dirtyProperties.indexOf(property);
+
 			if (!property.isFinal() && property.needsSetter() && withSetters) {
-				writer.append(LINE_END)
-						.append(indentation(1)).append("public void set")
-						.append(Character.toUpperCase(property.getName().charAt(0)))
-						.append(property.getName().substring(1)).append("(").append(property.getType())
-						.append(" ").append(property.getName()).append(") {").append(LINE_END)
-						.append(indentation(2)).append("this.").append(property.getName())
-						.append(" = ").append(property.getName()).append(";").append(LINE_END)
-						.append(indentation(1)).append("}").append(LINE_END);
+				writer.newLine()
+						.indent(1).append("public void ").append(property.getSetterName())
+						.append('(').append(property.getType()).append(' ').append(property.getName()).append(") {")
+						.newLine();
+				if (atomic || property.isLazy() && property.getLazyPublication() == Lazy.Publication.VAR_HANDLE) {
+					writer.indent(2).append(handleName(property)).append(".setRelease(this, ")
+							.append(property.getName()).append(");").newLine();
+				} else {
+					writeSharedAssignment(writer, property, "this", property.getName(), 2);
+				}
+				writeDirtyMark(writer, dirtyIndex);
+				writer.indent(1).append('}').newLine();
+			} else if (dirtyIndex != -1) {
+				writer.newLine()
+						.indent(1).append("@Override").newLine()
+						.indent(1).append("public void ").append(property.getSetterName())
+						.append('(').append(property.getType()).append(' ').append(property.getName()).append(") {")
+						.newLine()
+						.indent(2).append("super.").append(property.getSetterName()).append('(')
+						.append(property.getName()).append(");").newLine();
+				writeDirtyMark(writer, dirtyIndex);
+				writer.indent(1).append('}').newLine();
+			}
+
+			if (atomic && hasSetter(property)) {
+				writeAtomicUpdates(writer, property);
+			}
+		}
+	}
+
+	/**
+	 * Writes the atomic updates of a property of a concurrent bean: {@code compareAndSetX}, {@code getAndAddX} if it's
+	 * a numeric primitive, and {@code updateX}, which retries the operator until the value it read is still there.
+	 * Their parameters and variables are named after the property, so no property can collide with them.
+	 */
+	private static void writeAtomicUpdates(SourceWriter writer, PropertyDefinition property) {
+
+		final String name = property.getName();
+		final String type = property.getType();
+		final String handle = handleName(property);
+		final String capitalizedName = Character.toUpperCase(name.charAt(0)) + name.substring(1);
+		final String expected = "expected" + capitalizedName;
+		final String replacement = "new" + capitalizedName;
+		final String delta = name + "Delta";
+		final String operatorName = name + "Operator";
+		final String current = "current" + capitalizedName;
+		final String next = "next" + capitalizedName;
+
+		writer.newLine()
+				.indent(1).append("/** Sets {@code ").append(name).append("} if it's {@code ").append(expected)
+				.append("}, returning whether it was. */").newLine()
+				.indent(1).append("public boolean compareAndSet").append(capitalizedName).append('(').append(type)
+				.append(' ').append(expected).append(", ").append(type).append(' ').append(replacement).append(") {")
+				.newLine()
+				.indent(2).append("return ").append(handle).append(".compareAndSet(this, ").append(expected)
+				.append(", ").append(replacement).append(");").newLine()
+				.indent(1).append('}').newLine();
+
+		if (NUMERIC_PRIMITIVES.contains(type)) {
+			writer.newLine()
+					.indent(1).append("/** Adds {@code ").append(delta).append("} to {@code ").append(name)
+					.append("}, returning its previous value. */").newLine()
+					.indent(1).append("public ").append(type).append(" getAndAdd").append(capitalizedName).append('(')
+					.append(type).append(' ').append(delta).append(") {").newLine()
+					.indent(2).append("return (").append(type).append(") ").append(handle)
+					.append(".getAndAdd(this, ").append(delta).append(");").newLine()
+					.indent(1).append('}').newLine();
+		}
+
+		final String operator;
+		final String apply;
+		switch (type) {
+			case "byte", "short", "char", "int" -> {
+				operator = "java.util.function.IntUnaryOperator";
+				apply = "applyAsInt";
+			}
+			case "long" -> {
+				operator = "java.util.function.LongUnaryOperator";
+				apply = "applyAsLong";
+			}
+			case "float", "double" -> {
+				operator = "java.util.function.DoubleUnaryOperator";
+				apply = "applyAsDouble";
+			}
+			default -> {
+				operator = "java.util.function.UnaryOperator<" + (property.isPrimitive()
+						? property.getWrapperType() : type) + '>';
+				apply = "apply";
+			}
+		}
+		final String narrowing = type.equals("byte") || type.equals("short") || type.equals("char")
+				|| type.equals("float") ? "(" + type + ") " : "";
+
+		writer.newLine()
+				.indent(1).append("/** Sets {@code ").append(name).append("} to what the operator makes of it, ")
+				.append("returning the new value. */").newLine();
+		writeUncheckedSuppression(writer, property);
+		writer.indent(1).append("public ").append(type).append(" update").append(capitalizedName).append('(')
+				.append(operator).append(' ').append(operatorName).append(") {").newLine()
+				.indent(2).append("while (true) {").newLine()
+				.indent(3).append("final ").append(type).append(' ').append(current).append(" = (").append(type)
+				.append(") ").append(handle).append(".getAcquire(this);").newLine()
+				.indent(3).append("final ").append(type).append(' ').append(next).append(" = ").append(narrowing)
+				.append(operatorName).append('.').append(apply).append('(').append(current).append(");").newLine()
+				.indent(3).append("if (").append(handle).append(".weakCompareAndSet(this, ").append(current)
+				.append(", ").append(next).append(")) {").newLine()
+				.indent(4).append("return ").append(next).append(';').newLine()
+				.indent(3).append('}').newLine()
+				.indent(2).append('}').newLine()
+				.indent(1).append('}').newLine();
+	}
+
+	/** Suppresses the unchecked cast of a VarHandle's value to a property's type, if that type is generic. */
+	private static void writeUncheckedSuppression(SourceWriter writer, PropertyDefinition property) {
+		if (!property.getType().equals(property.getErasedType())) {
+			writer.indent(1).append("@SuppressWarnings(\"unchecked\")").newLine();
+		}
+	}
+
+	/**
+	 * Writes the getter of a lazy property, which computes the value on first read. With
+	 * {@link Lazy.Publication#LOCKING} a volatile flag tells whether the value is there; with
+	 * {@link Lazy.Publication#VAR_HANDLE} the field itself, read with acquire semantics, is null until it is.
+	 */
+	private void writeLazyGetter(SourceWriter writer, PropertyDefinition property) {
+		final String name = property.getName();
+
+		if (property.getLazyPublication() == Lazy.Publication.VAR_HANDLE) {
+			final String handle = handleName(property);
+			writer.newLine()
+					.indent(1).append("@SuppressWarnings(\"unchecked\")").newLine()
+					.indent(1).append("public ").append(property.getType()).append(' ')
+					.append(property.getGetterName()).append("() {").newLine()
+					.indent(2).append(property.getType()).append(" value = (").append(property.getType()).append(") ")
+					.append(handle).append(".getAcquire(this);").newLine()
+					.indent(2).append("if (value == null) {").newLine()
+					.indent(3).append("value = ").append(property.getLazyMethod()).append("();").newLine()
+					.indent(3).append("final Object witness = ").append(handle).append(".compareAndExchange(this, (")
+					.append(property.getErasedType()).append(") null, value);").newLine()
+					.indent(3).append("if (witness != null) {").newLine()
+					.indent(4).append("value = (").append(property.getType()).append(") witness;").newLine()
+					.indent(3).append('}').newLine()
+					.indent(2).append('}').newLine()
+					.indent(2).append("return value;").newLine()
+					.indent(1).append('}').newLine();
+			return;
+		}
+
+		writer.newLine()
+				.indent(1).append("private transient volatile boolean ").append(name).append("Computed;").newLine()
+				.newLine()
+				.indent(1).append("public ").append(property.getType()).append(' ').append(property.getGetterName())
+				.append("() {").newLine()
+				.indent(2).append("if (!").append(name).append("Computed) {").newLine()
+				.indent(3).append("synchronized (this) {").newLine()
+				.indent(4).append("if (!").append(name).append("Computed) {").newLine()
+				.indent(5).append(name).append(" = ").append(property.getLazyMethod()).append("();").newLine()
+				.indent(5).append(name).append("Computed = true;").newLine()
+				.indent(4).append('}').newLine()
+				.indent(3).append('}').newLine()
+				.indent(2).append('}').newLine()
+				.indent(2).append("return ").append(name).append(';').newLine()
+				.indent(1).append('}').newLine();
+	}
+
+	/**
+	 * Writes the assignment of a property of a bean other threads may already see. A lazy property with a locking
+	 * publication is set, and marked as computed, while holding the bean's monitor, so a getter computing its value
+	 * at the same time can't overwrite the one being set.
+	 */
+	private static void writeSharedAssignment(SourceWriter writer, PropertyDefinition property, String bean,
+			String value, int indentation) {
+		final boolean locking = property.isLazy() && property.getLazyPublication() == Lazy.Publication.LOCKING;
+		if (locking) {
+			writer.indent(indentation).append("synchronized (").append(bean).append(") {").newLine();
+		}
+		final int assignmentIndentation = locking ? indentation + 1 : indentation;
+		writer.indent(assignmentIndentation).append(bean).append('.').append(property.getName()).append(" = ")
+				.append(value).append(';').newLine();
+		writeLazyComputedMark(writer, property, bean, assignmentIndentation);
+		if (locking) {
+			writer.indent(indentation).append('}').newLine();
+		}
+	}
+
+	/**
+	 * Marks a lazy property with a locking publication as computed, after its field has been set. Without the
+	 * monitor, so only for beans no other thread can see yet, as when they're being constructed or read.
+	 */
+	private static void writeLazyComputedMark(SourceWriter writer, PropertyDefinition property, String bean,
+			int indentation) {
+		if (property != null && property.isLazy() && property.getLazyPublication() == Lazy.Publication.LOCKING) {
+			writer.indent(indentation).append(bean).append('.').append(property.getName()).append("Computed = true;")
+					.newLine();
+		}
+	}
+
+	/** VarHandles of the lazy properties published through them and of the properties of a concurrent bean. */
+	private void writeHandles(SourceWriter writer) {
+
+		final List<PropertyDefinition> concurrentProperties = getConcurrentProperties();
+		final List<PropertyDefinition> handledProperties = properties.stream()
+				.filter(p -> p.isLazy() && p.getLazyPublication() == Lazy.Publication.VAR_HANDLE
+						|| concurrentProperties.contains(p))
+				.toList();
+
+		if (handledProperties.isEmpty()) {
+			return;
+		}
+
+		writer.newLine();
+		for (PropertyDefinition property : handledProperties) {
+			writer.indent(1).append("private static final java.lang.invoke.VarHandle ").append(handleName(property))
+					.append(';').newLine();
+		}
+		writer.newLine()
+				.indent(1).append("static {").newLine()
+				.indent(2).append("try {").newLine()
+				.indent(3).append("final java.lang.invoke.MethodHandles.Lookup lookup")
+				.append(" = java.lang.invoke.MethodHandles.lookup();").newLine();
+		for (PropertyDefinition property : handledProperties) {
+			writer.indent(3).append(handleName(property)).append(" = lookup.findVarHandle(").append(getSingleName())
+					.append(".class, \"").append(property.getName()).append("\", ").append(property.getErasedType())
+					.append(".class);").newLine();
+		}
+		writer.indent(2).append("} catch (ReflectiveOperationException e) {").newLine()
+				.indent(3).append("throw new ExceptionInInitializerError(e);").newLine()
+				.indent(2).append('}').newLine()
+				.indent(1).append('}').newLine();
+	}
+
+	private static String handleName(PropertyDefinition property) {
+		final StringBuilder name = new StringBuilder(property.getName().length() + 8);
+		for (int i = 0; i < property.getName().length(); i++) {
+			final char c = property.getName().charAt(i);
+			if (Character.isUpperCase(c) && i > 0) {
+				name.append('_');
+			}
+			name.append(Character.toUpperCase(c));
+		}
+		return name.append("_HANDLE").toString();
+	}
+
+	/** Expression reading a property from within the bean: its field, or its getter if the property is lazy. */
+	private static String read(PropertyDefinition property) {
+		return property.isLazy() ? property.getGetterName() + "()" : property.getName();
+	}
+
+	/** Like {@link #read(PropertyDefinition)}, qualified so no parameter or local variable can hide the property. */
+	private static String read(String receiver, PropertyDefinition property) {
+		return receiver + '.' + read(property);
+	}
+
+	private PropertyDefinition findProperty(String name) {
+		for (PropertyDefinition property : properties) {
+			if (property.getName().equals(name)) {
+				return property;
 			}
 		}
+		return null;
+	}
+
+	private static void writeDirtyMark(SourceWriter writer, int index) {
+		if (index != -1) {
+			writer.indent(2).append("dirty").append(index / 64).append(" |= 1L << ").append(index % 64).append(';')
+					.newLine();
+		}
+	}
+
+	/**
+	 * Writes {@code writeExternal} and {@code readExternal}. Reading sets the fields directly, so it neither marks
+	 * dirty-tracked properties as set nor goes through VarHandles, as the bean isn't shared yet.
+	 */
+	private void writeExternalization(SourceWriter writer) {
+
+		if (!externalizable) {
+			return;
+		}
+
+		final List<PropertyDefinition> externalizedProperties = getExternalizedProperties();
+
+		writer.newLine()
+				.indent(1).append("@Override").newLine()
+				.indent(1).append("public void writeExternal(java.io.ObjectOutput out) throws java.io.IOException {")
+				.newLine();
+		for (PropertyDefinition property : externalizedProperties) {
+			ExternalValues.writeValue(writer, 2, property.getType(), read("this", property));
+		}
+		writer.indent(1).append('}').newLine();
+
+		writer.newLine()
+				.indent(1).append("@Override").newLine();
+		if (externalizedProperties.stream().anyMatch(p -> !p.getType().equals(p.getErasedType()))) {
+			writer.indent(1).append("@SuppressWarnings(\"unchecked\")").newLine();
+		}
+		writer.indent(1).append("public void readExternal(java.io.ObjectInput in)")
+				.append(" throws java.io.IOException, ClassNotFoundException {").newLine();
+		for (PropertyDefinition property : externalizedProperties) {
+			writer.indent(2).append("this.").append(property.getName()).append(" = ")
+					.append(ExternalValues.readValue(property.getType())).append(';').newLine();
+			writeLazyComputedMark(writer, property, "this", 2);
+		}
+		writer.indent(1).append('}').newLine();
+	}
+
+	private void writeDirtyTracking(SourceWriter writer) {
+
+		if (!dirtyTracking) {
+			return;
+		}
+
+		final List<PropertyDefinition> dirtyProperties = getDirtyTrackedProperties();
+		final int masks = (dirtyProperties.size() + 63) / 64;
+
+		writer.newLine();
+		for (int i = 0; i < masks; i++) {
+			writer.indent(1).append("private transient long dirty").append(i).append(';').newLine();
+		}
+
+		writer.newLine()
+				.indent(1).append("/** Names of the properties set since the entity was created or last cleared. */")
+				.newLine()
+				.indent(1).append("public java.util.List<String> dirtyProperties() {").newLine()
+				.indent(2).append("final java.util.List<String> dirty = new java.util.ArrayList<>();").newLine();
+		for (int i = 0; i < dirtyProperties.size(); i++) {
+			writer.indent(2).append("if ((dirty").append(i / 64).append(" & 1L << ").append(i % 64)
+					.append(") != 0) {").newLine()
+					.indent(3).append("dirty.add(\"").append(dirtyProperties.get(i).getName()).append("\");").newLine()
+					.indent(2).append('}').newLine();
+		}
+		writer.indent(2).append("return dirty;").newLine()
+				.indent(1).append('}').newLine()
+				.newLine()
+				.indent(1).append("/** Whether any property was set since the entity was created or last cleared. */")
+				.newLine()
+				.indent(1).append("public boolean isDirty() {").newLine()
+				.indent(2).append("return ");
+		for (int i = 0; i < masks; i++) {
+			writer.append(i > 0 ? " || " : "").append("dirty").append(i).append(" != 0L");
+		}
+		writer.append(masks == 0 ? "false;" : ";").newLine()
+				.indent(1).append('}').newLine()
+				.newLine()
+				.indent(1).append("/** Whether the property was set since the entity was created or last cleared. */")
+				.newLine()
+				.indent(1).append("public boolean isDirty(String property) {").newLine()
+				.indent(2).append("switch (property) {").newLine();
+		for (int i = 0; i < dirtyProperties.size(); i++) {
+			writer.indent(3).append("case \"").append(dirtyProperties.get(i).getName()).append("\": return (dirty")
+					.append(i / 64).append(" & 1L << ").append(i % 64).append(") != 0;").newLine();
+		}
+		writer.indent(3).append("default: throw new IllegalArgumentException(\"No tracked property \" + property")
+				.append(" + \" in ").append(getSingleName()).append("\");").newLine()
+				.indent(2).append('}').newLine()
+				.indent(1).append('}').newLine()
+				.newLine()
+				.indent(1).append("/** Marks every property as clean, typically once the entity has been saved. */")
+				.newLine()
+				.indent(1).append("public void clearDirty() {").newLine();
+		for (int i = 0; i < masks; i++) {
+			writer.indent(2).append("dirty").append(i).append(" = 0L;").newLine();
+		}
+		writer.indent(1).append('}').newLine();
 	}
 
-	private void writeTypeParameters(Writer writer) throws IOException {
+	private void writeTypeParameters(SourceWriter writer) {
 		if (!typeParameters.isEmpty()) {
-			writer.append("<").append(String.join(", ", typeParameters)).append(">");
+			writer.append('<');
+			writeJoined(writer, typeParameters);
+			writer.append('>');
 		}
 	}
 
-	private void writeConstructor(Writer writer, ConstructorDefinition constructor)
-			throws IOException {
-		writer.append(LINE_END)
-				.append(indentation(1)).append(constructor.accessModifier()).append(" ").append(getSingleName())
-				.append("(").append(constructor.parameters().stream()
-						.map(p -> p.type() + " " + p.name())
-						.collect(Collectors.joining(", ")))
-				.append(") {").append(LINE_END).append(indentation(2))
-				.append("super(")
-				.append(constructor.parameters().stream()
-						.map(VariableDefinition::name)
-						.collect(Collectors.joining(", ")))
-				.append(");")
-				.append(LINE_END).append(indentation(1)).append("}").append(LINE_END);
+	private void writeConstructor(SourceWriter writer, ConstructorDefinition constructor) {
+		writer.newLine()
+				.indent(1).append(constructor.accessModifier()).append(' ').append(getSingleName()).append('(');
+		writeParameterDeclarations(writer, constructor.parameters());
+		writer.append(") {").newLine().indent(2).append("super(");
+		writeParameterNames(writer, constructor.parameters());
+		writer.append(");").newLine();
+		for (VariableDefinition parameter : constructor.parameters()) {
+			writeLazyComputedMark(writer, findProperty(parameter.name()), "this", 2);
+		}
+		for (int i = 0; i < getDirtyTrackedProperties().size(); i += 64) {
+			writer.indent(2).append("this.dirty").append(i / 64).append(" = 0L;").newLine();
+		}
+		if (hasPrecomputedHashCode()) {
+			writer.indent(2).append("this.cachedHashCode = computeHashCode();").newLine();
+		}
+		writer.indent(1).append('}').newLine();
+	}
+
+	/** Immutable beans compute their hash in their constructors, once all their properties are set. */
+	private boolean hasPrecomputedHashCode() {
+		return immutable && withHashCode;
+	}
+
+	private void writeWithers(SourceWriter writer) {
+
+		if (!immutable || builderConstructor == null) {
+			return;
+		}
+
+		for (VariableDefinition parameter : builderConstructor.parameters()) {
+			final String name = parameter.name();
+			writer.newLine()
+					.indent(1).append("public ").append(getSingleName());
+			writeTypeParameters(writer);
+			writer.append(" with").append(Character.toUpperCase(name.charAt(0))).append(name.substring(1))
+					.append('(').append(parameter.type()).append(' ').append(name).append(") {").newLine()
+					.indent(2).append("if (this.").append(name).append(" == ").append(name).append(") {").newLine()
+					.indent(3).append("return this;").newLine()
+					.indent(2).append('}').newLine()
+					.indent(2).append("return new ").append(getSingleName())
+					.append(typeParameters.isEmpty() ? "(" : "<>(");
+			for (int i = 0; i < builderConstructor.parameters().size(); i++) {
+				final String argument = builderConstructor.parameters().get(i).name();
+				writer.append(i > 0 ? ", " : "").append(argument.equals(name) ? "" : "this.").append(argument);
+			}
+			writer.append(");").newLine()
+					.indent(1).append('}').newLine();
+		}
 	}
 
 	private String inferSuperClassName() {
@@ -236,7 +1020,7 @@ class BeanDefinition {
 				: extendsFrom;
 	}
 
-	private void writeBuilder(Writer writer) throws IOException {
+	private void writeBuilder(SourceWriter writer) {
 
 		if (builderConstructor == null) {
 			return;
@@ -246,76 +1030,436 @@ class BeanDefinition {
 		writeBuilderPrivateProperties(writer);
 		writeBuilderFluidMethods(writer);
 		writeBuilderBuildMethod(writer);
+		writeReusableBuilderMethods(writer);
 		writeBuilderClassEnding(writer);
 		writeBuilderCreatorMethod(writer);
 		writeBuilderToBuilderMethod(writer);
 	}
 
-	private void writeBuilderNameDeclaration(Writer writer) throws IOException {
-		writer.append(LINE_END).append(LINE_END)
-				.append(indentation(1)).append("public static class ").append(getSingleName()).append("Builder");
+	private void writeBuilderNameDeclaration(SourceWriter writer) {
+		writer.newLine().newLine()
+				.indent(1).append("public static class ").append(getSingleName()).append("Builder");
 		writeTypeParameters(writer);
-		writer.append(" {").append(LINE_END);
+		writer.append(" {").newLine();
 	}
 
-	private void writeBuilderPrivateProperties(Writer writer) throws IOException {
+	private void writeBuilderPrivateProperties(SourceWriter writer) {
+		if (tracksBuilderProperties()) {
+			final List<VariableDefinition> parameters = builderConstructor.parameters();
+			writer.newLine();
+			for (int i = 0; i < parameters.size(); i += 64) {
+				long required = 0;
+				for (int j = i; j < Math.min(i + 64, parameters.size()); j++) {
+					if (builderConstructor.requiredParameters().contains(parameters.get(j).name())) {
+						required |= 1L << (j - i);
+					}
+				}
+				writer.indent(2).append("private static final long REQUIRED_").append(i / 64).append(" = 0x")
+						.append(Long.toHexString(required)).append("L;").newLine();
+			}
+			writer.newLine();
+			for (int i = 0; i < parameters.size(); i += 64) {
+				writer.indent(2).append("private long set").append(i / 64).append(';').newLine();
+			}
+		}
 		for (VariableDefinition property : builderConstructor.parameters()) {
-			writer.append(LINE_END)
-					.append(indentation(2)).append("private ").append(property.type()).append(" ")
-					.append(property.name()).append(";").append(LINE_END);
+			writer.newLine()
+					.indent(2).append("private ").append(property.type()).append(' ')
+					.append(property.name()).append(';').newLine();
 		}
 	}
 
-	private void writeBuilderFluidMethods(Writer writer) throws IOException {
-		for (VariableDefinition property : builderConstructor.parameters()) {
-			writer.append(LINE_END)
-					.append(indentation(2)).append("public ").append(getSingleName()).append("Builder")
-					.append(" ").append(property.name()).append("(").append(property.type()).append(" ")
-					.append(property.name()).append(") {").append(LINE_END)
-					.append(indentation(3)).append("this.").append(property.name()).append(" = ")
-					.append(property.name()).append(";").append(LINE_END)
-					.append(indentation(3)).append("return this;").append(LINE_END)
-					.append(indentation(2)).append("}").append(LINE_END);
-		}
-	}
-
-	private void writeBuilderBuildMethod(Writer writer) throws IOException {
-		writer.append(LINE_END).append(indentation(2)).append("public ").append(getSingleName()).append(" build() {")
-				.append(LINE_END)
-				.append(indentation(3)).append("return new ").append(getSingleName())
-				.append("(")
-				.append(builderConstructor.parameters().stream().map(p -> p.name()).collect(Collectors.joining(", ")))
-				.append(");").append(LINE_END)
-				.append(indentation(2)).append("}").append(LINE_END);
-	}
-
-	private void writeBuilderClassEnding(Writer writer) throws IOException {
-		writer.append(indentation(1)).append("}").append(LINE_END);
-	}
-
-	private void writeBuilderCreatorMethod(Writer writer) throws IOException {
-		writer.append(LINE_END)
-				.append(indentation(1)).append("public static ").append(getSingleName())
-				.append("Builder builder() {").append(LINE_END)
-				.append(indentation(2)).append("return new ").append(getSingleName()).append("Builder();")
-				.append(LINE_END)
-				.append(indentation(1)).append("}").append(LINE_END);
-	}
-
-	private void writeBuilderToBuilderMethod(Writer writer) throws IOException {
-		writer.append(LINE_END)
-				.append(indentation(1)).append("public ").append(getSingleName()).append("Builder toBuilder() {")
-				.append(LINE_END)
-				.append(indentation(2)).append("return new ").append(getSingleName()).append("Builder()")
-				.append(LINE_END)
-				.append(builderConstructor.parameters().stream()
-						.map(p -> indentation(3) + "." + p.name() + "(" + p.name() + ")")
-						.collect(Collectors.joining(LINE_END)))
-				.append(";").append(LINE_END)
-				.append(indentation(1)).append("}").append(LINE_END);
-	}
-
-	private String indentation(int n) {
-		return INDENTATION_UNIT.repeat(n);
+	private void writeBuilderFluidMethods(SourceWriter writer) {
+		final List<VariableDefinition> parameters = builderConstructor.parameters();
+		for (int i = 0; i < parameters.size(); i++) {
+			final VariableDefinition property = parameters.get(i);
+			writer.newLine()
+					.indent(2).append("public ").append(getSingleName()).append("Builder")
+					.append(' ').append(property.name()).append('(').append(property.type()).append(' ')
+					.append(property.name()).append(") {").newLine()
+					.indent(3).append("this.").append(property.name()).append(" = ")
+					.append(property.name()).append(';').newLine();
+			if (tracksBuilderProperties()) {
+				writer.indent(3).append("set").append(i / 64).append(" |= 1L << ").append(i % 64).append(';')
+						.newLine();
+			}
+			writer.indent(3).append("return this;").newLine()
+					.indent(2).append('}').newLine();
+		}
+	}
+
+	private void writeBuilderBuildMethod(SourceWriter writer) {
+		writer.newLine().indent(2).append("public ").append(getSingleName()).append(" build() {").newLine();
+		if (!builderConstructor.requiredParameters().isEmpty()) {
+			writer.indent(3).append("checkRequired();").newLine();
+		}
+		writer.indent(3).append("return new ").append(getSingleName()).append('(');
+		writeParameterNames(writer, builderConstructor.parameters());
+		writer.append(");").newLine()
+				.indent(2).append('}').newLine();
+	}
+
+	/** Builders track which of their properties were set when they're reusable or have required properties. */
+	private boolean tracksBuilderProperties() {
+		return builderConstructor.reusableBuilder() || !builderConstructor.requiredParameters().isEmpty();
+	}
+
+	private void writeReusableBuilderMethods(SourceWriter writer) {
+
+		final List<VariableDefinition> parameters = builderConstructor.parameters();
+		final String builderName = getSingleName() + "Builder";
+
+		if (builderConstructor.reusableBuilder()) {
+			writer.newLine()
+					.indent(2).append("/** Clears every property, as if the builder had just been created. */")
+					.newLine()
+					.indent(2).append("public ").append(builderName).append(" reset() {").newLine();
+			for (VariableDefinition parameter : parameters) {
+				writer.indent(3).append("this.").append(parameter.name()).append(" = ")
+						.append(CompanionWriter.defaultValue(parameter.type())).append(';').newLine();
+			}
+			writeSetMasks(writer, "0L");
+			writer.indent(3).append("return this;").newLine()
+					.indent(2).append('}').newLine()
+					.newLine()
+					.indent(2).append("/** Loads the bean's values, marking every property as set. */").newLine()
+					.indent(2).append("public ").append(builderName).append(" from(").append(getSingleName());
+			writeTypeParameters(writer);
+			writer.append(" bean) {").newLine();
+			for (VariableDefinition parameter : parameters) {
+				final PropertyDefinition property = findProperty(parameter.name());
+				writer.indent(3).append("this.").append(parameter.name()).append(" = bean.")
+						.append(property != null ? read(property) : parameter.name()).append(';').newLine();
+			}
+			writeSetMasks(writer, "-1L");
+			writer.indent(3).append("return this;").newLine()
+					.indent(2).append('}').newLine();
+
+			if (canBuildInto()) {
+				writer.newLine()
+						.indent(2)
+						.append("/** Sets the builder's values on an existing bean instead of creating one. */")
+						.newLine()
+						.indent(2).append("public ").append(getSingleName());
+				writeTypeParameters(writer);
+				writer.append(" buildInto(").append(getSingleName());
+				writeTypeParameters(writer);
+				writer.append(" target) {").newLine();
+				if (!builderConstructor.requiredParameters().isEmpty()) {
+					writer.indent(3).append("checkRequired();").newLine();
+				}
+				for (VariableDefinition parameter : parameters) {
+					final PropertyDefinition property = findProperty(parameter.name());
+					if (property != null) {
+						writeSharedAssignment(writer, property, "target", "this." + parameter.name(), 3);
+					} else {
+						writer.indent(3).append("target.").append(parameter.name()).append(" = this.")
+								.append(parameter.name()).append(';').newLine();
+					}
+				}
+				writeBuildIntoDirtyMarks(writer);
+				writer.indent(3).append("return target;").newLine()
+						.indent(2).append('}').newLine();
+			}
+		}
+
+		if (tracksBuilderProperties()) {
+			writer.newLine()
+					.indent(2).append("/** Whether the property was set since the builder was created or reset. */")
+					.newLine()
+					.indent(2).append("public boolean isSet(String property) {").newLine()
+					.indent(3).append("switch (property) {").newLine();
+			for (int i = 0; i < parameters.size(); i++) {
+				writer.indent(4).append("case \"").append(parameters.get(i).name()).append("\": return (set")
+						.append(i / 64).append(" & 1L << ").append(i % 64).append(") != 0;").newLine();
+			}
+			writer.indent(4).append("default: throw new IllegalArgumentException(\"No property \" + property + \" in ")
+					.append(builderName).append("\");").newLine()
+					.indent(3).append('}').newLine()
+					.indent(2).append('}').newLine();
+		}
+
+		if (!builderConstructor.requiredParameters().isEmpty()) {
+			writer.newLine()
+					.indent(2).append("private void checkRequired() {").newLine()
+					.indent(3).append("if (");
+			for (int i = 0; i < parameters.size(); i += 64) {
+				writer.append(i > 0 ? " || " : "").append("(set").append(i / 64).append(" & REQUIRED_").append(i / 64)
+						.append(") != REQUIRED_").append(i / 64);
+			}
+			writer.append(") {").newLine()
+					.indent(4).append("final StringBuilder missing = new StringBuilder();").newLine();
+			for (String required : builderConstructor.requiredParameters()) {
+				writer.indent(4).append("if (!isSet(\"").append(required).append("\")) {").newLine()
+						.indent(5).append("missing.append(missing.length() > 0 ? \", \" : \"\").append(\"")
+						.append(required).append("\");").newLine()
+						.indent(4).append('}').newLine();
+			}
+			writer.indent(4).append("throw new IllegalStateException(\"Missing required properties of ")
+					.append(getSingleName()).append(": \" + missing);").newLine()
+					.indent(3).append('}').newLine()
+					.indent(2).append('}').newLine();
+		}
+	}
+
+	/** Beans built into are dirty in every tracked property the builder sets. */
+	private void writeBuildIntoDirtyMarks(SourceWriter writer) {
+		final List<PropertyDefinition> dirtyProperties = getDirtyTrackedProperties();
+		final long[] masks = new long[(dirtyProperties.size() + 63) / 64];
+		for (VariableDefinition parameter : builderConstructor.parameters()) {
+			for (int i = 0; i < dirtyProperties.size(); i++) {
+				if (dirtyProperties.get(i).getName().equals(parameter.name())) {
+					masks[i / 64] |= 1L << (i % 64);
+				}
+			}
+		}
+		for (int i = 0; i < masks.length; i++) {
+			if (masks[i] != 0) {
+				writer.indent(3).append("target.dirty").append(i).append(" |= 0x").append(Long.toHexString(masks[i]))
+						.append("L;").newLine();
+			}
+		}
+	}
+
+	private void writeSetMasks(SourceWriter writer, String value) {
+		for (int i = 0; i < builderConstructor.parameters().size(); i += 64) {
+			writer.indent(3).append("set").append(i / 64).append(" = ").append(value).append(';').newLine();
+		}
+	}
+
+	/** Beans are built into existing instances only when every builder parameter is a property that isn't final. */
+	private boolean canBuildInto() {
+		final List<PropertyDefinition> allProperties = getAllProperties();
+		return !immutable && builderConstructor.parameters().stream()
+				.allMatch(p -> allProperties.stream().anyMatch(q -> q.getName().equals(p.name()) && !q.isFinal()));
+	}
+
+	private void writeBuilderClassEnding(SourceWriter writer) {
+		writer.indent(1).append('}').newLine();
+	}
+
+	private void writeBuilderCreatorMethod(SourceWriter writer) {
+		writer.newLine()
+				.indent(1).append("public static ").append(getSingleName()).append("Builder builder() {").newLine()
+				.indent(2).append("return new ").append(getSingleName()).append("Builder();").newLine()
+				.indent(1).append('}').newLine();
+	}
+
+	private void writeBuilderToBuilderMethod(SourceWriter writer) {
+		writer.newLine()
+				.indent(1).append("public ").append(getSingleName()).append("Builder toBuilder() {").newLine()
+				.indent(2).append("return new ").append(getSingleName()).append("Builder()").newLine();
+		boolean first = true;
+		for (VariableDefinition parameter : builderConstructor.parameters()) {
+			if (!first) {
+				writer.newLine();
+			}
+			final PropertyDefinition property = findProperty(parameter.name());
+			writer.indent(3).append('.').append(parameter.name()).append('(')
+					.append(property != null ? read(property) : parameter.name()).append(')');
+			first = false;
+		}
+		writer.append(';').newLine()
+				.indent(1).append('}').newLine();
+	}
+
+	private void writeEquals(SourceWriter writer) {
+
+		if (!withEquals) {
+			return;
+		}
+
+		final List<PropertyDefinition> allProperties = getAllProperties();
+
+		writer.newLine()
+				.indent(1).append("@Override").newLine()
+				.indent(1).append("public boolean equals(Object o) {").newLine()
+				.indent(2).append("if (this == o) {").newLine()
+				.indent(3).append("return true;").newLine()
+				.indent(2).append('}').newLine()
+				.indent(2).append("if (o == null || getClass() != o.getClass()) {").newLine()
+				.indent(3).append("return false;").newLine()
+				.indent(2).append('}').newLine();
+
+		if (allProperties.isEmpty()) {
+			writer.indent(2).append("return true;").newLine()
+					.indent(1).append('}').newLine();
+			return;
+		}
+
+		writer.indent(2).append("final ").append(getSingleName());
+		writeWildcards(writer);
+		writer.append(" that = (").append(getSingleName());
+		writeWildcards(writer);
+		writer.append(") o;").newLine()
+				.indent(2).append("return ");
+
+		for (int i = 0; i < allProperties.size(); i++) {
+			if (i > 0) {
+				writer.newLine().indent(4).append("&& ");
+			}
+			writePropertyEquality(writer, allProperties.get(i));
+		}
+
+		writer.append(';').newLine()
+				.indent(1).append('}').newLine();
+	}
+
+	private static void writePropertyEquality(SourceWriter writer, PropertyDefinition property) {
+		final String name = read("this", property);
+		final String other = read("that", property);
+
+		if (property.getType().equals("float") || property.getType().equals("double")) {
+			writer.append(property.getWrapperType()).append(".compare(").append(name).append(", ").append(other)
+					.append(") == 0");
+		} else if (property.isPrimitive()) {
+			writer.append(name).append(" == ").append(other);
+		} else if (property.isArray()) {
+			writer.append(property.isNestedArray() ? "java.util.Arrays.deepEquals(" : "java.util.Arrays.equals(")
+					.append(name).append(", ").append(other).append(')');
+		} else {
+			writer.append("java.util.Objects.equals(").append(name).append(", ").append(other).append(')');
+		}
+	}
+
+	private void writeHashCode(SourceWriter writer) {
+
+		if (!withHashCode) {
+			return;
+		}
+
+		if (hasPrecomputedHashCode()) {
+			writer.newLine()
+					.indent(1).append("private final int cachedHashCode;").newLine()
+					.newLine()
+					.indent(1).append("@Override").newLine()
+					.indent(1).append("public int hashCode() {").newLine()
+					.indent(2).append("return cachedHashCode;").newLine()
+					.indent(1).append('}').newLine()
+					.newLine()
+					.indent(1).append("private int computeHashCode() {").newLine();
+			writeHashCodeBody(writer);
+			return;
+		}
+
+		if (cachedHashCode) {
+			writer.newLine()
+					.indent(1).append("private transient int cachedHashCode;").newLine();
+		}
+
+		writer.newLine()
+				.indent(1).append("@Override").newLine()
+				.indent(1).append("public int hashCode() {").newLine();
+
+		if (cachedHashCode) {
+			writer.indent(2).append("int result = cachedHashCode;").newLine()
+					.indent(2).append("if (result == 0) {").newLine()
+					.indent(3).append("result = computeHashCode();").newLine()
+					.indent(3).append("cachedHashCode = result;").newLine()
+					.indent(2).append('}').newLine()
+					.indent(2).append("return result;").newLine()
+					.indent(1).append('}').newLine()
+					.newLine()
+					.indent(1).append("private int computeHashCode() {").newLine();
+		}
+
+		writeHashCodeBody(writer);
+	}
+
+	private void writeHashCodeBody(SourceWriter writer) {
+		writer.indent(2).append("int result = 1;").newLine();
+		for (PropertyDefinition property : getAllProperties()) {
+			writer.indent(2).append("result = 31 * result + ");
+			writePropertyHashCode(writer, property);
+			writer.append(';').newLine();
+		}
+		writer.indent(2).append("return result;").newLine()
+				.indent(1).append('}').newLine();
+	}
+
+	private static void writePropertyHashCode(SourceWriter writer, PropertyDefinition property) {
+		final String name = read("this", property);
+
+		if (property.isPrimitive()) {
+			writer.append(property.getWrapperType()).append(".hashCode(").append(name).append(')');
+		} else if (property.isArray()) {
+			writer.append(property.isNestedArray() ? "java.util.Arrays.deepHashCode(" : "java.util.Arrays.hashCode(")
+					.append(name).append(')');
+		} else {
+			writer.append("java.util.Objects.hashCode(").append(name).append(')');
+		}
+	}
+
+	private void writeToString(SourceWriter writer) {
+
+		if (!withToString) {
+			return;
+		}
+
+		final List<PropertyDefinition> allProperties = getAllProperties();
+		int capacity = getSingleName().length() + 2;
+		for (PropertyDefinition property : allProperties) {
+			capacity += property.getName().length() + 3 + (property.isPrimitive() ? 8 : 16);
+		}
+
+		writer.newLine()
+				.indent(1).append("@Override").newLine()
+				.indent(1).append("public String toString() {").newLine()
+				.indent(2).append("return new StringBuilder(").append(capacity).append(')').newLine()
+				.indent(4).append(".append(\"").append(getSingleName()).append("{\")").newLine();
+
+		for (int i = 0; i < allProperties.size(); i++) {
+			final PropertyDefinition property = allProperties.get(i);
+			writer.indent(4).append(".append(\"").append(i > 0 ? ", " : "").append(property.getName())
+					.append("=\").append(");
+			if (property.isArray()) {
+				writer.append(property.isNestedArray() ? "java.util.Arrays.deepToString(" : "java.util.Arrays.toString(")
+						.append(read("this", property)).append(')');
+			} else {
+				writer.append(read("this", property));
+			}
+			writer.append(')').newLine();
+		}
+
+		writer.indent(4).append(".append('}')").newLine()
+				.indent(4).append(".toString();").newLine()
+				.indent(1).append('}').newLine();
+	}
+
+	private void writeWildcards(SourceWriter writer) {
+		if (!typeParameters.isEmpty()) {
+			writer.append('<');
+			for (int i = 0; i < typeParameters.size(); i++) {
+				writer.append(i > 0 ? ", ?" : "?");
+			}
+			writer.append('>');
+		}
+	}
+
+	private static void writeParameterDeclarations(SourceWriter writer, List<VariableDefinition> parameters) {
+		for (int i = 0; i < parameters.size(); i++) {
+			if (i > 0) {
+				writer.append(", ");
+			}
+			writer.append(parameters.get(i).type()).append(' ').append(parameters.get(i).name());
+		}
+	}
+
+	private static void writeParameterNames(SourceWriter writer, List<VariableDefinition> parameters) {
+		for (int i = 0; i < parameters.size(); i++) {
+			if (i > 0) {
+				writer.append(", ");
+			}
+			writer.append(parameters.get(i).name());
+		}
+	}
+
+	private static void writeJoined(SourceWriter writer, List<String> values) {
+		for (int i = 0; i < values.size(); i++) {
+			if (i > 0) {
+				writer.append(", ");
+			}
+			writer.append(values.get(i));
+		}
 	}
 }
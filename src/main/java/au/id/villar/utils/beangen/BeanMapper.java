@@ -0,0 +1,22 @@
+package au.id.villar.utils.beangen;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Generates a {@code <Mapper>Impl} implementation of the annotated interface or abstract class. Each abstract method
+ * taking one bean and returning another is implemented with straight-line code that copies the source's properties
+ * into a new target, matching them by name. Targets are created through their no-args constructor and setters, or
+ * else through their public constructor with the most parameters, and records through their canonical constructor.
+ * <p>
+ * Values assignable to the target property are copied as they are. Other values are converted by a method of the
+ * mapper that takes the source property's type and returns the target's, abstract or not, and collections and arrays
+ * are copied element by element with such a conversion. Target properties with no source, and values with no
+ * conversion, are compile errors; {@link Mapping} renames and ignores properties.
+ */
+@Retention(RetentionPolicy.CLASS)
+@Target(ElementType.TYPE)
+public @interface BeanMapper {
+}
@@ -5,7 +5,7 @@ import java.lang.annotation.Retention;
 import java.lang.annotation.RetentionPolicy;
 import java.lang.annotation.Target;
 
-@Retention(RetentionPolicy.SOURCE)
+@Retention(RetentionPolicy.CLASS)
 @Target(ElementType.TYPE)
 public @interface BeanTemplate {
 
@@ -14,4 +14,46 @@ public @interface BeanTemplate {
 	String typeName() default "";
 
 	boolean noArgsConstructor() default false;
+
+	/** Generates equals, hashCode and toString, except for those the template declares. */
+	boolean objectMethods() default true;
+
+	/** Computes hashCode once and caches it; all properties must be final. */
+	boolean cachedHashCode() default false;
+
+	/** Records which properties the setters changed, for updating only those columns. */
+	boolean dirtyTracking() default false;
+
+	/** Reads and writes properties through VarHandles and adds atomic updates; not with dirtyTracking. */
+	boolean concurrent() default false;
+
+	/** Implements {@link java.io.Externalizable} without reflection; needs a public no-args constructor. */
+	boolean externalizable() default false;
+
+	/** Generates a {@link au.id.villar.utils.beangen.runtime.BeanAccessor} reaching properties by index. */
+	boolean accessor() default false;
+
+	/** Generates a {@link au.id.villar.utils.beangen.runtime.JsonCodec}. */
+	boolean jsonCodec() default false;
+
+	/** Generates a {@link au.id.villar.utils.beangen.runtime.BinaryCodec} that can read single properties. */
+	boolean binaryCodec() default false;
+
+	/** Generates a {@code <Bean>Columns} companion storing beans as one array per property. */
+	boolean columns() default false;
+
+	/** Generates a {@code <Bean>Comparators} companion, with sort keys and a comparator per @{@link Ordering}. */
+	boolean comparators() default false;
+
+	/** Generates a {@link au.id.villar.utils.beangen.runtime.BeanQuery} filtering collections of beans. */
+	boolean query() default false;
+
+	/** Generates a {@link au.id.villar.utils.beangen.runtime.BeanDiff} patching all but the transient properties. */
+	boolean diff() default false;
+
+	/** Generates a {@link au.id.villar.utils.beangen.runtime.JdbcMapper} for the {@code @Column} properties. */
+	boolean jdbcMapper() default false;
+
+	/** Generates a {@code <Bean>Index} map from the single {@code int} or {@code long} {@code @Id} to the entity. */
+	boolean index() default false;
 }
@@ -3,23 +3,24 @@ package au.id.villar.utils.beangen;
 import java.io.IOException;
 import java.io.UncheckedIOException;
 import java.io.Writer;
+import java.nio.file.Path;
 import java.util.ArrayList;
-import java.util.Collection;
+import java.util.Comparator;
 import java.util.List;
-import java.util.Map;
-import java.util.Optional;
+import java.util.Queue;
 import java.util.Set;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
+import java.util.TreeSet;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
 import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.ProcessingEnvironment;
 import javax.annotation.processing.RoundEnvironment;
 import javax.lang.model.SourceVersion;
-import javax.lang.model.element.ElementKind;
-import javax.lang.model.element.ExecutableElement;
-import javax.lang.model.element.Modifier;
-import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.Element;
 import javax.lang.model.element.TypeElement;
-import javax.lang.model.element.VariableElement;
 import javax.tools.Diagnostic;
 import javax.tools.JavaFileObject;
 
@@ -27,11 +28,68 @@ public class BeanTemplateProcessor extends AbstractProcessor {
 
     public static final String BEAN_DEFINITION_SUFFIX_CONVENTION = "Template";
 
+    /** Processor option with the directory where rendered beans are cached across compilations. */
+    public static final String CACHE_OPTION = "beantemplates.cache";
+
+    /** Processor option with the number of threads used to render beans; 1 renders on the compiler thread. */
+    public static final String PARALLELISM_OPTION = "beantemplates.parallelism";
+
+    /** Processor option with the path of a JSON report of where the processor spent its time. */
+    public static final String METRICS_OPTION = "beantemplates.metrics";
+
+    private static final String BEAN_MAPPER_ANNOTATION = BeanMapper.class.getCanonicalName();
+
     private static final Set<String> SUPPORTED_ANNOTATIONS = Set.of(
             BeanTemplate.class.getCanonicalName(),
-            Bean.class.getCanonicalName()
+            Bean.class.getCanonicalName(),
+            BEAN_MAPPER_ANNOTATION
     );
 
+    private static final List<CompanionWriter> COMPANIONS = List.of(new AccessorWriter(), new JsonCodecWriter(),
+            new BinaryCodecWriter(), new ColumnsWriter(), new JdbcMapperWriter(),
+            new IndexWriter(), new ComparatorsWriter(), new QueryWriter(), new DiffWriter());
+
+    private final Queue<String> renderWarnings = new ConcurrentLinkedQueue<>();
+    private final Set<String> pendingMappers = new TreeSet<>();
+    private TemplateIntrospector introspector;
+    private MapperIntrospector mapperIntrospector;
+    private SourceCache cache;
+    private ForkJoinPool renderPool;
+    private ProcessorMetrics metrics;
+
+    @Override
+    public synchronized void init(ProcessingEnvironment processingEnv) {
+        super.init(processingEnv);
+
+        introspector = new TemplateIntrospector(processingEnv);
+        mapperIntrospector = new MapperIntrospector(processingEnv);
+
+        final String metricsPath = processingEnv.getOptions().get(METRICS_OPTION);
+        metrics = metricsPath != null && !metricsPath.isBlank()
+                ? ProcessorMetrics.reportingTo(Path.of(metricsPath))
+                : ProcessorMetrics.disabled();
+
+        final String cacheDirectory = processingEnv.getOptions().get(CACHE_OPTION);
+        if (cacheDirectory != null && !cacheDirectory.isBlank()) {
+            try {
+                cache = new SourceCache(Path.of(cacheDirectory));
+            } catch (IOException e) {
+                processingEnv.getMessager().printMessage(Diagnostic.Kind.WARNING,
+                        "Bean source cache disabled: " + e.getMessage());
+            }
+        }
+
+        final int parallelism = inferParallelism(processingEnv.getOptions().get(PARALLELISM_OPTION));
+        if (parallelism > 1) {
+            renderPool = new ForkJoinPool(parallelism);
+        }
+    }
+
+    @Override
+    public Set<String> getSupportedOptions() {
+        return Set.of(CACHE_OPTION, PARALLELISM_OPTION, METRICS_OPTION);
+    }
+
     @Override
     public Set<String> getSupportedAnnotationTypes() {
         return SUPPORTED_ANNOTATIONS;
@@ -45,195 +103,409 @@ public class BeanTemplateProcessor extends AbstractProcessor {
     @Override
     public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
 
-        List<BeanDefinition> beanDefinitions = annotations.stream()
-                .filter(t -> SUPPORTED_ANNOTATIONS.contains(t.getQualifiedName().toString()))
-                .flatMap(t -> roundEnv.getElementsAnnotatedWith(t).stream()
-                        .filter(e -> e instanceof TypeElement)
-                        .map(TypeElement.class::cast)
-                        .map(e -> createBeanDefinition(e, t)))
+        metrics.roundStarted();
+
+        final List<TemplateModel> templates = new ArrayList<>();
+
+        for (TypeElement annotation : annotations) {
+            if (!SUPPORTED_ANNOTATIONS.contains(annotation.getQualifiedName().toString())) {
+                continue;
+            }
+
+            final long discoveryStart = metrics.now();
+            final Set<? extends Element> elements = roundEnv.getElementsAnnotatedWith(annotation);
+            metrics.discovered(discoveryStart);
+
+            if (annotation.getQualifiedName().contentEquals(BEAN_MAPPER_ANNOTATION)) {
+                for (Element element : elements) {
+                    if (element instanceof TypeElement typeElement) {
+                        pendingMappers.add(typeElement.getQualifiedName().toString());
+                    }
+                }
+                continue;
+            }
+
+            for (Element element : elements) {
+                if (element instanceof TypeElement typeElement) {
+                    final long definitionStart = metrics.now();
+                    final TemplateModel model = introspector.introspect(typeElement, annotation);
+                    metrics.defined(model.beanName(), definitionStart);
+                    templates.add(model);
+                }
+            }
+        }
+
+        final List<BeanDefinition> beanDefinitions = templates.stream()
+                .map(this::createBeanDefinition)
+                .filter(this::validateDefinition)
                 .toList();
+        introspector.endRound();
+
+        final long renderStart = metrics.now();
+        final List<RenderedSource> renderedSources = renderAll(beanDefinitions);
+        metrics.rendered(renderStart);
+
+        renderWarnings.forEach(w -> processingEnv.getMessager().printMessage(Diagnostic.Kind.WARNING, w));
+        renderWarnings.clear();
+
+        renderedSources.stream()
+                .sorted(Comparator.comparing(RenderedSource::qualifiedName))
+                .forEach(this::writeSourceFile);
 
-        // TODO validateDefinition(definition);
-        beanDefinitions.forEach(this::generateSourceCode);
+        processMappers(roundEnv.processingOver());
+
+        if (roundEnv.processingOver()) {
+            if (cache != null) {
+                processingEnv.getMessager().printMessage(Diagnostic.Kind.NOTE, "Bean source cache: "
+                        + cache.getHits() + " hits, " + cache.getMisses() + " misses");
+            }
+            if (renderPool != null) {
+                renderPool.shutdown();
+            }
+            if (metrics.isEnabled()) {
+                reportMetrics();
+            }
+        }
 
         return annotations.stream().allMatch(a -> SUPPORTED_ANNOTATIONS.contains(a.getQualifiedName().toString()));
     }
 
-    private BeanDefinition createBeanDefinition(TypeElement element, TypeElement annotation) {
-        final String extendsFrom = element.getQualifiedName().toString();
-        final String annotationName = annotation.getQualifiedName().toString();
-        final boolean isEntityTemplate = annotationName.equals(BeanTemplate.class.getCanonicalName());
-        final String beanName = inferGeneratedBeanName(element);
-        final BeanDefinition definition = new BeanDefinition(isEntityTemplate, beanName, extendsFrom);
+    private BeanDefinition createBeanDefinition(TemplateModel model) {
+        final long start = metrics.now();
+        final BeanDefinition definition
+                = new BeanDefinition(model.entityTemplate(), model.beanName(), model.templateName());
+
+        definition.setOriginatingElement(model.element());
 
-        if (isEntityTemplate) {
-            definition.setEntityName(inferEntityName(element));
+        if (model.entityTemplate()) {
+            definition.setEntityName(model.attribute("name", String.class));
             definition.setWithSetters(true);
+            definition.setDirtyTracking(model.flag("dirtyTracking"));
+            definition.setTableName(model.tableName());
+            definition.setWithJdbcMapper(model.flag("jdbcMapper"));
+            definition.setWithIndex(model.flag("index"));
         } else {
-            definition.setWithSetters(inferWithSetters(element));
+            definition.setImmutable(model.flag("immutable"));
+            definition.setWithSetters(model.flag("setters") && !definition.isImmutable());
         }
 
-        definition.setTypeParameters(inferTypeParameters(element));
-        definition.setConstructors(inferConstructors(element));
-        definition.setProperties(inferPropertyList(element));
+        final boolean objectMethods = model.flag("objectMethods");
+        definition.setWithEquals(objectMethods && !model.declaresMethod("equals(java.lang.Object)"));
+        definition.setWithHashCode(objectMethods && !model.declaresMethod("hashCode()"));
+        definition.setWithToString(objectMethods && !model.declaresMethod("toString()"));
+        definition.setCachedHashCode(model.flag("cachedHashCode"));
+        definition.setConcurrent(model.flag("concurrent"));
+        definition.setExternalizable(model.flag("externalizable"));
+        definition.setWithAccessor(model.flag("accessor"));
+        definition.setWithJsonCodec(model.flag("jsonCodec"));
+        definition.setWithBinaryCodec(model.flag("binaryCodec"));
+        definition.setWithColumns(model.flag("columns"));
+        definition.setWithComparators(model.flag("comparators"));
+        definition.setOrderings(model.orderings());
+        definition.setWithQuery(model.flag("query"));
+        definition.setWithDiff(model.flag("diff"));
+
+        definition.setTypeParameters(model.typeParameters());
+        definition.setConstructors(model.constructors());
+        definition.setProperties(model.properties());
+        definition.setInheritedProperties(introspector.inheritedProperties(model));
+
+        metrics.defined(model.beanName(), start);
 
         return definition;
     }
 
-    private void generateSourceCode(BeanDefinition definition) {
+    private boolean validateDefinition(BeanDefinition definition) {
 
-        final String beanName = definition.getQualifiedName();
+        boolean valid = true;
 
-        try {
-            final JavaFileObject file = processingEnv.getFiler().createSourceFile(beanName);
-            try (Writer fileWriter = file.openWriter()) {
-                definition.writeSourceCode(fileWriter);
+        if (definition.isCachedHashCode() && !definition.isWithHashCode()) {
+            valid = error(definition, "cachedHashCode needs a generated hashCode, but objectMethods is disabled"
+                    + " or the template declares its own");
+        }
+
+        if (definition.hasBuilder()) {
+            final ConstructorDefinition builder = definition.getBuilderConstructor();
+            for (String required : builder.requiredParameters()) {
+                if (builder.parameters().stream().noneMatch(p -> p.name().equals(required))) {
+                    valid = error(definition, "@Builder requires " + required + ", which isn't one of its parameters");
+                }
+            }
+            if (definition.isImmutable()) {
+                for (String parameter : builder.parameters().stream().map(VariableDefinition::name).toList()) {
+                    if (definition.getAllProperties().stream().noneMatch(p -> p.getName().equals(parameter))) {
+                        valid = error(definition, "immutable writes a wither per @Builder parameter, but " + parameter
+                                + " isn't named after a property");
+                    }
+                }
             }
-        } catch (IOException e) {
-            throw new UncheckedIOException(e);
         }
-    }
 
-    private String inferEntityName(TypeElement element) {
-        return getValueFromAnnotationAttribute("name", String.class, element);
-    }
+        if (definition.isConcurrent() && (definition.isImmutable() || definition.isDirtyTracking())) {
+            valid = error(definition, "concurrent can't be combined with " + (definition.isImmutable()
+                    ? "immutable"
+                    : "dirtyTracking, whose masks aren't updated atomically"));
+        }
 
-    private String inferGeneratedBeanName(TypeElement element) {
+        if (definition.isExternalizable() && !definition.hasPublicNoArgsConstructor()) {
+            valid = error(definition, "externalizable needs a public no-args constructor; set noArgsConstructor"
+                    + " or declare one in the template");
+        }
 
-        final String typeName = getValueFromAnnotationAttribute("typeName", String.class, element);
+        if (definition.isExternalizable()) {
+            final List<String> finalProperties = definition.getAllProperties().stream()
+                    .filter(p -> p.isFinal() && !p.isTransient())
+                    .map(PropertyDefinition::getName)
+                    .toList();
+            if (!finalProperties.isEmpty()) {
+                valid = error(definition, "externalizable can't read back final properties, so they must be"
+                        + " transient, but these aren't: " + String.join(", ", finalProperties));
+            }
+        }
 
-        if (typeName != null) {
-            return typeName.indexOf('.') != -1 ? typeName : inferPackageName(element) + '.' + typeName;
+        for (PropertyDefinition property : definition.getProperties()) {
+            if (property.isLazy()) {
+                valid &= validateLazyProperty(definition, property);
+            }
         }
 
-        final String beanDefinitionName = element.getQualifiedName().toString();
+        for (CompanionWriter companion : COMPANIONS) {
+            if (companion.isEnabledFor(definition)) {
+                for (String problem : companion.validate(definition)) {
+                    valid = error(definition, problem);
+                }
+            }
+        }
 
-        if (beanDefinitionName.endsWith(BEAN_DEFINITION_SUFFIX_CONVENTION)) {
-            return beanDefinitionName.substring(0,
-                    beanDefinitionName.length() - BEAN_DEFINITION_SUFFIX_CONVENTION.length());
+        if (definition.isCachedHashCode() || definition.isImmutable()) {
+            final List<String> mutableProperties = definition.getAllProperties().stream()
+                    .filter(p -> !p.isFinal())
+                    .map(PropertyDefinition::getName)
+                    .toList();
+            if (!mutableProperties.isEmpty()) {
+                valid = error(definition, (definition.isImmutable() ? "immutable" : "cachedHashCode")
+                        + " needs all properties to be final, but these aren't: "
+                        + String.join(", ", mutableProperties));
+            }
         }
 
-        final String errorMessage = "Couldn't infer a proper generated name for " + beanDefinitionName;
+        return valid;
+    }
 
-        processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, errorMessage);
+    /**
+     * Generates the implementations of the mappers found so far whose types all exist. Mappers reaching types
+     * generated in this round, like the beans just written, wait for the next one.
+     */
+    private void processMappers(boolean processingOver) {
 
-        throw new IllegalArgumentException(errorMessage);
-    }
+        final List<String> mapperNames = List.copyOf(pendingMappers);
+        pendingMappers.clear();
 
-    private List<String> inferTypeParameters(TypeElement element) {
-        return element.getTypeParameters().stream().map(t -> t.getSimpleName().toString()).toList();
+        for (String mapperName : mapperNames) {
+            final TypeElement mapper = processingEnv.getElementUtils().getTypeElement(mapperName);
+            if (mapper == null) {
+                continue;
+            }
+            if (!mapperIntrospector.isResolved(mapper)) {
+                if (processingOver) {
+                    processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, mapperName
+                            + ": couldn't generate its implementation, as some of the types it maps don't exist",
+                            mapper);
+                } else {
+                    pendingMappers.add(mapperName);
+                }
+                continue;
+            }
+            final MapperDefinition definition = mapperIntrospector.introspect(mapper);
+            if (definition != null) {
+                writeMapperSourceFile(definition);
+            }
+        }
     }
 
-    private boolean inferWithSetters(TypeElement element) {
-        return Boolean.TRUE.equals(getValueFromAnnotationAttribute("setters", Boolean.class, element));
+    private void writeMapperSourceFile(MapperDefinition definition) {
+        try {
+            final JavaFileObject file = processingEnv.getFiler()
+                    .createSourceFile(definition.qualifiedName(), definition.originatingElement());
+            try (Writer fileWriter = file.openWriter()) {
+                fileWriter.write(definition.renderSourceCode());
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
     }
 
-    private List<ConstructorDefinition> inferConstructors(TypeElement element) {
-        final List<ConstructorDefinition> constructors = element.getEnclosedElements().stream()
-                .filter(e -> e.getKind() == ElementKind.CONSTRUCTOR && e instanceof ExecutableElement)
-                .map(ExecutableElement.class::cast)
-                .filter(e -> !e.getModifiers().stream()
-                        .map(Modifier::toString).collect(Collectors.toSet()).contains("private"))
-                .map(this::toConstructorDefinition)
-                .toList();
-        final boolean needsNoArgConstructor = inferNeedsNoArgsConstructor(element);
-        final boolean hasNoArgsConstructor = constructors.stream().anyMatch(c -> c.parameters().isEmpty());
-        return needsNoArgConstructor && !hasNoArgsConstructor
-                ? Stream.concat(constructors.stream(), Stream.of(new ConstructorDefinition("public", List.of(), false))).toList()
-                : constructors;
+    private boolean validateLazyProperty(BeanDefinition definition, PropertyDefinition property) {
+
+        final String prefix = "lazy property " + property.getName();
+
+        if (property.isFinal()) {
+            return error(definition, prefix + " can't be final");
+        }
+        if (!property.needsGetter()) {
+            return error(definition, prefix + " can't have a getter declared by the template");
+        }
+        if (!property.isLazyMethodDeclared()) {
+            return error(definition, prefix + " needs the template to declare a method " + property.getLazyMethod()
+                    + "() computing it");
+        }
+        if (property.isPrimitive() && property.getLazyPublication() == Lazy.Publication.VAR_HANDLE) {
+            return error(definition, prefix + " is primitive, so it can't use VAR_HANDLE publication; use LOCKING");
+        }
+
+        return true;
     }
 
-    private boolean inferNeedsNoArgsConstructor(TypeElement element) {
-        return Boolean.TRUE.equals(getValueFromAnnotationAttribute("noArgsConstructor", Boolean.class, element));
+    private boolean error(BeanDefinition definition, String message) {
+        processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
+                definition.getQualifiedName() + ": " + message, definition.getOriginatingElement());
+        return false;
     }
 
-    private ConstructorDefinition toConstructorDefinition(ExecutableElement element) {
+    /**
+     * Renders every definition to source code. Definitions don't touch the compiler model once created, so this is
+     * the only stage that can leave the compiler thread: the {@link javax.annotation.processing.Filer} and the
+     * {@link javax.annotation.processing.Messager} are only used from {@link #process}.
+     */
+    private List<RenderedSource> renderAll(List<BeanDefinition> definitions) {
+
+        final List<Callable<RenderedSource>> tasks = new ArrayList<>();
+
+        for (BeanDefinition definition : definitions) {
+            tasks.add(() -> render(definition, null));
+            for (CompanionWriter companion : COMPANIONS) {
+                if (companion.isEnabledFor(definition)) {
+                    tasks.add(() -> render(definition, companion));
+                }
+            }
+        }
 
-        final Set<String> modifiers = element.getModifiers().stream()
-                .map(Modifier::toString)
-                .collect(Collectors.toSet());
+        if (renderPool == null || tasks.size() < 2) {
+            return tasks.stream().map(this::call).toList();
+        }
 
-        final String modifier = modifiers.contains("protected")
-                ? "protected"
-                : (modifiers.contains("public") ? "public" : null);
+        return renderPool.invokeAll(tasks).stream().map(this::join).toList();
+    }
 
-        final List<VariableDefinition> parameters = element.getParameters().stream()
-                .map(v -> new VariableDefinition(v.getSimpleName().toString(), v.asType().toString()))
-                .toList();
+    private RenderedSource render(BeanDefinition definition, CompanionWriter companion) {
+        final long start = metrics.now();
+        final String qualifiedName = companion != null
+                ? companion.getQualifiedName(definition)
+                : definition.getQualifiedName();
+        final String sourceCode = renderSourceCode(definition, companion, qualifiedName);
+        return new RenderedSource(definition, companion, qualifiedName, sourceCode, metrics.now() - start);
+    }
 
-        boolean usedByAnnotation = Optional.ofNullable(element.getAnnotation(Builder.class)).isPresent();
+    private RenderedSource call(Callable<RenderedSource> task) {
+        try {
+            return task.call();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
 
-        return new ConstructorDefinition(modifier, parameters, usedByAnnotation);
+    private RenderedSource join(Future<RenderedSource> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while rendering beans", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException ioException) {
+                throw new UncheckedIOException(ioException);
+            }
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
     }
 
-    private List<PropertyDefinition> inferPropertyList(TypeElement element) {
+    private void writeSourceFile(RenderedSource renderedSource) {
 
-        Map<String, PropertyDefinition> properties = element.getEnclosedElements().stream()
-                .filter(e -> e.getKind() == ElementKind.FIELD && e instanceof VariableElement)
-                .map(VariableElement.class::cast)
-                .filter(e -> e.getModifiers().stream().noneMatch(m -> m.toString().equals("static")))
-                .map(this::toPropertyDefinition)
-                .collect(Collectors.toMap(PropertyDefinition::getName, p -> p));
+        final BeanDefinition definition = renderedSource.definition();
+        final long start = metrics.now();
 
-        element.getEnclosedElements().stream()
-                .filter(e -> e.getKind() == ElementKind.METHOD && e instanceof ExecutableElement)
-                .map(ExecutableElement.class::cast)
-                .forEach(e -> checkWithFields(properties, e));
+        try {
+            final JavaFileObject file = processingEnv.getFiler()
+                    .createSourceFile(renderedSource.qualifiedName(), definition.getOriginatingElement());
+            try (Writer fileWriter = file.openWriter()) {
+                fileWriter.write(renderedSource.sourceCode());
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
 
-        return new ArrayList<>(properties.values());
+        if (renderedSource.companion() == null) {
+            metrics.written(definition, renderedSource.sourceCode(), renderedSource.renderNanos(), start);
+        } else {
+            metrics.companionWritten(definition, renderedSource.sourceCode(), renderedSource.renderNanos(), start);
+        }
     }
 
-    private PropertyDefinition toPropertyDefinition(VariableElement field) {
-        PropertyDefinition property
-                = new PropertyDefinition(field.getSimpleName().toString(), field.asType().toString());
-        property.setFinal(field.getModifiers().stream().anyMatch(m -> m.toString().equals("final")));
-        return property;
+    private void reportMetrics() {
+        try {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.NOTE, metrics.report());
+        } catch (IOException e) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.WARNING,
+                    "Couldn't write the bean templates metrics report: " + e.getMessage());
+        }
     }
 
-    private void checkWithFields(Map<String, PropertyDefinition> properties, ExecutableElement element) {
-        checkForGetter(properties, element);
-        checkForSetter(properties, element);
-    }
+    private String renderSourceCode(BeanDefinition definition, CompanionWriter companion, String qualifiedName) {
 
-    private void checkForGetter(Map<String, PropertyDefinition> properties, ExecutableElement element) {
-        Optional.of(element)
-                .filter(e -> e.getParameters().size() == 0)
-                .map(e -> element.getSimpleName())
-                .filter(n -> n.length() > 3 && n.toString().startsWith("get"))
-                .map(n -> Character.toLowerCase(n.charAt(3)) + n.toString().substring(4))
-                .map(properties::get)
-                .ifPresent(p -> p.setNeedsGetter(false));
+        final String fingerprint = cache != null
+                ? (companion != null ? "companion " + companion.getSuffix() + '\n' : "") + definition.fingerprint()
+                : null;
+        final String cachedSourceCode = readFromCache(fingerprint, qualifiedName);
+
+        if (cachedSourceCode != null) {
+            return cachedSourceCode;
+        }
+
+        final String sourceCode = companion != null
+                ? companion.renderSourceCode(definition)
+                : definition.renderSourceCode();
+
+        if (cache != null) {
+            try {
+                cache.put(fingerprint, sourceCode);
+            } catch (IOException e) {
+                renderWarnings.add("Couldn't cache bean " + qualifiedName + ": " + e.getMessage());
+            }
+        }
+
+        return sourceCode;
     }
 
-    private void checkForSetter(Map<String, PropertyDefinition> properties, ExecutableElement element) {
-        Optional.of(element)
-                .filter(e -> e.getParameters().size() == 1)
-                .map(e -> element.getSimpleName())
-                .filter(n -> n.length() > 3 && n.toString().startsWith("set"))
-                .map(n -> Character.toLowerCase(n.charAt(3)) + n.toString().substring(4))
-                .map(properties::get)
-                .filter(p -> p.getType().equals(element.getParameters().get(0).asType().toString()))
-                .ifPresent(p -> p.setNeedsSetter(false));
+    private String readFromCache(String fingerprint, String qualifiedName) {
+        try {
+            return cache != null ? cache.get(fingerprint) : null;
+        } catch (IOException e) {
+            renderWarnings.add("Couldn't read cached bean " + qualifiedName + ": " + e.getMessage());
+            return null;
+        }
     }
 
-    private String inferPackageName(TypeElement element) {
+    private int inferParallelism(String option) {
 
-        if(!(element.getEnclosingElement() instanceof PackageElement packageElement)) {
-            throw new IllegalArgumentException("Inner classes not supported");
+        if (option == null || option.isBlank()) {
+            return Runtime.getRuntime().availableProcessors();
         }
 
-        return packageElement.getQualifiedName().toString();
+        try {
+            return Math.max(1, Integer.parseInt(option.trim()));
+        } catch (NumberFormatException e) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.WARNING,
+                    "Ignoring invalid " + PARALLELISM_OPTION + " value: " + option);
+            return Runtime.getRuntime().availableProcessors();
+        }
     }
 
-    private <R> R getValueFromAnnotationAttribute(String attributeName, Class<R> type, TypeElement element) {
-        return element.getAnnotationMirrors().stream()
-                .filter(a -> a.getAnnotationType().toString().equals(BeanTemplate.class.getCanonicalName()))
-                .map(a -> a.getElementValues().entrySet())
-                .flatMap(Collection::stream)
-                .filter(e -> e.getKey().getSimpleName().toString().equals(attributeName))
-                .map(e -> type.cast(e.getValue().getValue()))
-                .findFirst()
-                .orElse(null);
+    /** A rendered bean, or one of its companions when {@code companion} isn't null. */
+    private record RenderedSource(BeanDefinition definition, CompanionWriter companion, String qualifiedName,
+            String sourceCode, long renderNanos) {
     }
-
 }
@@ -0,0 +1,336 @@
+package au.id.villar.utils.beangen;
+
+import au.id.villar.utils.beangen.runtime.BinaryFormat;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Writes the {@code <Bean>BinaryCodec} companion, an implementation of
+ * {@link au.id.villar.utils.beangen.runtime.BinaryCodec} that lays beans out as described in
+ * {@link au.id.villar.utils.beangen.runtime.BinaryFormat}. The offsets of the slots are computed here, so the
+ * generated code reads and writes each property with a single absolute access to the buffer.
+ */
+class BinaryCodecWriter extends CompanionWriter {
+
+	private static final String FORMAT = "au.id.villar.utils.beangen.runtime.BinaryFormat";
+	private static final String BUFFER = "java.nio.ByteBuffer";
+
+	/** Width, and suffix of the {@code ByteBuffer} methods that read and write them, of the fixed-width types. */
+	private static final Map<String, FixedType> FIXED_TYPES = Map.ofEntries(
+			Map.entry("boolean", new FixedType(1, "")),
+			Map.entry("byte", new FixedType(1, "")),
+			Map.entry("short", new FixedType(2, "Short")),
+			Map.entry("char", new FixedType(2, "Char")),
+			Map.entry("int", new FixedType(4, "Int")),
+			Map.entry("long", new FixedType(8, "Long")),
+			Map.entry("float", new FixedType(4, "Float")),
+			Map.entry("double", new FixedType(8, "Double")),
+			Map.entry("java.lang.Boolean", new FixedType(1, "")),
+			Map.entry("java.lang.Byte", new FixedType(1, "")),
+			Map.entry("java.lang.Short", new FixedType(2, "Short")),
+			Map.entry("java.lang.Character", new FixedType(2, "Char")),
+			Map.entry("java.lang.Integer", new FixedType(4, "Int")),
+			Map.entry("java.lang.Long", new FixedType(8, "Long")),
+			Map.entry("java.lang.Float", new FixedType(4, "Float")),
+			Map.entry("java.lang.Double", new FixedType(8, "Double")));
+
+	private static final Set<String> PRIMITIVE_ARRAYS = Set.of("boolean[]", "byte[]", "short[]", "char[]", "int[]",
+			"long[]", "float[]", "double[]");
+
+	/** Element types of lists and object arrays, which are written as tagged values. */
+	private static final Set<String> VALUE_TYPES = Set.of("java.lang.String", "java.lang.Boolean", "java.lang.Byte",
+			"java.lang.Short", "java.lang.Character", "java.lang.Integer", "java.lang.Long", "java.lang.Float",
+			"java.lang.Double", "java.math.BigDecimal", "java.math.BigInteger", "java.lang.Object");
+
+	private static final int SLOT_SIZE = 4;
+
+	BinaryCodecWriter() {
+		super("BinaryCodec");
+	}
+
+	@Override
+	boolean isEnabledFor(BeanDefinition definition) {
+		return definition.isWithBinaryCodec();
+	}
+
+	@Override
+	List<String> validate(BeanDefinition definition) {
+
+		final List<String> problems = new ArrayList<>();
+
+		if (!definition.hasBuilder() && !definition.hasNoArgsConstructor()) {
+			problems.add("binaryCodec needs a @Builder constructor or a no-args constructor to read the bean");
+		}
+
+		for (PropertyDefinition property : definition.getAllProperties()) {
+			if (!FIXED_TYPES.containsKey(property.getType()) && readMethod(definition, property) == null) {
+				problems.add("binaryCodec doesn't support property " + property.getName() + " of type "
+						+ property.getType());
+			}
+		}
+
+		return problems;
+	}
+
+	@Override
+	protected void writeClass(BeanDefinition definition, SourceWriter writer) {
+
+		final String name = getSingleName(definition);
+		final String beanType = beanType(definition);
+		final List<PropertyDefinition> properties = definition.getAllProperties();
+
+		final int[] slots = new int[properties.size()];
+		int fixedSize = BinaryFormat.HEADER_SIZE + (properties.size() + 7) / 8;
+		for (int i = 0; i < properties.size(); i++) {
+			slots[i] = fixedSize;
+			final FixedType fixedType = FIXED_TYPES.get(properties.get(i).getType());
+			fixedSize += fixedType != null ? fixedType.width() : SLOT_SIZE;
+		}
+
+		writer.append("@SuppressWarnings({\"rawtypes\", \"unchecked\"})").newLine()
+				.append("public final class ").append(name).append(" implements ")
+				.append("au.id.villar.utils.beangen.runtime.BinaryCodec<").append(beanType).append("> {").newLine()
+				.newLine()
+				.indent(1).append("public static final ").append(name).append(" INSTANCE = new ").append(name)
+				.append("();").newLine()
+				.newLine()
+				.indent(1).append("public static final int SCHEMA_HASH = ").append(schemaHash(properties)).append(';')
+				.newLine()
+				.newLine()
+				.indent(1).append("private static final int FIXED_SIZE = ").append(fixedSize).append(';').newLine()
+				.newLine()
+				.indent(1).append("private ").append(name).append("() {").newLine()
+				.indent(1).append('}').newLine()
+				.newLine()
+				.indent(1).append("@Override").newLine()
+				.indent(1).append("public int schemaHash() {").newLine()
+				.indent(2).append("return SCHEMA_HASH;").newLine()
+				.indent(1).append('}').newLine();
+
+		writeSizeOf(definition, writer, beanType, properties);
+		writeWrite(definition, writer, beanType, properties, slots);
+		writeRead(definition, writer, beanType, properties);
+		for (int i = 0; i < properties.size(); i++) {
+			writePropertyRead(definition, writer, properties.get(i), i, slots[i]);
+		}
+
+		writer.append('}').newLine();
+	}
+
+	private void writeSizeOf(BeanDefinition definition, SourceWriter writer, String beanType,
+			List<PropertyDefinition> properties) {
+
+		writer.newLine()
+				.indent(1).append("@Override").newLine()
+				.indent(1).append("public int sizeOf(").append(beanType).append(" bean) {").newLine()
+				.indent(2).append("return FIXED_SIZE");
+		for (PropertyDefinition property : properties) {
+			if (!FIXED_TYPES.containsKey(property.getType()) && definition.hasGetter(property)) {
+				writer.newLine()
+						.indent(4).append("+ ").append(FORMAT)
+						.append(isDynamic(definition, property) ? ".sizeOfProperty(bean." : ".sizeOf(bean.")
+						.append(property.getGetterName()).append("())");
+			}
+		}
+		writer.append(';').newLine()
+				.indent(1).append('}').newLine();
+	}
+
+	private void writeWrite(BeanDefinition definition, SourceWriter writer, String beanType,
+			List<PropertyDefinition> properties, int[] slots) {
+
+		writer.newLine()
+				.indent(1).append("@Override").newLine()
+				.indent(1).append("public void write(").append(beanType).append(" bean, ").append(BUFFER)
+				.append(" buffer) {").newLine()
+				.indent(2).append("final int start = ").append(FORMAT).append(".begin(buffer, FIXED_SIZE);").newLine();
+
+		for (int i = 0; i < properties.size(); i++) {
+			final PropertyDefinition property = properties.get(i);
+			final FixedType fixedType = FIXED_TYPES.get(property.getType());
+			if (!definition.hasGetter(property)) {
+				if (!property.isPrimitive()) {
+					writer.indent(2).append(FORMAT).append(".setNull(buffer, start, ").append(i).append(");").newLine();
+				}
+			} else if (property.isPrimitive()) {
+				writer.indent(2);
+				writePut(writer, fixedType, slots[i], "bean." + property.getGetterName() + "()", property.getType());
+			} else {
+				final String value = "value" + i;
+				writer.indent(2).append("final ").append(property.getErasedType()).append(' ').append(value)
+						.append(" = bean.").append(property.getGetterName()).append("();").newLine()
+						.indent(2).append("if (").append(value).append(" == null) {").newLine()
+						.indent(3).append(FORMAT).append(".setNull(buffer, start, ").append(i).append(");").newLine()
+						.indent(2).append("} else {").newLine();
+				if (fixedType != null) {
+					writer.indent(3);
+					writePut(writer, fixedType, slots[i], value, property.getType());
+				} else {
+					writer.indent(3).append(FORMAT).append(".putOffset(buffer, start, ").append(slots[i]).append(");")
+							.newLine()
+							.indent(3).append(FORMAT)
+							.append(isDynamic(definition, property) ? ".writeValue(buffer, " : ".write(buffer, ")
+							.append(value).append(");").newLine();
+				}
+				writer.indent(2).append('}').newLine();
+			}
+		}
+
+		writer.indent(2).append(FORMAT).append(".end(buffer, start, SCHEMA_HASH);").newLine()
+				.indent(1).append('}').newLine();
+	}
+
+	private static void writePut(SourceWriter writer, FixedType fixedType, int slot, String value, String type) {
+		writer.append("buffer.put").append(fixedType.method()).append("(start + ").append(slot).append(", ");
+		if (type.equals("boolean") || type.equals("java.lang.Boolean")) {
+			writer.append(value).append(" ? (byte) 1 : (byte) 0");
+		} else {
+			writer.append(value);
+		}
+		writer.append(");").newLine();
+	}
+
+	private void writeRead(BeanDefinition definition, SourceWriter writer, String beanType,
+			List<PropertyDefinition> properties) {
+
+		final ConstructorDefinition builder = definition.getBuilderConstructor();
+
+		writer.newLine()
+				.indent(1).append("@Override").newLine()
+				.indent(1).append("public ").append(beanType).append(" read(").append(BUFFER).append(" buffer) {")
+				.newLine()
+				.indent(2).append("final int start = buffer.position();").newLine()
+				.indent(2).append("final int length = ").append(FORMAT)
+				.append(".checkSchema(buffer, start, SCHEMA_HASH);").newLine()
+				.indent(2).append("final ").append(definition.getSingleName()).append(" bean = new ")
+				.append(definition.getSingleName()).append('(');
+
+		final List<String> constructorProperties = new ArrayList<>();
+		if (builder != null) {
+			for (int i = 0; i < builder.parameters().size(); i++) {
+				final VariableDefinition parameter = builder.parameters().get(i);
+				final boolean isProperty = properties.stream().anyMatch(p -> p.getName().equals(parameter.name()));
+				writer.append(i > 0 ? ", " : "").append(isProperty
+						? readMethodName(parameter.name()) + "(buffer, start)"
+						: defaultValue(parameter.type()));
+				if (isProperty) {
+					constructorProperties.add(parameter.name());
+				}
+			}
+		}
+		writer.append(");").newLine();
+
+		for (PropertyDefinition property : properties) {
+			if (!constructorProperties.contains(property.getName()) && definition.hasSetter(property)) {
+				writer.indent(2).append("bean.").append(property.getSetterName()).append('(')
+						.append(readMethodName(property.getName())).append("(buffer, start));").newLine();
+			}
+		}
+
+		writer.indent(2).append("buffer.position(start + length);").newLine()
+				.indent(2).append("return bean;").newLine()
+				.indent(1).append('}').newLine();
+	}
+
+	private void writePropertyRead(BeanDefinition definition, SourceWriter writer, PropertyDefinition property,
+			int index, int slot) {
+
+		final FixedType fixedType = FIXED_TYPES.get(property.getType());
+		final String returnType = mentionsTypeVariable(definition, property.getType())
+				? property.getErasedType()
+				: property.getType();
+
+		writer.newLine()
+				.indent(1).append("/** Reads {@code ").append(property.getName())
+				.append("} from the record at {@code offset}, without checking its schema. */").newLine()
+				.indent(1).append("public ").append(returnType).append(' ').append(readMethodName(property.getName()))
+				.append('(').append(BUFFER).append(" buffer, int offset) {").newLine()
+				.indent(2).append("return ");
+
+		if (!property.isPrimitive()) {
+			writer.append(FORMAT).append(".isNull(buffer, offset, ").append(index).append(") ? null : ");
+		}
+		if (fixedType != null) {
+			writer.append("buffer.get").append(fixedType.method()).append("(offset + ").append(slot).append(')');
+			if (property.getType().equals("boolean") || property.getType().equals("java.lang.Boolean")) {
+				writer.append(" != 0");
+			}
+		} else {
+			writer.append(FORMAT).append('.').append(readMethod(definition, property)).append("(buffer, ")
+					.append(FORMAT).append(".valueAt(buffer, offset, ").append(slot).append(')');
+			if (property.isArray() && !PRIMITIVE_ARRAYS.contains(property.getType())) {
+				writer.append(", ").append(property.getErasedType().substring(0, property.getErasedType().length() - 2))
+						.append("[]::new");
+			}
+			writer.append(')');
+		}
+
+		writer.append(';').newLine()
+				.indent(1).append('}').newLine();
+	}
+
+	/** Returns the {@code BinaryFormat} method that reads a value of a type that isn't fixed-width, or null if none. */
+	private static String readMethod(BeanDefinition definition, PropertyDefinition property) {
+
+		final String type = property.getType();
+
+		if (isDynamic(definition, property)) {
+			return "readValue";
+		}
+
+		if (PRIMITIVE_ARRAYS.contains(type)) {
+			final String elementType = type.substring(0, type.length() - 2);
+			return "read" + Character.toUpperCase(elementType.charAt(0)) + elementType.substring(1) + "Array";
+		}
+
+		if (property.isArray() && !property.isNestedArray()) {
+			return isValueType(definition, type.substring(0, type.length() - 2)) ? "readArray" : null;
+		}
+
+		final String erasedType = property.getErasedType();
+		if (erasedType.equals("java.util.List") || erasedType.equals("java.util.Collection")) {
+			final int start = type.indexOf('<');
+			return start == -1 || isValueType(definition, type.substring(start + 1, type.lastIndexOf('>')).trim())
+					? "readList"
+					: null;
+		}
+
+		return switch (type) {
+			case "java.lang.String" -> "readString";
+			case "java.math.BigDecimal" -> "readBigDecimal";
+			case "java.math.BigInteger" -> "readBigInteger";
+			default -> null;
+		};
+	}
+
+	/** Whether the property's type is only known at run time, so its values are written as tagged values. */
+	private static boolean isDynamic(BeanDefinition definition, PropertyDefinition property) {
+		return definition.getTypeParameters().contains(property.getType())
+				|| property.getType().equals("java.lang.Object");
+	}
+
+	private static boolean isValueType(BeanDefinition definition, String type) {
+		if (definition.getTypeParameters().contains(type) || type.equals("?") || type.startsWith("? super ")) {
+			return true;
+		}
+		return VALUE_TYPES.contains(type.startsWith("? extends ") ? type.substring("? extends ".length()) : type);
+	}
+
+	private static boolean mentionsTypeVariable(BeanDefinition definition, String type) {
+		for (String token : type.split("[^\\w.$]+")) {
+			if (definition.getTypeParameters().contains(token)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private static String readMethodName(String propertyName) {
+		return "read" + Character.toUpperCase(propertyName.charAt(0)) + propertyName.substring(1);
+	}
+
+	private record FixedType(int width, String method) {
+	}
+}
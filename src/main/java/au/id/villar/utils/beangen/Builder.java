@@ -5,7 +5,22 @@ import java.lang.annotation.Retention;
 import java.lang.annotation.RetentionPolicy;
 import java.lang.annotation.Target;
 
-@Retention(RetentionPolicy.SOURCE)
+@Retention(RetentionPolicy.CLASS)
 @Target(ElementType.CONSTRUCTOR)
 public @interface Builder {
+
+	/**
+	 * Generates a builder meant to be kept and reused, for instance one per thread in a loop that builds a bean per
+	 * record: it gets {@code reset()}, {@code from(bean)}, which loads a bean's values without allocating, and, for
+	 * beans whose properties aren't final, {@code buildInto(bean)}, which sets them on an existing bean. The builder
+	 * also tracks which properties were set, as {@link #required()} builders do.
+	 */
+	boolean reusable() default false;
+
+	/**
+	 * Parameters that must be set before building: {@code build()} fails with an {@link IllegalStateException}
+	 * naming the ones that weren't. The other parameters are built with whatever the builder holds, which is their
+	 * type's default value if they weren't set.
+	 */
+	String[] required() default {};
 }
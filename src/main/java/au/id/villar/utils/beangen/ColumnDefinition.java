@@ -0,0 +1,12 @@
+package au.id.villar.utils.beangen;
+
+/**
+ * The table column a property is mapped to, read from its {@code javax.persistence} {@code @Column} and {@code @Id}
+ * annotations. The processor doesn't depend on JPA, so they're matched by name.
+ * @param name name of the column, the property's name unless {@code @Column} gives one
+ * @param id whether the property is annotated with {@code @Id}
+ * @param insertable whether the column is set by inserts, see {@code @Column(insertable = ...)}
+ * @param updatable whether the column is set by updates, see {@code @Column(updatable = ...)}
+ */
+record ColumnDefinition(String name, boolean id, boolean insertable, boolean updatable) {
+}
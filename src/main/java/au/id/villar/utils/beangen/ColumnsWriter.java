@@ -0,0 +1,266 @@
+package au.id.villar.utils.beangen;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Writes the {@code <Bean>Columns} companion, which holds many beans as one array per property instead of one object
+ * per bean. Primitive properties get primitive arrays, so scanning a column is a loop over a single array, and rows
+ * are read either by index or through a reusable {@code Cursor} that has the bean's getters.
+ * <p>
+ * Only properties with a getter have a column. Columns are turned back into beans, through the bean's
+ * {@link Builder} constructor or its no-args constructor and setters, only if the bean has one of them.
+ */
+class ColumnsWriter extends CompanionWriter {
+
+	private static final int INITIAL_CAPACITY = 16;
+
+	ColumnsWriter() {
+		super("Columns");
+	}
+
+	@Override
+	boolean isEnabledFor(BeanDefinition definition) {
+		return definition.isWithColumns();
+	}
+
+	@Override
+	protected void writeClass(BeanDefinition definition, SourceWriter writer) {
+
+		final String name = getSingleName(definition);
+		final String typeParameters = definition.getTypeParameters().isEmpty()
+				? ""
+				: '<' + String.join(", ", definition.getTypeParameters()) + '>';
+		final String beanType = definition.getSingleName() + typeParameters;
+		final List<PropertyDefinition> columns = new ArrayList<>();
+		for (PropertyDefinition property : definition.getAllProperties()) {
+			if (definition.hasGetter(property)) {
+				columns.add(property);
+			}
+		}
+
+		writer.append("@SuppressWarnings(\"unchecked\")").newLine()
+				.append("public final class ").append(name).append(typeParameters).append(" {").newLine()
+				.newLine()
+				.indent(1).append("private int size;").newLine()
+				.indent(1).append("private int capacity;").newLine();
+		for (PropertyDefinition property : columns) {
+			writer.indent(1).append("private ").append(property.getErasedType()).append("[] ")
+					.append(columnName(property)).append(';').newLine();
+		}
+
+		writer.newLine()
+				.indent(1).append("public ").append(name).append("() {").newLine()
+				.indent(2).append("this(").append(INITIAL_CAPACITY).append(");").newLine()
+				.indent(1).append('}').newLine()
+				.newLine()
+				.indent(1).append("public ").append(name).append("(int initialCapacity) {").newLine()
+				.indent(2).append("capacity = initialCapacity;").newLine();
+		for (PropertyDefinition property : columns) {
+			writer.indent(2).append(columnName(property)).append(" = ").append(newArray(property, "capacity"))
+					.append(';').newLine();
+		}
+		writer.indent(1).append('}').newLine()
+				.newLine()
+				.indent(1).append("public static ").append(typeParameters.isEmpty() ? "" : typeParameters + ' ')
+				.append(name).append(typeParameters).append(" of(java.util.Collection<? extends ").append(beanType)
+				.append("> beans) {").newLine()
+				.indent(2).append("final ").append(name).append(typeParameters).append(" columns = new ").append(name)
+				.append(typeParameters.isEmpty() ? "" : "<>").append("(Math.max(beans.size(), 1));").newLine()
+				.indent(2).append("for (").append(beanType).append(" bean : beans) {").newLine()
+				.indent(3).append("columns.add(bean);").newLine()
+				.indent(2).append('}').newLine()
+				.indent(2).append("return columns;").newLine()
+				.indent(1).append('}').newLine()
+				.newLine()
+				.indent(1).append("public int size() {").newLine()
+				.indent(2).append("return size;").newLine()
+				.indent(1).append('}').newLine();
+
+		writeAdd(writer, beanType, columns);
+		writeClear(writer, columns);
+		writeColumnAccess(writer, columns);
+		writeBeanConversion(definition, writer, beanType, columns);
+		writeCursor(writer, columns);
+		writeGrow(writer, columns);
+
+		writer.append('}').newLine();
+	}
+
+	private void writeAdd(SourceWriter writer, String beanType, List<PropertyDefinition> columns) {
+		writer.newLine()
+				.indent(1).append("/** Appends the values of the bean's properties as a new row. */").newLine()
+				.indent(1).append("public void add(").append(beanType).append(" bean) {").newLine()
+				.indent(2).append("if (size == capacity) {").newLine()
+				.indent(3).append("grow();").newLine()
+				.indent(2).append('}').newLine();
+		for (PropertyDefinition property : columns) {
+			writer.indent(2).append(columnName(property)).append("[size] = bean.").append(property.getGetterName())
+					.append("();").newLine();
+		}
+		writer.indent(2).append("size++;").newLine()
+				.indent(1).append('}').newLine();
+	}
+
+	private void writeClear(SourceWriter writer, List<PropertyDefinition> columns) {
+		writer.newLine()
+				.indent(1).append("/** Removes every row, keeping the columns' capacity. */").newLine()
+				.indent(1).append("public void clear() {").newLine();
+		for (PropertyDefinition property : columns) {
+			if (!property.isPrimitive()) {
+				writer.indent(2).append("java.util.Arrays.fill(").append(columnName(property))
+						.append(", 0, size, null);").newLine();
+			}
+		}
+		writer.indent(2).append("size = 0;").newLine()
+				.indent(1).append('}').newLine();
+	}
+
+	private void writeColumnAccess(SourceWriter writer, List<PropertyDefinition> columns) {
+		for (PropertyDefinition property : columns) {
+			writer.newLine()
+					.indent(1).append("public ").append(property.getType()).append(' ').append(property.getGetterName())
+					.append("(int row) {").newLine()
+					.indent(2).append("java.util.Objects.checkIndex(row, size);").newLine()
+					.indent(2).append("return ").append(cast(property)).append(columnName(property)).append("[row];")
+					.newLine()
+					.indent(1).append('}').newLine()
+					.newLine()
+					.indent(1).append("/** The column of {@code ").append(property.getName())
+					.append("} itself, of which only the first {@link #size()} elements are rows. */").newLine()
+					.indent(1).append("public ").append(property.getErasedType()).append("[] ")
+					.append(columnName(property)).append("() {").newLine()
+					.indent(2).append("return ").append(columnName(property)).append(';').newLine()
+					.indent(1).append('}').newLine();
+		}
+	}
+
+	private void writeBeanConversion(BeanDefinition definition, SourceWriter writer, String beanType,
+			List<PropertyDefinition> columns) {
+
+		final ConstructorDefinition builder = definition.getBuilderConstructor();
+		if (builder == null && !definition.hasNoArgsConstructor()) {
+			return;
+		}
+
+		writer.newLine()
+				.indent(1).append("/** Builds a new bean with the values of the row. */").newLine()
+				.indent(1).append("public ").append(beanType).append(" get(int row) {").newLine()
+				.indent(2).append("java.util.Objects.checkIndex(row, size);").newLine()
+				.indent(2).append("final ").append(beanType).append(" bean = new ").append(definition.getSingleName())
+				.append(definition.getTypeParameters().isEmpty() ? "" : "<>").append('(');
+
+		final List<String> constructorProperties = new ArrayList<>();
+		if (builder != null) {
+			for (int i = 0; i < builder.parameters().size(); i++) {
+				final VariableDefinition parameter = builder.parameters().get(i);
+				final PropertyDefinition column = columns.stream()
+						.filter(p -> p.getName().equals(parameter.name()))
+						.findFirst().orElse(null);
+				writer.append(i > 0 ? ", " : "").append(column != null
+						? cast(column) + columnName(column) + "[row]"
+						: defaultValue(parameter.type()));
+				if (column != null) {
+					constructorProperties.add(column.getName());
+				}
+			}
+		}
+		writer.append(");").newLine();
+
+		for (PropertyDefinition property : columns) {
+			if (!constructorProperties.contains(property.getName()) && definition.hasSetter(property)) {
+				writer.indent(2).append("bean.").append(property.getSetterName()).append('(').append(cast(property))
+						.append(columnName(property)).append("[row]);").newLine();
+			}
+		}
+
+		writer.indent(2).append("return bean;").newLine()
+				.indent(1).append('}').newLine()
+				.newLine()
+				.indent(1).append("public java.util.List<").append(beanType).append("> toList() {").newLine()
+				.indent(2).append("final java.util.List<").append(beanType)
+				.append("> beans = new java.util.ArrayList<>(size);").newLine()
+				.indent(2).append("for (int row = 0; row < size; row++) {").newLine()
+				.indent(3).append("beans.add(get(row));").newLine()
+				.indent(2).append('}').newLine()
+				.indent(2).append("return beans;").newLine()
+				.indent(1).append('}').newLine();
+	}
+
+	private void writeCursor(SourceWriter writer, List<PropertyDefinition> columns) {
+		writer.newLine()
+				.indent(1).append("/** Returns a new cursor positioned before the first row. */").newLine()
+				.indent(1).append("public Cursor cursor() {").newLine()
+				.indent(2).append("return new Cursor();").newLine()
+				.indent(1).append('}').newLine()
+				.newLine()
+				.indent(1).append("/**").newLine()
+				.indent(1).append(" * Flyweight view of a row, with the bean's getters. A single cursor walks every")
+				.newLine()
+				.indent(1).append(" * row, so nothing is allocated per row; it sees rows added after it was created.")
+				.newLine()
+				.indent(1).append(" */").newLine()
+				.indent(1).append("public final class Cursor {").newLine()
+				.newLine()
+				.indent(2).append("private int row = -1;").newLine()
+				.newLine()
+				.indent(2).append("private Cursor() {").newLine()
+				.indent(2).append('}').newLine()
+				.newLine()
+				.indent(2).append("/** Moves to the next row, returning whether there's one. */").newLine()
+				.indent(2).append("public boolean next() {").newLine()
+				.indent(3).append("if (row < size) {").newLine()
+				.indent(4).append("row++;").newLine()
+				.indent(3).append('}').newLine()
+				.indent(3).append("return row < size;").newLine()
+				.indent(2).append('}').newLine()
+				.newLine()
+				.indent(2).append("public Cursor moveTo(int row) {").newLine()
+				.indent(3).append("this.row = java.util.Objects.checkIndex(row, size);").newLine()
+				.indent(3).append("return this;").newLine()
+				.indent(2).append('}').newLine()
+				.newLine()
+				.indent(2).append("public int row() {").newLine()
+				.indent(3).append("return row;").newLine()
+				.indent(2).append('}').newLine();
+		for (PropertyDefinition property : columns) {
+			writer.newLine()
+					.indent(2).append("public ").append(property.getType()).append(' ').append(property.getGetterName())
+					.append("() {").newLine()
+					.indent(3).append("return ").append(cast(property)).append(columnName(property)).append("[row];")
+					.newLine()
+					.indent(2).append('}').newLine();
+		}
+		writer.indent(1).append('}').newLine();
+	}
+
+	private void writeGrow(SourceWriter writer, List<PropertyDefinition> columns) {
+		writer.newLine()
+				.indent(1).append("private void grow() {").newLine()
+				.indent(2).append("capacity = Math.max(capacity + (capacity >> 1), ").append(INITIAL_CAPACITY)
+				.append(");").newLine();
+		for (PropertyDefinition property : columns) {
+			writer.indent(2).append(columnName(property)).append(" = java.util.Arrays.copyOf(")
+					.append(columnName(property)).append(", capacity);").newLine();
+		}
+		writer.indent(1).append('}').newLine();
+	}
+
+	private static String columnName(PropertyDefinition property) {
+		return property.getName() + "Column";
+	}
+
+	/** Array creation expression for a column, like {@code new int[capacity][]} for an {@code int[]} property. */
+	private static String newArray(PropertyDefinition property, String length) {
+		final String type = property.getErasedType();
+		final int dimensions = type.indexOf('[');
+		return dimensions == -1
+				? "new " + type + '[' + length + ']'
+				: "new " + type.substring(0, dimensions) + '[' + length + ']' + type.substring(dimensions);
+	}
+
+	/** Cast from the column's erased element type to the property's type, when they differ. */
+	private static String cast(PropertyDefinition property) {
+		return property.getType().equals(property.getErasedType()) ? "" : '(' + property.getType() + ") ";
+	}
+}
@@ -0,0 +1,98 @@
+package au.id.villar.utils.beangen;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.List;
+
+/**
+ * Writes a class generated next to a bean, named after it, like {@code PersonEntityAccessor} for
+ * {@code PersonEntity}. Companions are rendered, cached and written like the beans themselves, and are originated by
+ * the bean's template. Implementations must be stateless, as they are shared by every rendering thread.
+ */
+abstract class CompanionWriter {
+
+	private final String suffix;
+
+	protected CompanionWriter(String suffix) {
+		this.suffix = suffix;
+	}
+
+	/** Suffix appended to the bean's name to name the companion. */
+	String getSuffix() {
+		return suffix;
+	}
+
+	String getQualifiedName(BeanDefinition definition) {
+		return definition.getQualifiedName() + suffix;
+	}
+
+	String getSingleName(BeanDefinition definition) {
+		return definition.getSingleName() + suffix;
+	}
+
+	abstract boolean isEnabledFor(BeanDefinition definition);
+
+	/** Returns why the companion can't be generated for the bean, if that's the case; empty otherwise. */
+	List<String> validate(BeanDefinition definition) {
+		return List.of();
+	}
+
+	String renderSourceCode(BeanDefinition definition) {
+		final SourceWriter writer = SourceWriter.acquire();
+		try {
+			if (!definition.getPackageName().isEmpty()) {
+				writer.append("package ").append(definition.getPackageName()).append(';').newLine().newLine();
+			}
+			writer.append("import javax.annotation.processing.Generated;").newLine()
+					.newLine()
+					.append("@Generated(\"").append(BeanDefinition.GENERATOR_NAME).append("\")").newLine();
+			writeClass(definition, writer);
+			return writer.toString();
+		} finally {
+			writer.release();
+		}
+	}
+
+	/** Writes the companion's class declaration and body, right after its package, imports and annotations. */
+	protected abstract void writeClass(BeanDefinition definition, SourceWriter writer);
+
+	/** Type of the bean as used by companions, with wildcards for its type parameters, like {@code Person<?>}. */
+	protected static String beanType(BeanDefinition definition) {
+		final StringBuilder type = new StringBuilder(definition.getSingleName());
+		for (int i = 0; i < definition.getTypeParameters().size(); i++) {
+			type.append(i > 0 ? ", ?" : "<?").append(i == definition.getTypeParameters().size() - 1 ? ">" : "");
+		}
+		return type.toString();
+	}
+
+	/** Java literal of the default value of a type, used for constructor arguments a companion has no value for. */
+	protected static String defaultValue(String type) {
+		return switch (type) {
+			case "boolean" -> "false";
+			case "char" -> "'\\0'";
+			case "byte" -> "(byte) 0";
+			case "short" -> "(short) 0";
+			case "int" -> "0";
+			case "long" -> "0L";
+			case "float" -> "0F";
+			case "double" -> "0D";
+			default -> "null";
+		};
+	}
+
+	/** First four bytes of the SHA-256 of the names and erased types of the properties, in order. */
+	protected static int schemaHash(List<PropertyDefinition> properties) {
+		final StringBuilder schema = new StringBuilder();
+		for (PropertyDefinition property : properties) {
+			schema.append(property.getName()).append(' ').append(property.getErasedType()).append('\n');
+		}
+		try {
+			final byte[] digest = MessageDigest.getInstance("SHA-256")
+					.digest(schema.toString().getBytes(StandardCharsets.UTF_8));
+			return (digest[0] & 0xFF) << 24 | (digest[1] & 0xFF) << 16 | (digest[2] & 0xFF) << 8 | digest[3] & 0xFF;
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+}
@@ -0,0 +1,236 @@
+package au.id.villar.utils.beangen;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Writes the {@code <Bean>Comparators} companion. Every comparable property with a getter gets a
+ * {@code compareByX} method, comparing primitives with their wrapper's static {@code compare} so nothing is boxed,
+ * and a {@code BY_X} comparator referencing it; each @{@link Ordering} gets the same, calling the methods of its
+ * properties in turn. Primitive, wrapper and string properties also get a {@code sortKeyOfX} method, see
+ * {@link au.id.villar.utils.beangen.runtime.SortKeys}, and a {@code sortedIndicesByX} method that radix sorts a
+ * list of beans by those keys.
+ */
+class ComparatorsWriter extends CompanionWriter {
+
+	private static final String SORT_KEYS = "au.id.villar.utils.beangen.runtime.SortKeys";
+
+	private static final Set<String> KEYED_WRAPPERS = Set.of("java.lang.Boolean", "java.lang.Byte",
+			"java.lang.Short", "java.lang.Character", "java.lang.Integer", "java.lang.Long", "java.lang.Float",
+			"java.lang.Double");
+
+	ComparatorsWriter() {
+		super("Comparators");
+	}
+
+	@Override
+	boolean isEnabledFor(BeanDefinition definition) {
+		return definition.isWithComparators();
+	}
+
+	@Override
+	List<String> validate(BeanDefinition definition) {
+
+		final List<String> problems = new ArrayList<>();
+		final Set<String> compared = new HashSet<>();
+		comparedProperties(definition).forEach(p -> compared.add(p.getName()));
+		final Set<String> names = new HashSet<>(compared);
+
+		for (OrderingDefinition ordering : definition.getOrderings()) {
+			if (!names.add(ordering.name())) {
+				problems.add("ordering " + ordering.name() + " is named like another ordering or a property");
+			}
+			if (ordering.properties().isEmpty()) {
+				problems.add("ordering " + ordering.name() + " has no properties");
+			}
+			for (String property : ordering.properties()) {
+				if (!compared.contains(propertyName(property))) {
+					problems.add("ordering " + ordering.name() + " can't compare " + propertyName(property)
+							+ ", which isn't a comparable property with a getter");
+				}
+			}
+		}
+
+		return problems;
+	}
+
+	@Override
+	protected void writeClass(BeanDefinition definition, SourceWriter writer) {
+
+		final String name = getSingleName(definition);
+		final String beanType = beanType(definition);
+		final List<PropertyDefinition> properties = comparedProperties(definition);
+		final List<String> comparatorNames = new ArrayList<>();
+		properties.forEach(p -> comparatorNames.add(p.getName()));
+		definition.getOrderings().forEach(o -> comparatorNames.add(o.name()));
+
+		writer.append("@SuppressWarnings({\"rawtypes\", \"unchecked\"})").newLine()
+				.append("public final class ").append(name).append(" {").newLine()
+				.newLine();
+		for (String comparatorName : comparatorNames) {
+			writer.indent(1).append("public static final java.util.Comparator<").append(beanType).append("> ")
+					.append(constantName(comparatorName)).append(" = ").append(name).append("::")
+					.append(methodName("compareBy", comparatorName)).append(';').newLine();
+		}
+		writer.newLine()
+				.indent(1).append("private ").append(name).append("() {").newLine()
+				.indent(1).append('}').newLine();
+
+		for (PropertyDefinition property : properties) {
+			writePropertyComparison(writer, beanType, property);
+		}
+		for (OrderingDefinition ordering : definition.getOrderings()) {
+			writeOrdering(writer, beanType, ordering);
+		}
+		for (PropertyDefinition property : properties) {
+			if (property.isPrimitive() || KEYED_WRAPPERS.contains(property.getType())
+					|| property.getType().equals("java.lang.String")) {
+				writeSortKey(writer, beanType, property);
+				writeSortedIndices(writer, beanType, property);
+			}
+		}
+
+		writer.newLine()
+				.indent(1).append("/** Compares comparable values, null first. */").newLine()
+				.indent(1).append("private static int compare(Comparable a, Comparable b) {").newLine()
+				.indent(2).append("if (a == null || b == null) {").newLine()
+				.indent(3).append("return a == b ? 0 : (a == null ? -1 : 1);").newLine()
+				.indent(2).append('}').newLine()
+				.indent(2).append("return a.compareTo(b);").newLine()
+				.indent(1).append('}').newLine();
+
+		writer.append('}').newLine();
+	}
+
+	private static void writePropertyComparison(SourceWriter writer, String beanType, PropertyDefinition property) {
+		final String getter = property.getGetterName() + "()";
+		final String compare = property.isPrimitive() ? property.getWrapperType() + ".compare(" : "compare(";
+		writer.newLine()
+				.indent(1).append("public static int ").append(methodName("compareBy", property.getName())).append('(')
+				.append(beanType).append(" a, ").append(beanType).append(" b) {").newLine()
+				.indent(2).append("return ").append(compare).append("a.").append(getter).append(", b.").append(getter)
+				.append(");").newLine()
+				.indent(1).append('}').newLine();
+	}
+
+	private static void writeOrdering(SourceWriter writer, String beanType, OrderingDefinition ordering) {
+
+		writer.newLine()
+				.indent(1).append("public static int ").append(methodName("compareBy", ordering.name())).append('(')
+				.append(beanType).append(" a, ").append(beanType).append(" b) {").newLine();
+
+		final List<String> properties = ordering.properties();
+		for (int i = 0; i < properties.size(); i++) {
+			final String property = properties.get(i);
+			final String comparison = methodName("compareBy", propertyName(property))
+					+ (property.startsWith("-") ? "(b, a)" : "(a, b)");
+			if (i == properties.size() - 1) {
+				writer.indent(2).append("return ").append(comparison).append(';').newLine();
+			} else {
+				writer.indent(2).append(i == 0 ? "int " : "").append("result = ").append(comparison).append(';')
+						.newLine()
+						.indent(2).append("if (result != 0) {").newLine()
+						.indent(3).append("return result;").newLine()
+						.indent(2).append('}').newLine();
+			}
+		}
+
+		writer.indent(1).append('}').newLine();
+	}
+
+	private static void writeSortKey(SourceWriter writer, String beanType, PropertyDefinition property) {
+
+		final String type = property.getType();
+
+		writer.newLine()
+				.indent(1).append("/** Sort key of {@code ").append(property.getName()).append("}, ordered as {@link #")
+				.append(constantName(property.getName())).append("}. */").newLine()
+				.indent(1).append("public static long ").append(methodName("sortKeyOf", property.getName()))
+				.append('(').append(beanType).append(" bean) {").newLine();
+
+		if (type.equals("java.lang.String")) {
+			writer.indent(2).append("return ").append(SORT_KEYS).append(".ofString(bean.")
+					.append(property.getGetterName()).append("());").newLine();
+		} else if (property.isPrimitive()) {
+			writer.indent(2).append("return ").append(primitiveKey(type, "bean." + property.getGetterName() + "()"))
+					.append(';').newLine();
+		} else {
+			writer.indent(2).append("final ").append(type).append(" value = bean.").append(property.getGetterName())
+					.append("();").newLine()
+					.indent(2).append("return value == null ? Long.MIN_VALUE : ")
+					.append(primitiveKey(type.substring("java.lang.".length()), "value")).append(';').newLine();
+		}
+
+		writer.indent(1).append('}').newLine();
+	}
+
+	/** Key of a primitive value, or of a wrapper's when the type is the wrapper's simple name. */
+	private static String primitiveKey(String type, String value) {
+		return switch (type) {
+			case "boolean", "Boolean" -> "(" + value + " ? 1L : 0L)";
+			case "float", "Float" -> SORT_KEYS + ".ofFloat(" + value + ')';
+			case "double", "Double" -> SORT_KEYS + ".ofDouble(" + value + ')';
+			default -> value;
+		};
+	}
+
+	private static void writeSortedIndices(SourceWriter writer, String beanType, PropertyDefinition property) {
+
+		final boolean exact = !property.getType().equals("java.lang.String")
+				&& !property.getType().equals("java.lang.Long");
+
+		writer.newLine()
+				.indent(1).append("/** Indices of the beans in the order of {@link #")
+				.append(constantName(property.getName())).append("}, radix sorting their sort keys. Stable. */")
+				.newLine()
+				.indent(1).append("public static int[] ").append(methodName("sortedIndicesBy", property.getName()))
+				.append("(java.util.List<? extends ").append(beanType).append("> beans) {").newLine()
+				.indent(2).append("final Object[] array = beans.toArray();").newLine()
+				.indent(2).append("final long[] keys = new long[array.length];").newLine()
+				.indent(2).append("for (int i = 0; i < array.length; i++) {").newLine()
+				.indent(3).append("keys[i] = ").append(methodName("sortKeyOf", property.getName())).append("((")
+				.append(beanType).append(") array[i]);").newLine()
+				.indent(2).append('}').newLine();
+		if (exact) {
+			writer.indent(2).append("return ").append(SORT_KEYS).append(".sortedIndices(keys);").newLine();
+		} else {
+			writer.indent(2).append("final int[] indices = ").append(SORT_KEYS).append(".sortedIndices(keys);")
+					.newLine()
+					.indent(2).append(SORT_KEYS).append(".sortTies(indices, keys, (i, j) -> ")
+					.append(methodName("compareBy", property.getName())).append("((").append(beanType)
+					.append(") array[i], (").append(beanType).append(") array[j]));").newLine()
+					.indent(2).append("return indices;").newLine();
+		}
+		writer.indent(1).append('}').newLine();
+	}
+
+	/** Properties compared by the companion: those of comparable types that have a getter. */
+	private static List<PropertyDefinition> comparedProperties(BeanDefinition definition) {
+		return definition.getAllProperties().stream()
+				.filter(p -> p.isComparable() && definition.hasGetter(p))
+				.toList();
+	}
+
+	private static String propertyName(String orderingProperty) {
+		return orderingProperty.startsWith("-") ? orderingProperty.substring(1) : orderingProperty;
+	}
+
+	private static String methodName(String prefix, String name) {
+		return prefix + Character.toUpperCase(name.charAt(0)) + name.substring(1);
+	}
+
+	/** Name of a comparator constant, like {@code BY_GIVEN_NAME} for {@code givenName}. */
+	private static String constantName(String name) {
+		final StringBuilder constant = new StringBuilder("BY_");
+		for (int i = 0; i < name.length(); i++) {
+			final char c = name.charAt(i);
+			if (Character.isUpperCase(c) && i > 0) {
+				constant.append('_');
+			}
+			constant.append(Character.toUpperCase(c));
+		}
+		return constant.toString();
+	}
+}
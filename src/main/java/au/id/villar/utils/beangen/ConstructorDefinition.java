@@ -2,5 +2,15 @@ package au.id.villar.utils.beangen;
 
 import java.util.List;
 
-record ConstructorDefinition(String accessModifier, List<VariableDefinition> parameters, boolean usedByBuilder) {
+/**
+ * A constructor of a template, redeclared by its bean.
+ * @param reusableBuilder whether the constructor is the @{@link Builder} one, with {@link Builder#reusable()}
+ * @param requiredParameters the {@link Builder#required()} parameters, if the constructor is the @{@link Builder} one
+ */
+record ConstructorDefinition(String accessModifier, List<VariableDefinition> parameters, boolean usedByBuilder,
+		boolean reusableBuilder, List<String> requiredParameters) {
+
+	ConstructorDefinition(String accessModifier, List<VariableDefinition> parameters, boolean usedByBuilder) {
+		this(accessModifier, parameters, usedByBuilder, false, List.of());
+	}
 }
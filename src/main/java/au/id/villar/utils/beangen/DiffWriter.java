@@ -0,0 +1,259 @@
+package au.id.villar.utils.beangen;
+
+import java.util.List;
+
+/**
+ * Writes the {@code <Bean>Diff} companion, an implementation of {@link au.id.villar.utils.beangen.runtime.BeanDiff}
+ * that compares, sets and writes each property with a {@code switch} on its index, the same index the accessor
+ * gives it. Values of primitive properties travel in the patch as the bits of a {@code long}, so they're never boxed,
+ * and patches are written with {@link ExternalValues}, as the bean itself is when it's externalizable.
+ */
+class DiffWriter extends CompanionWriter {
+
+	private static final String BEAN_DIFF = "au.id.villar.utils.beangen.runtime.BeanDiff";
+	private static final String BEAN_PATCH = "au.id.villar.utils.beangen.runtime.BeanPatch";
+
+	DiffWriter() {
+		super("Diff");
+	}
+
+	@Override
+	boolean isEnabledFor(BeanDefinition definition) {
+		return definition.isWithDiff();
+	}
+
+	@Override
+	List<String> validate(BeanDefinition definition) {
+
+		if (definition.isImmutable()) {
+			return List.of("diff can't patch immutable beans, which have no setters");
+		}
+
+		final List<String> unpatched = definition.getAllProperties().stream()
+				.filter(p -> !p.isTransient() && !isDiffed(definition, p))
+				.map(PropertyDefinition::getName)
+				.toList();
+
+		if (!unpatched.isEmpty()) {
+			return List.of("diff can only patch properties with a getter and a setter, so these must be transient: "
+					+ String.join(", ", unpatched));
+		}
+		if (diffedCount(definition, definition.getAllProperties()) == 0) {
+			return List.of("diff needs at least one property to patch");
+		}
+
+		return List.of();
+	}
+
+	@Override
+	protected void writeClass(BeanDefinition definition, SourceWriter writer) {
+
+		final String name = getSingleName(definition);
+		final String beanType = beanType(definition);
+		final List<PropertyDefinition> properties = definition.getAllProperties();
+
+		writer.append("@SuppressWarnings({\"rawtypes\", \"unchecked\"})").newLine()
+				.append("public final class ").append(name).append(" implements ").append(BEAN_DIFF).append('<')
+				.append(beanType).append("> {").newLine()
+				.newLine()
+				.indent(1).append("public static final ").append(name).append(" INSTANCE = new ").append(name)
+				.append("();").newLine()
+				.newLine()
+				.indent(1).append("public static final int SCHEMA_HASH = ").append(schemaHash(properties)).append(';')
+				.newLine()
+				.newLine()
+				.indent(1).append("private ").append(name).append("() {").newLine()
+				.indent(1).append('}').newLine()
+				.newLine()
+				.indent(1).append("@Override").newLine()
+				.indent(1).append("public int schemaHash() {").newLine()
+				.indent(2).append("return SCHEMA_HASH;").newLine()
+				.indent(1).append('}').newLine();
+
+		writeDiff(definition, writer, beanType, properties);
+		writeApply(definition, writer, beanType, properties);
+		writeWrite(definition, writer, properties);
+		writeRead(definition, writer, properties);
+
+		writer.newLine()
+				.indent(1).append("private static void checkSchema(").append(BEAN_PATCH).append(" patch) {").newLine()
+				.indent(2).append("if (patch.schemaHash() != SCHEMA_HASH) {").newLine()
+				.indent(3).append("throw new IllegalArgumentException(\"Patch isn't for this version of ")
+				.append(definition.getSingleName()).append("\");").newLine()
+				.indent(2).append('}').newLine()
+				.indent(1).append('}').newLine();
+
+		writer.append('}').newLine();
+	}
+
+	private static void writeDiff(BeanDefinition definition, SourceWriter writer, String beanType,
+			List<PropertyDefinition> properties) {
+
+		writer.newLine()
+				.indent(1).append("@Override").newLine()
+				.indent(1).append("public ").append(BEAN_PATCH).append(" diff(").append(beanType).append(" from, ")
+				.append(beanType).append(" to) {").newLine()
+				.indent(2).append("final ").append(BEAN_PATCH).append(".Builder patch = new ").append(BEAN_PATCH)
+				.append(".Builder(SCHEMA_HASH, ").append(diffedCount(definition, properties)).append(");").newLine();
+
+		for (int i = 0; i < properties.size(); i++) {
+			final PropertyDefinition property = properties.get(i);
+			if (!isDiffed(definition, property)) {
+				continue;
+			}
+			final String from = "from." + property.getGetterName() + "()";
+			final String to = "to." + property.getGetterName() + "()";
+			writer.indent(2).append("if (").append(inequality(property, from, to)).append(") {").newLine()
+					.indent(3).append("patch.").append(property.isPrimitive() ? "addPrimitive(" : "addObject(")
+					.append(i).append(", ").append(property.isPrimitive() ? bits(property.getType(), to) : to)
+					.append(");").newLine()
+					.indent(2).append('}').newLine();
+		}
+
+		writer.indent(2).append("return patch.build();").newLine()
+				.indent(1).append('}').newLine();
+	}
+
+	private static void writeApply(BeanDefinition definition, SourceWriter writer, String beanType,
+			List<PropertyDefinition> properties) {
+
+		final String receiver = definition.getTypeParameters().isEmpty()
+				? "target." : "((" + definition.getSingleName() + ") target).";
+
+		writer.newLine()
+				.indent(1).append("@Override").newLine()
+				.indent(1).append("public void apply(").append(beanType).append(" target, ").append(BEAN_PATCH)
+				.append(" patch) {").newLine()
+				.indent(2).append("checkSchema(patch);").newLine()
+				.indent(2).append("for (int i = 0; i < patch.size(); i++) {").newLine()
+				.indent(3).append("switch (patch.index(i)) {").newLine();
+		for (int i = 0; i < properties.size(); i++) {
+			final PropertyDefinition property = properties.get(i);
+			if (isDiffed(definition, property)) {
+				writer.indent(4).append("case ").append(i).append(": ").append(receiver)
+						.append(property.getSetterName()).append('(').append(value(property)).append("); break;")
+						.newLine();
+			}
+		}
+		writer.indent(4).append("default:").newLine()
+				.indent(5).append("throw new IllegalArgumentException(\"No property \" + patch.index(i) + \" in ")
+				.append(definition.getSingleName()).append(" to patch\");").newLine()
+				.indent(3).append('}').newLine()
+				.indent(2).append('}').newLine()
+				.indent(1).append('}').newLine();
+	}
+
+	private static void writeWrite(BeanDefinition definition, SourceWriter writer,
+			List<PropertyDefinition> properties) {
+
+		writer.newLine()
+				.indent(1).append("@Override").newLine()
+				.indent(1).append("public void write(").append(BEAN_PATCH)
+				.append(" patch, java.io.ObjectOutput out) throws java.io.IOException {").newLine()
+				.indent(2).append("checkSchema(patch);").newLine()
+				.indent(2).append("out.writeInt(SCHEMA_HASH);").newLine()
+				.indent(2).append("out.writeInt(patch.size());").newLine()
+				.indent(2).append("for (int i = 0; i < patch.size(); i++) {").newLine()
+				.indent(3).append("out.writeShort(patch.index(i));").newLine()
+				.indent(3).append("switch (patch.index(i)) {").newLine();
+		for (int i = 0; i < properties.size(); i++) {
+			final PropertyDefinition property = properties.get(i);
+			if (isDiffed(definition, property)) {
+				writer.indent(4).append("case ").append(i).append(':').newLine();
+				ExternalValues.writeValue(writer, 5, property.getErasedType(), value(property));
+				writer.indent(5).append("break;").newLine();
+			}
+		}
+		writer.indent(4).append("default:").newLine()
+				.indent(5).append("throw new IllegalArgumentException(\"No property \" + patch.index(i) + \" in ")
+				.append(definition.getSingleName()).append(" to write\");").newLine()
+				.indent(3).append('}').newLine()
+				.indent(2).append('}').newLine()
+				.indent(1).append('}').newLine();
+	}
+
+	private static void writeRead(BeanDefinition definition, SourceWriter writer,
+			List<PropertyDefinition> properties) {
+
+		writer.newLine()
+				.indent(1).append("@Override").newLine()
+				.indent(1).append("public ").append(BEAN_PATCH)
+				.append(" read(java.io.ObjectInput in) throws java.io.IOException, ClassNotFoundException {").newLine()
+				.indent(2).append("if (in.readInt() != SCHEMA_HASH) {").newLine()
+				.indent(3).append("throw new java.io.InvalidObjectException(\"Patch isn't for this version of ")
+				.append(definition.getSingleName()).append("\");").newLine()
+				.indent(2).append('}').newLine()
+				.indent(2).append("final int size = in.readInt();").newLine()
+				.indent(2).append("if (size < 0 || size > ").append(diffedCount(definition, properties)).append(") {")
+				.newLine()
+				.indent(3).append("throw new java.io.InvalidObjectException(\"Patch of \" + size + \" properties\");")
+				.newLine()
+				.indent(2).append('}').newLine()
+				.indent(2).append("final ").append(BEAN_PATCH).append(".Builder patch = new ").append(BEAN_PATCH)
+				.append(".Builder(SCHEMA_HASH, size);").newLine()
+				.indent(2).append("for (int i = 0; i < size; i++) {").newLine()
+				.indent(3).append("final int index = in.readUnsignedShort();").newLine()
+				.indent(3).append("switch (index) {").newLine();
+		for (int i = 0; i < properties.size(); i++) {
+			final PropertyDefinition property = properties.get(i);
+			if (isDiffed(definition, property)) {
+				final String value = ExternalValues.readValue(property.getErasedType());
+				writer.indent(4).append("case ").append(i).append(": patch.")
+						.append(property.isPrimitive() ? "addPrimitive(" : "addObject(").append(i).append(", ")
+						.append(property.isPrimitive() ? bits(property.getType(), value) : value).append("); break;")
+						.newLine();
+			}
+		}
+		writer.indent(4).append("default:").newLine()
+				.indent(5).append("throw new java.io.InvalidObjectException(\"No property \" + index + \" in ")
+				.append(definition.getSingleName()).append("\");").newLine()
+				.indent(3).append('}').newLine()
+				.indent(2).append('}').newLine()
+				.indent(2).append("return patch.build();").newLine()
+				.indent(1).append('}').newLine();
+	}
+
+	/** The expression telling two values apart, comparing them as the bean's {@code equals} does. */
+	private static String inequality(PropertyDefinition property, String from, String to) {
+		if (property.getType().equals("float") || property.getType().equals("double")) {
+			return property.getWrapperType() + ".compare(" + from + ", " + to + ") != 0";
+		} else if (property.isPrimitive()) {
+			return from + " != " + to;
+		} else if (property.isArray()) {
+			return (property.isNestedArray() ? "!java.util.Arrays.deepEquals(" : "!java.util.Arrays.equals(")
+					+ from + ", " + to + ')';
+		}
+		return "!java.util.Objects.equals(" + from + ", " + to + ')';
+	}
+
+	/** The bits, as a {@code long}, of a primitive value; see {@link au.id.villar.utils.beangen.runtime.BeanPatch}. */
+	private static String bits(String type, String value) {
+		return switch (type) {
+			case "boolean" -> "(" + value + " ? 1L : 0L)";
+			case "float" -> "Float.floatToRawIntBits(" + value + ')';
+			case "double" -> "Double.doubleToRawLongBits(" + value + ')';
+			default -> value;
+		};
+	}
+
+	/** The expression of the {@code i}th value of the patch, of the type of the property, erased. */
+	private static String value(PropertyDefinition property) {
+		return switch (property.getType()) {
+			case "boolean" -> "patch.primitive(i) != 0";
+			case "float" -> "Float.intBitsToFloat((int) patch.primitive(i))";
+			case "double" -> "Double.longBitsToDouble(patch.primitive(i))";
+			case "byte", "short", "char", "int" -> "(" + property.getType() + ") patch.primitive(i)";
+			case "long" -> "patch.primitive(i)";
+			default -> "(" + property.getErasedType() + ") patch.object(i)";
+		};
+	}
+
+	/** Properties the companion compares and patches: those with both a getter and a setter, but transient ones. */
+	private static boolean isDiffed(BeanDefinition definition, PropertyDefinition property) {
+		return !property.isTransient() && definition.hasGetter(property) && definition.hasSetter(property);
+	}
+
+	private static int diffedCount(BeanDefinition definition, List<PropertyDefinition> properties) {
+		return (int) properties.stream().filter(p -> isDiffed(definition, p)).count();
+	}
+}
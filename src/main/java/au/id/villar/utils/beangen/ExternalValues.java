@@ -0,0 +1,63 @@
+package au.id.villar.utils.beangen;
+
+import java.util.Map;
+
+/**
+ * Writes the code writing values of a given type to a {@code java.io.ObjectOutput} named {@code out}, and reading
+ * them back from a {@code java.io.ObjectInput} named {@code in}: primitives with the methods of those interfaces,
+ * wrappers as a null flag followed by their primitive, strings and arrays of primitives as laid out by
+ * {@link au.id.villar.utils.beangen.runtime.ExternalFormat}, and anything else as an object.
+ */
+final class ExternalValues {
+
+	private static final String EXTERNAL_FORMAT = "au.id.villar.utils.beangen.runtime.ExternalFormat";
+
+	private static final Map<String, String> WRAPPED_PRIMITIVES = Map.of("java.lang.Boolean", "boolean",
+			"java.lang.Byte", "byte", "java.lang.Short", "short", "java.lang.Character", "char",
+			"java.lang.Integer", "int", "java.lang.Long", "long", "java.lang.Float", "float",
+			"java.lang.Double", "double");
+
+	/** Types written by {@code ExternalFormat}, and the suffix of its methods writing and reading them. */
+	private static final Map<String, String> FORMATTED_TYPES = Map.of("java.lang.String", "String",
+			"boolean[]", "Booleans", "byte[]", "Bytes", "short[]", "Shorts", "char[]", "Chars", "int[]", "Ints",
+			"long[]", "Longs", "float[]", "Floats", "double[]", "Doubles");
+
+	private ExternalValues() {
+	}
+
+	/** Writes the statements writing a value, which is evaluated more than once if its type is a wrapper. */
+	static void writeValue(SourceWriter writer, int indentation, String type, String value) {
+		if (PropertyDefinition.PRIMITIVE_TYPES.contains(type)) {
+			writer.indent(indentation).append("out.write").append(capitalize(type)).append('(').append(value)
+					.append(");").newLine();
+		} else if (WRAPPED_PRIMITIVES.containsKey(type)) {
+			writer.indent(indentation).append("out.writeBoolean(").append(value).append(" != null);").newLine()
+					.indent(indentation).append("if (").append(value).append(" != null) {").newLine()
+					.indent(indentation + 1).append("out.write").append(capitalize(WRAPPED_PRIMITIVES.get(type)))
+					.append('(').append(value).append(");").newLine()
+					.indent(indentation).append('}').newLine();
+		} else if (FORMATTED_TYPES.containsKey(type)) {
+			writer.indent(indentation).append(EXTERNAL_FORMAT).append(".write").append(FORMATTED_TYPES.get(type))
+					.append("(out, ").append(value).append(");").newLine();
+		} else {
+			writer.indent(indentation).append("out.writeObject(").append(value).append(");").newLine();
+		}
+	}
+
+	/** Returns the expression reading a value; it's an unchecked cast if the type is generic. */
+	static String readValue(String type) {
+		if (PropertyDefinition.PRIMITIVE_TYPES.contains(type)) {
+			return "in.read" + capitalize(type) + "()";
+		} else if (WRAPPED_PRIMITIVES.containsKey(type)) {
+			return "in.readBoolean() ? " + type + ".valueOf(in.read" + capitalize(WRAPPED_PRIMITIVES.get(type))
+					+ "()) : null";
+		} else if (FORMATTED_TYPES.containsKey(type)) {
+			return EXTERNAL_FORMAT + ".read" + FORMATTED_TYPES.get(type) + "(in)";
+		}
+		return "(" + type + ") in.readObject()";
+	}
+
+	private static String capitalize(String name) {
+		return Character.toUpperCase(name.charAt(0)) + name.substring(1);
+	}
+}
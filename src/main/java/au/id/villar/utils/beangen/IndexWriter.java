@@ -0,0 +1,345 @@
+package au.id.villar.utils.beangen;
+
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Writes the {@code <Bean>Index} companion, a map from the entity's primitive {@code @Id} to the entity that keeps
+ * keys unboxed: an open-addressing table of a key array and a bean array, probed linearly from a Fibonacci hash of
+ * the key. Removals shift the following entries back instead of leaving tombstones, so lookups stay short after
+ * heavy churn. Its nested {@code Concurrent} class is a thread-safe version for read-mostly use.
+ */
+class IndexWriter extends CompanionWriter {
+
+	private static final int MIN_CAPACITY = 16;
+
+	IndexWriter() {
+		super("Index");
+	}
+
+	@Override
+	boolean isEnabledFor(BeanDefinition definition) {
+		return definition.isWithIndex();
+	}
+
+	@Override
+	List<String> validate(BeanDefinition definition) {
+
+		final List<PropertyDefinition> ids = definition.getAllProperties().stream()
+				.filter(p -> p.getColumn() != null && p.getColumn().id())
+				.toList();
+
+		if (ids.size() != 1) {
+			return List.of("index needs exactly one @Id property, but there are " + ids.size());
+		}
+		if (!ids.get(0).getType().equals("int") && !ids.get(0).getType().equals("long")) {
+			return List.of("index needs the @Id property to be an int or a long, but " + ids.get(0).getName()
+					+ " is a " + ids.get(0).getType());
+		}
+		if (!definition.hasGetter(ids.get(0))) {
+			return List.of("index needs a getter for the @Id property " + ids.get(0).getName());
+		}
+
+		return List.of();
+	}
+
+	@Override
+	protected void writeClass(BeanDefinition definition, SourceWriter writer) {
+
+		final String name = getSingleName(definition);
+		final String typeParameters = definition.getTypeParameters().isEmpty()
+				? ""
+				: '<' + String.join(", ", definition.getTypeParameters()) + '>';
+		final String diamond = typeParameters.isEmpty() ? "" : "<>";
+		final String beanType = definition.getSingleName() + typeParameters;
+		final PropertyDefinition id = definition.getAllProperties().stream()
+				.filter(p -> p.getColumn() != null && p.getColumn().id())
+				.findFirst().orElseThrow();
+		final String keyType = id.getType();
+		final String key = "bean." + id.getGetterName() + "()";
+
+		writer.append("@SuppressWarnings(\"unchecked\")").newLine()
+				.append("public final class ").append(name).append(typeParameters).append(" {").newLine()
+				.newLine()
+				.indent(1).append("private static final int MIN_CAPACITY = ").append(MIN_CAPACITY).append(';')
+				.newLine()
+				.indent(1).append("private static final int MAX_CAPACITY = 1 << 30;").newLine()
+				.newLine()
+				.indent(1).append("private ").append(keyType).append("[] keys;").newLine()
+				.indent(1).append("private Object[] beans;").newLine()
+				.indent(1).append("private int shift;").newLine()
+				.indent(1).append("private int threshold;").newLine()
+				.indent(1).append("private int size;").newLine()
+				.newLine()
+				.indent(1).append("public ").append(name).append("() {").newLine()
+				.indent(2).append("this(0);").newLine()
+				.indent(1).append('}').newLine()
+				.newLine()
+				.indent(1).append("/** Creates an index that holds {@code expectedSize} beans without growing. */")
+				.newLine()
+				.indent(1).append("public ").append(name).append("(int expectedSize) {").newLine()
+				.indent(2).append("allocate(capacityFor(expectedSize));").newLine()
+				.indent(1).append('}').newLine()
+				.newLine()
+				.indent(1).append("public static ").append(typeParameters.isEmpty() ? "" : typeParameters + ' ')
+				.append(name).append(typeParameters).append(" of(java.util.Collection<? extends ").append(beanType)
+				.append("> beans) {").newLine()
+				.indent(2).append("final ").append(name).append(typeParameters).append(" index = new ").append(name)
+				.append(diamond).append("(beans.size());").newLine()
+				.indent(2).append("index.putAll(beans);").newLine()
+				.indent(2).append("return index;").newLine()
+				.indent(1).append('}').newLine()
+				.newLine()
+				.indent(1).append("public int size() {").newLine()
+				.indent(2).append("return size;").newLine()
+				.indent(1).append('}').newLine()
+				.newLine()
+				.indent(1).append("public boolean isEmpty() {").newLine()
+				.indent(2).append("return size == 0;").newLine()
+				.indent(1).append('}').newLine()
+				.newLine()
+				.indent(1).append("public ").append(beanType).append(" get(").append(keyType).append(" id) {")
+				.newLine()
+				.indent(2).append("final Object[] beans = this.beans;").newLine()
+				.indent(2).append("final int slot = find(id, keys, beans);").newLine()
+				.indent(2).append("return slot >= 0 ? (").append(beanType).append(") beans[slot] : null;").newLine()
+				.indent(1).append('}').newLine()
+				.newLine()
+				.indent(1).append("public boolean containsKey(").append(keyType).append(" id) {").newLine()
+				.indent(2).append("return find(id, keys, beans) >= 0;").newLine()
+				.indent(1).append('}').newLine();
+
+		writePut(writer, beanType, keyType, key);
+		writeRemove(writer, beanType, keyType);
+
+		writer.newLine()
+				.indent(1).append("public void clear() {").newLine()
+				.indent(2).append("java.util.Arrays.fill(beans, null);").newLine()
+				.indent(2).append("size = 0;").newLine()
+				.indent(1).append('}').newLine()
+				.newLine()
+				.indent(1).append("public void forEach(java.util.function.Consumer<? super ").append(beanType)
+				.append("> action) {").newLine()
+				.indent(2).append("for (Object bean : beans) {").newLine()
+				.indent(3).append("if (bean != null) {").newLine()
+				.indent(4).append("action.accept((").append(beanType).append(") bean);").newLine()
+				.indent(3).append('}').newLine()
+				.indent(2).append('}').newLine()
+				.indent(1).append('}').newLine();
+
+		writeTable(writer, keyType);
+		writeConcurrent(writer, name, typeParameters, diamond, beanType, keyType);
+
+		writer.append('}').newLine();
+	}
+
+	private static void writePut(SourceWriter writer, String beanType, String keyType, String key) {
+		writer.newLine()
+				.indent(1).append("/** Adds the bean under its id, returning the bean it replaces, if any. */")
+				.newLine()
+				.indent(1).append("public ").append(beanType).append(" put(").append(beanType).append(" bean) {")
+				.newLine()
+				.indent(2).append("final ").append(keyType).append(" id = ").append(key).append(';').newLine()
+				.indent(2).append("final int mask = keys.length - 1;").newLine()
+				.indent(2).append("int slot = slot(id, shift, mask);").newLine()
+				.indent(2).append("while (beans[slot] != null) {").newLine()
+				.indent(3).append("if (keys[slot] == id) {").newLine()
+				.indent(4).append("final ").append(beanType).append(" previous = (").append(beanType)
+				.append(") beans[slot];").newLine()
+				.indent(4).append("beans[slot] = bean;").newLine()
+				.indent(4).append("return previous;").newLine()
+				.indent(3).append('}').newLine()
+				.indent(3).append("slot = (slot + 1) & mask;").newLine()
+				.indent(2).append('}').newLine()
+				.indent(2).append("keys[slot] = id;").newLine()
+				.indent(2).append("beans[slot] = bean;").newLine()
+				.indent(2).append("if (++size > threshold) {").newLine()
+				.indent(3).append("rehash(capacityFor(size));").newLine()
+				.indent(2).append('}').newLine()
+				.indent(2).append("return null;").newLine()
+				.indent(1).append('}').newLine()
+				.newLine()
+				.indent(1).append("/** Adds every bean, growing the table at most once beforehand. */").newLine()
+				.indent(1).append("public void putAll(java.util.Collection<? extends ").append(beanType)
+				.append("> beans) {").newLine()
+				.indent(2).append("final int capacity = capacityFor(size + beans.size());").newLine()
+				.indent(2).append("if (capacity > keys.length) {").newLine()
+				.indent(3).append("rehash(capacity);").newLine()
+				.indent(2).append('}').newLine()
+				.indent(2).append("for (").append(beanType).append(" bean : beans) {").newLine()
+				.indent(3).append("put(bean);").newLine()
+				.indent(2).append('}').newLine()
+				.indent(1).append('}').newLine();
+	}
+
+	private static void writeRemove(SourceWriter writer, String beanType, String keyType) {
+		writer.newLine()
+				.indent(1).append("public ").append(beanType).append(" remove(").append(keyType).append(" id) {")
+				.newLine()
+				.indent(2).append("int gap = find(id, keys, beans);").newLine()
+				.indent(2).append("if (gap < 0) {").newLine()
+				.indent(3).append("return null;").newLine()
+				.indent(2).append('}').newLine()
+				.indent(2).append("final ").append(beanType).append(" removed = (").append(beanType)
+				.append(") beans[gap];").newLine()
+				.indent(2).append("final int mask = keys.length - 1;").newLine()
+				.indent(2).append("// moves back the entries after the gap that can't be reached without it, so there")
+				.append(" are no tombstones").newLine()
+				.indent(2).append("for (int slot = (gap + 1) & mask; beans[slot] != null; slot = (slot + 1) & mask) {")
+				.newLine()
+				.indent(3).append("final int home = slot(keys[slot], shift, mask);").newLine()
+				.indent(3).append("if (((slot - home) & mask) >= ((slot - gap) & mask)) {").newLine()
+				.indent(4).append("keys[gap] = keys[slot];").newLine()
+				.indent(4).append("beans[gap] = beans[slot];").newLine()
+				.indent(4).append("gap = slot;").newLine()
+				.indent(3).append('}').newLine()
+				.indent(2).append('}').newLine()
+				.indent(2).append("beans[gap] = null;").newLine()
+				.indent(2).append("size--;").newLine()
+				.indent(2).append("return removed;").newLine()
+				.indent(1).append('}').newLine();
+	}
+
+	private static void writeTable(SourceWriter writer, String keyType) {
+
+		final boolean longKeys = keyType.equals("long");
+
+		writer.newLine()
+				.indent(1).append("/**").newLine()
+				.indent(1).append(" * Returns the slot of the id, or -1. Never fails nor loops forever, even on arrays")
+				.append(" being changed by").newLine()
+				.indent(1).append(" * another thread, as {@code Concurrent} reads optimistically.").newLine()
+				.indent(1).append(" */").newLine()
+				.indent(1).append("private int find(").append(keyType).append(" id, ").append(keyType)
+				.append("[] keys, Object[] beans) {").newLine()
+				.indent(2).append("final int length = Math.min(keys.length, beans.length);").newLine()
+				.indent(2).append("int slot = slot(id, shift, length - 1);").newLine()
+				.indent(2).append("for (int probes = 0; probes < length && beans[slot] != null; probes++) {")
+				.newLine()
+				.indent(3).append("if (keys[slot] == id) {").newLine()
+				.indent(4).append("return slot;").newLine()
+				.indent(3).append('}').newLine()
+				.indent(3).append("slot = (slot + 1) & (length - 1);").newLine()
+				.indent(2).append('}').newLine()
+				.indent(2).append("return -1;").newLine()
+				.indent(1).append('}').newLine()
+				.newLine()
+				.indent(1).append("private static int slot(").append(keyType).append(" id, int shift, int mask) {")
+				.newLine()
+				.indent(2).append(longKeys
+						? "return (int) ((id * 0x9E3779B97F4A7C15L) >>> shift) & mask;"
+						: "return ((id * 0x9E3779B9) >>> shift) & mask;").newLine()
+				.indent(1).append('}').newLine()
+				.newLine()
+				.indent(1).append("private static int capacityFor(int expectedSize) {").newLine()
+				.indent(2).append("int capacity = MIN_CAPACITY;").newLine()
+				.indent(2).append("while (capacity - (capacity >>> 2) < expectedSize) {").newLine()
+				.indent(3).append("if (capacity == MAX_CAPACITY) {").newLine()
+				.indent(4).append("throw new IllegalStateException(\"Too many beans: \" + expectedSize);").newLine()
+				.indent(3).append('}').newLine()
+				.indent(3).append("capacity <<= 1;").newLine()
+				.indent(2).append('}').newLine()
+				.indent(2).append("return capacity;").newLine()
+				.indent(1).append('}').newLine()
+				.newLine()
+				.indent(1).append("private void allocate(int capacity) {").newLine()
+				.indent(2).append("keys = new ").append(keyType).append("[capacity];").newLine()
+				.indent(2).append("beans = new Object[capacity];").newLine()
+				.indent(2).append("shift = Integer.numberOfLeadingZeros(capacity) + ").append(longKeys ? 33 : 1)
+				.append(';').newLine()
+				.indent(2).append("threshold = capacity - (capacity >>> 2);").newLine()
+				.indent(1).append('}').newLine()
+				.newLine()
+				.indent(1).append("private void rehash(int capacity) {").newLine()
+				.indent(2).append("final ").append(keyType).append("[] oldKeys = keys;").newLine()
+				.indent(2).append("final Object[] oldBeans = beans;").newLine()
+				.indent(2).append("allocate(capacity);").newLine()
+				.indent(2).append("final int mask = capacity - 1;").newLine()
+				.indent(2).append("for (int i = 0; i < oldBeans.length; i++) {").newLine()
+				.indent(3).append("if (oldBeans[i] != null) {").newLine()
+				.indent(4).append("int slot = slot(oldKeys[i], shift, mask);").newLine()
+				.indent(4).append("while (beans[slot] != null) {").newLine()
+				.indent(5).append("slot = (slot + 1) & mask;").newLine()
+				.indent(4).append('}').newLine()
+				.indent(4).append("keys[slot] = oldKeys[i];").newLine()
+				.indent(4).append("beans[slot] = oldBeans[i];").newLine()
+				.indent(3).append('}').newLine()
+				.indent(2).append('}').newLine()
+				.indent(1).append('}').newLine();
+	}
+
+	private static void writeConcurrent(SourceWriter writer, String name, String typeParameters, String diamond,
+			String beanType, String keyType) {
+
+		final String lock = "java.util.concurrent.locks.StampedLock";
+
+		writer.newLine()
+				.indent(1).append("/**").newLine()
+				.indent(1).append(" * Thread-safe index for read-mostly use. Lookups are optimistic reads that take")
+				.append(" no lock unless they").newLine()
+				.indent(1).append(" * overlap a write, which is exclusive; {@code forEach} holds a read lock.")
+				.newLine()
+				.indent(1).append(" */").newLine()
+				.indent(1).append("public static final class Concurrent").append(typeParameters).append(" {")
+				.newLine()
+				.newLine()
+				.indent(2).append("private final ").append(name).append(typeParameters).append(" index;").newLine()
+				.indent(2).append("private final ").append(lock).append(" lock = new ").append(lock).append("();")
+				.newLine()
+				.newLine()
+				.indent(2).append("public Concurrent() {").newLine()
+				.indent(3).append("this(0);").newLine()
+				.indent(2).append('}').newLine()
+				.newLine()
+				.indent(2).append("public Concurrent(int expectedSize) {").newLine()
+				.indent(3).append("index = new ").append(name).append(diamond).append("(expectedSize);").newLine()
+				.indent(2).append('}').newLine();
+
+		writeOptimisticRead(writer, "int", "size", "", "index.size()");
+		writeOptimisticRead(writer, beanType, "get", keyType + " id", "index.get(id)");
+		writeOptimisticRead(writer, "boolean", "containsKey", keyType + " id", "index.containsKey(id)");
+		writeLocked(writer, beanType, "put", beanType + " bean", "index.put(bean)", "Write");
+		writeLocked(writer, "void", "putAll", "java.util.Collection<? extends " + beanType + "> beans",
+				"index.putAll(beans)", "Write");
+		writeLocked(writer, beanType, "remove", keyType + " id", "index.remove(id)", "Write");
+		writeLocked(writer, "void", "clear", "", "index.clear()", "Write");
+		writeLocked(writer, "void", "forEach", "java.util.function.Consumer<? super " + beanType + "> action",
+				"index.forEach(action)", "Read");
+
+		writer.indent(1).append('}').newLine();
+	}
+
+	private static void writeOptimisticRead(SourceWriter writer, String type, String method, String parameter,
+			String read) {
+		writer.newLine()
+				.indent(2).append("public ").append(type).append(' ').append(method).append('(').append(parameter)
+				.append(") {").newLine()
+				.indent(3).append("final long stamp = lock.tryOptimisticRead();").newLine()
+				.indent(3).append("final ").append(type).append(" value = ").append(read).append(';').newLine()
+				.indent(3).append("if (lock.validate(stamp)) {").newLine()
+				.indent(4).append("return value;").newLine()
+				.indent(3).append('}').newLine()
+				.indent(3).append("final long readStamp = lock.readLock();").newLine()
+				.indent(3).append("try {").newLine()
+				.indent(4).append("return ").append(read).append(';').newLine()
+				.indent(3).append("} finally {").newLine()
+				.indent(4).append("lock.unlockRead(readStamp);").newLine()
+				.indent(3).append('}').newLine()
+				.indent(2).append('}').newLine();
+	}
+
+	private static void writeLocked(SourceWriter writer, String type, String method, String parameter, String call,
+			String mode) {
+		writer.newLine()
+				.indent(2).append("public ").append(type).append(' ').append(method).append('(').append(parameter)
+				.append(") {").newLine()
+				.indent(3).append("final long stamp = lock.").append(mode.toLowerCase(Locale.ROOT)).append("Lock();")
+				.newLine()
+				.indent(3).append("try {").newLine()
+				.indent(4).append(type.equals("void") ? "" : "return ").append(call).append(';').newLine()
+				.indent(3).append("} finally {").newLine()
+				.indent(4).append("lock.unlock").append(mode).append("(stamp);").newLine()
+				.indent(3).append('}').newLine()
+				.indent(2).append('}').newLine();
+	}
+}
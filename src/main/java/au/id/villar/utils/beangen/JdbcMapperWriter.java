@@ -0,0 +1,359 @@
+package au.id.villar.utils.beangen;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Writes the {@code <Bean>JdbcMapper} companion, an implementation of
+ * {@link au.id.villar.utils.beangen.runtime.JdbcMapper} for the properties mapped to columns. Its row reader finds the
+ * columns by label with a single pass over the result set's metadata, and then reads each row by index with the
+ * {@code ResultSet} getter of the property's type, primitive ones included, checking {@code wasNull} only for
+ * primitive wrappers. Statements are bound the same way, with {@code setNull} for null values.
+ */
+class JdbcMapperWriter extends CompanionWriter {
+
+	private static final String RUNTIME = "au.id.villar.utils.beangen.runtime.JdbcMapper";
+	private static final String SQL_EXCEPTION = "java.sql.SQLException";
+
+	/** How properties of each supported type are read and bound, and their {@code java.sql.Types} for nulls. */
+	private static final Map<String, JdbcType> JDBC_TYPES = Map.ofEntries(
+			Map.entry("boolean", new JdbcType("Boolean", "BOOLEAN", null)),
+			Map.entry("byte", new JdbcType("Byte", "TINYINT", null)),
+			Map.entry("short", new JdbcType("Short", "SMALLINT", null)),
+			Map.entry("int", new JdbcType("Int", "INTEGER", null)),
+			Map.entry("long", new JdbcType("Long", "BIGINT", null)),
+			Map.entry("float", new JdbcType("Float", "REAL", null)),
+			Map.entry("double", new JdbcType("Double", "DOUBLE", null)),
+			Map.entry("java.lang.Boolean", new JdbcType("Boolean", "BOOLEAN", "boolean")),
+			Map.entry("java.lang.Byte", new JdbcType("Byte", "TINYINT", "byte")),
+			Map.entry("java.lang.Short", new JdbcType("Short", "SMALLINT", "short")),
+			Map.entry("java.lang.Integer", new JdbcType("Int", "INTEGER", "int")),
+			Map.entry("java.lang.Long", new JdbcType("Long", "BIGINT", "long")),
+			Map.entry("java.lang.Float", new JdbcType("Float", "REAL", "float")),
+			Map.entry("java.lang.Double", new JdbcType("Double", "DOUBLE", "double")),
+			Map.entry("java.lang.String", new JdbcType("String", "VARCHAR", null)),
+			Map.entry("java.math.BigDecimal", new JdbcType("BigDecimal", "NUMERIC", null)),
+			Map.entry("byte[]", new JdbcType("Bytes", "VARBINARY", null)),
+			Map.entry("java.sql.Date", new JdbcType("Date", "DATE", null)),
+			Map.entry("java.sql.Time", new JdbcType("Time", "TIME", null)),
+			Map.entry("java.sql.Timestamp", new JdbcType("Timestamp", "TIMESTAMP", null)),
+			Map.entry("java.time.LocalDate", new JdbcType("Object", "DATE", null)),
+			Map.entry("java.time.LocalTime", new JdbcType("Object", "TIME", null)),
+			Map.entry("java.time.LocalDateTime", new JdbcType("Object", "TIMESTAMP", null)),
+			Map.entry("java.time.OffsetDateTime", new JdbcType("Object", "TIMESTAMP_WITH_TIMEZONE", null)));
+
+	JdbcMapperWriter() {
+		super("JdbcMapper");
+	}
+
+	@Override
+	boolean isEnabledFor(BeanDefinition definition) {
+		return definition.isWithJdbcMapper();
+	}
+
+	@Override
+	List<String> validate(BeanDefinition definition) {
+
+		final List<String> problems = new ArrayList<>();
+		final List<PropertyDefinition> columns = columns(definition);
+
+		if (columns.isEmpty()) {
+			problems.add("jdbcMapper needs properties annotated with @Column or @Id");
+		}
+		if (!definition.hasBuilder() && !definition.hasNoArgsConstructor()) {
+			problems.add("jdbcMapper needs a @Builder constructor or a no-args constructor to read the bean");
+		}
+
+		final Map<String, String> propertiesByLabel = new HashMap<>();
+		for (PropertyDefinition property : columns) {
+			if (!JDBC_TYPES.containsKey(property.getType())) {
+				problems.add("jdbcMapper doesn't support column " + property.getColumn().name() + " of property "
+						+ property.getName() + ", of type " + property.getType());
+			}
+			if (!definition.hasGetter(property)) {
+				problems.add("jdbcMapper needs a getter for property " + property.getName());
+			}
+			final String previous = propertiesByLabel.put(label(property), property.getName());
+			if (previous != null) {
+				problems.add("jdbcMapper can't map both " + previous + " and " + property.getName() + " to column "
+						+ property.getColumn().name());
+			}
+		}
+
+		return problems;
+	}
+
+	@Override
+	protected void writeClass(BeanDefinition definition, SourceWriter writer) {
+
+		final String name = getSingleName(definition);
+		final String beanType = beanType(definition);
+		final List<PropertyDefinition> columns = columns(definition);
+		final List<PropertyDefinition> inserted = columns.stream().filter(p -> p.getColumn().insertable()).toList();
+		final List<PropertyDefinition> ids = columns.stream().filter(p -> p.getColumn().id()).toList();
+		final List<PropertyDefinition> updated = columns.stream()
+				.filter(p -> p.getColumn().updatable() && !p.getColumn().id())
+				.toList();
+		final boolean updates = !ids.isEmpty() && !updated.isEmpty();
+
+		writer.append("@SuppressWarnings({\"rawtypes\", \"unchecked\"})").newLine()
+				.append("public final class ").append(name).append(" implements ").append(RUNTIME).append('<')
+				.append(beanType).append("> {").newLine()
+				.newLine()
+				.indent(1).append("public static final ").append(name).append(" INSTANCE = new ").append(name)
+				.append("(DEFAULT_BATCH_SIZE);").newLine()
+				.newLine()
+				.indent(1).append("public static final String TABLE_NAME = ")
+				.append(stringLiteral(definition.getTableName())).append(';').newLine()
+				.indent(1).append("public static final String SELECT_SQL = ")
+				.append(stringLiteral(selectSql(definition, columns))).append(';').newLine()
+				.indent(1).append("public static final String INSERT_SQL = ")
+				.append(stringLiteral(insertSql(definition, inserted))).append(';').newLine();
+		if (updates) {
+			writer.indent(1).append("public static final String UPDATE_SQL = ")
+					.append(stringLiteral(updateSql(definition, updated, ids))).append(';').newLine();
+		}
+
+		writer.newLine()
+				.indent(1).append("private final int batchSize;").newLine()
+				.newLine()
+				.indent(1).append("/** Creates a mapper executing inserts and updates in batches of the given size. */")
+				.newLine()
+				.indent(1).append("public ").append(name).append("(int batchSize) {").newLine()
+				.indent(2).append("if (batchSize < 1) {").newLine()
+				.indent(3).append("throw new IllegalArgumentException(\"Invalid batch size: \" + batchSize);")
+				.newLine()
+				.indent(2).append('}').newLine()
+				.indent(2).append("this.batchSize = batchSize;").newLine()
+				.indent(1).append('}').newLine();
+		writeConstantGetter(writer, "String", "tableName", "TABLE_NAME");
+		writeConstantGetter(writer, "int", "batchSize", "batchSize");
+		writeConstantGetter(writer, "String", "selectSql", "SELECT_SQL");
+		writeConstantGetter(writer, "String", "insertSql", "INSERT_SQL");
+		if (updates) {
+			writeConstantGetter(writer, "String", "updateSql", "UPDATE_SQL");
+		}
+
+		writer.newLine()
+				.indent(1).append("@Override").newLine()
+				.indent(1).append("public RowReader<").append(beanType).append("> reader(java.sql.ResultSet resultSet)")
+				.append(" throws ").append(SQL_EXCEPTION).append(" {").newLine()
+				.indent(2).append("return new Reader(resultSet);").newLine()
+				.indent(1).append('}').newLine();
+
+		writeBind(writer, "bindInsert", beanType, inserted);
+		if (updates) {
+			final List<PropertyDefinition> updateParameters = new ArrayList<>(updated);
+			updateParameters.addAll(ids);
+			writeBind(writer, "bindUpdate", beanType, updateParameters);
+		}
+		writeReader(definition, writer, beanType, columns);
+
+		writer.append('}').newLine();
+	}
+
+	private static void writeConstantGetter(SourceWriter writer, String type, String method, String constant) {
+		writer.newLine()
+				.indent(1).append("@Override").newLine()
+				.indent(1).append("public ").append(type).append(' ').append(method).append("() {").newLine()
+				.indent(2).append("return ").append(constant).append(';').newLine()
+				.indent(1).append('}').newLine();
+	}
+
+	private static void writeBind(SourceWriter writer, String method, String beanType,
+			List<PropertyDefinition> parameters) {
+
+		writer.newLine()
+				.indent(1).append("@Override").newLine()
+				.indent(1).append("public void ").append(method).append("(java.sql.PreparedStatement statement, ")
+				.append(beanType).append(" bean) throws ").append(SQL_EXCEPTION).append(" {").newLine();
+
+		for (int i = 0; i < parameters.size(); i++) {
+			final PropertyDefinition property = parameters.get(i);
+			final JdbcType jdbcType = JDBC_TYPES.get(property.getType());
+			final int index = i + 1;
+			if (property.isPrimitive()) {
+				writer.indent(2).append("statement.set").append(jdbcType.accessor()).append('(').append(index)
+						.append(", bean.").append(property.getGetterName()).append("());").newLine();
+				continue;
+			}
+			final String value = "value" + index;
+			writer.indent(2).append("final ").append(property.getType()).append(' ').append(value).append(" = bean.")
+					.append(property.getGetterName()).append("();").newLine()
+					.indent(2).append("if (").append(value).append(" == null) {").newLine()
+					.indent(3).append("statement.setNull(").append(index).append(", java.sql.Types.")
+					.append(jdbcType.sqlType()).append(");").newLine()
+					.indent(2).append("} else {").newLine()
+					.indent(3).append("statement.set").append(jdbcType.accessor()).append('(').append(index)
+					.append(", ").append(value).append(");").newLine()
+					.indent(2).append('}').newLine();
+		}
+
+		writer.indent(1).append('}').newLine();
+	}
+
+	private void writeReader(BeanDefinition definition, SourceWriter writer, String beanType,
+			List<PropertyDefinition> columns) {
+
+		writer.newLine()
+				.indent(1).append("private static final class Reader implements RowReader<").append(beanType)
+				.append("> {").newLine()
+				.newLine()
+				.indent(2).append("private final java.sql.ResultSet resultSet;").newLine();
+		for (PropertyDefinition property : columns) {
+			writer.indent(2).append("private int ").append(indexName(property)).append(';').newLine();
+		}
+
+		writer.newLine()
+				.indent(2).append("private Reader(java.sql.ResultSet resultSet) throws ").append(SQL_EXCEPTION)
+				.append(" {").newLine()
+				.indent(3).append("this.resultSet = resultSet;").newLine()
+				.indent(3).append("final java.sql.ResultSetMetaData metaData = resultSet.getMetaData();").newLine()
+				.indent(3).append("// backwards, so the first of several columns with the same label wins, as with")
+				.append(" findColumn").newLine()
+				.indent(3).append("for (int column = metaData.getColumnCount(); column > 0; column--) {").newLine()
+				.indent(4).append("switch (metaData.getColumnLabel(column).toUpperCase(java.util.Locale.ROOT)) {")
+				.newLine();
+		for (PropertyDefinition property : columns) {
+			writer.indent(5).append("case ").append(stringLiteral(label(property))).append(" -> ")
+					.append(indexName(property)).append(" = column;").newLine();
+		}
+		writer.indent(5).append("default -> {").newLine()
+				.indent(5).append('}').newLine()
+				.indent(4).append('}').newLine()
+				.indent(3).append('}').newLine()
+				.indent(2).append('}').newLine();
+
+		writeRead(definition, writer, beanType, columns);
+		for (PropertyDefinition property : columns) {
+			writePropertyRead(writer, property);
+		}
+
+		writer.indent(1).append('}').newLine();
+	}
+
+	private void writeRead(BeanDefinition definition, SourceWriter writer, String beanType,
+			List<PropertyDefinition> columns) {
+
+		final ConstructorDefinition builder = definition.getBuilderConstructor();
+
+		writer.newLine()
+				.indent(2).append("@Override").newLine()
+				.indent(2).append("public ").append(beanType).append(" read() throws ").append(SQL_EXCEPTION)
+				.append(" {").newLine()
+				.indent(3).append("final ").append(definition.getSingleName()).append(" bean = new ")
+				.append(definition.getSingleName()).append('(');
+
+		final List<String> constructorProperties = new ArrayList<>();
+		if (builder != null) {
+			for (int i = 0; i < builder.parameters().size(); i++) {
+				final VariableDefinition parameter = builder.parameters().get(i);
+				final PropertyDefinition column = columns.stream()
+						.filter(p -> p.getName().equals(parameter.name()))
+						.findFirst().orElse(null);
+				writer.append(i > 0 ? ", " : "").append(column != null
+						? readMethodName(column) + "()"
+						: defaultValue(parameter.type()));
+				if (column != null) {
+					constructorProperties.add(column.getName());
+				}
+			}
+		}
+		writer.append(");").newLine();
+
+		for (PropertyDefinition property : columns) {
+			if (!constructorProperties.contains(property.getName()) && definition.hasSetter(property)) {
+				writer.indent(3).append("if (").append(indexName(property)).append(" > 0) {").newLine()
+						.indent(4).append("bean.").append(property.getSetterName()).append('(')
+						.append(readMethodName(property)).append("());").newLine()
+						.indent(3).append('}').newLine();
+			}
+		}
+		if (definition.isDirtyTracking()) {
+			writer.indent(3).append("bean.clearDirty();").newLine();
+		}
+
+		writer.indent(3).append("return bean;").newLine()
+				.indent(2).append('}').newLine();
+	}
+
+	private static void writePropertyRead(SourceWriter writer, PropertyDefinition property) {
+
+		final JdbcType jdbcType = JDBC_TYPES.get(property.getType());
+		final String index = indexName(property);
+		final String getter = jdbcType.accessor().equals("Object")
+				? "resultSet.getObject(" + index + ", " + property.getType() + ".class)"
+				: "resultSet.get" + jdbcType.accessor() + '(' + index + ')';
+
+		writer.newLine()
+				.indent(2).append("private ").append(property.getType()).append(' ').append(readMethodName(property))
+				.append("() throws ").append(SQL_EXCEPTION).append(" {").newLine();
+		if (jdbcType.primitive() == null) {
+			writer.indent(3).append("return ").append(index).append(" > 0 ? ").append(getter).append(" : ")
+					.append(defaultValue(property.getType())).append(';').newLine();
+		} else {
+			writer.indent(3).append("if (").append(index).append(" == 0) {").newLine()
+					.indent(4).append("return null;").newLine()
+					.indent(3).append('}').newLine()
+					.indent(3).append("final ").append(jdbcType.primitive()).append(" value = ").append(getter)
+					.append(';').newLine()
+					.indent(3).append("return resultSet.wasNull() ? null : value;").newLine();
+		}
+		writer.indent(2).append('}').newLine();
+	}
+
+	/** The bean's properties mapped to columns, in the order of the bean's properties. */
+	private static List<PropertyDefinition> columns(BeanDefinition definition) {
+		return definition.getAllProperties().stream().filter(p -> p.getColumn() != null).toList();
+	}
+
+	private static String selectSql(BeanDefinition definition, List<PropertyDefinition> columns) {
+		return "SELECT " + columnList(columns, "") + " FROM " + definition.getTableName();
+	}
+
+	private static String insertSql(BeanDefinition definition, List<PropertyDefinition> columns) {
+		return "INSERT INTO " + definition.getTableName() + " (" + columnList(columns, "") + ") VALUES ("
+				+ String.join(", ", columns.stream().map(p -> "?").toList()) + ')';
+	}
+
+	private static String updateSql(BeanDefinition definition, List<PropertyDefinition> updated,
+			List<PropertyDefinition> ids) {
+		return "UPDATE " + definition.getTableName() + " SET " + columnList(updated, " = ?") + " WHERE "
+				+ String.join(" AND ", ids.stream().map(p -> p.getColumn().name() + " = ?").toList());
+	}
+
+	private static String columnList(List<PropertyDefinition> columns, String suffix) {
+		return String.join(", ", columns.stream().map(p -> p.getColumn().name() + suffix).toList());
+	}
+
+	/** The column's name as matched against result set labels: unquoted and in upper case. */
+	private static String label(PropertyDefinition property) {
+		final String name = property.getColumn().name();
+		final boolean quoted = name.length() > 1 && (name.charAt(0) == '"' || name.charAt(0) == '`')
+				&& name.charAt(name.length() - 1) == name.charAt(0);
+		return (quoted ? name.substring(1, name.length() - 1) : name).toUpperCase(Locale.ROOT);
+	}
+
+	private static String indexName(PropertyDefinition property) {
+		return property.getName() + "Index";
+	}
+
+	private static String readMethodName(PropertyDefinition property) {
+		return "read" + property.getGetterName().substring(3);
+	}
+
+	private static String stringLiteral(String value) {
+		return '"' + value.replace("\\", "\\\\").replace("\"", "\\\"") + '"';
+	}
+
+	/**
+	 * @param accessor suffix of the {@code ResultSet} getter and {@code PreparedStatement} setter for the type
+	 * @param sqlType constant of {@code java.sql.Types} passed to {@code setNull}
+	 * @param primitive for primitive wrappers, the primitive type read before checking {@code wasNull}
+	 */
+	private record JdbcType(String accessor, String sqlType, String primitive) {
+	}
+}
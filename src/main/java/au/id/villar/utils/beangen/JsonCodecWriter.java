@@ -0,0 +1,306 @@
+package au.id.villar.utils.beangen;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes the {@code <Bean>JsonCodec} companion, an implementation of
+ * {@link au.id.villar.utils.beangen.runtime.JsonCodec}. Property names are written as pre-encoded
+ * {@link au.id.villar.utils.beangen.runtime.JsonFragment}s, and read by switching on the hash the reader computes
+ * while scanning them, so neither direction builds strings or maps for the names.
+ */
+class JsonCodecWriter extends CompanionWriter {
+
+	private static final String RUNTIME_PACKAGE = "au.id.villar.utils.beangen.runtime.";
+	private static final String READER = RUNTIME_PACKAGE + "JsonReader";
+
+	private static final Map<String, String> PRIMITIVE_READERS = Map.of(
+			"boolean", "readBoolean()", "byte", "readByte()", "short", "readShort()", "char", "readChar()",
+			"int", "readInt()", "long", "readLong()", "float", "readFloat()", "double", "readDouble()");
+
+	private static final Map<String, String> VALUE_READERS = Map.ofEntries(
+			Map.entry("java.lang.String", "STRING"),
+			Map.entry("java.lang.Boolean", "BOOLEAN"),
+			Map.entry("java.lang.Byte", "BYTE"),
+			Map.entry("java.lang.Short", "SHORT"),
+			Map.entry("java.lang.Character", "CHARACTER"),
+			Map.entry("java.lang.Integer", "INTEGER"),
+			Map.entry("java.lang.Long", "LONG"),
+			Map.entry("java.lang.Float", "FLOAT"),
+			Map.entry("java.lang.Double", "DOUBLE"),
+			Map.entry("java.math.BigDecimal", "BIG_DECIMAL"),
+			Map.entry("java.math.BigInteger", "BIG_INTEGER"),
+			Map.entry("java.lang.Object", "ANY"));
+
+	JsonCodecWriter() {
+		super("JsonCodec");
+	}
+
+	@Override
+	boolean isEnabledFor(BeanDefinition definition) {
+		return definition.isWithJsonCodec();
+	}
+
+	@Override
+	List<String> validate(BeanDefinition definition) {
+
+		final List<String> problems = new ArrayList<>();
+
+		if (!definition.hasBuilder() && !definition.hasNoArgsConstructor()) {
+			problems.add("jsonCodec needs a @Builder constructor or a no-args constructor to read the bean");
+		}
+
+		for (PropertyDefinition property : definition.getAllProperties()) {
+			if (readExpression(definition, property) == null) {
+				problems.add("jsonCodec doesn't support property " + property.getName() + " of type "
+						+ property.getType());
+			}
+		}
+
+		return problems;
+	}
+
+	@Override
+	protected void writeClass(BeanDefinition definition, SourceWriter writer) {
+
+		final String name = getSingleName(definition);
+		final String beanType = beanType(definition);
+		final List<PropertyDefinition> properties = definition.getAllProperties();
+
+		writer.append("@SuppressWarnings({\"rawtypes\", \"unchecked\"})").newLine()
+				.append("public final class ").append(name).append(" implements ").append(RUNTIME_PACKAGE)
+				.append("JsonCodec<").append(beanType).append("> {").newLine()
+				.newLine()
+				.indent(1).append("public static final ").append(name).append(" INSTANCE = new ").append(name)
+				.append("();").newLine()
+				.newLine();
+
+		int written = 0;
+		for (PropertyDefinition property : properties) {
+			if (definition.hasGetter(property)) {
+				writer.indent(1).append("private static final ").append(RUNTIME_PACKAGE).append("JsonFragment FIELD_")
+						.append(property.getName()).append(" = ").append(RUNTIME_PACKAGE)
+						.append("JsonFragment.of(\"")
+						.append(written++ == 0 ? "{" : ",").append("\\\"").append(property.getName())
+						.append("\\\":\");").newLine();
+			}
+		}
+		for (PropertyDefinition property : properties) {
+			writer.indent(1).append("private static final byte[] NAME_").append(property.getName()).append(" = ")
+					.append(READER).append(".utf8(\"").append(property.getName()).append("\");").newLine();
+		}
+
+		writer.newLine()
+				.indent(1).append("private ").append(name).append("() {").newLine()
+				.indent(1).append('}').newLine();
+
+		writeWrite(definition, writer, beanType, properties, written);
+		writeRead(definition, writer, beanType, properties);
+
+		writer.append('}').newLine();
+	}
+
+	private void writeWrite(BeanDefinition definition, SourceWriter writer, String beanType,
+			List<PropertyDefinition> properties, int written) {
+
+		writer.newLine()
+				.indent(1).append("@Override").newLine()
+				.indent(1).append("public void write(").append(beanType).append(" bean, ").append(RUNTIME_PACKAGE)
+				.append("JsonWriter out) {").newLine()
+				.indent(2).append("if (bean == null) {").newLine()
+				.indent(3).append("out.nullValue();").newLine()
+				.indent(3).append("return;").newLine()
+				.indent(2).append('}').newLine();
+
+		for (PropertyDefinition property : properties) {
+			if (definition.hasGetter(property)) {
+				writer.indent(2).append("out.raw(FIELD_").append(property.getName()).append(").value(bean.")
+						.append(property.getGetterName()).append("());").newLine();
+			}
+		}
+
+		writer.indent(2).append(written == 0 ? "out.raw('{').raw('}');" : "out.raw('}');").newLine()
+				.indent(1).append('}').newLine();
+	}
+
+	private void writeRead(BeanDefinition definition, SourceWriter writer, String beanType,
+			List<PropertyDefinition> properties) {
+
+		final ConstructorDefinition builder = definition.getBuilderConstructor();
+		final Map<String, Integer> indexes = new LinkedHashMap<>();
+		for (int i = 0; i < properties.size(); i++) {
+			indexes.put(properties.get(i).getName(), i);
+		}
+
+		// Properties set through the builder constructor are kept in locals; the others are set through setters
+		final List<PropertyDefinition> constructorProperties = new ArrayList<>();
+		final List<PropertyDefinition> setterProperties = new ArrayList<>();
+		for (PropertyDefinition property : properties) {
+			if (builder != null && builder.parameters().stream().anyMatch(p -> p.name().equals(property.getName()))) {
+				constructorProperties.add(property);
+			} else if (definition.hasSetter(property)) {
+				setterProperties.add(property);
+			}
+		}
+
+		final List<PropertyDefinition> readProperties = new ArrayList<>(constructorProperties);
+		readProperties.addAll(setterProperties);
+
+		writer.newLine()
+				.indent(1).append("@Override").newLine()
+				.indent(1).append("public ").append(beanType).append(" read(").append(READER).append(" in) {")
+				.newLine()
+				.indent(2).append("if (in.isNull()) {").newLine()
+				.indent(3).append("return null;").newLine()
+				.indent(2).append('}').newLine();
+
+		if (builder != null) {
+			for (PropertyDefinition property : readProperties) {
+				writer.indent(2).append(property.getErasedType()).append(" value")
+						.append(indexes.get(property.getName())).append(" = ").append(defaultValue(property.getType()))
+						.append(';').newLine();
+			}
+			for (int i = 0; i < setterProperties.size(); i += 64) {
+				writer.indent(2).append("long present").append(i / 64).append(" = 0L;").newLine();
+			}
+		} else {
+			writer.indent(2).append("final ").append(definition.getSingleName()).append(" bean = new ")
+					.append(definition.getSingleName()).append("();").newLine();
+		}
+
+		writer.indent(2).append("in.beginObject();").newLine()
+				.indent(2).append("while (in.nextField()) {").newLine()
+				.indent(3).append("switch (in.nameHash()) {").newLine();
+
+		final Map<Integer, List<PropertyDefinition>> byHash = new LinkedHashMap<>();
+		for (PropertyDefinition property : readProperties) {
+			byHash.computeIfAbsent(hash(property.getName()), h -> new ArrayList<>()).add(property);
+		}
+
+		for (Map.Entry<Integer, List<PropertyDefinition>> entry : byHash.entrySet()) {
+			writer.indent(4).append("case ").append(entry.getKey()).append(':').newLine();
+			for (PropertyDefinition property : entry.getValue()) {
+				final String readExpression = readExpression(definition, property);
+				final int index = indexes.get(property.getName());
+				writer.indent(5).append("if (in.nameIs(NAME_").append(property.getName()).append(")) {").newLine();
+				if (builder != null) {
+					writer.indent(6).append("value").append(index).append(" = ").append(readExpression).append(';')
+							.newLine();
+					final int setterIndex = setterProperties.indexOf(property);
+					if (setterIndex >= 0) {
+						writer.indent(6).append("present").append(setterIndex / 64).append(" |= 1L << ")
+								.append(setterIndex % 64).append(';').newLine();
+					}
+				} else {
+					writer.indent(6).append("bean.").append(property.getSetterName()).append('(').append(readExpression)
+							.append(");").newLine();
+				}
+				writer.indent(6).append("continue;").newLine()
+						.indent(5).append('}').newLine();
+			}
+			writer.indent(5).append("break;").newLine();
+		}
+
+		writer.indent(4).append("default:").newLine()
+				.indent(5).append("break;").newLine()
+				.indent(3).append('}').newLine()
+				.indent(3).append("in.skipValue();").newLine()
+				.indent(2).append('}').newLine();
+
+		if (builder != null) {
+			writer.indent(2).append("final ").append(definition.getSingleName()).append(" bean = new ")
+					.append(definition.getSingleName()).append('(');
+			for (int i = 0; i < builder.parameters().size(); i++) {
+				final VariableDefinition parameter = builder.parameters().get(i);
+				final Integer index = indexes.get(parameter.name());
+				writer.append(i > 0 ? ", " : "")
+						.append(index != null ? "value" + index : defaultValue(parameter.type()));
+			}
+			writer.append(");").newLine();
+			for (int i = 0; i < setterProperties.size(); i++) {
+				final PropertyDefinition property = setterProperties.get(i);
+				writer.indent(2).append("if ((present").append(i / 64).append(" & 1L << ").append(i % 64)
+						.append(") != 0) {").newLine()
+						.indent(3).append("bean.").append(property.getSetterName()).append("(value")
+						.append(indexes.get(property.getName())).append(");").newLine()
+						.indent(2).append('}').newLine();
+			}
+		}
+
+		writer.indent(2).append("return bean;").newLine()
+				.indent(1).append('}').newLine();
+	}
+
+	/** Returns the expression that reads a value of the property's type from reader {@code in}, or null if none. */
+	private static String readExpression(BeanDefinition definition, PropertyDefinition property) {
+
+		final String type = property.getType();
+		final String erasedType = property.getErasedType();
+
+		final String primitiveReader = PRIMITIVE_READERS.get(type);
+		if (primitiveReader != null) {
+			return "in." + primitiveReader;
+		}
+
+		if (isTypeVariable(definition, type)) {
+			return '(' + erasedType + ") in.readValue()";
+		}
+
+		if (property.isArray() && !property.isNestedArray()) {
+			final String elementType = type.substring(0, type.length() - 2);
+			final String elementReader = PRIMITIVE_READERS.get(elementType);
+			if (elementReader != null) {
+				return "in." + elementReader.replace("()", "Array()");
+			}
+			final String valueReader = valueReader(definition, elementType);
+			final String erasedElementType = erasedType.substring(0, erasedType.length() - 2);
+			return valueReader != null
+					? "in.readArray(" + valueReader + ", " + erasedElementType + "[]::new)"
+					: null;
+		}
+
+		if (erasedType.equals("java.util.List") || erasedType.equals("java.util.Collection")) {
+			final int start = type.indexOf('<');
+			final String elementReader = start != -1
+					? valueReader(definition, type.substring(start + 1, type.lastIndexOf('>')).trim())
+					: READER + ".ANY";
+			return elementReader != null ? "in.readList(" + elementReader + ')' : null;
+		}
+
+		return switch (type) {
+			case "java.lang.String" -> "in.readString()";
+			case "java.math.BigDecimal" -> "in.readBigDecimal()";
+			case "java.math.BigInteger" -> "in.readBigInteger()";
+			default -> VALUE_READERS.containsKey(type) ? READER + '.' + VALUE_READERS.get(type) + ".read(in)" : null;
+		};
+	}
+
+	/** Returns the {@code JsonReader.ValueReader} constant for a type, or null if there's none for it. */
+	private static String valueReader(BeanDefinition definition, String type) {
+
+		if (isTypeVariable(definition, type) || type.equals("?") || type.startsWith("? super ")) {
+			return READER + ".ANY";
+		}
+
+		final String boundType = type.startsWith("? extends ") ? type.substring("? extends ".length()) : type;
+		final String valueReader = VALUE_READERS.get(boundType);
+
+		return valueReader != null ? READER + '.' + valueReader : null;
+	}
+
+	private static boolean isTypeVariable(BeanDefinition definition, String type) {
+		return definition.getTypeParameters().contains(type);
+	}
+
+	/** Same hash as {@code JsonReader.hash} of the name's UTF-8 bytes. */
+	private static int hash(String name) {
+		int hash = 0;
+		for (byte b : name.getBytes(StandardCharsets.UTF_8)) {
+			hash = 31 * hash + (b & 0xFF);
+		}
+		return hash;
+	}
+}
@@ -0,0 +1,40 @@
+package au.id.villar.utils.beangen;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a template field whose value is computed by a template method the first time its generated getter is called,
+ * for values that are expensive to compute or load. Setting the property, through its setter or the constructor,
+ * provides the value instead, and the method is never called. The generated equals, hashCode and toString go through
+ * the getter, so they compute the value too.
+ */
+@Retention(RetentionPolicy.CLASS)
+@Target(ElementType.FIELD)
+public @interface Lazy {
+
+	/** Name of the template method, without parameters, that computes the value; {@code computeName} by default. */
+	String method() default "";
+
+	Publication publication() default Publication.LOCKING;
+
+	/** How a computed value is made visible to other threads. */
+	enum Publication {
+
+		/**
+		 * Double-checked locking on the bean, with a volatile flag per property: the value is computed once, and
+		 * reading it once computed costs a volatile read. Setters take the same lock, so a value set while another
+		 * thread computes one is never overwritten.
+		 */
+		LOCKING,
+
+		/**
+		 * Lock-free publication through a {@link java.lang.invoke.VarHandle} on the field: threads racing to read
+		 * the property may each compute it, and the first value stored is the one they all return. Only for
+		 * properties of reference types, as null stands for a value not computed yet.
+		 */
+		VAR_HANDLE
+	}
+}
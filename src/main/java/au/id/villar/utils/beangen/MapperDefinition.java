@@ -0,0 +1,132 @@
+package au.id.villar.utils.beangen;
+
+import java.util.List;
+import javax.lang.model.element.Element;
+
+/**
+ * Contains the implementation of a @{@link BeanMapper} to be generated, with every property mapping already resolved
+ * by {@link MapperIntrospector} into Java expressions, and is responsible for rendering it.
+ * @param originatingElement the annotated mapper
+ * @param qualifiedName qualified name of the implementation
+ * @param mapperName qualified name of the annotated mapper
+ * @param mapperInterface true if the mapper is an interface, false if it's an abstract class
+ * @param methods the mapper's abstract methods, implemented
+ * @param copyHelpers methods copying collections and arrays element by element, used by {@code methods}
+ */
+record MapperDefinition(Element originatingElement, String qualifiedName, String mapperName, boolean mapperInterface,
+		List<MappingMethod> methods, List<CopyHelper> copyHelpers) {
+
+	static final String IMPLEMENTATION_SUFFIX = "Impl";
+
+	String packageName() {
+		return qualifiedName.indexOf('.') > -1 ? qualifiedName.substring(0, qualifiedName.lastIndexOf('.')) : "";
+	}
+
+	String singleName() {
+		return qualifiedName.substring(qualifiedName.lastIndexOf('.') + 1);
+	}
+
+	String renderSourceCode() {
+		final SourceWriter writer = SourceWriter.acquire();
+		try {
+			if (!packageName().isEmpty()) {
+				writer.append("package ").append(packageName()).append(';').newLine().newLine();
+			}
+			writer.append("import javax.annotation.processing.Generated;").newLine()
+					.newLine()
+					.append("@Generated(\"").append(BeanDefinition.GENERATOR_NAME).append("\")").newLine()
+					.append("public class ").append(singleName())
+					.append(mapperInterface ? " implements " : " extends ").append(mapperName).append(" {").newLine()
+					.newLine()
+					.indent(1).append("public static final ").append(singleName()).append(" INSTANCE = new ")
+					.append(singleName()).append("();").newLine();
+			for (MappingMethod method : methods) {
+				writeMethod(writer, method);
+			}
+			for (CopyHelper helper : copyHelpers) {
+				writeCopyHelper(writer, helper);
+			}
+			writer.append('}').newLine();
+			return writer.toString();
+		} finally {
+			writer.release();
+		}
+	}
+
+	private static void writeMethod(SourceWriter writer, MappingMethod method) {
+		final String target = method.sourceName().equals("target") ? "mapped" : "target";
+
+		writer.newLine()
+				.indent(1).append("@Override").newLine()
+				.indent(1).append(method.accessModifier().isEmpty() ? "" : method.accessModifier() + ' ')
+				.append(method.targetType()).append(' ').append(method.name()).append('(')
+				.append(method.sourceType()).append(' ').append(method.sourceName()).append(") {").newLine()
+				.indent(2).append("if (").append(method.sourceName()).append(" == null) {").newLine()
+				.indent(3).append("return null;").newLine()
+				.indent(2).append('}').newLine()
+				.indent(2).append("final ").append(method.targetType()).append(' ').append(target).append(" = new ")
+				.append(method.targetConstructor()).append('(');
+		for (int i = 0; i < method.constructorArguments().size(); i++) {
+			writer.append(i > 0 ? ", " : "").append(method.constructorArguments().get(i));
+		}
+		writer.append(");").newLine();
+		for (SetterCall setter : method.setterCalls()) {
+			writer.indent(2).append(target).append('.').append(setter.setterName()).append('(')
+					.append(setter.value()).append(");").newLine();
+		}
+		writer.indent(2).append("return ").append(target).append(';').newLine()
+				.indent(1).append('}').newLine();
+	}
+
+	private static void writeCopyHelper(SourceWriter writer, CopyHelper helper) {
+		writer.newLine();
+		if (helper.unchecked()) {
+			writer.indent(1).append("@SuppressWarnings(\"unchecked\")").newLine();
+		}
+		writer.indent(1).append("private ").append(helper.targetType()).append(' ').append(helper.name()).append('(')
+				.append(helper.sourceType()).append(" source) {").newLine()
+				.indent(2).append("if (source == null) {").newLine()
+				.indent(3).append("return null;").newLine()
+				.indent(2).append('}').newLine()
+				.indent(2).append("final ").append(helper.targetDeclaration()).append(" target = ")
+				.append(helper.targetCreation()).append(';').newLine();
+		if (helper.toArray()) {
+			writer.indent(2).append("int index = 0;").newLine();
+		}
+		writer.indent(2).append("for (").append(helper.sourceElementType()).append(" element : source) {").newLine();
+		if (helper.toArray()) {
+			writer.indent(3).append("target[index++] = ").append(helper.elementValue()).append(';').newLine();
+		} else {
+			writer.indent(3).append("target.add(").append(helper.elementValue()).append(");").newLine();
+		}
+		writer.indent(2).append('}').newLine()
+				.indent(2).append("return target;").newLine()
+				.indent(1).append('}').newLine();
+	}
+
+	/**
+	 * An abstract method of the mapper, implemented by creating its target and setting its properties.
+	 * @param targetConstructor the type after {@code new}, like {@code sample.Box<>}
+	 * @param constructorArguments expressions of the constructor's arguments, in order
+	 */
+	record MappingMethod(String accessModifier, String name, String sourceType, String sourceName,
+			String targetType, String targetConstructor, List<String> constructorArguments,
+			List<SetterCall> setterCalls) {
+	}
+
+	/** A property of a mapping method's target set through its setter, with the expression of its value. */
+	record SetterCall(String setterName, String value) {
+	}
+
+	/**
+	 * A method copying a collection or an array of {@code source} into a new one, converting each {@code element}.
+	 * @param targetDeclaration type of the new collection or array, like {@code java.util.ArrayList<sample.Dto>}
+	 * @param targetCreation expression creating the new collection or array
+	 * @param elementValue expression of an element's converted value
+	 * @param unchecked true when the target is an array of a parameterized type, created through its erasure
+	 */
+	record CopyHelper(String name, String sourceType, String targetType, String sourceElementType,
+			String targetDeclaration, String targetCreation, boolean toArray, String elementValue,
+			boolean unchecked) {
+	}
+}
@@ -0,0 +1,545 @@
+package au.id.villar.utils.beangen;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.UnaryOperator;
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.RecordComponentElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.ExecutableType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.type.WildcardType;
+import javax.lang.model.util.ElementFilter;
+import javax.lang.model.util.Types;
+import javax.tools.Diagnostic;
+
+/**
+ * Builds {@link MapperDefinition}s out of @{@link BeanMapper} types. Properties are read from the public getters of
+ * the source, or its record components, and written through the target's constructor and public setters. Mappers
+ * often map beans generated in the same compilation, so they are only introspected once every type they reach has
+ * been generated; see {@link #isResolved(TypeElement)}.
+ */
+class MapperIntrospector {
+
+	private static final String OBJECT_CLASS_NAME = Object.class.getCanonicalName();
+
+	private final ProcessingEnvironment processingEnv;
+	private final Types types;
+
+	MapperIntrospector(ProcessingEnvironment processingEnv) {
+		this.processingEnv = processingEnv;
+		this.types = processingEnv.getTypeUtils();
+	}
+
+	/**
+	 * False if a type the mapper's abstract methods take, return, or reach through their properties doesn't exist
+	 * yet, as happens with beans generated in the current round.
+	 */
+	boolean isResolved(TypeElement mapper) {
+		final DeclaredType mapperType = (DeclaredType) mapper.asType();
+		for (ExecutableElement method : mappingMethods(mapper)) {
+			final ExecutableType methodType = (ExecutableType) types.asMemberOf(mapperType, method);
+			final List<TypeMirror> beanTypes = new ArrayList<>(methodType.getParameterTypes());
+			beanTypes.add(methodType.getReturnType());
+			for (TypeMirror type : beanTypes) {
+				if (!isResolved(type)) {
+					return false;
+				}
+				if (type.getKind() == TypeKind.DECLARED) {
+					for (BeanProperty property : readableProperties((DeclaredType) type).values()) {
+						if (!isResolved(property.type())) {
+							return false;
+						}
+					}
+					for (ExecutableElement setter : setters((DeclaredType) type)) {
+						if (!isResolved(setter.getParameters().get(0).asType())) {
+							return false;
+						}
+					}
+				}
+			}
+		}
+		return true;
+	}
+
+	/** Returns the mapper's implementation, or null after reporting why it can't be generated. */
+	MapperDefinition introspect(TypeElement mapper) {
+		return new Introspection(mapper).run();
+	}
+
+	private List<ExecutableElement> mappingMethods(TypeElement mapper) {
+		return methods(mapper).stream().filter(m -> m.getModifiers().contains(Modifier.ABSTRACT)).toList();
+	}
+
+	/** Non-private instance methods of the mapper, inherited ones included, except for those of Object. */
+	private List<ExecutableElement> methods(TypeElement mapper) {
+		return ElementFilter.methodsIn(processingEnv.getElementUtils().getAllMembers(mapper)).stream()
+				.filter(m -> !m.getModifiers().contains(Modifier.STATIC)
+						&& !m.getModifiers().contains(Modifier.PRIVATE))
+				.filter(m -> !isDeclaredByObject(m))
+				.toList();
+	}
+
+	/** Properties read through public getters, like {@code getName()} or {@code isActive()}, or record components. */
+	private Map<String, BeanProperty> readableProperties(DeclaredType type) {
+
+		final TypeElement element = (TypeElement) type.asElement();
+		final Map<String, BeanProperty> properties = new LinkedHashMap<>();
+
+		if (element.getKind() == ElementKind.RECORD) {
+			for (RecordComponentElement component : element.getRecordComponents()) {
+				final ExecutableElement accessor = component.getAccessor();
+				properties.put(component.getSimpleName().toString(), new BeanProperty(
+						component.getSimpleName().toString(),
+						((ExecutableType) types.asMemberOf(type, accessor)).getReturnType(),
+						accessor.getSimpleName().toString()));
+			}
+			return properties;
+		}
+
+		for (ExecutableElement method : publicInstanceMethods(element)) {
+			final String name = method.getSimpleName().toString();
+			final TypeMirror returnType = ((ExecutableType) types.asMemberOf(type, method)).getReturnType();
+			if (!method.getParameters().isEmpty() || returnType.getKind() == TypeKind.VOID) {
+				continue;
+			}
+			final String propertyName = name.startsWith("get") && name.length() > 3 ? decapitalize(name.substring(3))
+					: name.startsWith("is") && name.length() > 2 && returnType.getKind() == TypeKind.BOOLEAN
+					? decapitalize(name.substring(2))
+					: null;
+			if (propertyName != null) {
+				properties.putIfAbsent(propertyName, new BeanProperty(propertyName, returnType, name));
+			}
+		}
+
+		return properties;
+	}
+
+	/** Public setters of the type, like {@code setName(java.lang.String)}; records have none. */
+	private List<ExecutableElement> setters(DeclaredType type) {
+		final TypeElement element = (TypeElement) type.asElement();
+		if (element.getKind() == ElementKind.RECORD) {
+			return List.of();
+		}
+		return publicInstanceMethods(element).stream()
+				.filter(m -> m.getSimpleName().toString().startsWith("set") && m.getSimpleName().length() > 3
+						&& m.getParameters().size() == 1)
+				.toList();
+	}
+
+	private List<ExecutableElement> publicInstanceMethods(TypeElement element) {
+		return ElementFilter.methodsIn(processingEnv.getElementUtils().getAllMembers(element)).stream()
+				.filter(m -> m.getModifiers().contains(Modifier.PUBLIC) && !m.getModifiers().contains(Modifier.STATIC))
+				.filter(m -> !isDeclaredByObject(m))
+				.toList();
+	}
+
+	private static boolean isDeclaredByObject(ExecutableElement method) {
+		return ((TypeElement) method.getEnclosingElement()).getQualifiedName().contentEquals(OBJECT_CLASS_NAME);
+	}
+
+	private boolean isResolved(TypeMirror type) {
+		return switch (type.getKind()) {
+			case ERROR -> false;
+			case DECLARED -> ((DeclaredType) type).getTypeArguments().stream().allMatch(this::isResolved);
+			case ARRAY -> isResolved(((ArrayType) type).getComponentType());
+			case WILDCARD -> (((WildcardType) type).getExtendsBound() == null
+					|| isResolved(((WildcardType) type).getExtendsBound()))
+					&& (((WildcardType) type).getSuperBound() == null
+					|| isResolved(((WildcardType) type).getSuperBound()));
+			default -> true;
+		};
+	}
+
+	private static String decapitalize(String name) {
+		return Character.toLowerCase(name.charAt(0)) + name.substring(1);
+	}
+
+	private static String capitalize(String name) {
+		return Character.toUpperCase(name.charAt(0)) + name.substring(1);
+	}
+
+	/** A property of a mapped bean, with the name of the method reading it or writing it. */
+	private record BeanProperty(String name, TypeMirror type, String methodName) {
+	}
+
+	/** The introspection of one mapper, which keeps its copy helpers and whether any error was reported. */
+	private class Introspection {
+
+		private final TypeElement mapper;
+		private final DeclaredType mapperType;
+		private final List<ExecutableElement> conversionMethods;
+		private final List<MapperDefinition.CopyHelper> copyHelpers = new ArrayList<>();
+		private final Set<String> helperNames = new HashSet<>();
+		private boolean valid = true;
+
+		Introspection(TypeElement mapper) {
+			this.mapper = mapper;
+			this.mapperType = (DeclaredType) mapper.asType();
+			this.conversionMethods = methods(mapper).stream()
+					.filter(m -> m.getParameters().size() == 1 && m.getReturnType().getKind() != TypeKind.VOID)
+					.toList();
+			methods(mapper).forEach(m -> helperNames.add(m.getSimpleName().toString()));
+		}
+
+		MapperDefinition run() {
+
+			final boolean mapperInterface = mapper.getKind() == ElementKind.INTERFACE;
+
+			if (!(mapper.getEnclosingElement() instanceof PackageElement packageElement)) {
+				return error(mapper, "nested mappers aren't supported");
+			}
+			if (!mapperInterface && (mapper.getKind() != ElementKind.CLASS
+					|| !mapper.getModifiers().contains(Modifier.ABSTRACT))) {
+				return error(mapper, "@BeanMapper needs an interface or an abstract class");
+			}
+			if (!mapper.getTypeParameters().isEmpty()) {
+				return error(mapper, "generic mappers aren't supported");
+			}
+			if (!mapperInterface && ElementFilter.constructorsIn(mapper.getEnclosedElements()).stream()
+					.noneMatch(c -> c.getParameters().isEmpty() && !c.getModifiers().contains(Modifier.PRIVATE))) {
+				return error(mapper, "abstract mappers need a non-private constructor without parameters");
+			}
+
+			final List<MapperDefinition.MappingMethod> methods = new ArrayList<>();
+			for (ExecutableElement method : mappingMethods(mapper)) {
+				final MapperDefinition.MappingMethod mappingMethod = mappingMethod(method);
+				if (mappingMethod != null) {
+					methods.add(mappingMethod);
+				}
+			}
+
+			if (!valid) {
+				return null;
+			}
+
+			final String packageName = packageElement.getQualifiedName().toString();
+			final String implementationName = mapper.getSimpleName() + MapperDefinition.IMPLEMENTATION_SUFFIX;
+
+			return new MapperDefinition(mapper,
+					packageName.isEmpty() ? implementationName : packageName + '.' + implementationName,
+					mapper.getQualifiedName().toString(),
+					mapperInterface,
+					List.copyOf(methods),
+					List.copyOf(copyHelpers));
+		}
+
+		private MapperDefinition.MappingMethod mappingMethod(ExecutableElement method) {
+
+			final ExecutableType methodType = (ExecutableType) types.asMemberOf(mapperType, method);
+
+			if (method.getParameters().size() != 1 || methodType.getReturnType().getKind() != TypeKind.DECLARED
+					|| methodType.getParameterTypes().get(0).getKind() != TypeKind.DECLARED
+					|| !method.getTypeParameters().isEmpty()) {
+				return error(method, "mapper methods must take a bean and return another one");
+			}
+
+			final DeclaredType sourceType = (DeclaredType) methodType.getParameterTypes().get(0);
+			final DeclaredType targetType = (DeclaredType) methodType.getReturnType();
+			final TypeElement targetElement = (TypeElement) targetType.asElement();
+			final String sourceName = method.getParameters().get(0).getSimpleName().toString();
+
+			if (targetElement.getKind() != ElementKind.CLASS && targetElement.getKind() != ElementKind.RECORD
+					|| targetElement.getModifiers().contains(Modifier.ABSTRACT)) {
+				return error(method, "can't create " + targetType + ", which isn't a concrete class");
+			}
+
+			final ExecutableElement constructor = findConstructor(targetType);
+			if (constructor == null) {
+				return error(method, targetType + " has no public constructor");
+			}
+
+			final Map<String, BeanProperty> sources = readableProperties(sourceType);
+			final Map<String, TypeMirror> constructorParameters = new LinkedHashMap<>();
+			final List<? extends TypeMirror> parameterTypes
+					= ((ExecutableType) types.asMemberOf(targetType, constructor)).getParameterTypes();
+			for (int i = 0; i < parameterTypes.size(); i++) {
+				constructorParameters.put(constructor.getParameters().get(i).getSimpleName().toString(),
+						parameterTypes.get(i));
+			}
+
+			final Map<String, BeanProperty> setters = new LinkedHashMap<>();
+			final Map<String, BeanProperty> targetGetters = readableProperties(targetType);
+			for (ExecutableElement setter : setters(targetType)) {
+				final String name = decapitalize(setter.getSimpleName().toString().substring(3));
+				final TypeMirror type
+						= ((ExecutableType) types.asMemberOf(targetType, setter)).getParameterTypes().get(0);
+				final BeanProperty getter = targetGetters.get(name);
+				if (!constructorParameters.containsKey(name) && (!setters.containsKey(name)
+						|| getter != null && types.isSameType(getter.type(), type))) {
+					setters.put(name, new BeanProperty(name, type, setter.getSimpleName().toString()));
+				}
+			}
+
+			final Map<String, Mapping> mappings = new HashMap<>();
+			for (Mapping mapping : method.getAnnotationsByType(Mapping.class)) {
+				if (!constructorParameters.containsKey(mapping.target()) && !setters.containsKey(mapping.target())) {
+					error(method, "@Mapping names " + mapping.target() + ", which isn't a property of " + targetType);
+				} else if (!mapping.source().isEmpty() && !sources.containsKey(mapping.source())) {
+					error(method, "@Mapping names " + mapping.source() + ", which isn't a property of " + sourceType);
+				}
+				mappings.put(mapping.target(), mapping);
+			}
+
+			final List<String> constructorArguments = new ArrayList<>();
+			for (Map.Entry<String, TypeMirror> parameter : constructorParameters.entrySet()) {
+				final String value = value(method, sourceName, sources, mappings.get(parameter.getKey()),
+						parameter.getKey(), parameter.getValue());
+				constructorArguments.add(value != null
+						? value
+						: CompanionWriter.defaultValue(parameter.getValue().toString()));
+			}
+
+			final List<MapperDefinition.SetterCall> setterCalls = new ArrayList<>();
+			for (BeanProperty setter : setters.values()) {
+				final String value = value(method, sourceName, sources, mappings.get(setter.name()), setter.name(),
+						setter.type());
+				if (value != null) {
+					setterCalls.add(new MapperDefinition.SetterCall(setter.methodName(), value));
+				}
+			}
+
+			final String accessModifier = method.getModifiers().contains(Modifier.PUBLIC) ? "public"
+					: method.getModifiers().contains(Modifier.PROTECTED) ? "protected" : "";
+
+			return new MapperDefinition.MappingMethod(accessModifier, method.getSimpleName().toString(),
+					sourceType.toString(), sourceName, targetType.toString(),
+					types.erasure(targetType) + (targetType.getTypeArguments().isEmpty() ? "" : "<>"),
+					List.copyOf(constructorArguments), List.copyOf(setterCalls));
+		}
+
+		/**
+		 * Returns the expression of a target property's value, or null if it's ignored or has no source; the latter
+		 * is reported.
+		 */
+		private String value(ExecutableElement method, String sourceName, Map<String, BeanProperty> sources,
+				Mapping mapping, String targetName, TypeMirror targetType) {
+
+			if (mapping != null && mapping.ignore()) {
+				return null;
+			}
+
+			final String sourcePropertyName = mapping != null && !mapping.source().isEmpty()
+					? mapping.source()
+					: targetName;
+			final BeanProperty source = sources.get(sourcePropertyName);
+
+			if (source == null) {
+				if (mapping == null || mapping.source().isEmpty()) {
+					error(method, "target property " + targetName + " isn't mapped; add a source property named like"
+							+ " it, or a @Mapping that renames or ignores it");
+				}
+				return null;
+			}
+
+			final UnaryOperator<String> conversion = conversion(source.type(), targetType,
+					method.getSimpleName() + capitalize(targetName));
+
+			if (conversion == null) {
+				error(method, "can't map " + sourcePropertyName + " of type " + source.type() + " to " + targetName
+						+ " of type " + targetType + "; declare a method converting them in the mapper");
+				return null;
+			}
+
+			return conversion.apply(sourceName + '.' + source.methodName() + "()");
+		}
+
+		/**
+		 * Returns how a value of one type becomes a value of another one: as is, through a method of the mapper, or
+		 * element by element through a copy helper; null if there's no way.
+		 */
+		private UnaryOperator<String> conversion(TypeMirror from, TypeMirror to, String helperName) {
+
+			if (types.isAssignable(from, to)) {
+				return UnaryOperator.identity();
+			}
+
+			final ExecutableElement method = findConversionMethod(from, to);
+			if (method != null) {
+				return value -> method.getSimpleName() + "(" + value + ")";
+			}
+
+			final TypeMirror fromElement = elementType(from);
+			if (fromElement == null) {
+				return null;
+			}
+
+			final boolean toArray = to.getKind() == TypeKind.ARRAY;
+			final TypeMirror toElement;
+			final String toCollection;
+
+			if (toArray) {
+				toElement = ((ArrayType) to).getComponentType();
+				toCollection = null;
+			} else if (to.getKind() == TypeKind.DECLARED) {
+				toCollection = collectionImplementation(to);
+				final List<? extends TypeMirror> arguments = ((DeclaredType) to).getTypeArguments();
+				toElement = arguments.size() == 1 ? upperBound(arguments.get(0)) : objectType();
+			} else {
+				return null;
+			}
+
+			final boolean sized = from.getKind() == TypeKind.ARRAY || isSubtypeOfErasure(from, "java.util.Collection");
+			if (toArray ? !sized : toCollection == null) {
+				return null;
+			}
+
+			final UnaryOperator<String> elementConversion = conversion(fromElement, toElement, helperName + "Element");
+			if (elementConversion == null) {
+				return null;
+			}
+
+			final String name = uniqueHelperName(helperName);
+			final String size = from.getKind() == TypeKind.ARRAY ? "source.length" : "source.size()";
+			final boolean unchecked = toArray && toElement.getKind() == TypeKind.DECLARED
+					&& !((DeclaredType) toElement).getTypeArguments().isEmpty();
+			final String targetDeclaration = toArray ? to.toString() : toCollection + '<' + toElement + '>';
+			final String targetCreation;
+			if (toArray) {
+				final String erasedElement = types.erasure(toElement).toString();
+				final int dimensions = erasedElement.indexOf('[');
+				targetCreation = dimensions == -1
+						? "new " + erasedElement + '[' + size + ']'
+						: "new " + erasedElement.substring(0, dimensions) + '[' + size + ']'
+								+ erasedElement.substring(dimensions);
+			} else {
+				targetCreation = "new " + toCollection + "<>(" + (sized ? size : "") + ')';
+			}
+
+			copyHelpers.add(new MapperDefinition.CopyHelper(name, from.toString(), to.toString(),
+					fromElement.toString(), targetDeclaration, targetCreation, toArray,
+					elementConversion.apply("element"), unchecked));
+
+			return value -> name + "(" + value + ")";
+		}
+
+		/** The mapper method converting the types, preferring one taking and returning them exactly, or null. */
+		private ExecutableElement findConversionMethod(TypeMirror from, TypeMirror to) {
+			ExecutableElement found = null;
+			for (ExecutableElement method : conversionMethods) {
+				final ExecutableType methodType = (ExecutableType) types.asMemberOf(mapperType, method);
+				final TypeMirror parameter = methodType.getParameterTypes().get(0);
+				final TypeMirror result = methodType.getReturnType();
+				if (!method.getTypeParameters().isEmpty()
+						|| !types.isAssignable(from, parameter) || !types.isAssignable(result, to)) {
+					continue;
+				}
+				if (types.isSameType(from, parameter) && types.isSameType(result, to)) {
+					return method;
+				}
+				if (found == null) {
+					found = method;
+				}
+			}
+			return found;
+		}
+
+		private String uniqueHelperName(String name) {
+			String unique = name;
+			for (int i = 2; !helperNames.add(unique); i++) {
+				unique = name + i;
+			}
+			return unique;
+		}
+
+		private <R> R error(Element element, String message) {
+			final String prefix = element == mapper
+					? mapper.getQualifiedName().toString()
+					: mapper.getQualifiedName() + "." + element.getSimpleName();
+			processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, prefix + ": " + message, element);
+			valid = false;
+			return null;
+		}
+	}
+
+	/** Type of the elements of an array or an Iterable, or null for other types. */
+	private TypeMirror elementType(TypeMirror type) {
+
+		if (type.getKind() == TypeKind.ARRAY) {
+			return ((ArrayType) type).getComponentType();
+		}
+
+		if (type.getKind() != TypeKind.DECLARED) {
+			return null;
+		}
+
+		final DeclaredType declaredType = (DeclaredType) type;
+		if (((TypeElement) declaredType.asElement()).getQualifiedName().contentEquals("java.lang.Iterable")) {
+			return declaredType.getTypeArguments().size() == 1
+					? upperBound(declaredType.getTypeArguments().get(0))
+					: objectType();
+		}
+
+		for (TypeMirror supertype : types.directSupertypes(type)) {
+			final TypeMirror elementType = elementType(supertype);
+			if (elementType != null) {
+				return elementType;
+			}
+		}
+
+		return null;
+	}
+
+	/** The collection class created for a target type: ArrayList for lists, LinkedHashSet for sets, or null. */
+	private String collectionImplementation(TypeMirror target) {
+		for (String implementation : List.of("java.util.ArrayList", "java.util.LinkedHashSet")) {
+			final TypeElement element = processingEnv.getElementUtils().getTypeElement(implementation);
+			if (types.isAssignable(types.erasure(element.asType()), types.erasure(target))) {
+				return implementation;
+			}
+		}
+		return null;
+	}
+
+	private boolean isSubtypeOfErasure(TypeMirror type, String supertypeName) {
+		final TypeElement supertype = processingEnv.getElementUtils().getTypeElement(supertypeName);
+		return types.isAssignable(types.erasure(type), types.erasure(supertype.asType()));
+	}
+
+	private TypeMirror upperBound(TypeMirror type) {
+		if (type.getKind() != TypeKind.WILDCARD) {
+			return type;
+		}
+		final WildcardType wildcard = (WildcardType) type;
+		return wildcard.getExtendsBound() != null ? wildcard.getExtendsBound()
+				: wildcard.getSuperBound() != null ? wildcard.getSuperBound() : objectType();
+	}
+
+	private TypeMirror objectType() {
+		return processingEnv.getElementUtils().getTypeElement(OBJECT_CLASS_NAME).asType();
+	}
+
+	/** The target's constructor used by mappers: the no-args one, or else the public one with most parameters. */
+	private ExecutableElement findConstructor(DeclaredType type) {
+		final TypeElement element = (TypeElement) type.asElement();
+		ExecutableElement found = null;
+		for (ExecutableElement constructor : ElementFilter.constructorsIn(element.getEnclosedElements())) {
+			if (!constructor.getModifiers().contains(Modifier.PUBLIC)) {
+				continue;
+			}
+			if (element.getKind() == ElementKind.RECORD) {
+				if (constructor.getParameters().size() == element.getRecordComponents().size()) {
+					return constructor;
+				}
+			} else if (constructor.getParameters().isEmpty()) {
+				return constructor;
+			} else if (found == null || constructor.getParameters().size() > found.getParameters().size()) {
+				found = constructor;
+			}
+		}
+		return found;
+	}
+}
@@ -0,0 +1,29 @@
+package au.id.villar.utils.beangen;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Repeatable;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/** Configures how a method of a @{@link BeanMapper} fills one property of its target. */
+@Retention(RetentionPolicy.CLASS)
+@Target(ElementType.METHOD)
+@Repeatable(Mapping.List.class)
+public @interface Mapping {
+
+	/** Name of the target property. */
+	String target();
+
+	/** Name of the source property the target is filled from, if it isn't named like the target. */
+	String source() default "";
+
+	/** Leaves the target property with its default value instead of mapping it. */
+	boolean ignore() default false;
+
+	@Retention(RetentionPolicy.CLASS)
+	@Target(ElementType.METHOD)
+	@interface List {
+		Mapping[] value();
+	}
+}
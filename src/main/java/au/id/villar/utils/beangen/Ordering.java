@@ -0,0 +1,29 @@
+package au.id.villar.utils.beangen;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Repeatable;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Declares an order of the beans by several of their properties, precomposed into a comparator of the
+ * {@code <Bean>Comparators} companion, which templates get with {@code comparators = true}. The comparator is
+ * {@code BY_<NAME>}, like {@code BY_FULL_NAME} for {@code fullName}.
+ */
+@Retention(RetentionPolicy.CLASS)
+@Target(ElementType.TYPE)
+@Repeatable(Ordering.List.class)
+public @interface Ordering {
+
+	String name();
+
+	/** Names of the properties to compare, in order; a name prefixed with {@code -} compares in descending order. */
+	String[] properties();
+
+	@Retention(RetentionPolicy.CLASS)
+	@Target(ElementType.TYPE)
+	@interface List {
+		Ordering[] value();
+	}
+}
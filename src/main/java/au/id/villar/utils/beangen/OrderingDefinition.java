@@ -0,0 +1,11 @@
+package au.id.villar.utils.beangen;
+
+import java.util.List;
+
+/**
+ * An @{@link Ordering} declared by a template.
+ * @param properties names of the properties compared, in order, those compared in descending order prefixed with
+ * {@code -}
+ */
+record OrderingDefinition(String name, List<String> properties) {
+}
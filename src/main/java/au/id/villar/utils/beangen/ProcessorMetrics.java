@@ -0,0 +1,209 @@
+package au.id.villar.utils.beangen;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Timings and counters collected by {@link BeanTemplateProcessor} when the {@code beantemplates.metrics} option is
+ * set. Only used from the compiler thread; rendering times are measured by the rendering threads and handed over
+ * with the rendered beans. When disabled every method is a no-op.
+ */
+class ProcessorMetrics {
+
+	private final Path reportPath;
+	private final List<RoundMetrics> rounds = new ArrayList<>();
+	private final Map<String, BeanMetrics> beans = new LinkedHashMap<>();
+	private RoundMetrics currentRound;
+
+	private ProcessorMetrics(Path reportPath) {
+		this.reportPath = reportPath;
+	}
+
+	static ProcessorMetrics disabled() {
+		return new ProcessorMetrics(null);
+	}
+
+	static ProcessorMetrics reportingTo(Path reportPath) {
+		return new ProcessorMetrics(reportPath);
+	}
+
+	boolean isEnabled() {
+		return reportPath != null;
+	}
+
+	/** Returns the current time if metrics are enabled, 0 otherwise, so disabled metrics don't even read the clock. */
+	long now() {
+		return isEnabled() ? System.nanoTime() : 0;
+	}
+
+	void roundStarted() {
+		if (isEnabled()) {
+			currentRound = new RoundMetrics(rounds.size() + 1);
+			rounds.add(currentRound);
+		}
+	}
+
+	void discovered(long startNanos) {
+		if (isEnabled()) {
+			currentRound.discoveryNanos += System.nanoTime() - startNanos;
+		}
+	}
+
+	void defined(String beanName, long startNanos) {
+		if (isEnabled()) {
+			final long elapsed = System.nanoTime() - startNanos;
+			bean(beanName).definitionNanos += elapsed;
+			currentRound.definitionNanos += elapsed;
+		}
+	}
+
+	void rendered(long startNanos) {
+		if (isEnabled()) {
+			currentRound.renderNanos += System.nanoTime() - startNanos;
+		}
+	}
+
+	void written(BeanDefinition definition, String sourceCode, long renderNanos, long startNanos) {
+		if (isEnabled()) {
+			final long elapsed = System.nanoTime() - startNanos;
+			final BeanMetrics bean = bean(definition.getQualifiedName());
+			bean.renderNanos += renderNanos;
+			bean.writeNanos += elapsed;
+			bean.properties = definition.getProperties().size();
+			bean.constructors = Math.max(1, definition.getConstructors().size());
+			bean.builders = definition.hasBuilder() ? 1 : 0;
+			bean.bytes += utf8Length(sourceCode);
+			currentRound.writeNanos += elapsed;
+			currentRound.beans++;
+		}
+	}
+
+	/** Charges the rendering and writing of one of a bean's companions to the bean. */
+	void companionWritten(BeanDefinition definition, String sourceCode, long renderNanos, long startNanos) {
+		if (isEnabled()) {
+			final long elapsed = System.nanoTime() - startNanos;
+			final BeanMetrics bean = bean(definition.getQualifiedName());
+			bean.renderNanos += renderNanos;
+			bean.writeNanos += elapsed;
+			bean.companions++;
+			bean.bytes += utf8Length(sourceCode);
+			currentRound.writeNanos += elapsed;
+		}
+	}
+
+	/** Writes the JSON report and returns a one-line summary for the build log. */
+	String report() throws IOException {
+		final long discovery = rounds.stream().mapToLong(r -> r.discoveryNanos).sum();
+		final long definition = rounds.stream().mapToLong(r -> r.definitionNanos).sum();
+		final long render = rounds.stream().mapToLong(r -> r.renderNanos).sum();
+		final long write = rounds.stream().mapToLong(r -> r.writeNanos).sum();
+		final long bytes = beans.values().stream().mapToLong(b -> b.bytes).sum();
+		final int properties = beans.values().stream().mapToInt(b -> b.properties).sum();
+
+		Files.writeString(reportPath, toJson(), StandardCharsets.UTF_8);
+
+		return String.format(Locale.ROOT, "Bean templates: %d beans in %d rounds, %.1f ms (discovery %.1f ms, "
+						+ "definitions %.1f ms, rendering %.1f ms, writing %.1f ms), %d properties, %d bytes; report: %s",
+				beans.size(), rounds.size(), millis(discovery + definition + render + write), millis(discovery),
+				millis(definition), millis(render), millis(write), properties, bytes, reportPath);
+	}
+
+	private BeanMetrics bean(String beanName) {
+		return beans.computeIfAbsent(beanName, n -> new BeanMetrics(n, currentRound.number));
+	}
+
+	private String toJson() {
+		final StringBuilder json = new StringBuilder(256 + beans.size() * 256);
+
+		json.append("{\n  \"rounds\": [");
+		for (int i = 0; i < rounds.size(); i++) {
+			final RoundMetrics round = rounds.get(i);
+			json.append(i > 0 ? "," : "").append("\n    {\"round\": ").append(round.number)
+					.append(", \"beans\": ").append(round.beans)
+					.append(", \"discoveryNanos\": ").append(round.discoveryNanos)
+					.append(", \"definitionNanos\": ").append(round.definitionNanos)
+					.append(", \"renderNanos\": ").append(round.renderNanos)
+					.append(", \"writeNanos\": ").append(round.writeNanos).append('}');
+		}
+		json.append("\n  ],\n  \"beans\": [");
+
+		int i = 0;
+		for (BeanMetrics bean : beans.values()) {
+			json.append(i++ > 0 ? "," : "").append("\n    {\"name\": \"").append(bean.name)
+					.append("\", \"round\": ").append(bean.round)
+					.append(", \"definitionNanos\": ").append(bean.definitionNanos)
+					.append(", \"renderNanos\": ").append(bean.renderNanos)
+					.append(", \"writeNanos\": ").append(bean.writeNanos)
+					.append(", \"properties\": ").append(bean.properties)
+					.append(", \"constructors\": ").append(bean.constructors)
+					.append(", \"builders\": ").append(bean.builders)
+					.append(", \"companions\": ").append(bean.companions)
+					.append(", \"bytes\": ").append(bean.bytes).append('}');
+		}
+		json.append("\n  ]\n}\n");
+
+		return json.toString();
+	}
+
+	private static double millis(long nanos) {
+		return nanos / 1_000_000.0;
+	}
+
+	private static long utf8Length(String text) {
+		long length = 0;
+		for (int i = 0; i < text.length(); i++) {
+			final char c = text.charAt(i);
+			if (c < 0x80) {
+				length++;
+			} else if (c < 0x800) {
+				length += 2;
+			} else if (Character.isHighSurrogate(c)) {
+				length += 4;
+				i++;
+			} else {
+				length += 3;
+			}
+		}
+		return length;
+	}
+
+	private static class RoundMetrics {
+
+		private final int number;
+		private int beans;
+		private long discoveryNanos;
+		private long definitionNanos;
+		private long renderNanos;
+		private long writeNanos;
+
+		RoundMetrics(int number) {
+			this.number = number;
+		}
+	}
+
+	private static class BeanMetrics {
+
+		private final String name;
+		private final int round;
+		private long definitionNanos;
+		private long renderNanos;
+		private long writeNanos;
+		private int properties;
+		private int constructors;
+		private int builders;
+		private int companions;
+		private long bytes;
+
+		BeanMetrics(String name, int round) {
+			this.name = name;
+			this.round = round;
+		}
+	}
+}
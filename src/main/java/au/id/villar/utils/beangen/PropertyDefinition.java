@@ -1,15 +1,38 @@
 package au.id.villar.utils.beangen;
 
+import java.util.Set;
+
 public class PropertyDefinition {
+
+    static final Set<String> PRIMITIVE_TYPES
+            = Set.of("boolean", "byte", "short", "int", "long", "char", "float", "double");
+
     private final String name;
     private final String type;
+    private final String getterName;
+    private final String setterName;
+    private String erasedType;
     private boolean isFinal = false;
+    private boolean isTransient = false;
+    private boolean inherited = false;
     private boolean needsGetter = true;
     private boolean needsSetter = true;
+    private boolean inheritedGetter = false;
+    private boolean inheritedSetter = false;
+    private String lazyMethod;
+    private Lazy.Publication lazyPublication;
+    private boolean lazyMethodDeclared = false;
+    private ColumnDefinition column;
+    private boolean comparable = false;
 
     public PropertyDefinition(String name, String type) {
         this.name = name;
         this.type = type;
+        this.erasedType = type.indexOf('<') != -1 ? type.substring(0, type.indexOf('<')) : type;
+
+        final String capitalizedName = Character.toUpperCase(name.charAt(0)) + name.substring(1);
+        this.getterName = "get" + capitalizedName;
+        this.setterName = "set" + capitalizedName;
     }
 
     public String getName() {
@@ -20,6 +43,45 @@ public class PropertyDefinition {
         return type;
     }
 
+    /** Type of the property after erasure, like {@code java.util.List} for {@code java.util.List<R>}. */
+    public String getErasedType() {
+        return erasedType;
+    }
+
+    public void setErasedType(String erasedType) {
+        this.erasedType = erasedType;
+    }
+
+    public String getGetterName() {
+        return getterName;
+    }
+
+    public String getSetterName() {
+        return setterName;
+    }
+
+    public boolean isPrimitive() {
+        return PRIMITIVE_TYPES.contains(type);
+    }
+
+    public boolean isArray() {
+        return type.endsWith("[]");
+    }
+
+    /** True for arrays whose elements are arrays themselves, which need the "deep" methods of Arrays. */
+    public boolean isNestedArray() {
+        return type.endsWith("[][]");
+    }
+
+    /** Name of the wrapper class of a primitive property, like {@code Integer} for {@code int}. */
+    public String getWrapperType() {
+        return switch (type) {
+            case "int" -> "Integer";
+            case "char" -> "Character";
+            default -> Character.toUpperCase(type.charAt(0)) + type.substring(1);
+        };
+    }
+
     public boolean isFinal() {
         return isFinal;
     }
@@ -28,6 +90,65 @@ public class PropertyDefinition {
         isFinal = aFinal;
     }
 
+    public boolean isTransient() {
+        return isTransient;
+    }
+
+    public void setTransient(boolean aTransient) {
+        isTransient = aTransient;
+    }
+
+    /** True if the property is computed on first read, see @{@link Lazy}. */
+    public boolean isLazy() {
+        return lazyMethod != null;
+    }
+
+    /** Name of the template method computing a lazy property, or null if the property isn't lazy. */
+    public String getLazyMethod() {
+        return lazyMethod;
+    }
+
+    public Lazy.Publication getLazyPublication() {
+        return lazyPublication;
+    }
+
+    public void setLazy(String lazyMethod, Lazy.Publication lazyPublication) {
+        this.lazyMethod = lazyMethod;
+        this.lazyPublication = lazyPublication;
+    }
+
+    /** True if the template declares the method computing this lazy property. */
+    public boolean isLazyMethodDeclared() {
+        return lazyMethodDeclared;
+    }
+
+    public void setLazyMethodDeclared(boolean lazyMethodDeclared) {
+        this.lazyMethodDeclared = lazyMethodDeclared;
+    }
+
+    /** True if the property is of a primitive type or of a type implementing {@link Comparable}. */
+    public boolean isComparable() {
+        return comparable;
+    }
+
+    public void setComparable(boolean comparable) {
+        this.comparable = comparable;
+    }
+
+    /** The column the property is mapped to, or null if it isn't annotated with {@code @Column} or {@code @Id}. */
+    public ColumnDefinition getColumn() {
+        return column;
+    }
+
+    public void setColumn(ColumnDefinition column) {
+        this.column = column;
+    }
+
+    /** True if the property is declared by a superclass of the template rather than by the template itself. */
+    public boolean isInherited() {
+        return inherited;
+    }
+
     public boolean needsGetter() {
         return needsGetter;
     }
@@ -44,6 +165,35 @@ public class PropertyDefinition {
         this.needsSetter = needsSetter;
     }
 
+    /** True if this property is inherited and a superclass of the bean offers a getter for it. */
+    public boolean hasInheritedGetter() {
+        return inheritedGetter;
+    }
+
+    /** True if this property is inherited and a superclass of the bean offers a setter for it. */
+    public boolean hasInheritedSetter() {
+        return inheritedSetter;
+    }
+
+    /**
+     * Returns a copy of this property as seen from a subclass of the class declaring it, telling whether the
+     * superclass has a getter and a setter for it.
+     */
+    public PropertyDefinition asInherited(boolean hasGetter, boolean hasSetter) {
+        final PropertyDefinition property = new PropertyDefinition(name, type);
+        property.erasedType = erasedType;
+        property.isFinal = isFinal;
+        property.isTransient = isTransient;
+        property.inherited = true;
+        property.needsGetter = false;
+        property.needsSetter = false;
+        property.inheritedGetter = hasGetter;
+        property.inheritedSetter = hasSetter;
+        property.column = column;
+        property.comparable = comparable;
+        return property;
+    }
+
     public VariableDefinition asVariableDefinition() {
         return new VariableDefinition(name, type);
     }
@@ -0,0 +1,103 @@
+package au.id.villar.utils.beangen;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Writes the {@code <Bean>Query} companion, a {@link au.id.villar.utils.beangen.runtime.BeanQuery} with a method per
+ * property with a getter returning the conditions fitting the property's type: those of {@code IntProperty},
+ * {@code LongProperty} or {@code DoubleProperty} for numeric primitives, which read them without boxing,
+ * {@code BooleanProperty} for booleans, {@code ComparableProperty} for comparable types that aren't generic, and
+ * {@code ObjectProperty} for the rest.
+ */
+class QueryWriter extends CompanionWriter {
+
+	private static final String BEAN_QUERY = "au.id.villar.utils.beangen.runtime.BeanQuery";
+
+	/** Methods a query already has without parameters, which properties can't be named after. */
+	private static final Set<String> RESERVED_NAMES = Set.of("where", "and", "toPredicate", "getClass", "hashCode",
+			"toString", "clone", "finalize", "notify", "notifyAll", "wait");
+
+	QueryWriter() {
+		super("Query");
+	}
+
+	@Override
+	boolean isEnabledFor(BeanDefinition definition) {
+		return definition.isWithQuery();
+	}
+
+	@Override
+	List<String> validate(BeanDefinition definition) {
+		final List<String> problems = new ArrayList<>();
+		for (PropertyDefinition property : queriedProperties(definition)) {
+			if (RESERVED_NAMES.contains(property.getName())) {
+				problems.add("query can't have a method for property " + property.getName()
+						+ ", as queries already have a method of that name");
+			}
+		}
+		return problems;
+	}
+
+	@Override
+	protected void writeClass(BeanDefinition definition, SourceWriter writer) {
+
+		final String name = getSingleName(definition);
+		final String beanType = beanType(definition);
+
+		writer.append("public final class ").append(name).append(" extends ").append(BEAN_QUERY).append('<')
+				.append(beanType).append(", ").append(name).append("> {").newLine()
+				.newLine()
+				.indent(1).append("private ").append(name).append("() {").newLine()
+				.indent(1).append('}').newLine()
+				.newLine()
+				.indent(1).append("/** Starts a query, which matches every bean until conditions are added. */")
+				.newLine()
+				.indent(1).append("public static ").append(name).append(" where() {").newLine()
+				.indent(2).append("return new ").append(name).append("();").newLine()
+				.indent(1).append('}').newLine();
+
+		for (PropertyDefinition property : queriedProperties(definition)) {
+			final String getter = "bean -> bean." + property.getGetterName() + "()";
+			final String conditions;
+			final String factory;
+			switch (property.getType()) {
+				case "byte", "short", "char", "int" -> {
+					conditions = "IntProperty<" + beanType + ", " + name + '>';
+					factory = "intProperty";
+				}
+				case "long" -> {
+					conditions = "LongProperty<" + beanType + ", " + name + '>';
+					factory = "longProperty";
+				}
+				case "float", "double" -> {
+					conditions = "DoubleProperty<" + beanType + ", " + name + '>';
+					factory = "doubleProperty";
+				}
+				case "boolean" -> {
+					conditions = "BooleanProperty<" + beanType + ", " + name + '>';
+					factory = "booleanProperty";
+				}
+				default -> {
+					final boolean generic = !property.getType().equals(property.getErasedType());
+					final String valueType = generic ? "Object" : property.getType();
+					conditions = (property.isComparable() && !generic ? "ComparableProperty<" : "ObjectProperty<")
+							+ beanType + ", " + valueType + ", " + name + '>';
+					factory = property.isComparable() && !generic ? "comparableProperty" : "objectProperty";
+				}
+			}
+			writer.newLine()
+					.indent(1).append("public ").append(conditions).append(' ').append(property.getName())
+					.append("() {").newLine()
+					.indent(2).append("return ").append(factory).append('(').append(getter).append(");").newLine()
+					.indent(1).append('}').newLine();
+		}
+
+		writer.append('}').newLine();
+	}
+
+	private static List<PropertyDefinition> queriedProperties(BeanDefinition definition) {
+		return definition.getAllProperties().stream().filter(definition::hasGetter).toList();
+	}
+}
@@ -0,0 +1,110 @@
+package au.id.villar.utils.beangen;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+/**
+ * Content-addressed cache of rendered bean sources that survives across compilations. Entries are keyed by a hash of
+ * a fingerprint of the source, based on the bean's {@link BeanDefinition#fingerprint() fingerprint}, plus a hash of
+ * the processor's own code, so a new processor build never serves sources rendered by an older one. Safe to use from
+ * several rendering threads.
+ */
+class SourceCache {
+
+	private static final String ENTRY_EXTENSION = ".java";
+
+	private final Path directory;
+	private final String processorVersion;
+	private final AtomicInteger hits = new AtomicInteger();
+	private final AtomicInteger misses = new AtomicInteger();
+
+	SourceCache(Path directory) throws IOException {
+		this.directory = Files.createDirectories(directory);
+		this.processorVersion = computeProcessorVersion();
+	}
+
+	/** Returns the cached source with the given fingerprint, or null if it's not in the cache. */
+	String get(String fingerprint) throws IOException {
+		final Path entry = entryFor(fingerprint);
+		if (Files.isRegularFile(entry)) {
+			hits.incrementAndGet();
+			return Files.readString(entry, StandardCharsets.UTF_8);
+		}
+		misses.incrementAndGet();
+		return null;
+	}
+
+	void put(String fingerprint, String source) throws IOException {
+		final Path entry = entryFor(fingerprint);
+		final Path temporary = Files.createTempFile(directory, "entry", ".tmp");
+		try {
+			Files.writeString(temporary, source, StandardCharsets.UTF_8);
+			Files.move(temporary, entry, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		} finally {
+			Files.deleteIfExists(temporary);
+		}
+	}
+
+	int getHits() {
+		return hits.get();
+	}
+
+	int getMisses() {
+		return misses.get();
+	}
+
+	private Path entryFor(String fingerprint) {
+		return directory.resolve(sha256(processorVersion + '\n' + fingerprint) + ENTRY_EXTENSION);
+	}
+
+	private static String computeProcessorVersion() throws IOException {
+		final MessageDigest digest = newDigest();
+		final Path location;
+
+		try {
+			location = Path.of(SourceCache.class.getProtectionDomain().getCodeSource().getLocation().toURI());
+		} catch (URISyntaxException | SecurityException | NullPointerException e) {
+			throw new IOException("Can't locate the processor code to version the cache", e);
+		}
+
+		if (Files.isDirectory(location)) {
+			final Path packageDirectory = location.resolve(SourceCache.class.getPackageName().replace('.', '/'));
+			final List<Path> classFiles;
+			try (Stream<Path> files = Files.list(packageDirectory)) {
+				classFiles = files.filter(p -> p.toString().endsWith(".class")).sorted().toList();
+			}
+			for (Path classFile : classFiles) {
+				digest.update(Files.readAllBytes(classFile));
+			}
+		} else {
+			try (InputStream input = Files.newInputStream(location)) {
+				digest.update(input.readAllBytes());
+			}
+		}
+
+		return HexFormat.of().formatHex(digest.digest());
+	}
+
+	private static String sha256(String value) {
+		return HexFormat.of().formatHex(newDigest().digest(value.getBytes(StandardCharsets.UTF_8)));
+	}
+
+	private static MessageDigest newDigest() {
+		try {
+			return MessageDigest.getInstance("SHA-256");
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException("SHA-256 is always available", e);
+		}
+	}
+}
@@ -0,0 +1,84 @@
+package au.id.villar.utils.beangen;
+
+/**
+ * Accumulates generated source code in memory so it can be flushed to its file in a single write. Buffers are reused
+ * per thread, and indentation strings are computed once.
+ */
+final class SourceWriter {
+
+	private static final String LINE_END = System.lineSeparator();
+	private static final String INDENTATION_UNIT = "\t";
+	private static final String[] INDENTATIONS = new String[8];
+	private static final int INITIAL_CAPACITY = 8 * 1024;
+	private static final int MAX_POOLED_CAPACITY = 256 * 1024;
+	private static final ThreadLocal<SourceWriter> POOL = ThreadLocal.withInitial(SourceWriter::new);
+
+	static {
+		for (int i = 0; i < INDENTATIONS.length; i++) {
+			INDENTATIONS[i] = INDENTATION_UNIT.repeat(i);
+		}
+	}
+
+	private StringBuilder buffer = new StringBuilder(INITIAL_CAPACITY);
+	private boolean inUse;
+
+	private SourceWriter() {
+	}
+
+	/**
+	 * Returns an empty writer for the current thread. Writers must be given back with {@link #release()} once their
+	 * code has been taken with {@link #toString()}; nested acquisitions get a fresh, unpooled writer.
+	 */
+	static SourceWriter acquire() {
+		final SourceWriter writer = POOL.get();
+		if (writer.inUse) {
+			return new SourceWriter();
+		}
+		writer.inUse = true;
+		return writer;
+	}
+
+	/** Discards the code written so far and makes this writer available again. */
+	void release() {
+		if (buffer.capacity() > MAX_POOLED_CAPACITY) {
+			buffer = new StringBuilder(INITIAL_CAPACITY);
+		} else {
+			buffer.setLength(0);
+		}
+		inUse = false;
+	}
+
+	SourceWriter append(String text) {
+		buffer.append(text);
+		return this;
+	}
+
+	SourceWriter append(char character) {
+		buffer.append(character);
+		return this;
+	}
+
+	SourceWriter append(int number) {
+		buffer.append(number);
+		return this;
+	}
+
+	SourceWriter newLine() {
+		buffer.append(LINE_END);
+		return this;
+	}
+
+	SourceWriter indent(int level) {
+		buffer.append(indentation(level));
+		return this;
+	}
+
+	@Override
+	public String toString() {
+		return buffer.toString();
+	}
+
+	static String indentation(int level) {
+		return level < INDENTATIONS.length ? INDENTATIONS[level] : INDENTATION_UNIT.repeat(level);
+	}
+}
@@ -0,0 +1,430 @@
+package au.id.villar.utils.beangen;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.Types;
+import javax.tools.Diagnostic;
+
+/**
+ * Builds {@link TemplateModel}s out of annotated templates. Each template's members are walked once, and the
+ * properties every superclass exposes to its subclasses are cached for the whole compilation, so a deep hierarchy is
+ * analysed once instead of once per subclass.
+ */
+class TemplateIntrospector {
+
+	private static final String OBJECT_CLASS_NAME = Object.class.getCanonicalName();
+	private static final String COMPARABLE_CLASS_NAME = Comparable.class.getCanonicalName();
+	private static final String TABLE_ANNOTATION = "javax.persistence.Table";
+	private static final String COLUMN_ANNOTATION = "javax.persistence.Column";
+	private static final String ID_ANNOTATION = "javax.persistence.Id";
+
+	private final ProcessingEnvironment processingEnv;
+	private final Map<String, TemplateModel> templatesByBeanName = new HashMap<>();
+	private final Map<String, List<PropertyDefinition>> hierarchyProperties = new HashMap<>();
+
+	TemplateIntrospector(ProcessingEnvironment processingEnv) {
+		this.processingEnv = processingEnv;
+	}
+
+	TemplateModel introspect(TypeElement element, TypeElement annotation) {
+
+		final String annotationName = annotation.getQualifiedName().toString();
+		final Map<String, Object> attributes = readAttributes(element, annotationName);
+		final Map<String, PropertyDefinition> properties = new LinkedHashMap<>();
+		final List<String> subclassPropertyNames = new ArrayList<>();
+		final List<ConstructorDefinition> constructors = new ArrayList<>();
+		final List<ExecutableElement> methods = new ArrayList<>();
+
+		for (Element member : element.getEnclosedElements()) {
+			final Set<Modifier> modifiers = member.getModifiers();
+			if (member.getKind() == ElementKind.FIELD && !modifiers.contains(Modifier.STATIC)) {
+				final PropertyDefinition property = toPropertyDefinition((VariableElement) member);
+				properties.put(property.getName(), property);
+				if (!modifiers.contains(Modifier.PRIVATE)) {
+					subclassPropertyNames.add(property.getName());
+				}
+			} else if (member.getKind() == ElementKind.CONSTRUCTOR && !modifiers.contains(Modifier.PRIVATE)) {
+				constructors.add(toConstructorDefinition((ExecutableElement) member));
+			} else if (member.getKind() == ElementKind.METHOD) {
+				methods.add((ExecutableElement) member);
+			}
+		}
+
+		methods.forEach(m -> checkWithFields(properties, m));
+
+		final boolean entityTemplate = annotationName.equals(BeanTemplate.class.getCanonicalName());
+		final boolean generatesSetters = entityTemplate
+				|| Boolean.TRUE.equals(attributes.get("setters")) && !Boolean.TRUE.equals(attributes.get("immutable"));
+		final List<PropertyDefinition> subclassProperties = subclassPropertyNames.stream()
+				.map(properties::get)
+				.map(p -> p.asInherited(true, !p.isFinal() && (generatesSetters || !p.needsSetter())))
+				.toList();
+
+		final Set<String> methodSignatures = methods.stream()
+				.map(TemplateIntrospector::signature)
+				.collect(Collectors.toUnmodifiableSet());
+
+		properties.values().stream()
+				.filter(PropertyDefinition::isLazy)
+				.forEach(p -> p.setLazyMethodDeclared(methodSignatures.contains(p.getLazyMethod() + "()")));
+
+		if (Boolean.TRUE.equals(attributes.get("noArgsConstructor"))) {
+			constructors.removeIf(c -> c.parameters().isEmpty() && !c.usedByBuilder());
+			if (constructors.stream().noneMatch(c -> c.parameters().isEmpty())) {
+				constructors.add(new ConstructorDefinition("public", List.of(), false));
+			}
+		}
+
+		final TemplateModel model = new TemplateModel(element,
+				entityTemplate,
+				inferGeneratedBeanName(element, attributes),
+				attributes,
+				inferTypeParameters(element),
+				Collections.unmodifiableList(constructors),
+				List.copyOf(properties.values()),
+				subclassProperties,
+				methodSignatures,
+				readTableName(element),
+				Arrays.stream(element.getAnnotationsByType(Ordering.class))
+						.map(o -> new OrderingDefinition(o.name(), List.of(o.properties())))
+						.toList());
+
+		templatesByBeanName.put(model.beanName(), model);
+
+		return model;
+	}
+
+	/**
+	 * Returns the properties the bean generated from the given template inherits from the template's superclasses,
+	 * closest superclass first. Superclasses that are themselves generated in the current round are resolved through
+	 * their templates. Package-private fields are only inherited from classes in the bean's own package.
+	 */
+	List<PropertyDefinition> inheritedProperties(TemplateModel model) {
+		final String beanPackage = packageOf(model.element());
+		return hierarchyProperties(model.element().getSuperclass(), beanPackage, beanPackage);
+	}
+
+	/** Forgets the templates of the round that just finished; hierarchy metadata is kept for later rounds. */
+	void endRound() {
+		templatesByBeanName.clear();
+	}
+
+	/**
+	 * Properties of a type and its superclasses, as seen by a bean in {@code beanPackage}. Simple names of types
+	 * generated in this round are resolved in {@code packageName}, the package of the type's subclass.
+	 */
+	private List<PropertyDefinition> hierarchyProperties(TypeMirror type, String packageName, String beanPackage) {
+
+		if (type.getKind() == TypeKind.ERROR) {
+			final TemplateModel superTemplate = findGeneratedInThisRound(type.toString(), packageName);
+			if (superTemplate == null) {
+				return List.of();
+			}
+			return cached(superTemplate.beanName(), beanPackage, () -> {
+				final TypeElement templateElement = superTemplate.element();
+				final boolean samePackage = packageOf(templateElement).equals(beanPackage);
+				final Set<String> visibleFields = templateElement.getEnclosedElements().stream()
+						.filter(e -> e.getKind() == ElementKind.FIELD && isVisibleFromSubclass(e, samePackage))
+						.map(e -> e.getSimpleName().toString())
+						.collect(Collectors.toSet());
+				final List<PropertyDefinition> ownProperties = superTemplate.subclassProperties().stream()
+						.filter(p -> visibleFields.contains(p.getName()))
+						.toList();
+				return merge(ownProperties, hierarchyProperties(templateElement.getSuperclass(),
+						packageOf(templateElement), beanPackage));
+			});
+		}
+
+		if (type.getKind() != TypeKind.DECLARED || type.toString().equals(OBJECT_CLASS_NAME)) {
+			return List.of();
+		}
+
+		final DeclaredType declaredType = (DeclaredType) type;
+
+		return cached(type.toString(), beanPackage, () -> {
+			final TypeElement typeElement = (TypeElement) declaredType.asElement();
+			final Set<String> accessorNames = accessorNames(typeElement);
+			final boolean samePackage = packageOf(typeElement).equals(beanPackage);
+			final List<PropertyDefinition> ownProperties = typeElement.getEnclosedElements().stream()
+					.filter(e -> e.getKind() == ElementKind.FIELD && isVisibleFromSubclass(e, samePackage))
+					.map(VariableElement.class::cast)
+					.map(f -> toInheritedPropertyDefinition(declaredType, f, accessorNames))
+					.toList();
+			final List<? extends TypeMirror> supertypes = processingEnv.getTypeUtils().directSupertypes(type);
+			final List<PropertyDefinition> superProperties = supertypes.isEmpty()
+					? List.of()
+					: hierarchyProperties(supertypes.get(0), packageOf(typeElement), beanPackage);
+			return merge(ownProperties, superProperties);
+		});
+	}
+
+	/** True for instance fields a subclass can read, package-private ones only if it's in the same package. */
+	private static boolean isVisibleFromSubclass(Element field, boolean samePackage) {
+		final Set<Modifier> modifiers = field.getModifiers();
+		return !modifiers.contains(Modifier.STATIC) && !modifiers.contains(Modifier.PRIVATE)
+				&& (samePackage || modifiers.contains(Modifier.PUBLIC) || modifiers.contains(Modifier.PROTECTED));
+	}
+
+	/** Caches hierarchy properties by type and by package of the bean, as that decides which fields are visible. */
+	private List<PropertyDefinition> cached(String typeName, String beanPackage,
+			Supplier<List<PropertyDefinition>> supplier) {
+		final String key = beanPackage + ' ' + typeName;
+		List<PropertyDefinition> properties = hierarchyProperties.get(key);
+		if (properties == null) {
+			properties = supplier.get();
+			hierarchyProperties.put(key, properties);
+		}
+		return properties;
+	}
+
+	private TemplateModel findGeneratedInThisRound(String typeName, String packageName) {
+
+		final TemplateModel model = templatesByBeanName.get(typeName);
+
+		if (model != null || typeName.indexOf('.') != -1) {
+			return model;
+		}
+
+		final TemplateModel samePackageModel = templatesByBeanName.get(packageName + '.' + typeName);
+
+		if (samePackageModel != null) {
+			return samePackageModel;
+		}
+
+		final List<TemplateModel> candidates = templatesByBeanName.values().stream()
+				.filter(m -> m.beanName().endsWith('.' + typeName))
+				.toList();
+
+		return candidates.size() == 1 ? candidates.get(0) : null;
+	}
+
+	private static List<PropertyDefinition> merge(List<PropertyDefinition> closest, List<PropertyDefinition> farthest) {
+
+		if (farthest.isEmpty()) {
+			return closest;
+		}
+
+		final Set<String> names = closest.stream().map(PropertyDefinition::getName).collect(Collectors.toSet());
+		final List<PropertyDefinition> merged = new ArrayList<>(closest);
+
+		farthest.stream().filter(p -> !names.contains(p.getName())).forEach(merged::add);
+
+		return Collections.unmodifiableList(merged);
+	}
+
+	private PropertyDefinition toInheritedPropertyDefinition(DeclaredType owner, VariableElement field,
+			Set<String> accessorNames) {
+		final TypeMirror fieldType = processingEnv.getTypeUtils().asMemberOf(owner, field);
+		final PropertyDefinition property = new PropertyDefinition(field.getSimpleName().toString(),
+				fieldType.toString());
+		property.setErasedType(processingEnv.getTypeUtils().erasure(fieldType).toString());
+		property.setFinal(field.getModifiers().contains(Modifier.FINAL));
+		property.setTransient(field.getModifiers().contains(Modifier.TRANSIENT));
+		property.setColumn(readColumn(field, property.getName()));
+		property.setComparable(isComparable(fieldType));
+		return property.asInherited(accessorNames.contains(property.getGetterName() + "()"),
+				!property.isFinal() && accessorNames.contains(property.getSetterName() + "(1)"));
+	}
+
+	/**
+	 * Returns the non-private getters and setters of a class, its superclasses' included, as {@code getName()} and
+	 * {@code setName(1)}.
+	 */
+	private Set<String> accessorNames(TypeElement typeElement) {
+		return processingEnv.getElementUtils().getAllMembers(typeElement).stream()
+				.filter(e -> e.getKind() == ElementKind.METHOD && !e.getModifiers().contains(Modifier.PRIVATE)
+						&& !e.getModifiers().contains(Modifier.STATIC))
+				.map(ExecutableElement.class::cast)
+				.filter(m -> m.getSimpleName().toString().startsWith("get") && m.getParameters().isEmpty()
+						|| m.getSimpleName().toString().startsWith("set") && m.getParameters().size() == 1)
+				.map(m -> m.getSimpleName() + (m.getParameters().isEmpty() ? "()" : "(1)"))
+				.collect(Collectors.toSet());
+	}
+
+	private Map<String, Object> readAttributes(Element element, String annotationName) {
+
+		for (AnnotationMirror mirror : element.getAnnotationMirrors()) {
+			final TypeElement annotationType = (TypeElement) mirror.getAnnotationType().asElement();
+			if (annotationType.getQualifiedName().contentEquals(annotationName)) {
+				final Map<String, Object> attributes = new HashMap<>();
+				for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry
+						: processingEnv.getElementUtils().getElementValuesWithDefaults(mirror).entrySet()) {
+					attributes.put(entry.getKey().getSimpleName().toString(), entry.getValue().getValue());
+				}
+				return Collections.unmodifiableMap(attributes);
+			}
+		}
+
+		return Map.of();
+	}
+
+	private boolean isComparable(TypeMirror type) {
+		if (type.getKind().isPrimitive()) {
+			return true;
+		}
+		final Types types = processingEnv.getTypeUtils();
+		final TypeElement comparable = processingEnv.getElementUtils().getTypeElement(COMPARABLE_CLASS_NAME);
+		return type.getKind() == TypeKind.DECLARED
+				&& types.isAssignable(types.erasure(type), types.erasure(comparable.asType()));
+	}
+
+	private static boolean hasAnnotation(Element element, String annotationName) {
+		return element.getAnnotationMirrors().stream()
+				.anyMatch(m -> ((TypeElement) m.getAnnotationType().asElement()).getQualifiedName()
+						.contentEquals(annotationName));
+	}
+
+	/** Returns the name of the template's {@code @Table}, qualified by its schema if it has one, or null. */
+	private String readTableName(TypeElement element) {
+
+		final Map<String, Object> attributes = readAttributes(element, TABLE_ANNOTATION);
+
+		if (!(attributes.get("name") instanceof String name) || name.isEmpty()) {
+			return null;
+		}
+
+		return attributes.get("schema") instanceof String schema && !schema.isEmpty() ? schema + '.' + name : name;
+	}
+
+	private ColumnDefinition readColumn(VariableElement field, String propertyName) {
+
+		final boolean id = hasAnnotation(field, ID_ANNOTATION);
+
+		if (!id && !hasAnnotation(field, COLUMN_ANNOTATION)) {
+			return null;
+		}
+
+		final Map<String, Object> attributes = readAttributes(field, COLUMN_ANNOTATION);
+		final String name = attributes.get("name") instanceof String columnName && !columnName.isEmpty()
+				? columnName
+				: propertyName;
+
+		return new ColumnDefinition(name, id, !Boolean.FALSE.equals(attributes.get("insertable")),
+				!Boolean.FALSE.equals(attributes.get("updatable")));
+	}
+
+	private String inferGeneratedBeanName(TypeElement element, Map<String, Object> attributes) {
+
+		final Object typeName = attributes.get("typeName");
+
+		if (typeName instanceof String name && !name.isEmpty()) {
+			return name.indexOf('.') != -1 ? name : inferPackageName(element) + '.' + name;
+		}
+
+		final String beanDefinitionName = element.getQualifiedName().toString();
+		final String suffix = BeanTemplateProcessor.BEAN_DEFINITION_SUFFIX_CONVENTION;
+
+		if (beanDefinitionName.endsWith(suffix)) {
+			return beanDefinitionName.substring(0, beanDefinitionName.length() - suffix.length());
+		}
+
+		final String errorMessage = "Couldn't infer a proper generated name for " + beanDefinitionName;
+
+		processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, errorMessage, element);
+
+		throw new IllegalArgumentException(errorMessage);
+	}
+
+	private List<String> inferTypeParameters(TypeElement element) {
+		return element.getTypeParameters().stream().map(t -> t.getSimpleName().toString()).toList();
+	}
+
+	private ConstructorDefinition toConstructorDefinition(ExecutableElement element) {
+
+		final Set<Modifier> modifiers = element.getModifiers();
+
+		final String modifier = modifiers.contains(Modifier.PROTECTED)
+				? "protected"
+				: (modifiers.contains(Modifier.PUBLIC) ? "public" : null);
+
+		final List<VariableDefinition> parameters = element.getParameters().stream()
+				.map(v -> new VariableDefinition(v.getSimpleName().toString(), v.asType().toString()))
+				.toList();
+
+		final Builder builder = element.getAnnotation(Builder.class);
+
+		return builder != null
+				? new ConstructorDefinition(modifier, parameters, true, builder.reusable(), List.of(builder.required()))
+				: new ConstructorDefinition(modifier, parameters, false);
+	}
+
+	private PropertyDefinition toPropertyDefinition(VariableElement field) {
+		final PropertyDefinition property
+				= new PropertyDefinition(field.getSimpleName().toString(), field.asType().toString());
+		property.setErasedType(processingEnv.getTypeUtils().erasure(field.asType()).toString());
+		property.setFinal(field.getModifiers().contains(Modifier.FINAL));
+		property.setTransient(field.getModifiers().contains(Modifier.TRANSIENT));
+		property.setColumn(readColumn(field, property.getName()));
+		property.setComparable(isComparable(field.asType()));
+		final Lazy lazy = field.getAnnotation(Lazy.class);
+		if (lazy != null) {
+			final String method = lazy.method().isEmpty()
+					? "compute" + property.getGetterName().substring(3)
+					: lazy.method();
+			property.setLazy(method, lazy.publication());
+		}
+		return property;
+	}
+
+	private void checkWithFields(Map<String, PropertyDefinition> properties, ExecutableElement element) {
+
+		final String name = element.getSimpleName().toString();
+
+		if (name.length() <= 3) {
+			return;
+		}
+
+		final PropertyDefinition property = properties.get(Character.toLowerCase(name.charAt(3)) + name.substring(4));
+
+		if (property == null) {
+			return;
+		}
+
+		if (name.startsWith("get") && element.getParameters().isEmpty()) {
+			property.setNeedsGetter(false);
+		} else if (name.startsWith("set") && element.getParameters().size() == 1
+				&& property.getType().equals(element.getParameters().get(0).asType().toString())) {
+			property.setNeedsSetter(false);
+		}
+	}
+
+	private static String signature(ExecutableElement method) {
+		return method.getParameters().stream()
+				.map(p -> p.asType().toString())
+				.collect(Collectors.joining(",", method.getSimpleName() + "(", ")"));
+	}
+
+	private String packageOf(TypeElement element) {
+		return processingEnv.getElementUtils().getPackageOf(element).getQualifiedName().toString();
+	}
+
+	private String inferPackageName(TypeElement element) {
+
+		if (!(element.getEnclosingElement() instanceof PackageElement packageElement)) {
+			throw new IllegalArgumentException("Inner classes not supported");
+		}
+
+		return packageElement.getQualifiedName().toString();
+	}
+}
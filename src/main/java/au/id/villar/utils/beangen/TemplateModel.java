@@ -0,0 +1,42 @@
+package au.id.villar.utils.beangen;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import javax.lang.model.element.TypeElement;
+
+/**
+ * Everything the processor needs to know about a template, gathered by {@link TemplateIntrospector} in a single walk
+ * over the template's members.
+ * @param element the annotated template
+ * @param entityTemplate true if the template is annotated with @{@link BeanTemplate}, false for @{@link Bean}
+ * @param beanName qualified name of the bean to be generated
+ * @param attributes values of the template annotation's attributes, defaults included
+ * @param properties instance fields of the template, in declaration order
+ * @param subclassProperties the subset of {@code properties} visible from subclasses, as seen by them
+ * @param methodSignatures signatures of the methods the template declares, like {@code equals(java.lang.Object)}
+ * @param tableName name of the template's {@code @Table}, qualified by its schema if it has one, or null
+ * @param orderings the @{@link Ordering}s the template declares
+ */
+record TemplateModel(TypeElement element, boolean entityTemplate, String beanName, Map<String, Object> attributes,
+		List<String> typeParameters, List<ConstructorDefinition> constructors, List<PropertyDefinition> properties,
+		List<PropertyDefinition> subclassProperties, Set<String> methodSignatures, String tableName,
+		List<OrderingDefinition> orderings) {
+
+	String templateName() {
+		return element.getQualifiedName().toString();
+	}
+
+	<R> R attribute(String name, Class<R> type) {
+		final Object value = attributes.get(name);
+		return type.isInstance(value) ? type.cast(value) : null;
+	}
+
+	boolean flag(String name) {
+		return Boolean.TRUE.equals(attribute(name, Boolean.class));
+	}
+
+	boolean declaresMethod(String signature) {
+		return methodSignatures.contains(signature);
+	}
+}
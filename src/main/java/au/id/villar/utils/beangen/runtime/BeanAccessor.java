@@ -0,0 +1,100 @@
+package au.id.villar.utils.beangen.runtime;
+
+/**
+ * Reads and writes the properties of a generated bean by index, without reflection. Implemented by the
+ * {@code <Bean>Accessor} companions the processor generates for beans with {@code accessor = true}; each one has a
+ * single {@code INSTANCE}. Properties are indexed in declaration order, the template's own properties first.
+ * <p>
+ * The primitive methods, like {@link #getInt(Object, int)}, read and write primitive properties without boxing; they
+ * throw {@link IllegalArgumentException} for properties of any other type.
+ * @param <B> type of the bean
+ */
+public interface BeanAccessor<B> {
+
+	int propertyCount();
+
+	String propertyName(int index);
+
+	/** Erased type of the property, like {@code java.util.List} for a {@code List<String>} property. */
+	Class<?> propertyType(int index);
+
+	/** Returns the index of the named property, or -1 if the bean has no such property. */
+	int indexOf(String name);
+
+	/** True if the bean has a setter for the property. */
+	boolean isWritable(int index);
+
+	Object get(B bean, int index);
+
+	/** Sets a property; throws {@link UnsupportedOperationException} if it isn't {@link #isWritable writable}. */
+	void set(B bean, int index, Object value);
+
+	default boolean getBoolean(B bean, int index) {
+		throw notOfType(index, "boolean");
+	}
+
+	default void setBoolean(B bean, int index, boolean value) {
+		throw notOfType(index, "boolean");
+	}
+
+	default byte getByte(B bean, int index) {
+		throw notOfType(index, "byte");
+	}
+
+	default void setByte(B bean, int index, byte value) {
+		throw notOfType(index, "byte");
+	}
+
+	default short getShort(B bean, int index) {
+		throw notOfType(index, "short");
+	}
+
+	default void setShort(B bean, int index, short value) {
+		throw notOfType(index, "short");
+	}
+
+	default char getChar(B bean, int index) {
+		throw notOfType(index, "char");
+	}
+
+	default void setChar(B bean, int index, char value) {
+		throw notOfType(index, "char");
+	}
+
+	default int getInt(B bean, int index) {
+		throw notOfType(index, "int");
+	}
+
+	default void setInt(B bean, int index, int value) {
+		throw notOfType(index, "int");
+	}
+
+	default long getLong(B bean, int index) {
+		throw notOfType(index, "long");
+	}
+
+	default void setLong(B bean, int index, long value) {
+		throw notOfType(index, "long");
+	}
+
+	default float getFloat(B bean, int index) {
+		throw notOfType(index, "float");
+	}
+
+	default void setFloat(B bean, int index, float value) {
+		throw notOfType(index, "float");
+	}
+
+	default double getDouble(B bean, int index) {
+		throw notOfType(index, "double");
+	}
+
+	default void setDouble(B bean, int index, double value) {
+		throw notOfType(index, "double");
+	}
+
+	private IllegalArgumentException notOfType(int index, String type) {
+		final String name = index >= 0 && index < propertyCount() ? propertyName(index) : String.valueOf(index);
+		return new IllegalArgumentException("Property " + name + " isn't of type " + type);
+	}
+}
@@ -0,0 +1,44 @@
+package au.id.villar.utils.beangen.runtime;
+
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+
+/**
+ * Computes and applies {@link BeanPatch patches} between versions of a bean, property by property and without
+ * reflection, and writes them compactly, so replicas can be kept up to date by shipping only what changed.
+ * Implemented by the {@code <Bean>Diff} companions the processor generates for beans with {@code diff = true}; each
+ * one has a single {@code INSTANCE}. Only properties with both a getter and a setter are compared.
+ * <p>
+ * Properties are compared as the bean's {@code equals} compares them: primitives with {@code ==}, except for floating
+ * point ones, compared like {@link Double#compare} does; arrays with {@link java.util.Arrays#equals}, or
+ * {@link java.util.Arrays#deepEquals} if their elements are arrays, and anything else with
+ * {@link java.util.Objects#equals}.
+ * @param <B> type of the bean
+ */
+public interface BeanDiff<B> {
+
+	/** Hash of the names and types of the bean's properties, which patches must match. */
+	int schemaHash();
+
+	/** Returns the changes that turn {@code from} into {@code to}; an empty patch if there are none. */
+	BeanPatch diff(B from, B to);
+
+	/**
+	 * Sets the properties of the patch on the target through its setters.
+	 * @throws IllegalArgumentException if the patch is for another version of the bean
+	 */
+	void apply(B target, BeanPatch patch);
+
+	/**
+	 * Writes a patch as the schema hash, the number of changes, and the index and value of each, with values laid out
+	 * as in {@link ExternalFormat}.
+	 */
+	void write(BeanPatch patch, ObjectOutput out) throws IOException;
+
+	/**
+	 * Reads a patch written by {@link #write}.
+	 * @throws java.io.InvalidObjectException if it was written for another version of the bean
+	 */
+	BeanPatch read(ObjectInput in) throws IOException, ClassNotFoundException;
+}
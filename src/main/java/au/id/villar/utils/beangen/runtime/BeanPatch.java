@@ -0,0 +1,96 @@
+package au.id.villar.utils.beangen.runtime;
+
+import java.util.Arrays;
+
+/**
+ * The properties that changed between two versions of a bean, as computed by {@link BeanDiff#diff}: the index of
+ * each changed property, as numbered by the bean's {@link BeanAccessor}, and its new value. Values of primitive
+ * properties are kept unboxed, as the bits of a {@code long}; values of other properties are kept as they are, not
+ * copied. Patches are immutable, and only apply to beans with the same {@link #schemaHash()}.
+ */
+public final class BeanPatch {
+
+	private final int schemaHash;
+	private final int[] indices;
+	private final long[] primitives;
+	private final Object[] objects;
+
+	private BeanPatch(int schemaHash, int[] indices, long[] primitives, Object[] objects) {
+		this.schemaHash = schemaHash;
+		this.indices = indices;
+		this.primitives = primitives;
+		this.objects = objects;
+	}
+
+	/** Hash of the names and types of the properties of the bean the patch is for. */
+	public int schemaHash() {
+		return schemaHash;
+	}
+
+	/** Number of changed properties. */
+	public int size() {
+		return indices.length;
+	}
+
+	public boolean isEmpty() {
+		return indices.length == 0;
+	}
+
+	/** Index of the {@code i}th changed property; {@link BeanDiff#diff} adds them in ascending order. */
+	public int index(int i) {
+		return indices[i];
+	}
+
+	/** New value of the {@code i}th changed property if it's primitive, as set by {@link Builder#addPrimitive}. */
+	public long primitive(int i) {
+		return primitives[i];
+	}
+
+	/** New value of the {@code i}th changed property if it isn't primitive. */
+	public Object object(int i) {
+		return objects[i];
+	}
+
+	@Override
+	public String toString() {
+		return "BeanPatch" + Arrays.toString(indices);
+	}
+
+	/**
+	 * Collects the changes of a patch, at most one per property. Primitive values are added as a {@code long}:
+	 * booleans as 0 or 1, integral types widened, and floating point types as their raw bits.
+	 */
+	public static final class Builder {
+
+		private final int schemaHash;
+		private final int[] indices;
+		private final long[] primitives;
+		private final Object[] objects;
+		private int size;
+
+		/** Creates a builder of a patch of at most {@code propertyCount} changes. */
+		public Builder(int schemaHash, int propertyCount) {
+			this.schemaHash = schemaHash;
+			this.indices = new int[propertyCount];
+			this.primitives = new long[propertyCount];
+			this.objects = new Object[propertyCount];
+		}
+
+		public Builder addPrimitive(int index, long value) {
+			indices[size] = index;
+			primitives[size++] = value;
+			return this;
+		}
+
+		public Builder addObject(int index, Object value) {
+			indices[size] = index;
+			objects[size++] = value;
+			return this;
+		}
+
+		public BeanPatch build() {
+			return new BeanPatch(schemaHash, Arrays.copyOf(indices, size), Arrays.copyOf(primitives, size),
+					Arrays.copyOf(objects, size));
+		}
+	}
+}
@@ -0,0 +1,479 @@
+package au.id.villar.utils.beangen.runtime;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.ToDoubleFunction;
+import java.util.function.ToIntFunction;
+import java.util.function.ToLongFunction;
+
+/**
+ * Base of the {@code <Bean>Query} companions the processor generates for beans with {@code query = true}. A query is
+ * a conjunction of conditions on the bean's properties, each started by the query's method named after the property
+ * and joined to the previous ones with {@link #and()}, like
+ * {@code PersonEntityQuery.where().id().between(1, 100).and().lastName().eq("Smith")}. Primitive properties are read
+ * through {@link ToIntFunction}, {@link ToLongFunction} and {@link ToDoubleFunction} getters and compared without
+ * boxing.
+ * <p>
+ * {@link #toPredicate()} compiles the conditions into a predicate that tests the most selective ones first, going by
+ * an estimate of the fraction of beans each one lets through: equalities first, then ranges, then inequalities;
+ * conditions with the same estimate are tested in the order they were added. Queries aren't thread-safe while their
+ * conditions are added, but the predicates they compile are, as long as the beans aren't being changed.
+ * @param <B> type of the bean
+ * @param <Q> type of the query itself, which its conditions return so they can be chained
+ */
+public abstract class BeanQuery<B, Q extends BeanQuery<B, Q>> {
+
+	/** Number of beans {@link #filterParallel} leaves to each fork-join task. */
+	public static final int PARALLEL_THRESHOLD = 8_192;
+
+	private static final double EQUAL = 0.1;
+	private static final double BETWEEN = 0.25;
+	private static final double RANGE = 1.0 / 3;
+	private static final double BOOLEAN = 0.5;
+	private static final double NOT_EQUAL = 0.9;
+
+	private final List<Term<B>> terms = new ArrayList<>();
+
+	private record Term<B>(Predicate<B> predicate, double selectivity) {
+	}
+
+	protected BeanQuery() {
+	}
+
+	/** Does nothing but make the conditions read as a sentence. */
+	public Q and() {
+		return self();
+	}
+
+	/** Adds a condition of a custom predicate, estimated to let the given fraction of beans through. */
+	public Q matching(Predicate<B> predicate, double selectivity) {
+		terms.add(new Term<>(Objects.requireNonNull(predicate), selectivity));
+		return self();
+	}
+
+	/** Compiles the conditions added so far into a predicate testing them in order of selectivity. */
+	@SuppressWarnings("unchecked")
+	public Predicate<B> toPredicate() {
+
+		final Predicate<B>[] predicates = terms.stream()
+				.sorted(Comparator.comparingDouble(Term::selectivity))
+				.map(Term::predicate)
+				.toArray(Predicate[]::new);
+
+		return switch (predicates.length) {
+			case 0 -> bean -> true;
+			case 1 -> predicates[0];
+			case 2 -> {
+				final Predicate<B> first = predicates[0];
+				final Predicate<B> second = predicates[1];
+				yield bean -> first.test(bean) && second.test(bean);
+			}
+			default -> bean -> {
+				for (Predicate<B> predicate : predicates) {
+					if (!predicate.test(bean)) {
+						return false;
+					}
+				}
+				return true;
+			};
+		};
+	}
+
+	/** Returns the beans matching the query, in their order. */
+	public List<B> filter(Iterable<? extends B> beans) {
+		final Predicate<B> predicate = toPredicate();
+		final List<B> matches = new ArrayList<>();
+		for (B bean : beans) {
+			if (predicate.test(bean)) {
+				matches.add(bean);
+			}
+		}
+		return matches;
+	}
+
+	public List<B> filter(B[] beans) {
+		return filter(Arrays.asList(beans));
+	}
+
+	public long count(Iterable<? extends B> beans) {
+		final Predicate<B> predicate = toPredicate();
+		long count = 0;
+		for (B bean : beans) {
+			if (predicate.test(bean)) {
+				count++;
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Returns the beans matching the query, in their order, testing them in the common fork-join pool. The beans are
+	 * split in halves until each task has no more than {@link #PARALLEL_THRESHOLD} of them.
+	 */
+	public List<B> filterParallel(List<? extends B> beans) {
+		return filterInParallel(beans.toArray());
+	}
+
+	public List<B> filterParallel(B[] beans) {
+		return filterInParallel(beans);
+	}
+
+	@SuppressWarnings("unchecked")
+	private List<B> filterInParallel(Object[] beans) {
+
+		final boolean[] matched = new boolean[beans.length];
+		final FilterTask<B> task = new FilterTask<>(beans, toPredicate(), matched, 0, beans.length);
+		if (beans.length <= PARALLEL_THRESHOLD) {
+			task.compute();
+		} else {
+			ForkJoinPool.commonPool().invoke(task);
+		}
+
+		final List<B> matches = new ArrayList<>();
+		for (int i = 0; i < beans.length; i++) {
+			if (matched[i]) {
+				matches.add((B) beans[i]);
+			}
+		}
+		return matches;
+	}
+
+	protected IntProperty<B, Q> intProperty(ToIntFunction<B> getter) {
+		return new IntProperty<>(this, getter);
+	}
+
+	protected LongProperty<B, Q> longProperty(ToLongFunction<B> getter) {
+		return new LongProperty<>(this, getter);
+	}
+
+	protected DoubleProperty<B, Q> doubleProperty(ToDoubleFunction<B> getter) {
+		return new DoubleProperty<>(this, getter);
+	}
+
+	protected BooleanProperty<B, Q> booleanProperty(Predicate<B> getter) {
+		return new BooleanProperty<>(this, getter);
+	}
+
+	protected <V> ObjectProperty<B, V, Q> objectProperty(Function<B, V> getter) {
+		return new ObjectProperty<>(this, getter);
+	}
+
+	protected <V extends Comparable<? super V>> ComparableProperty<B, V, Q> comparableProperty(Function<B, V> getter) {
+		return new ComparableProperty<>(this, getter);
+	}
+
+	@SuppressWarnings("unchecked")
+	private Q self() {
+		return (Q) this;
+	}
+
+	/** Conditions on a {@code byte}, {@code short}, {@code char} or {@code int} property. */
+	public static final class IntProperty<B, Q extends BeanQuery<B, Q>> {
+
+		private final BeanQuery<B, Q> query;
+		private final ToIntFunction<B> getter;
+
+		IntProperty(BeanQuery<B, Q> query, ToIntFunction<B> getter) {
+			this.query = query;
+			this.getter = getter;
+		}
+
+		public Q eq(int value) {
+			return query.matching(bean -> getter.applyAsInt(bean) == value, EQUAL);
+		}
+
+		public Q ne(int value) {
+			return query.matching(bean -> getter.applyAsInt(bean) != value, NOT_EQUAL);
+		}
+
+		public Q lt(int value) {
+			return query.matching(bean -> getter.applyAsInt(bean) < value, RANGE);
+		}
+
+		public Q le(int value) {
+			return query.matching(bean -> getter.applyAsInt(bean) <= value, RANGE);
+		}
+
+		public Q gt(int value) {
+			return query.matching(bean -> getter.applyAsInt(bean) > value, RANGE);
+		}
+
+		public Q ge(int value) {
+			return query.matching(bean -> getter.applyAsInt(bean) >= value, RANGE);
+		}
+
+		/** Matches values from {@code min} to {@code max}, both included. */
+		public Q between(int min, int max) {
+			return query.matching(bean -> {
+				final int value = getter.applyAsInt(bean);
+				return value >= min && value <= max;
+			}, BETWEEN);
+		}
+
+		public Q in(int... values) {
+			final int[] sorted = values.clone();
+			Arrays.sort(sorted);
+			return query.matching(bean -> Arrays.binarySearch(sorted, getter.applyAsInt(bean)) >= 0,
+					Math.min(EQUAL * sorted.length, NOT_EQUAL));
+		}
+	}
+
+	/** Conditions on a {@code long} property. */
+	public static final class LongProperty<B, Q extends BeanQuery<B, Q>> {
+
+		private final BeanQuery<B, Q> query;
+		private final ToLongFunction<B> getter;
+
+		LongProperty(BeanQuery<B, Q> query, ToLongFunction<B> getter) {
+			this.query = query;
+			this.getter = getter;
+		}
+
+		public Q eq(long value) {
+			return query.matching(bean -> getter.applyAsLong(bean) == value, EQUAL);
+		}
+
+		public Q ne(long value) {
+			return query.matching(bean -> getter.applyAsLong(bean) != value, NOT_EQUAL);
+		}
+
+		public Q lt(long value) {
+			return query.matching(bean -> getter.applyAsLong(bean) < value, RANGE);
+		}
+
+		public Q le(long value) {
+			return query.matching(bean -> getter.applyAsLong(bean) <= value, RANGE);
+		}
+
+		public Q gt(long value) {
+			return query.matching(bean -> getter.applyAsLong(bean) > value, RANGE);
+		}
+
+		public Q ge(long value) {
+			return query.matching(bean -> getter.applyAsLong(bean) >= value, RANGE);
+		}
+
+		/** Matches values from {@code min} to {@code max}, both included. */
+		public Q between(long min, long max) {
+			return query.matching(bean -> {
+				final long value = getter.applyAsLong(bean);
+				return value >= min && value <= max;
+			}, BETWEEN);
+		}
+
+		public Q in(long... values) {
+			final long[] sorted = values.clone();
+			Arrays.sort(sorted);
+			return query.matching(bean -> Arrays.binarySearch(sorted, getter.applyAsLong(bean)) >= 0,
+					Math.min(EQUAL * sorted.length, NOT_EQUAL));
+		}
+	}
+
+	/**
+	 * Conditions on a {@code float} or {@code double} property. They compare values with the operators of
+	 * {@code double}, so NaN matches nothing but {@link #ne}.
+	 */
+	public static final class DoubleProperty<B, Q extends BeanQuery<B, Q>> {
+
+		private final BeanQuery<B, Q> query;
+		private final ToDoubleFunction<B> getter;
+
+		DoubleProperty(BeanQuery<B, Q> query, ToDoubleFunction<B> getter) {
+			this.query = query;
+			this.getter = getter;
+		}
+
+		public Q eq(double value) {
+			return query.matching(bean -> getter.applyAsDouble(bean) == value, EQUAL);
+		}
+
+		public Q ne(double value) {
+			return query.matching(bean -> getter.applyAsDouble(bean) != value, NOT_EQUAL);
+		}
+
+		public Q lt(double value) {
+			return query.matching(bean -> getter.applyAsDouble(bean) < value, RANGE);
+		}
+
+		public Q le(double value) {
+			return query.matching(bean -> getter.applyAsDouble(bean) <= value, RANGE);
+		}
+
+		public Q gt(double value) {
+			return query.matching(bean -> getter.applyAsDouble(bean) > value, RANGE);
+		}
+
+		public Q ge(double value) {
+			return query.matching(bean -> getter.applyAsDouble(bean) >= value, RANGE);
+		}
+
+		/** Matches values from {@code min} to {@code max}, both included. */
+		public Q between(double min, double max) {
+			return query.matching(bean -> {
+				final double value = getter.applyAsDouble(bean);
+				return value >= min && value <= max;
+			}, BETWEEN);
+		}
+	}
+
+	/** Conditions on a {@code boolean} property. */
+	public static final class BooleanProperty<B, Q extends BeanQuery<B, Q>> {
+
+		private final BeanQuery<B, Q> query;
+		private final Predicate<B> getter;
+
+		BooleanProperty(BeanQuery<B, Q> query, Predicate<B> getter) {
+			this.query = query;
+			this.getter = getter;
+		}
+
+		public Q eq(boolean value) {
+			return value ? isTrue() : isFalse();
+		}
+
+		public Q isTrue() {
+			return query.matching(getter, BOOLEAN);
+		}
+
+		public Q isFalse() {
+			return query.matching(getter.negate(), BOOLEAN);
+		}
+	}
+
+	/**
+	 * Conditions on a property of a reference type. Values are compared with {@link Objects#deepEquals}, so array
+	 * properties are compared by their elements, except by {@link #in}, which uses their {@code equals}.
+	 */
+	public static class ObjectProperty<B, V, Q extends BeanQuery<B, Q>> {
+
+		final BeanQuery<B, Q> query;
+		final Function<B, V> getter;
+
+		ObjectProperty(BeanQuery<B, Q> query, Function<B, V> getter) {
+			this.query = query;
+			this.getter = getter;
+		}
+
+		public Q eq(V value) {
+			return value == null
+					? isNull()
+					: query.matching(bean -> Objects.deepEquals(value, getter.apply(bean)), EQUAL);
+		}
+
+		public Q ne(V value) {
+			return value == null
+					? isNotNull()
+					: query.matching(bean -> !Objects.deepEquals(value, getter.apply(bean)), NOT_EQUAL);
+		}
+
+		public Q isNull() {
+			return query.matching(bean -> getter.apply(bean) == null, EQUAL);
+		}
+
+		public Q isNotNull() {
+			return query.matching(bean -> getter.apply(bean) != null, NOT_EQUAL);
+		}
+
+		@SafeVarargs
+		public final Q in(V... values) {
+			final Set<V> set = new HashSet<>();
+			for (V value : values) {
+				set.add(value);
+			}
+			return query.matching(bean -> set.contains(getter.apply(bean)), Math.min(EQUAL * set.size(), NOT_EQUAL));
+		}
+	}
+
+	/** Conditions on a property of a comparable type. Null values match none of the ranges. */
+	public static final class ComparableProperty<B, V extends Comparable<? super V>, Q extends BeanQuery<B, Q>>
+			extends ObjectProperty<B, V, Q> {
+
+		ComparableProperty(BeanQuery<B, Q> query, Function<B, V> getter) {
+			super(query, getter);
+		}
+
+		public Q lt(V value) {
+			Objects.requireNonNull(value);
+			return query.matching(bean -> {
+				final V propertyValue = getter.apply(bean);
+				return propertyValue != null && propertyValue.compareTo(value) < 0;
+			}, RANGE);
+		}
+
+		public Q le(V value) {
+			Objects.requireNonNull(value);
+			return query.matching(bean -> {
+				final V propertyValue = getter.apply(bean);
+				return propertyValue != null && propertyValue.compareTo(value) <= 0;
+			}, RANGE);
+		}
+
+		public Q gt(V value) {
+			Objects.requireNonNull(value);
+			return query.matching(bean -> {
+				final V propertyValue = getter.apply(bean);
+				return propertyValue != null && propertyValue.compareTo(value) > 0;
+			}, RANGE);
+		}
+
+		public Q ge(V value) {
+			Objects.requireNonNull(value);
+			return query.matching(bean -> {
+				final V propertyValue = getter.apply(bean);
+				return propertyValue != null && propertyValue.compareTo(value) >= 0;
+			}, RANGE);
+		}
+
+		/** Matches values from {@code min} to {@code max}, both included. */
+		public Q between(V min, V max) {
+			Objects.requireNonNull(min);
+			Objects.requireNonNull(max);
+			return query.matching(bean -> {
+				final V value = getter.apply(bean);
+				return value != null && value.compareTo(min) >= 0 && value.compareTo(max) <= 0;
+			}, BETWEEN);
+		}
+	}
+
+	private static final class FilterTask<B> extends RecursiveAction {
+
+		private static final long serialVersionUID = 1L;
+
+		private final Object[] beans;
+		private final Predicate<B> predicate;
+		private final boolean[] matched;
+		private final int from;
+		private final int to;
+
+		FilterTask(Object[] beans, Predicate<B> predicate, boolean[] matched, int from, int to) {
+			this.beans = beans;
+			this.predicate = predicate;
+			this.matched = matched;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		@SuppressWarnings("unchecked")
+		protected void compute() {
+			if (to - from > PARALLEL_THRESHOLD) {
+				final int middle = (from + to) >>> 1;
+				invokeAll(new FilterTask<>(beans, predicate, matched, from, middle),
+						new FilterTask<>(beans, predicate, matched, middle, to));
+				return;
+			}
+			for (int i = from; i < to; i++) {
+				matched[i] = predicate.test((B) beans[i]);
+			}
+		}
+	}
+}
@@ -0,0 +1,42 @@
+package au.id.villar.utils.beangen.runtime;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Writes beans as compact binary records and reads them back. Implemented by the {@code <Bean>BinaryCodec}
+ * companions the processor generates for beans with {@code binaryCodec = true}; each one has a single
+ * {@code INSTANCE}, and a {@code read<Property>(ByteBuffer, int)} method per property that reads that property
+ * alone from a record, without decoding the rest of it.
+ * <p>
+ * The layout of the records is described in {@link BinaryFormat}. Records start with the
+ * {@link #schemaHash() schema hash} of the bean, and reading one written with a different hash fails with a
+ * {@link BinaryCodecException}.
+ * @param <B> type of the bean
+ */
+public interface BinaryCodec<B> {
+
+	/** Hash of the names and types of the bean's properties, in order. */
+	int schemaHash();
+
+	/** Exact number of bytes {@link #write(Object, ByteBuffer) write} takes for the bean. */
+	int sizeOf(B bean);
+
+	/**
+	 * Writes the bean at the buffer's position, moving it past the record.
+	 * @throws java.nio.BufferOverflowException if the buffer has less than {@link #sizeOf(Object)} bytes remaining
+	 */
+	void write(B bean, ByteBuffer buffer);
+
+	/** Reads the bean at the buffer's position, moving it past the record. */
+	B read(ByteBuffer buffer);
+
+	default byte[] toBytes(B bean) {
+		final ByteBuffer buffer = ByteBuffer.allocate(sizeOf(bean));
+		write(bean, buffer);
+		return buffer.array();
+	}
+
+	default B fromBytes(byte[] bytes) {
+		return read(ByteBuffer.wrap(bytes));
+	}
+}
@@ -0,0 +1,11 @@
+package au.id.villar.utils.beangen.runtime;
+
+/** Thrown by generated binary codecs when a record was written with another schema or can't be decoded. */
+public class BinaryCodecException extends RuntimeException {
+
+	private static final long serialVersionUID = 1L;
+
+	public BinaryCodecException(String message) {
+		super(message);
+	}
+}
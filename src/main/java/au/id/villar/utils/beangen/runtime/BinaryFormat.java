@@ -0,0 +1,687 @@
+package au.id.villar.utils.beangen.runtime;
+
+import java.lang.reflect.Array;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.IntFunction;
+
+/**
+ * Encoding of the records written by generated {@link BinaryCodec}s, and the helpers their code calls. A record is:
+ * <ol>
+ *     <li>the schema hash of the bean, as an {@code int};</li>
+ *     <li>the length of the whole record in bytes, as an {@code int};</li>
+ *     <li>a null bitmap with a bit per property, in declaration order, set when the property is null;</li>
+ *     <li>a fixed-width slot per property: primitives and their wrappers take their natural width, booleans a byte,
+ *     and any other value the {@code int} offset, from the start of the record, where its bytes start;</li>
+ *     <li>the bytes of the values that aren't of fixed width.</li>
+ * </ol>
+ * Strings are written as a varint with their UTF-8 length and their UTF-8 bytes; big integers as a varint length and
+ * their two's-complement bytes; big decimals as a zigzag varint scale and their unscaled value; primitive arrays as a
+ * varint length and their fixed-width elements; and lists, collections and object arrays as a varint length and
+ * their elements as tagged values, a byte with their type followed by their bytes. Numbers are big-endian, so
+ * buffers must have the default {@link ByteOrder#BIG_ENDIAN} order.
+ * <p>
+ * Values are read with absolute offsets, without moving the buffer's position, so a property can be read from a
+ * record without decoding anything else.
+ */
+public final class BinaryFormat {
+
+	/** Bytes taken by the schema hash and the record length at the start of each record. */
+	public static final int HEADER_SIZE = 8;
+
+	private static final byte NULL = 0;
+	private static final byte FALSE = 1;
+	private static final byte TRUE = 2;
+	private static final byte BYTE = 3;
+	private static final byte SHORT = 4;
+	private static final byte CHAR = 5;
+	private static final byte INT = 6;
+	private static final byte LONG = 7;
+	private static final byte FLOAT = 8;
+	private static final byte DOUBLE = 9;
+	private static final byte STRING = 10;
+	private static final byte BIG_INTEGER = 11;
+	private static final byte BIG_DECIMAL = 12;
+	private static final byte LIST = 13;
+
+	private BinaryFormat() {
+	}
+
+	/**
+	 * Starts a record at the buffer's position, clearing its header, null bitmap and slots, and moves the position
+	 * past them.
+	 * @param fixedSize size of the header, the null bitmap and the slots of the record
+	 * @return the position where the record starts
+	 */
+	public static int begin(ByteBuffer buffer, int fixedSize) {
+		checkOrder(buffer);
+		final int start = buffer.position();
+		if (buffer.remaining() < fixedSize) {
+			throw new BufferOverflowException();
+		}
+		for (int i = 0; i < fixedSize; i++) {
+			buffer.put(start + i, (byte) 0);
+		}
+		buffer.position(start + fixedSize);
+		return start;
+	}
+
+	/** Ends the record started at {@code start}, writing its header. */
+	public static void end(ByteBuffer buffer, int start, int schemaHash) {
+		buffer.putInt(start, schemaHash);
+		buffer.putInt(start + 4, buffer.position() - start);
+	}
+
+	/**
+	 * Checks the record at {@code offset} was written with the given schema.
+	 * @return the length of the record
+	 * @throws BinaryCodecException if it wasn't
+	 */
+	public static int checkSchema(ByteBuffer buffer, int offset, int schemaHash) {
+		checkOrder(buffer);
+		final int recordHash = buffer.getInt(offset);
+		if (recordHash != schemaHash) {
+			throw new BinaryCodecException("Record at offset " + offset + " has schema hash "
+					+ Integer.toHexString(recordHash) + " instead of " + Integer.toHexString(schemaHash));
+		}
+		return recordLength(buffer, offset);
+	}
+
+	/** Length of the record at {@code offset}, to skip it without decoding it. */
+	public static int recordLength(ByteBuffer buffer, int offset) {
+		return buffer.getInt(offset + 4);
+	}
+
+	public static void setNull(ByteBuffer buffer, int start, int property) {
+		final int index = start + HEADER_SIZE + (property >>> 3);
+		buffer.put(index, (byte) (buffer.get(index) | 1 << (property & 7)));
+	}
+
+	public static boolean isNull(ByteBuffer buffer, int offset, int property) {
+		return (buffer.get(offset + HEADER_SIZE + (property >>> 3)) & 1 << (property & 7)) != 0;
+	}
+
+	/** Writes the offset of the value about to be written, relative to the record, into its slot. */
+	public static void putOffset(ByteBuffer buffer, int start, int slot) {
+		buffer.putInt(start + slot, buffer.position() - start);
+	}
+
+	/** Absolute position of the value whose offset is in the given slot of the record at {@code offset}. */
+	public static int valueAt(ByteBuffer buffer, int offset, int slot) {
+		return offset + buffer.getInt(offset + slot);
+	}
+
+	/* Varints */
+
+	public static int sizeOfVarInt(int value) {
+		return value >>> 7 == 0 ? 1 : value >>> 14 == 0 ? 2 : value >>> 21 == 0 ? 3 : value >>> 28 == 0 ? 4 : 5;
+	}
+
+	public static void writeVarInt(ByteBuffer buffer, int value) {
+		while (value >>> 7 != 0) {
+			buffer.put((byte) (value & 0x7F | 0x80));
+			value >>>= 7;
+		}
+		buffer.put((byte) value);
+	}
+
+	public static int readVarInt(ByteBuffer buffer, int index) {
+		int value = 0;
+		for (int shift = 0; shift < 35; shift += 7) {
+			final byte b = buffer.get(index++);
+			value |= (b & 0x7F) << shift;
+			if (b >= 0) {
+				return value;
+			}
+		}
+		throw new BinaryCodecException("Malformed varint at offset " + (index - 5));
+	}
+
+	private static int sizeOfVarLong(long value) {
+		int size = 1;
+		while (value >>> 7 != 0) {
+			value >>>= 7;
+			size++;
+		}
+		return size;
+	}
+
+	private static void writeVarLong(ByteBuffer buffer, long value) {
+		while (value >>> 7 != 0) {
+			buffer.put((byte) (value & 0x7F | 0x80));
+			value >>>= 7;
+		}
+		buffer.put((byte) value);
+	}
+
+	private static long readVarLong(ByteBuffer buffer, int index) {
+		long value = 0;
+		for (int shift = 0; shift < 70; shift += 7) {
+			final byte b = buffer.get(index++);
+			value |= (long) (b & 0x7F) << shift;
+			if (b >= 0) {
+				return value;
+			}
+		}
+		throw new BinaryCodecException("Malformed varint at offset " + (index - 10));
+	}
+
+	private static int zigzag(int value) {
+		return value << 1 ^ value >> 31;
+	}
+
+	private static long zigzag(long value) {
+		return value << 1 ^ value >> 63;
+	}
+
+	private static int unzigzag(int value) {
+		return value >>> 1 ^ -(value & 1);
+	}
+
+	private static long unzigzag(long value) {
+		return value >>> 1 ^ -(value & 1);
+	}
+
+	/* Strings */
+
+	public static int sizeOf(String value) {
+		if (value == null) {
+			return 0;
+		}
+		final int length = utf8Length(value);
+		return sizeOfVarInt(length) + length;
+	}
+
+	/** Writes the string as UTF-8, replacing unpaired surrogates with {@code '?'} as {@link String#getBytes} does. */
+	public static void write(ByteBuffer buffer, String value) {
+		writeVarInt(buffer, utf8Length(value));
+		for (int i = 0; i < value.length(); i++) {
+			final char c = value.charAt(i);
+			if (c < 0x80) {
+				buffer.put((byte) c);
+			} else if (c < 0x800) {
+				buffer.put((byte) (0xC0 | c >> 6)).put((byte) (0x80 | c & 0x3F));
+			} else if (Character.isSurrogate(c)) {
+				if (Character.isHighSurrogate(c) && i + 1 < value.length()
+						&& Character.isLowSurrogate(value.charAt(i + 1))) {
+					final int codePoint = Character.toCodePoint(c, value.charAt(++i));
+					buffer.put((byte) (0xF0 | codePoint >> 18)).put((byte) (0x80 | codePoint >> 12 & 0x3F))
+							.put((byte) (0x80 | codePoint >> 6 & 0x3F)).put((byte) (0x80 | codePoint & 0x3F));
+				} else {
+					buffer.put((byte) '?');
+				}
+			} else {
+				buffer.put((byte) (0xE0 | c >> 12)).put((byte) (0x80 | c >> 6 & 0x3F)).put((byte) (0x80 | c & 0x3F));
+			}
+		}
+	}
+
+	public static String readString(ByteBuffer buffer, int index) {
+		final int length = readVarInt(buffer, index);
+		final int start = index + sizeOfVarInt(length);
+		if (buffer.hasArray()) {
+			return new String(buffer.array(), buffer.arrayOffset() + start, length, StandardCharsets.UTF_8);
+		}
+		final byte[] bytes = new byte[length];
+		buffer.get(start, bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	private static int utf8Length(String value) {
+		int length = value.length();
+		for (int i = 0; i < value.length(); i++) {
+			final char c = value.charAt(i);
+			if (c >= 0x800) {
+				// Paired surrogates take 4 bytes between the two of them, unpaired ones are replaced by a single byte
+				if (!Character.isSurrogate(c)) {
+					length += 2;
+				} else if (Character.isHighSurrogate(c) && i + 1 < value.length()
+						&& Character.isLowSurrogate(value.charAt(i + 1))) {
+					length += 2;
+					i++;
+				}
+			} else if (c >= 0x80) {
+				length++;
+			}
+		}
+		return length;
+	}
+
+	/* Big numbers */
+
+	public static int sizeOf(BigInteger value) {
+		if (value == null) {
+			return 0;
+		}
+		final int length = value.bitLength() / 8 + 1;
+		return sizeOfVarInt(length) + length;
+	}
+
+	public static void write(ByteBuffer buffer, BigInteger value) {
+		final byte[] bytes = value.toByteArray();
+		writeVarInt(buffer, bytes.length);
+		buffer.put(bytes);
+	}
+
+	public static BigInteger readBigInteger(ByteBuffer buffer, int index) {
+		final int length = readVarInt(buffer, index);
+		final int start = index + sizeOfVarInt(length);
+		if (buffer.hasArray()) {
+			return new BigInteger(buffer.array(), buffer.arrayOffset() + start, length);
+		}
+		final byte[] bytes = new byte[length];
+		buffer.get(start, bytes);
+		return new BigInteger(bytes);
+	}
+
+	public static int sizeOf(BigDecimal value) {
+		return value != null ? sizeOfVarInt(zigzag(value.scale())) + sizeOf(value.unscaledValue()) : 0;
+	}
+
+	public static void write(ByteBuffer buffer, BigDecimal value) {
+		writeVarInt(buffer, zigzag(value.scale()));
+		write(buffer, value.unscaledValue());
+	}
+
+	public static BigDecimal readBigDecimal(ByteBuffer buffer, int index) {
+		final int zigzagScale = readVarInt(buffer, index);
+		return new BigDecimal(readBigInteger(buffer, index + sizeOfVarInt(zigzagScale)), unzigzag(zigzagScale));
+	}
+
+	/* Primitive arrays */
+
+	public static int sizeOf(boolean[] values) {
+		return values != null ? sizeOfVarInt(values.length) + values.length : 0;
+	}
+
+	public static int sizeOf(byte[] values) {
+		return values != null ? sizeOfVarInt(values.length) + values.length : 0;
+	}
+
+	public static int sizeOf(short[] values) {
+		return values != null ? sizeOfVarInt(values.length) + values.length * Short.BYTES : 0;
+	}
+
+	public static int sizeOf(char[] values) {
+		return values != null ? sizeOfVarInt(values.length) + values.length * Character.BYTES : 0;
+	}
+
+	public static int sizeOf(int[] values) {
+		return values != null ? sizeOfVarInt(values.length) + values.length * Integer.BYTES : 0;
+	}
+
+	public static int sizeOf(long[] values) {
+		return values != null ? sizeOfVarInt(values.length) + values.length * Long.BYTES : 0;
+	}
+
+	public static int sizeOf(float[] values) {
+		return values != null ? sizeOfVarInt(values.length) + values.length * Float.BYTES : 0;
+	}
+
+	public static int sizeOf(double[] values) {
+		return values != null ? sizeOfVarInt(values.length) + values.length * Double.BYTES : 0;
+	}
+
+	public static void write(ByteBuffer buffer, boolean[] values) {
+		writeVarInt(buffer, values.length);
+		for (boolean value : values) {
+			buffer.put(value ? (byte) 1 : (byte) 0);
+		}
+	}
+
+	public static void write(ByteBuffer buffer, byte[] values) {
+		writeVarInt(buffer, values.length);
+		buffer.put(values);
+	}
+
+	public static void write(ByteBuffer buffer, short[] values) {
+		writeVarInt(buffer, values.length);
+		for (short value : values) {
+			buffer.putShort(value);
+		}
+	}
+
+	public static void write(ByteBuffer buffer, char[] values) {
+		writeVarInt(buffer, values.length);
+		for (char value : values) {
+			buffer.putChar(value);
+		}
+	}
+
+	public static void write(ByteBuffer buffer, int[] values) {
+		writeVarInt(buffer, values.length);
+		for (int value : values) {
+			buffer.putInt(value);
+		}
+	}
+
+	public static void write(ByteBuffer buffer, long[] values) {
+		writeVarInt(buffer, values.length);
+		for (long value : values) {
+			buffer.putLong(value);
+		}
+	}
+
+	public static void write(ByteBuffer buffer, float[] values) {
+		writeVarInt(buffer, values.length);
+		for (float value : values) {
+			buffer.putFloat(value);
+		}
+	}
+
+	public static void write(ByteBuffer buffer, double[] values) {
+		writeVarInt(buffer, values.length);
+		for (double value : values) {
+			buffer.putDouble(value);
+		}
+	}
+
+	public static boolean[] readBooleanArray(ByteBuffer buffer, int index) {
+		final boolean[] values = new boolean[readVarInt(buffer, index)];
+		index += sizeOfVarInt(values.length);
+		for (int i = 0; i < values.length; i++) {
+			values[i] = buffer.get(index + i) != 0;
+		}
+		return values;
+	}
+
+	public static byte[] readByteArray(ByteBuffer buffer, int index) {
+		final byte[] values = new byte[readVarInt(buffer, index)];
+		buffer.get(index + sizeOfVarInt(values.length), values);
+		return values;
+	}
+
+	public static short[] readShortArray(ByteBuffer buffer, int index) {
+		final short[] values = new short[readVarInt(buffer, index)];
+		index += sizeOfVarInt(values.length);
+		for (int i = 0; i < values.length; i++) {
+			values[i] = buffer.getShort(index + i * Short.BYTES);
+		}
+		return values;
+	}
+
+	public static char[] readCharArray(ByteBuffer buffer, int index) {
+		final char[] values = new char[readVarInt(buffer, index)];
+		index += sizeOfVarInt(values.length);
+		for (int i = 0; i < values.length; i++) {
+			values[i] = buffer.getChar(index + i * Character.BYTES);
+		}
+		return values;
+	}
+
+	public static int[] readIntArray(ByteBuffer buffer, int index) {
+		final int[] values = new int[readVarInt(buffer, index)];
+		index += sizeOfVarInt(values.length);
+		for (int i = 0; i < values.length; i++) {
+			values[i] = buffer.getInt(index + i * Integer.BYTES);
+		}
+		return values;
+	}
+
+	public static long[] readLongArray(ByteBuffer buffer, int index) {
+		final long[] values = new long[readVarInt(buffer, index)];
+		index += sizeOfVarInt(values.length);
+		for (int i = 0; i < values.length; i++) {
+			values[i] = buffer.getLong(index + i * Long.BYTES);
+		}
+		return values;
+	}
+
+	public static float[] readFloatArray(ByteBuffer buffer, int index) {
+		final float[] values = new float[readVarInt(buffer, index)];
+		index += sizeOfVarInt(values.length);
+		for (int i = 0; i < values.length; i++) {
+			values[i] = buffer.getFloat(index + i * Float.BYTES);
+		}
+		return values;
+	}
+
+	public static double[] readDoubleArray(ByteBuffer buffer, int index) {
+		final double[] values = new double[readVarInt(buffer, index)];
+		index += sizeOfVarInt(values.length);
+		for (int i = 0; i < values.length; i++) {
+			values[i] = buffer.getDouble(index + i * Double.BYTES);
+		}
+		return values;
+	}
+
+	/* Lists and object arrays, as tagged values */
+
+	public static int sizeOf(Collection<?> values) {
+		if (values == null) {
+			return 0;
+		}
+		int size = sizeOfVarInt(values.size());
+		for (Object value : values) {
+			size += sizeOfValue(value);
+		}
+		return size;
+	}
+
+	public static int sizeOf(Object[] values) {
+		if (values == null) {
+			return 0;
+		}
+		int size = sizeOfVarInt(values.length);
+		for (Object value : values) {
+			size += sizeOfValue(value);
+		}
+		return size;
+	}
+
+	public static void write(ByteBuffer buffer, Collection<?> values) {
+		writeVarInt(buffer, values.size());
+		for (Object value : values) {
+			writeValue(buffer, value);
+		}
+	}
+
+	public static void write(ByteBuffer buffer, Object[] values) {
+		writeVarInt(buffer, values.length);
+		for (Object value : values) {
+			writeValue(buffer, value);
+		}
+	}
+
+	/** Reads a list written from a collection or an array, typed as the caller expects its elements to be. */
+	@SuppressWarnings("unchecked")
+	public static <T> List<T> readList(ByteBuffer buffer, int index) {
+		final int size = readVarInt(buffer, index);
+		final List<Object> values = new ArrayList<>(size);
+		index += sizeOfVarInt(size);
+		for (int i = 0; i < size; i++) {
+			values.add(readValue(buffer, index));
+			index += sizeOfValueAt(buffer, index);
+		}
+		return (List<T>) values;
+	}
+
+	public static <T> T[] readArray(ByteBuffer buffer, int index, IntFunction<T[]> arrayFactory) {
+		final T[] values = arrayFactory.apply(readVarInt(buffer, index));
+		index += sizeOfVarInt(values.length);
+		for (int i = 0; i < values.length; i++) {
+			values[i] = readValue(buffer, index);
+			index += sizeOfValueAt(buffer, index);
+		}
+		return values;
+	}
+
+	/* Tagged values */
+
+	/**
+	 * Size of a tagged value whose type is only known at run time: booleans, numbers, characters, strings, enums (by
+	 * name), arrays, collections of those, and null.
+	 * @throws BinaryCodecException for values of any other type
+	 */
+	public static int sizeOfValue(Object value) {
+		if (value == null || value instanceof Boolean) {
+			return 1;
+		} else if (value instanceof String string) {
+			return 1 + sizeOf(string);
+		} else if (value instanceof Integer number) {
+			return 1 + sizeOfVarInt(zigzag(number.intValue()));
+		} else if (value instanceof Long number) {
+			return 1 + sizeOfVarLong(zigzag(number.longValue()));
+		} else if (value instanceof Double) {
+			return 1 + Double.BYTES;
+		} else if (value instanceof Float) {
+			return 1 + Float.BYTES;
+		} else if (value instanceof Byte) {
+			return 1 + Byte.BYTES;
+		} else if (value instanceof Short || value instanceof Character) {
+			return 1 + Short.BYTES;
+		} else if (value instanceof BigDecimal number) {
+			return 1 + sizeOf(number);
+		} else if (value instanceof BigInteger number) {
+			return 1 + sizeOf(number);
+		} else if (value instanceof Enum<?> constant) {
+			return 1 + sizeOf(constant.name());
+		} else if (value instanceof Collection<?> collection) {
+			return 1 + sizeOf(collection);
+		} else if (value instanceof Object[] array) {
+			return 1 + sizeOf(array);
+		}
+		final List<?> list = primitiveArrayAsList(value);
+		if (list == null) {
+			throw new BinaryCodecException("Can't write values of " + value.getClass().getName());
+		}
+		return 1 + sizeOf(list);
+	}
+
+	/** Size of a property whose type is only known at run time: nothing if it's null, as nulls are in the bitmap. */
+	public static int sizeOfProperty(Object value) {
+		return value != null ? sizeOfValue(value) : 0;
+	}
+
+	/** Writes a tagged value, of any of the types {@link #sizeOfValue(Object)} accepts. */
+	public static void writeValue(ByteBuffer buffer, Object value) {
+		if (value == null) {
+			buffer.put(NULL);
+		} else if (value instanceof Boolean bool) {
+			buffer.put(bool ? TRUE : FALSE);
+		} else if (value instanceof String string) {
+			buffer.put(STRING);
+			write(buffer, string);
+		} else if (value instanceof Integer number) {
+			buffer.put(INT);
+			writeVarInt(buffer, zigzag(number.intValue()));
+		} else if (value instanceof Long number) {
+			buffer.put(LONG);
+			writeVarLong(buffer, zigzag(number.longValue()));
+		} else if (value instanceof Double number) {
+			buffer.put(DOUBLE).putDouble(number);
+		} else if (value instanceof Float number) {
+			buffer.put(FLOAT).putFloat(number);
+		} else if (value instanceof Byte number) {
+			buffer.put(BYTE).put(number);
+		} else if (value instanceof Short number) {
+			buffer.put(SHORT).putShort(number);
+		} else if (value instanceof Character character) {
+			buffer.put(CHAR).putChar(character);
+		} else if (value instanceof BigDecimal number) {
+			buffer.put(BIG_DECIMAL);
+			write(buffer, number);
+		} else if (value instanceof BigInteger number) {
+			buffer.put(BIG_INTEGER);
+			write(buffer, number);
+		} else if (value instanceof Enum<?> constant) {
+			buffer.put(STRING);
+			write(buffer, constant.name());
+		} else if (value instanceof Collection<?> collection) {
+			buffer.put(LIST);
+			write(buffer, collection);
+		} else if (value instanceof Object[] array) {
+			buffer.put(LIST);
+			write(buffer, array);
+		} else {
+			final List<?> list = primitiveArrayAsList(value);
+			if (list == null) {
+				throw new BinaryCodecException("Can't write values of " + value.getClass().getName());
+			}
+			buffer.put(LIST);
+			write(buffer, list);
+		}
+	}
+
+	/** Reads a tagged value; lists, collections and arrays are read as lists. */
+	@SuppressWarnings("unchecked")
+	public static <T> T readValue(ByteBuffer buffer, int index) {
+		final byte tag = buffer.get(index++);
+		return (T) switch (tag) {
+			case NULL -> null;
+			case FALSE -> Boolean.FALSE;
+			case TRUE -> Boolean.TRUE;
+			case BYTE -> buffer.get(index);
+			case SHORT -> buffer.getShort(index);
+			case CHAR -> buffer.getChar(index);
+			case INT -> unzigzag(readVarInt(buffer, index));
+			case LONG -> unzigzag(readVarLong(buffer, index));
+			case FLOAT -> buffer.getFloat(index);
+			case DOUBLE -> buffer.getDouble(index);
+			case STRING -> readString(buffer, index);
+			case BIG_INTEGER -> readBigInteger(buffer, index);
+			case BIG_DECIMAL -> readBigDecimal(buffer, index);
+			case LIST -> readList(buffer, index);
+			default -> throw new BinaryCodecException("Unknown value tag " + tag + " at offset " + (index - 1));
+		};
+	}
+
+	private static int sizeOfValueAt(ByteBuffer buffer, int index) {
+		final byte tag = buffer.get(index);
+		final int start = index + 1;
+		return 1 + switch (tag) {
+			case NULL, FALSE, TRUE -> 0;
+			case BYTE -> Byte.BYTES;
+			case SHORT, CHAR -> Short.BYTES;
+			case INT -> sizeOfVarInt(readVarInt(buffer, start));
+			case LONG -> sizeOfVarLong(readVarLong(buffer, start));
+			case FLOAT -> Float.BYTES;
+			case DOUBLE -> Double.BYTES;
+			case STRING, BIG_INTEGER -> sizeOfBytesAt(buffer, start);
+			case BIG_DECIMAL -> {
+				final int scaleSize = sizeOfVarInt(readVarInt(buffer, start));
+				yield scaleSize + sizeOfBytesAt(buffer, start + scaleSize);
+			}
+			case LIST -> {
+				final int size = readVarInt(buffer, start);
+				int end = start + sizeOfVarInt(size);
+				for (int i = 0; i < size; i++) {
+					end += sizeOfValueAt(buffer, end);
+				}
+				yield end - start;
+			}
+			default -> throw new BinaryCodecException("Unknown value tag " + tag + " at offset " + index);
+		};
+	}
+
+	/** Size of a varint length followed by that many bytes. */
+	private static int sizeOfBytesAt(ByteBuffer buffer, int index) {
+		final int length = readVarInt(buffer, index);
+		return sizeOfVarInt(length) + length;
+	}
+
+	/** Primitive arrays nested in other values are written as lists of their boxed elements. */
+	private static List<?> primitiveArrayAsList(Object value) {
+		if (!value.getClass().isArray()) {
+			return null;
+		}
+		final List<Object> list = new ArrayList<>(Array.getLength(value));
+		for (int i = 0; i < Array.getLength(value); i++) {
+			list.add(Array.get(value, i));
+		}
+		return list;
+	}
+
+	private static void checkOrder(ByteBuffer buffer) {
+		if (buffer.order() != ByteOrder.BIG_ENDIAN) {
+			throw new IllegalArgumentException("Binary records need big-endian buffers");
+		}
+	}
+}
@@ -0,0 +1,212 @@
+package au.id.villar.utils.beangen.runtime;
+
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+
+/**
+ * Writes and reads the values of the generated beans that implement {@link java.io.Externalizable}, for those values
+ * {@link ObjectOutput} has no method of its own for. Arrays of primitives are written as their length, or -1 if
+ * they're null, followed by their elements. Strings are written as their length, or -1 if they're null, followed by
+ * their chars in modified UTF-8, split in pieces short enough for {@link ObjectOutput#writeUTF}.
+ */
+public final class ExternalFormat {
+
+	/** Number of chars that fit in a {@link ObjectOutput#writeUTF} call, taking up to three bytes each. */
+	private static final int UTF_CHUNK = 65_535 / 3;
+
+	private ExternalFormat() {
+	}
+
+	public static void writeString(ObjectOutput out, String value) throws IOException {
+		if (value == null) {
+			out.writeInt(-1);
+			return;
+		}
+		out.writeInt(value.length());
+		if (value.length() <= UTF_CHUNK) {
+			out.writeUTF(value);
+			return;
+		}
+		for (int start = 0; start < value.length(); start += UTF_CHUNK) {
+			out.writeUTF(value.substring(start, Math.min(value.length(), start + UTF_CHUNK)));
+		}
+	}
+
+	public static String readString(ObjectInput in) throws IOException {
+		final int length = in.readInt();
+		if (length < 0) {
+			return null;
+		}
+		if (length <= UTF_CHUNK) {
+			return in.readUTF();
+		}
+		final StringBuilder value = new StringBuilder(length);
+		while (value.length() < length) {
+			value.append(in.readUTF());
+		}
+		return value.toString();
+	}
+
+	public static void writeBooleans(ObjectOutput out, boolean[] values) throws IOException {
+		if (writeLength(out, values == null ? -1 : values.length)) {
+			for (boolean value : values) {
+				out.writeBoolean(value);
+			}
+		}
+	}
+
+	public static boolean[] readBooleans(ObjectInput in) throws IOException {
+		final int length = in.readInt();
+		if (length < 0) {
+			return null;
+		}
+		final boolean[] values = new boolean[length];
+		for (int i = 0; i < length; i++) {
+			values[i] = in.readBoolean();
+		}
+		return values;
+	}
+
+	public static void writeBytes(ObjectOutput out, byte[] values) throws IOException {
+		if (writeLength(out, values == null ? -1 : values.length)) {
+			out.write(values);
+		}
+	}
+
+	public static byte[] readBytes(ObjectInput in) throws IOException {
+		final int length = in.readInt();
+		if (length < 0) {
+			return null;
+		}
+		final byte[] values = new byte[length];
+		in.readFully(values);
+		return values;
+	}
+
+	public static void writeShorts(ObjectOutput out, short[] values) throws IOException {
+		if (writeLength(out, values == null ? -1 : values.length)) {
+			for (short value : values) {
+				out.writeShort(value);
+			}
+		}
+	}
+
+	public static short[] readShorts(ObjectInput in) throws IOException {
+		final int length = in.readInt();
+		if (length < 0) {
+			return null;
+		}
+		final short[] values = new short[length];
+		for (int i = 0; i < length; i++) {
+			values[i] = in.readShort();
+		}
+		return values;
+	}
+
+	public static void writeChars(ObjectOutput out, char[] values) throws IOException {
+		if (writeLength(out, values == null ? -1 : values.length)) {
+			for (char value : values) {
+				out.writeChar(value);
+			}
+		}
+	}
+
+	public static char[] readChars(ObjectInput in) throws IOException {
+		final int length = in.readInt();
+		if (length < 0) {
+			return null;
+		}
+		final char[] values = new char[length];
+		for (int i = 0; i < length; i++) {
+			values[i] = in.readChar();
+		}
+		return values;
+	}
+
+	public static void writeInts(ObjectOutput out, int[] values) throws IOException {
+		if (writeLength(out, values == null ? -1 : values.length)) {
+			for (int value : values) {
+				out.writeInt(value);
+			}
+		}
+	}
+
+	public static int[] readInts(ObjectInput in) throws IOException {
+		final int length = in.readInt();
+		if (length < 0) {
+			return null;
+		}
+		final int[] values = new int[length];
+		for (int i = 0; i < length; i++) {
+			values[i] = in.readInt();
+		}
+		return values;
+	}
+
+	public static void writeLongs(ObjectOutput out, long[] values) throws IOException {
+		if (writeLength(out, values == null ? -1 : values.length)) {
+			for (long value : values) {
+				out.writeLong(value);
+			}
+		}
+	}
+
+	public static long[] readLongs(ObjectInput in) throws IOException {
+		final int length = in.readInt();
+		if (length < 0) {
+			return null;
+		}
+		final long[] values = new long[length];
+		for (int i = 0; i < length; i++) {
+			values[i] = in.readLong();
+		}
+		return values;
+	}
+
+	public static void writeFloats(ObjectOutput out, float[] values) throws IOException {
+		if (writeLength(out, values == null ? -1 : values.length)) {
+			for (float value : values) {
+				out.writeFloat(value);
+			}
+		}
+	}
+
+	public static float[] readFloats(ObjectInput in) throws IOException {
+		final int length = in.readInt();
+		if (length < 0) {
+			return null;
+		}
+		final float[] values = new float[length];
+		for (int i = 0; i < length; i++) {
+			values[i] = in.readFloat();
+		}
+		return values;
+	}
+
+	public static void writeDoubles(ObjectOutput out, double[] values) throws IOException {
+		if (writeLength(out, values == null ? -1 : values.length)) {
+			for (double value : values) {
+				out.writeDouble(value);
+			}
+		}
+	}
+
+	public static double[] readDoubles(ObjectInput in) throws IOException {
+		final int length = in.readInt();
+		if (length < 0) {
+			return null;
+		}
+		final double[] values = new double[length];
+		for (int i = 0; i < length; i++) {
+			values[i] = in.readDouble();
+		}
+		return values;
+	}
+
+	/** Writes the length of an array, returning whether there are elements to write after it. */
+	private static boolean writeLength(ObjectOutput out, int length) throws IOException {
+		out.writeInt(length);
+		return length > 0;
+	}
+}
@@ -0,0 +1,125 @@
+package au.id.villar.utils.beangen.runtime;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads beans from JDBC result sets and binds them to prepared statements without reflection. Implemented by the
+ * {@code <Bean>JdbcMapper} companions the processor generates for entities with {@code jdbcMapper = true}, which map
+ * the properties annotated with {@code @Column} or {@code @Id} to the columns of the entity's {@code @Table}.
+ * <p>
+ * Columns are found by label once per result set, when its {@link RowReader} is created, and read by index from then
+ * on. Columns missing from the result set leave their properties with their default values.
+ * @param <B> type of the bean
+ */
+public interface JdbcMapper<B> {
+
+	int DEFAULT_BATCH_SIZE = 500;
+
+	/** Reads the current row of a result set as a bean. */
+	@FunctionalInterface
+	interface RowReader<B> {
+		B read() throws SQLException;
+	}
+
+	/** Sets the parameters of a statement from a bean. */
+	@FunctionalInterface
+	interface Binder<B> {
+		void bind(PreparedStatement statement, B bean) throws SQLException;
+	}
+
+	String tableName();
+
+	/** Number of beans {@link #insertAll} and {@link #updateAll} send to the database in each batch. */
+	int batchSize();
+
+	/** {@code SELECT} statement reading every mapped column of the whole table. */
+	String selectSql();
+
+	/** {@code INSERT} statement with a parameter per insertable column, as bound by {@link #bindInsert}. */
+	String insertSql();
+
+	/**
+	 * {@code UPDATE} statement setting the updatable columns of the row with the bean's ids, as bound by
+	 * {@link #bindUpdate}.
+	 * @throws UnsupportedOperationException if the bean has no {@code @Id} property
+	 */
+	default String updateSql() {
+		throw new UnsupportedOperationException(tableName() + " has no @Id column to update by");
+	}
+
+	/** Returns a reader of the rows of the result set, resolving its columns' indexes. */
+	RowReader<B> reader(ResultSet resultSet) throws SQLException;
+
+	void bindInsert(PreparedStatement statement, B bean) throws SQLException;
+
+	/** @throws UnsupportedOperationException if the bean has no {@code @Id} property */
+	default void bindUpdate(PreparedStatement statement, B bean) throws SQLException {
+		throw new UnsupportedOperationException(tableName() + " has no @Id column to update by");
+	}
+
+	/** Reads the remaining rows of the result set. */
+	default List<B> readAll(ResultSet resultSet) throws SQLException {
+		final RowReader<B> reader = reader(resultSet);
+		final List<B> beans = new ArrayList<>();
+		while (resultSet.next()) {
+			beans.add(reader.read());
+		}
+		return beans;
+	}
+
+	/** Inserts the beans in batches of {@link #batchSize()}, returning the number of rows inserted. */
+	default long insertAll(Connection connection, Iterable<? extends B> beans) throws SQLException {
+		try (PreparedStatement statement = connection.prepareStatement(insertSql())) {
+			return executeInBatches(statement, beans, this::bindInsert);
+		}
+	}
+
+	/** Updates the beans in batches of {@link #batchSize()}, returning the number of rows updated. */
+	default long updateAll(Connection connection, Iterable<? extends B> beans) throws SQLException {
+		try (PreparedStatement statement = connection.prepareStatement(updateSql())) {
+			return executeInBatches(statement, beans, this::bindUpdate);
+		}
+	}
+
+	/**
+	 * Binds each bean and adds it to the statement's batch, executing the batch every {@link #batchSize()} beans and
+	 * once more at the end. Returns the sum of the update counts, where statements the driver reports as
+	 * {@link Statement#SUCCESS_NO_INFO} count as one row.
+	 */
+	default long executeInBatches(PreparedStatement statement, Iterable<? extends B> beans, Binder<? super B> binder)
+			throws SQLException {
+
+		final int batchSize = batchSize();
+		long rows = 0;
+		int pending = 0;
+
+		for (B bean : beans) {
+			binder.bind(statement, bean);
+			statement.addBatch();
+			if (++pending == batchSize) {
+				rows += countRows(statement.executeBatch());
+				pending = 0;
+			}
+		}
+
+		if (pending > 0) {
+			rows += countRows(statement.executeBatch());
+		}
+
+		return rows;
+	}
+
+	private static long countRows(int[] updateCounts) {
+		long rows = 0;
+		for (int count : updateCounts) {
+			rows += count == Statement.SUCCESS_NO_INFO ? 1 : Math.max(count, 0);
+		}
+		return rows;
+	}
+}
@@ -0,0 +1,47 @@
+package au.id.villar.utils.beangen.runtime;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+/** {@link JsonWriter} that appends JSON text to an {@link Appendable}. */
+final class JsonAppendableWriter extends JsonWriter {
+
+	private final Appendable out;
+
+	JsonAppendableWriter(Appendable out) {
+		this.out = out;
+	}
+
+	@Override
+	public JsonWriter raw(JsonFragment fragment) {
+		try {
+			out.append(fragment.text());
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		return this;
+	}
+
+	@Override
+	public JsonWriter raw(char character) {
+		try {
+			out.append(character);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		return this;
+	}
+
+	@Override
+	void codePoint(int codePoint) {
+		try {
+			if (Character.isBmpCodePoint(codePoint)) {
+				out.append((char) codePoint);
+			} else {
+				out.append(Character.highSurrogate(codePoint)).append(Character.lowSurrogate(codePoint));
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+}
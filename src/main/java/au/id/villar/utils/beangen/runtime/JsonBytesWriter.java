@@ -0,0 +1,144 @@
+package au.id.villar.utils.beangen.runtime;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * {@link JsonWriter} that encodes JSON as UTF-8 into a growable buffer. The buffer can be {@link #reset() reset} and
+ * reused, so a writer kept per thread writes beans without allocating once it has grown to the size they need.
+ */
+public final class JsonBytesWriter extends JsonWriter {
+
+	private byte[] buffer;
+	private int size;
+
+	JsonBytesWriter(int initialCapacity) {
+		this.buffer = new byte[initialCapacity];
+	}
+
+	@Override
+	public JsonBytesWriter raw(JsonFragment fragment) {
+		final byte[] bytes = fragment.bytes();
+		ensureCapacity(bytes.length);
+		System.arraycopy(bytes, 0, buffer, size, bytes.length);
+		size += bytes.length;
+		return this;
+	}
+
+	@Override
+	public JsonBytesWriter raw(char character) {
+		if (size == buffer.length) {
+			ensureCapacity(1);
+		}
+		buffer[size++] = (byte) character;
+		return this;
+	}
+
+	/** Writes the digits straight into the buffer, from the last one back. */
+	@Override
+	public JsonWriter value(long value) {
+		if (value == Long.MIN_VALUE) {
+			return ascii("-9223372036854775808");
+		}
+		ensureCapacity(20);
+		if (value < 0) {
+			buffer[size++] = '-';
+			value = -value;
+		}
+		int digits = 1;
+		for (long limit = 10; digits < 19 && value >= limit; limit *= 10) {
+			digits++;
+		}
+		int position = size + digits;
+		size = position;
+		do {
+			buffer[--position] = (byte) ('0' + value % 10);
+			value /= 10;
+		} while (value != 0);
+		return this;
+	}
+
+	/** Copies strings of plain ASCII straight into the buffer, falling back to escaping anything else. */
+	@Override
+	public JsonWriter value(String value) {
+		if (value == null) {
+			return nullValue();
+		}
+		final int length = value.length();
+		ensureCapacity(length + 2);
+		final int start = size;
+		buffer[size++] = '"';
+		for (int i = 0; i < length; i++) {
+			final char c = value.charAt(i);
+			if (c < 0x20 || c >= 0x80 || c == '"' || c == '\\') {
+				size = start;
+				return super.value(value);
+			}
+			buffer[size++] = (byte) c;
+		}
+		buffer[size++] = '"';
+		return this;
+	}
+
+	@Override
+	JsonWriter ascii(String text) {
+		final int length = text.length();
+		ensureCapacity(length);
+		for (int i = 0; i < length; i++) {
+			buffer[size++] = (byte) text.charAt(i);
+		}
+		return this;
+	}
+
+	@Override
+	void codePoint(int codePoint) {
+		ensureCapacity(4);
+		if (codePoint < 0x80) {
+			buffer[size++] = (byte) codePoint;
+		} else if (codePoint < 0x800) {
+			buffer[size++] = (byte) (0xC0 | codePoint >> 6);
+			buffer[size++] = (byte) (0x80 | codePoint & 0x3F);
+		} else if (codePoint < 0x10000) {
+			buffer[size++] = (byte) (0xE0 | codePoint >> 12);
+			buffer[size++] = (byte) (0x80 | codePoint >> 6 & 0x3F);
+			buffer[size++] = (byte) (0x80 | codePoint & 0x3F);
+		} else {
+			buffer[size++] = (byte) (0xF0 | codePoint >> 18);
+			buffer[size++] = (byte) (0x80 | codePoint >> 12 & 0x3F);
+			buffer[size++] = (byte) (0x80 | codePoint >> 6 & 0x3F);
+			buffer[size++] = (byte) (0x80 | codePoint & 0x3F);
+		}
+	}
+
+	/** Number of bytes written since the writer was created or last reset. */
+	public int size() {
+		return size;
+	}
+
+	/** Discards what was written, keeping the buffer for the next writes. */
+	public JsonBytesWriter reset() {
+		size = 0;
+		return this;
+	}
+
+	public byte[] toByteArray() {
+		return Arrays.copyOf(buffer, size);
+	}
+
+	/** Copies what was written to the buffer, which must have room for it. */
+	public void writeTo(ByteBuffer target) {
+		target.put(buffer, 0, size);
+	}
+
+	public void writeTo(OutputStream out) throws IOException {
+		out.write(buffer, 0, size);
+	}
+
+	private void ensureCapacity(int extra) {
+		if (size + extra > buffer.length) {
+			buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, size + extra));
+		}
+	}
+}
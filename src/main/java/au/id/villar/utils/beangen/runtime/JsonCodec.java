@@ -0,0 +1,49 @@
+package au.id.villar.utils.beangen.runtime;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Writes beans as JSON objects and reads them back, without reflection or intermediate trees. Implemented by the
+ * {@code <Bean>JsonCodec} companions the processor generates for beans with {@code jsonCodec = true}; each one has
+ * a single {@code INSTANCE}. Beans are written with every property they have a getter for, nulls included, and
+ * read ignoring unknown properties.
+ * @param <B> type of the bean
+ */
+public interface JsonCodec<B> {
+
+	/** Writes the bean, or {@code null} if it's null. */
+	void write(B bean, JsonWriter out);
+
+	/** Reads a bean, or null if the next value is {@code null}. */
+	B read(JsonReader in);
+
+	default String toJson(B bean) {
+		final StringBuilder json = new StringBuilder(128);
+		write(bean, JsonWriter.to(json));
+		return json.toString();
+	}
+
+	/** Writes the bean to the given {@link Appendable}, which can be a {@link java.io.Writer}. */
+	default void write(B bean, Appendable out) {
+		write(bean, JsonWriter.to(out));
+	}
+
+	default byte[] toJsonBytes(B bean) {
+		final JsonBytesWriter out = JsonWriter.toBytes();
+		write(bean, out);
+		return out.toByteArray();
+	}
+
+	default B fromJson(CharSequence json) {
+		return read(JsonReader.of(json));
+	}
+
+	default B fromJson(byte[] json) {
+		return read(JsonReader.of(json));
+	}
+
+	/** Reads a bean from the buffer's remaining bytes, moving its position past them. */
+	default B fromJson(ByteBuffer json) {
+		return read(JsonReader.of(json));
+	}
+}
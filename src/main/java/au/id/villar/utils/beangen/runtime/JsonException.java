@@ -0,0 +1,15 @@
+package au.id.villar.utils.beangen.runtime;
+
+/** Thrown by generated JSON codecs when their input isn't valid JSON or doesn't match the bean. */
+public class JsonException extends RuntimeException {
+
+	private static final long serialVersionUID = 1L;
+
+	public JsonException(String message) {
+		super(message);
+	}
+
+	public JsonException(String message, Throwable cause) {
+		super(message, cause);
+	}
+}
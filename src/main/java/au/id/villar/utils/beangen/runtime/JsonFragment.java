@@ -0,0 +1,36 @@
+package au.id.villar.utils.beangen.runtime;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * A piece of JSON known when the codec is generated, like {@code ,"lastName":}, kept both as text and as UTF-8 bytes
+ * so {@link JsonWriter}s copy it as is instead of escaping and encoding it on every write.
+ */
+public final class JsonFragment {
+
+	private final String text;
+	private final byte[] bytes;
+
+	private JsonFragment(String text) {
+		this.text = text;
+		this.bytes = text.getBytes(StandardCharsets.UTF_8);
+	}
+
+	/** Creates a fragment out of text that must already be valid, escaped JSON. */
+	public static JsonFragment of(String text) {
+		return new JsonFragment(text);
+	}
+
+	String text() {
+		return text;
+	}
+
+	byte[] bytes() {
+		return bytes;
+	}
+
+	@Override
+	public String toString() {
+		return text;
+	}
+}
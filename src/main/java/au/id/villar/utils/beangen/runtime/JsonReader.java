@@ -0,0 +1,713 @@
+package au.id.villar.utils.beangen.runtime;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntFunction;
+
+/**
+ * Streaming JSON tokenizer over UTF-8 bytes used by generated {@link JsonCodec}s. Property names are never turned into
+ * strings: {@link #nextField()} hashes them while scanning, so codecs dispatch on {@link #nameHash()} with a
+ * {@code switch} and confirm the match with {@link #nameIs(byte[])}. Numbers and booleans are parsed in place, and
+ * arrays of primitives are collected in scratch buffers that the reader keeps across {@link #reset(byte[]) resets}.
+ * <p>
+ * A reader isn't thread safe; keep one per thread and {@link #reset(byte[]) reset} it for every input.
+ */
+public final class JsonReader {
+
+	/** Reads any JSON value as null, {@link Boolean}, {@link Integer}, {@link Long}, {@link BigInteger},
+	 * {@link Double}, {@link String}, {@link List} or {@link Map}. */
+	public static final ValueReader<Object> ANY = JsonReader::readValue;
+	public static final ValueReader<String> STRING = JsonReader::readString;
+	public static final ValueReader<Boolean> BOOLEAN = in -> in.isNull() ? null : in.readBoolean();
+	public static final ValueReader<Byte> BYTE = in -> in.isNull() ? null : in.readByte();
+	public static final ValueReader<Short> SHORT = in -> in.isNull() ? null : in.readShort();
+	public static final ValueReader<Character> CHARACTER = in -> in.isNull() ? null : in.readChar();
+	public static final ValueReader<Integer> INTEGER = in -> in.isNull() ? null : in.readInt();
+	public static final ValueReader<Long> LONG = in -> in.isNull() ? null : in.readLong();
+	public static final ValueReader<Float> FLOAT = in -> in.isNull() ? null : in.readFloat();
+	public static final ValueReader<Double> DOUBLE = in -> in.isNull() ? null : in.readDouble();
+	public static final ValueReader<BigDecimal> BIG_DECIMAL = JsonReader::readBigDecimal;
+	public static final ValueReader<BigInteger> BIG_INTEGER = JsonReader::readBigInteger;
+
+	private static final byte[] NULL = {'n', 'u', 'l', 'l'};
+	private static final byte[] TRUE = {'t', 'r', 'u', 'e'};
+	private static final byte[] FALSE = {'f', 'a', 'l', 's', 'e'};
+
+	private byte[] input;
+	private int position;
+	private int end;
+	private int nameStart;
+	private int nameEnd;
+	private int nameHash;
+	private char[] chars = new char[64];
+	private long[] longs;
+	private double[] doubles;
+
+	private JsonReader() {
+	}
+
+	public static JsonReader of(byte[] json) {
+		return new JsonReader().reset(json, 0, json.length);
+	}
+
+	public static JsonReader of(byte[] json, int offset, int length) {
+		return new JsonReader().reset(json, offset, length);
+	}
+
+	/** Reads the buffer's remaining bytes, which are consumed. */
+	public static JsonReader of(ByteBuffer json) {
+		final JsonReader reader = new JsonReader();
+		if (json.hasArray()) {
+			reader.reset(json.array(), json.arrayOffset() + json.position(), json.remaining());
+			json.position(json.limit());
+		} else {
+			final byte[] bytes = new byte[json.remaining()];
+			json.get(bytes);
+			reader.reset(bytes, 0, bytes.length);
+		}
+		return reader;
+	}
+
+	public static JsonReader of(CharSequence json) {
+		return of(json.toString().getBytes(StandardCharsets.UTF_8));
+	}
+
+	/** Makes the reader read new input, keeping the buffers it has grown. */
+	public JsonReader reset(byte[] json) {
+		return reset(json, 0, json.length);
+	}
+
+	public JsonReader reset(byte[] json, int offset, int length) {
+		this.input = json;
+		this.position = offset;
+		this.end = offset + length;
+		return this;
+	}
+
+	/** Returns the UTF-8 bytes of a property name, for codecs to compare with {@link #nameIs(byte[])}. */
+	public static byte[] utf8(String name) {
+		return name.getBytes(StandardCharsets.UTF_8);
+	}
+
+	/** The hash {@link #nameHash()} returns for a property name with the given UTF-8 bytes. */
+	public static int hash(byte[] name) {
+		int hash = 0;
+		for (byte b : name) {
+			hash = 31 * hash + (b & 0xFF);
+		}
+		return hash;
+	}
+
+	public void beginObject() {
+		expect('{');
+	}
+
+	/**
+	 * Moves to the next property of the current object, past its name and colon, or past the closing brace when
+	 * there are no more properties. Names are compared as they are written, escapes included.
+	 * @return false after the closing brace
+	 */
+	public boolean nextField() {
+		int c = skipWhitespace();
+		if (c == '}') {
+			position++;
+			return false;
+		}
+		if (c == ',') {
+			position++;
+			c = skipWhitespace();
+		}
+		if (c != '"') {
+			throw error("Expected a property name");
+		}
+		int hash = 0;
+		int i = ++position;
+		while (i < end && input[i] != '"') {
+			if (input[i] == '\\') {
+				hash = 31 * hash + '\\';
+				i++;
+			}
+			hash = 31 * hash + (input[i++] & 0xFF);
+		}
+		if (i >= end) {
+			throw error("Unterminated property name");
+		}
+		nameStart = position;
+		nameEnd = i;
+		nameHash = hash;
+		position = i + 1;
+		expect(':');
+		return true;
+	}
+
+	public int nameHash() {
+		return nameHash;
+	}
+
+	public boolean nameIs(byte[] name) {
+		return Arrays.equals(input, nameStart, nameEnd, name, 0, name.length);
+	}
+
+	/** Name of the current property; allocates, so meant for error messages and dynamic reading. */
+	public String name() {
+		return new String(input, nameStart, nameEnd - nameStart, StandardCharsets.UTF_8);
+	}
+
+	/** Consumes the next value if it's {@code null}. */
+	public boolean isNull() {
+		if (skipWhitespace() == 'n' && matches(NULL)) {
+			position += NULL.length;
+			return true;
+		}
+		return false;
+	}
+
+	public boolean readBoolean() {
+		final int c = skipWhitespace();
+		if (c == 't' && matches(TRUE)) {
+			position += TRUE.length;
+			return true;
+		}
+		if (c == 'f' && matches(FALSE)) {
+			position += FALSE.length;
+			return false;
+		}
+		throw error("Expected a boolean");
+	}
+
+	public byte readByte() {
+		final long value = readLong();
+		if (value != (byte) value) {
+			throw error("Number out of byte range");
+		}
+		return (byte) value;
+	}
+
+	public short readShort() {
+		final long value = readLong();
+		if (value != (short) value) {
+			throw error("Number out of short range");
+		}
+		return (short) value;
+	}
+
+	public int readInt() {
+		final long value = readLong();
+		if (value != (int) value) {
+			throw error("Number out of int range");
+		}
+		return (int) value;
+	}
+
+	public long readLong() {
+		int c = skipWhitespace();
+		final boolean negative = c == '-';
+		if (negative) {
+			c = ++position < end ? input[position] : -1;
+		}
+		if (c < '0' || c > '9') {
+			throw error("Expected an integer");
+		}
+		long value = 0;
+		while (position < end && (c = input[position]) >= '0' && c <= '9') {
+			final int digit = c - '0';
+			if (value < (Long.MIN_VALUE + digit) / 10) {
+				throw error("Number out of long range");
+			}
+			value = value * 10 - digit;
+			position++;
+		}
+		if (position < end && (c == '.' || c == 'e' || c == 'E')) {
+			throw error("Expected an integer");
+		}
+		if (!negative && value == Long.MIN_VALUE) {
+			throw error("Number out of long range");
+		}
+		return negative ? value : -value;
+	}
+
+	/** Reads a number, or one of the strings {@code "NaN"}, {@code "Infinity"} and {@code "-Infinity"}. */
+	public double readDouble() {
+		if (skipWhitespace() == '"') {
+			final String special = readString();
+			return switch (special) {
+				case "NaN" -> Double.NaN;
+				case "Infinity" -> Double.POSITIVE_INFINITY;
+				case "-Infinity" -> Double.NEGATIVE_INFINITY;
+				default -> throw error("Expected a number");
+			};
+		}
+		final int start = position;
+		final int length = scanNumber();
+		long mantissa = 0;
+		int i = start;
+		final boolean negative = input[i] == '-';
+		if (negative) {
+			i++;
+		}
+		int digitCount = 0;
+		while (i < start + length && input[i] >= '0' && input[i] <= '9' && digitCount < 16) {
+			mantissa = mantissa * 10 + (input[i++] - '0');
+			digitCount++;
+		}
+		if (i == start + length) {
+			return negative ? -mantissa : mantissa;
+		}
+		return Double.parseDouble(new String(input, start, length, StandardCharsets.ISO_8859_1));
+	}
+
+	public float readFloat() {
+		return (float) readDouble();
+	}
+
+	/** Reads a one-character string. */
+	public char readChar() {
+		final String value = readString();
+		if (value == null || value.length() != 1) {
+			throw error("Expected a single character");
+		}
+		return value.charAt(0);
+	}
+
+	/** Reads a string, or null. */
+	public String readString() {
+		if (isNull()) {
+			return null;
+		}
+		expect('"');
+		final int start = position;
+		int i = start;
+		while (i < end) {
+			final byte b = input[i];
+			if (b == '"') {
+				position = i + 1;
+				return new String(input, start, i - start, StandardCharsets.ISO_8859_1);
+			}
+			if (b == '\\' || b < 0) {
+				break;
+			}
+			i++;
+		}
+		return readEscapedString(start);
+	}
+
+	/** Reads a number, or a string holding one, as a {@link BigDecimal}; null for {@code null}. */
+	public BigDecimal readBigDecimal() {
+		if (isNull()) {
+			return null;
+		}
+		if (input[position] == '"') {
+			return new BigDecimal(readString());
+		}
+		final int start = position;
+		final int length = scanNumber();
+		final char[] digits = charBuffer(length);
+		for (int i = 0; i < length; i++) {
+			digits[i] = (char) input[start + i];
+		}
+		return new BigDecimal(digits, 0, length);
+	}
+
+	/** Reads an integer, or a string holding one, as a {@link BigInteger}; null for {@code null}. */
+	public BigInteger readBigInteger() {
+		if (isNull()) {
+			return null;
+		}
+		if (input[position] == '"') {
+			return new BigInteger(readString());
+		}
+		final int start = position;
+		return new BigInteger(new String(input, start, scanNumber(), StandardCharsets.ISO_8859_1));
+	}
+
+	public boolean[] readBooleanArray() {
+		if (isNull()) {
+			return null;
+		}
+		int count = 0;
+		expect('[');
+		while (nextElement(count)) {
+			longBuffer(count + 1)[count++] = readBoolean() ? 1 : 0;
+		}
+		final boolean[] values = new boolean[count];
+		for (int i = 0; i < count; i++) {
+			values[i] = longs[i] != 0;
+		}
+		return values;
+	}
+
+	public byte[] readByteArray() {
+		if (isNull()) {
+			return null;
+		}
+		int count = 0;
+		expect('[');
+		while (nextElement(count)) {
+			longBuffer(count + 1)[count++] = readByte();
+		}
+		final byte[] values = new byte[count];
+		for (int i = 0; i < count; i++) {
+			values[i] = (byte) longs[i];
+		}
+		return values;
+	}
+
+	public short[] readShortArray() {
+		if (isNull()) {
+			return null;
+		}
+		int count = 0;
+		expect('[');
+		while (nextElement(count)) {
+			longBuffer(count + 1)[count++] = readShort();
+		}
+		final short[] values = new short[count];
+		for (int i = 0; i < count; i++) {
+			values[i] = (short) longs[i];
+		}
+		return values;
+	}
+
+	public char[] readCharArray() {
+		if (isNull()) {
+			return null;
+		}
+		int count = 0;
+		expect('[');
+		while (nextElement(count)) {
+			longBuffer(count + 1)[count++] = readChar();
+		}
+		final char[] values = new char[count];
+		for (int i = 0; i < count; i++) {
+			values[i] = (char) longs[i];
+		}
+		return values;
+	}
+
+	public int[] readIntArray() {
+		if (isNull()) {
+			return null;
+		}
+		int count = 0;
+		expect('[');
+		while (nextElement(count)) {
+			longBuffer(count + 1)[count++] = readInt();
+		}
+		final int[] values = new int[count];
+		for (int i = 0; i < count; i++) {
+			values[i] = (int) longs[i];
+		}
+		return values;
+	}
+
+	public long[] readLongArray() {
+		if (isNull()) {
+			return null;
+		}
+		int count = 0;
+		expect('[');
+		while (nextElement(count)) {
+			longBuffer(count + 1)[count++] = readLong();
+		}
+		return Arrays.copyOf(longs, count);
+	}
+
+	public float[] readFloatArray() {
+		if (isNull()) {
+			return null;
+		}
+		int count = 0;
+		expect('[');
+		while (nextElement(count)) {
+			doubleBuffer(count + 1)[count++] = readFloat();
+		}
+		final float[] values = new float[count];
+		for (int i = 0; i < count; i++) {
+			values[i] = (float) doubles[i];
+		}
+		return values;
+	}
+
+	public double[] readDoubleArray() {
+		if (isNull()) {
+			return null;
+		}
+		int count = 0;
+		expect('[');
+		while (nextElement(count)) {
+			doubleBuffer(count + 1)[count++] = readDouble();
+		}
+		return Arrays.copyOf(doubles, count);
+	}
+
+	/** Reads an array of values into a list, or null for {@code null}. */
+	public <T> List<T> readList(ValueReader<? extends T> elementReader) {
+		if (isNull()) {
+			return null;
+		}
+		final List<T> values = new ArrayList<>();
+		expect('[');
+		while (nextElement(values.size())) {
+			values.add(elementReader.read(this));
+		}
+		return values;
+	}
+
+	/** Reads an array of values into an array created by {@code arrayFactory}, or null for {@code null}. */
+	public <T> T[] readArray(ValueReader<? extends T> elementReader, IntFunction<T[]> arrayFactory) {
+		final List<T> values = readList(elementReader);
+		return values != null ? values.toArray(arrayFactory.apply(values.size())) : null;
+	}
+
+	/** Reads any value; see {@link #ANY}. */
+	public Object readValue() {
+		final int c = skipWhitespace();
+		switch (c) {
+			case '"':
+				return readString();
+			case '{': {
+				final Map<String, Object> object = new LinkedHashMap<>();
+				beginObject();
+				while (nextField()) {
+					object.put(name(), readValue());
+				}
+				return object;
+			}
+			case '[':
+				return readList(ANY);
+			case 't':
+			case 'f':
+				return readBoolean();
+			case 'n':
+				if (isNull()) {
+					return null;
+				}
+				throw error("Unexpected value");
+			default:
+				return readNumber();
+		}
+	}
+
+	/** Skips the next value, whatever it is. */
+	public void skipValue() {
+		final int c = skipWhitespace();
+		switch (c) {
+			case '"':
+				skipString();
+				break;
+			case '{':
+				beginObject();
+				while (nextField()) {
+					skipValue();
+				}
+				break;
+			case '[': {
+				int count = 0;
+				expect('[');
+				while (nextElement(count++)) {
+					skipValue();
+				}
+				break;
+			}
+			case 't':
+			case 'f':
+				readBoolean();
+				break;
+			case 'n':
+				if (!isNull()) {
+					throw error("Unexpected value");
+				}
+				break;
+			default:
+				scanNumber();
+		}
+	}
+
+	/** Moves past the separator before the next element of an array, or past its closing bracket. */
+	private boolean nextElement(int index) {
+		int c = skipWhitespace();
+		if (c == ']') {
+			position++;
+			return false;
+		}
+		if (index > 0) {
+			if (c != ',') {
+				throw error("Expected ',' or ']'");
+			}
+			position++;
+		}
+		return true;
+	}
+
+	private Object readNumber() {
+		final int start = position;
+		final int length = scanNumber();
+		boolean integral = true;
+		for (int i = start; i < start + length; i++) {
+			if (input[i] == '.' || input[i] == 'e' || input[i] == 'E') {
+				integral = false;
+				break;
+			}
+		}
+		final String text = new String(input, start, length, StandardCharsets.ISO_8859_1);
+		if (!integral) {
+			return Double.parseDouble(text);
+		}
+		if (length < 10) {
+			return Integer.parseInt(text);
+		}
+		final BigInteger value = new BigInteger(text);
+		return value.bitLength() < 32 ? (Object) value.intValue()
+				: value.bitLength() < 64 ? (Object) value.longValue() : value;
+	}
+
+	/** Moves past a number, returning its length. */
+	private int scanNumber() {
+		final int start = position;
+		while (position < end) {
+			final byte b = input[position];
+			if ((b >= '0' && b <= '9') || b == '-' || b == '+' || b == '.' || b == 'e' || b == 'E') {
+				position++;
+			} else {
+				break;
+			}
+		}
+		if (position == start) {
+			throw error("Expected a number");
+		}
+		return position - start;
+	}
+
+	private void skipString() {
+		expect('"');
+		while (position < end) {
+			final byte b = input[position++];
+			if (b == '"') {
+				return;
+			}
+			if (b == '\\') {
+				position++;
+			}
+		}
+		throw error("Unterminated string");
+	}
+
+	private String readEscapedString(int start) {
+		char[] buffer = charBuffer(32);
+		int length = 0;
+		int i = start;
+		while (true) {
+			if (i >= end) {
+				throw error("Unterminated string");
+			}
+			if (length + 2 > buffer.length) {
+				buffer = charBuffer(buffer.length * 2);
+			}
+			final int b = input[i] & 0xFF;
+			if (b == '"') {
+				position = i + 1;
+				return new String(buffer, 0, length);
+			}
+			if (b == '\\') {
+				final int escaped = i + 1 < end ? input[i + 1] : -1;
+				i += 2;
+				switch (escaped) {
+					case '"', '\\', '/' -> buffer[length++] = (char) escaped;
+					case 'b' -> buffer[length++] = '\b';
+					case 'f' -> buffer[length++] = '\f';
+					case 'n' -> buffer[length++] = '\n';
+					case 'r' -> buffer[length++] = '\r';
+					case 't' -> buffer[length++] = '\t';
+					case 'u' -> {
+						if (i + 4 > end) {
+							throw error("Invalid unicode escape");
+						}
+						buffer[length++] = (char) Integer.parseInt(
+								new String(input, i, 4, StandardCharsets.ISO_8859_1), 16);
+						i += 4;
+					}
+					default -> throw error("Invalid escape");
+				}
+			} else if (b < 0x80) {
+				buffer[length++] = (char) b;
+				i++;
+			} else {
+				final int extra = b >= 0xF0 ? 3 : b >= 0xE0 ? 2 : 1;
+				int codePoint = b & (0x3F >> extra);
+				for (int k = 1; k <= extra; k++) {
+					if (i + k >= end) {
+						throw error("Truncated UTF-8 sequence");
+					}
+					codePoint = codePoint << 6 | input[i + k] & 0x3F;
+				}
+				length += Character.toChars(codePoint, buffer, length);
+				i += extra + 1;
+			}
+		}
+	}
+
+	private char[] charBuffer(int capacity) {
+		if (chars.length < capacity) {
+			chars = Arrays.copyOf(chars, Math.max(capacity, chars.length * 2));
+		}
+		return chars;
+	}
+
+	private long[] longBuffer(int capacity) {
+		if (longs == null) {
+			longs = new long[Math.max(16, capacity)];
+		} else if (longs.length < capacity) {
+			longs = Arrays.copyOf(longs, Math.max(capacity, longs.length * 2));
+		}
+		return longs;
+	}
+
+	private double[] doubleBuffer(int capacity) {
+		if (doubles == null) {
+			doubles = new double[Math.max(16, capacity)];
+		} else if (doubles.length < capacity) {
+			doubles = Arrays.copyOf(doubles, Math.max(capacity, doubles.length * 2));
+		}
+		return doubles;
+	}
+
+	private boolean matches(byte[] literal) {
+		return position + literal.length <= end
+				&& Arrays.equals(input, position, position + literal.length, literal, 0, literal.length);
+	}
+
+	private void expect(char c) {
+		if (skipWhitespace() != c) {
+			throw error("Expected '" + c + "'");
+		}
+		position++;
+	}
+
+	private int skipWhitespace() {
+		while (position < end) {
+			final byte b = input[position];
+			if (b != ' ' && b != '\n' && b != '\r' && b != '\t') {
+				return b;
+			}
+			position++;
+		}
+		return -1;
+	}
+
+	private JsonException error(String message) {
+		return new JsonException(message + " at offset " + position);
+	}
+
+	/** Reads one value; the element readers of {@link #readList} and {@link #readArray}. */
+	@FunctionalInterface
+	public interface ValueReader<T> {
+		T read(JsonReader in);
+	}
+}
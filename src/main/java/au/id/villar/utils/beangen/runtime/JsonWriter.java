@@ -0,0 +1,315 @@
+package au.id.villar.utils.beangen.runtime;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * Streaming JSON output used by generated {@link JsonCodec}s. Writes either UTF-8 bytes, through
+ * {@link #toBytes()}, or characters to any {@link Appendable}, through {@link #to(Appendable)}. Integers, booleans and
+ * strings are written without allocating; floating point numbers and big numbers are written through their
+ * {@code toString}.
+ * <p>
+ * Writers don't check the structure of what's written: codecs write {@link JsonFragment}s for the punctuation and the
+ * property names, and values after them.
+ */
+public abstract class JsonWriter {
+
+	private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+	private final char[] digits = new char[20];
+
+	JsonWriter() {
+	}
+
+	/** Returns a writer that encodes the JSON as UTF-8 into a growable, reusable buffer. */
+	public static JsonBytesWriter toBytes() {
+		return new JsonBytesWriter(256);
+	}
+
+	/** Returns a writer that appends the JSON to {@code out}, wrapping its {@link java.io.IOException}s. */
+	public static JsonWriter to(Appendable out) {
+		return new JsonAppendableWriter(out);
+	}
+
+	/** Writes a fragment of JSON as is. */
+	public abstract JsonWriter raw(JsonFragment fragment);
+
+	/** Writes a single ASCII character as is, like {@code '}'}. */
+	public abstract JsonWriter raw(char character);
+
+	/** Writes a code point that needs no escaping. */
+	abstract void codePoint(int codePoint);
+
+	public JsonWriter nullValue() {
+		return raw('n').raw('u').raw('l').raw('l');
+	}
+
+	public JsonWriter value(boolean value) {
+		return value ? raw('t').raw('r').raw('u').raw('e') : raw('f').raw('a').raw('l').raw('s').raw('e');
+	}
+
+	public JsonWriter value(int value) {
+		return value((long) value);
+	}
+
+	public JsonWriter value(long value) {
+		if (value == Long.MIN_VALUE) {
+			return ascii("-9223372036854775808");
+		}
+		if (value < 0) {
+			raw('-');
+			value = -value;
+		}
+		int length = 0;
+		do {
+			digits[length++] = (char) ('0' + value % 10);
+			value /= 10;
+		} while (value != 0);
+		while (length > 0) {
+			raw(digits[--length]);
+		}
+		return this;
+	}
+
+	/** Writes the number, or the strings {@code "NaN"}, {@code "Infinity"} and {@code "-Infinity"}. */
+	public JsonWriter value(double value) {
+		if (Double.isFinite(value)) {
+			return value == (long) value && Math.abs(value) < 1e15
+					? value((long) value).raw('.').raw('0')
+					: ascii(Double.toString(value));
+		}
+		return raw('"').ascii(Double.toString(value)).raw('"');
+	}
+
+	public JsonWriter value(float value) {
+		if (Float.isFinite(value)) {
+			return value == (long) value && Math.abs(value) < 1e7
+					? value((long) value).raw('.').raw('0')
+					: ascii(Float.toString(value));
+		}
+		return raw('"').ascii(Float.toString(value)).raw('"');
+	}
+
+	/** Writes the character as a one-character string. */
+	public JsonWriter value(char value) {
+		raw('"');
+		escaped(value);
+		return raw('"');
+	}
+
+	public JsonWriter value(String value) {
+		if (value == null) {
+			return nullValue();
+		}
+		raw('"');
+		for (int i = 0; i < value.length(); i++) {
+			final char c = value.charAt(i);
+			if (Character.isHighSurrogate(c) && i + 1 < value.length()
+					&& Character.isLowSurrogate(value.charAt(i + 1))) {
+				codePoint(Character.toCodePoint(c, value.charAt(++i)));
+			} else {
+				escaped(c);
+			}
+		}
+		return raw('"');
+	}
+
+	public JsonWriter value(BigDecimal value) {
+		return value != null ? ascii(value.toString()) : nullValue();
+	}
+
+	public JsonWriter value(BigInteger value) {
+		return value != null ? ascii(value.toString()) : nullValue();
+	}
+
+	public JsonWriter value(boolean[] values) {
+		if (values == null) {
+			return nullValue();
+		}
+		raw('[');
+		for (int i = 0; i < values.length; i++) {
+			separator(i).value(values[i]);
+		}
+		return raw(']');
+	}
+
+	public JsonWriter value(byte[] values) {
+		if (values == null) {
+			return nullValue();
+		}
+		raw('[');
+		for (int i = 0; i < values.length; i++) {
+			separator(i).value(values[i]);
+		}
+		return raw(']');
+	}
+
+	public JsonWriter value(short[] values) {
+		if (values == null) {
+			return nullValue();
+		}
+		raw('[');
+		for (int i = 0; i < values.length; i++) {
+			separator(i).value(values[i]);
+		}
+		return raw(']');
+	}
+
+	public JsonWriter value(char[] values) {
+		if (values == null) {
+			return nullValue();
+		}
+		raw('[');
+		for (int i = 0; i < values.length; i++) {
+			separator(i).value(values[i]);
+		}
+		return raw(']');
+	}
+
+	public JsonWriter value(int[] values) {
+		if (values == null) {
+			return nullValue();
+		}
+		raw('[');
+		for (int i = 0; i < values.length; i++) {
+			separator(i).value(values[i]);
+		}
+		return raw(']');
+	}
+
+	public JsonWriter value(long[] values) {
+		if (values == null) {
+			return nullValue();
+		}
+		raw('[');
+		for (int i = 0; i < values.length; i++) {
+			separator(i).value(values[i]);
+		}
+		return raw(']');
+	}
+
+	public JsonWriter value(float[] values) {
+		if (values == null) {
+			return nullValue();
+		}
+		raw('[');
+		for (int i = 0; i < values.length; i++) {
+			separator(i).value(values[i]);
+		}
+		return raw(']');
+	}
+
+	public JsonWriter value(double[] values) {
+		if (values == null) {
+			return nullValue();
+		}
+		raw('[');
+		for (int i = 0; i < values.length; i++) {
+			separator(i).value(values[i]);
+		}
+		return raw(']');
+	}
+
+	/**
+	 * Writes a value whose type is only known at run time: strings, numbers, booleans, characters, enums (by name),
+	 * arrays, collections and maps (with their keys as strings) of those, and null.
+	 * @throws JsonException for values of any other type
+	 */
+	public JsonWriter value(Object value) {
+		if (value == null) {
+			return nullValue();
+		} else if (value instanceof String string) {
+			return value(string);
+		} else if (value instanceof Integer || value instanceof Long || value instanceof Short
+				|| value instanceof Byte) {
+			return value(((Number) value).longValue());
+		} else if (value instanceof Boolean bool) {
+			return value(bool.booleanValue());
+		} else if (value instanceof Double number) {
+			return value(number.doubleValue());
+		} else if (value instanceof Float number) {
+			return value(number.floatValue());
+		} else if (value instanceof BigDecimal || value instanceof BigInteger) {
+			return ascii(value.toString());
+		} else if (value instanceof Character character) {
+			return value(character.charValue());
+		} else if (value instanceof CharSequence || value instanceof Enum) {
+			return value(value instanceof Enum<?> constant ? constant.name() : value.toString());
+		} else if (value instanceof Collection<?> collection) {
+			raw('[');
+			int i = 0;
+			for (Object element : collection) {
+				separator(i++).value(element);
+			}
+			return raw(']');
+		} else if (value instanceof Map<?, ?> map) {
+			raw('{');
+			int i = 0;
+			for (Map.Entry<?, ?> entry : map.entrySet()) {
+				separator(i++).value(String.valueOf(entry.getKey())).raw(':').value(entry.getValue());
+			}
+			return raw('}');
+		} else if (value instanceof Object[] array) {
+			raw('[');
+			for (int i = 0; i < array.length; i++) {
+				separator(i).value(array[i]);
+			}
+			return raw(']');
+		}
+		return primitiveArray(value);
+	}
+
+	private JsonWriter primitiveArray(Object value) {
+		if (value instanceof int[] array) {
+			return value(array);
+		} else if (value instanceof long[] array) {
+			return value(array);
+		} else if (value instanceof double[] array) {
+			return value(array);
+		} else if (value instanceof boolean[] array) {
+			return value(array);
+		} else if (value instanceof byte[] array) {
+			return value(array);
+		} else if (value instanceof short[] array) {
+			return value(array);
+		} else if (value instanceof char[] array) {
+			return value(array);
+		} else if (value instanceof float[] array) {
+			return value(array);
+		}
+		throw new JsonException("Can't write values of " + value.getClass().getName() + " as JSON");
+	}
+
+	private JsonWriter separator(int index) {
+		return index > 0 ? raw(',') : this;
+	}
+
+	/** Writes text known to be ASCII with nothing to escape. */
+	JsonWriter ascii(String text) {
+		for (int i = 0; i < text.length(); i++) {
+			raw(text.charAt(i));
+		}
+		return this;
+	}
+
+	private void escaped(char c) {
+		if (c == '"' || c == '\\') {
+			raw('\\').raw(c);
+		} else if (c >= 0x20 && c < 0x80) {
+			raw(c);
+		} else if (c == '\n') {
+			raw('\\').raw('n');
+		} else if (c == '\r') {
+			raw('\\').raw('r');
+		} else if (c == '\t') {
+			raw('\\').raw('t');
+		} else if (c < 0x20 || Character.isSurrogate(c)) {
+			raw('\\').raw('u').raw(HEX_DIGITS[c >> 12]).raw(HEX_DIGITS[(c >> 8) & 0xF])
+					.raw(HEX_DIGITS[(c >> 4) & 0xF]).raw(HEX_DIGITS[c & 0xF]);
+		} else {
+			codePoint(c);
+		}
+	}
+}
@@ -0,0 +1,151 @@
+package au.id.villar.utils.beangen.runtime;
+
+import java.util.Arrays;
+
+/**
+ * Sort keys of property values, and the sort the generated {@code <Bean>Comparators} companions use on them. A sort
+ * key is a {@code long} whose signed order agrees with the order of the values it stands for: when a value is less
+ * than another, its key is less than or equal to the other's. Most keys are also exact, equal only for equal values,
+ * but string keys hold just the first four chars, and a null {@code Long} has the key of {@link Long#MIN_VALUE}, so
+ * values whose keys tie may still need comparing; see {@link #sortTies}. Null values have the least key.
+ */
+public final class SortKeys {
+
+	private static final int STRING_KEY_CHARS = 4;
+
+	/** Compares the elements at two indices of whatever is being sorted. */
+	@FunctionalInterface
+	public interface IndexComparator {
+		int compare(int first, int second);
+	}
+
+	private SortKeys() {
+	}
+
+	/** Key of a float, in the order of {@link Float#compare}. */
+	public static long ofFloat(float value) {
+		final int bits = Float.floatToIntBits(value);
+		return bits ^ ((bits >> 31) & 0x7FFFFFFF);
+	}
+
+	/** Key of a double, in the order of {@link Double#compare}. */
+	public static long ofDouble(double value) {
+		final long bits = Double.doubleToLongBits(value);
+		return bits ^ ((bits >> 63) & 0x7FFFFFFFFFFFFFFFL);
+	}
+
+	/** Key of the first four chars of a string, in the order of {@link String#compareTo}, with null first. */
+	public static long ofString(String value) {
+		if (value == null) {
+			return Long.MIN_VALUE;
+		}
+		long key = 0;
+		for (int i = 0; i < STRING_KEY_CHARS; i++) {
+			key = key << Character.SIZE | (i < value.length() ? value.charAt(i) : 0);
+		}
+		return key ^ Long.MIN_VALUE;
+	}
+
+	/**
+	 * Returns the indices of the keys in ascending order of the keys, keeping the order of the indices of equal keys.
+	 * It's a least-significant-digit radix sort, a byte per pass, which skips the bytes all keys share.
+	 */
+	public static int[] sortedIndices(long[] keys) {
+
+		final int length = keys.length;
+		int[] indices = new int[length];
+		long[] sorted = new long[length];
+
+		for (int i = 0; i < length; i++) {
+			indices[i] = i;
+			sorted[i] = keys[i] ^ Long.MIN_VALUE;
+		}
+
+		if (length < 2) {
+			return indices;
+		}
+
+		int[] nextIndices = new int[length];
+		long[] nextSorted = new long[length];
+		final int[] offsets = new int[256];
+
+		for (int shift = 0; shift < Long.SIZE; shift += Byte.SIZE) {
+
+			Arrays.fill(offsets, 0);
+			for (long key : sorted) {
+				offsets[(int) (key >>> shift) & 0xFF]++;
+			}
+			if (offsets[(int) (sorted[0] >>> shift) & 0xFF] == length) {
+				continue;
+			}
+
+			int offset = 0;
+			for (int digit = 0; digit < offsets.length; digit++) {
+				final int count = offsets[digit];
+				offsets[digit] = offset;
+				offset += count;
+			}
+			for (int i = 0; i < length; i++) {
+				final int target = offsets[(int) (sorted[i] >>> shift) & 0xFF]++;
+				nextSorted[target] = sorted[i];
+				nextIndices[target] = indices[i];
+			}
+
+			final int[] swappedIndices = indices;
+			indices = nextIndices;
+			nextIndices = swappedIndices;
+			final long[] swappedSorted = sorted;
+			sorted = nextSorted;
+			nextSorted = swappedSorted;
+		}
+
+		return indices;
+	}
+
+	/**
+	 * Sorts, with the comparator, each run of indices whose keys are equal, as left by {@link #sortedIndices}. Used
+	 * for keys that aren't exact; the sort is stable.
+	 */
+	public static void sortTies(int[] indices, long[] keys, IndexComparator comparator) {
+		int[] buffer = null;
+		for (int start = 0; start < indices.length; ) {
+			int end = start + 1;
+			while (end < indices.length && keys[indices[end]] == keys[indices[start]]) {
+				end++;
+			}
+			if (end - start > 1) {
+				if (buffer == null) {
+					buffer = new int[indices.length];
+				}
+				mergeSort(indices, buffer, start, end, comparator);
+			}
+			start = end;
+		}
+	}
+
+	private static void mergeSort(int[] indices, int[] buffer, int from, int to, IndexComparator comparator) {
+
+		if (to - from < 2) {
+			return;
+		}
+
+		final int middle = (from + to) >>> 1;
+		mergeSort(indices, buffer, from, middle, comparator);
+		mergeSort(indices, buffer, middle, to, comparator);
+
+		if (comparator.compare(indices[middle - 1], indices[middle]) <= 0) {
+			return;
+		}
+
+		System.arraycopy(indices, from, buffer, from, to - from);
+		int left = from;
+		int right = middle;
+		for (int i = from; i < to; i++) {
+			if (right == to || left < middle && comparator.compare(buffer[left], buffer[right]) <= 0) {
+				indices[i] = buffer[left++];
+			} else {
+				indices[i] = buffer[right++];
+			}
+		}
+	}
+}
@@ -0,0 +1,61 @@
+package au.id.villar.utils.beangen;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+class AccessorWriterTest {
+
+	@Test
+	void accessorReachesEveryPropertyByIndex() {
+		final Visitor<String> visitor = new Visitor<>(7, "Ada", "Lovelace", List.of("x"));
+		final VisitorAccessor accessor = VisitorAccessor.INSTANCE;
+
+		assertThat(accessor.propertyCount()).isEqualTo(6);
+		assertThat(accessor.indexOf("inheritedField")).isEqualTo(5);
+		assertThat(accessor.indexOf("missing")).isEqualTo(-1);
+		assertThat(accessor.propertyType(accessor.indexOf("badges"))).isEqualTo(List.class);
+		assertThat(accessor.getInt(visitor, accessor.indexOf("id"))).isEqualTo(7);
+		assertThat(accessor.get(visitor, accessor.indexOf("lastName"))).isEqualTo("Lovelace");
+
+		accessor.setInt(visitor, accessor.indexOf("inheritedField"), 3);
+		accessor.set(visitor, accessor.indexOf("givenName"), "Augusta");
+
+		assertThat(visitor.getInheritedField()).isEqualTo(3);
+		assertThat(visitor.getGivenName()).isEqualTo("Augusta");
+		assertThat(accessor.isWritable(accessor.indexOf("kind"))).isFalse();
+		assertThatThrownBy(() -> accessor.set(visitor, accessor.indexOf("kind"), "x"))
+				.isInstanceOf(UnsupportedOperationException.class);
+		assertThatThrownBy(() -> accessor.getInt(visitor, accessor.indexOf("lastName")))
+				.isInstanceOf(IllegalArgumentException.class);
+	}
+
+	@Test
+	void accessorsAreGeneratedOnlyWhenAsked() {
+		final InMemoryCompiler.Result result = new InMemoryCompiler().compile(Map.of(
+				"sample.OrderTemplate", """
+						package sample;
+
+						@au.id.villar.utils.beangen.BeanTemplate(accessor = true)
+						public class OrderTemplate {
+							protected int number;
+						}
+						""",
+				"sample.CustomerTemplate", """
+						package sample;
+
+						@au.id.villar.utils.beangen.Bean
+						public class CustomerTemplate {
+							protected String name;
+						}
+						"""));
+
+		assertThat(result.isSuccess()).as(result.errors()).isTrue();
+		assertThat(result.generatedSourceNames()).containsExactly("sample.Customer", "sample.Order",
+				"sample.OrderAccessor");
+		assertThat(result.originatingElementsOf("sample.OrderAccessor")).containsExactly("sample.OrderTemplate");
+	}
+}
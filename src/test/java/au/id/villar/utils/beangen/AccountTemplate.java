@@ -0,0 +1,18 @@
+package au.id.villar.utils.beangen;
+
+import javax.persistence.Id;
+
+@BeanTemplate(index = true)
+public class AccountTemplate {
+
+	@Id
+	protected int id;
+
+	protected String owner;
+
+	@Builder
+	public AccountTemplate(int id, String owner) {
+		this.id = id;
+		this.owner = owner;
+	}
+}
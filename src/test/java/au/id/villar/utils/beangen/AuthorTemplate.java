@@ -0,0 +1,19 @@
+package au.id.villar.utils.beangen;
+
+@BeanTemplate(comparators = true)
+@Ordering(name = "fullName", properties = {"lastName", "givenName", "-id"})
+public class AuthorTemplate {
+
+	protected int id;
+
+	protected String givenName;
+
+	protected String lastName;
+
+	@Builder
+	public AuthorTemplate(int id, String givenName, String lastName) {
+		this.id = id;
+		this.givenName = givenName;
+		this.lastName = lastName;
+	}
+}
@@ -0,0 +1,153 @@
+package au.id.villar.utils.beangen;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+class BeanMapperTest {
+
+	@Test
+	void mappersCopyPropertiesBetweenGeneratedBeansAndOtherTypes() throws Exception {
+		final InMemoryCompiler.Result result = new InMemoryCompiler().compile(Map.of(
+				"sample.LineTemplate", """
+						package sample;
+
+						@au.id.villar.utils.beangen.Bean
+						public class LineTemplate {
+							protected String product;
+							protected int quantity;
+						}
+						""",
+				"sample.OrderTemplate", """
+						package sample;
+
+						@au.id.villar.utils.beangen.BeanTemplate
+						public class OrderTemplate {
+							protected long number;
+							protected String customerName;
+							protected java.util.List<Line> lines;
+							protected int[] scores;
+
+							@au.id.villar.utils.beangen.Builder
+							public OrderTemplate(long number, String customerName) {
+								this.number = number;
+								this.customerName = customerName;
+							}
+						}
+						""",
+				"sample.LineDto", """
+						package sample;
+
+						public record LineDto(String product, long quantity) {
+						}
+						""",
+				"sample.OrderDto", """
+						package sample;
+
+						public class OrderDto {
+							private long number;
+							private String customer;
+							private java.util.Set<LineDto> lines;
+							private long[] scores;
+
+							public long getNumber() { return number; }
+							public void setNumber(long number) { this.number = number; }
+							public String getCustomer() { return customer; }
+							public void setCustomer(String customer) { this.customer = customer; }
+							public java.util.Set<LineDto> getLines() { return lines; }
+							public void setLines(java.util.Set<LineDto> lines) { this.lines = lines; }
+							public long[] getScores() { return scores; }
+							public void setScores(long[] scores) { this.scores = scores; }
+							public String getSummary() { return customer + " #" + number; }
+						}
+						""",
+				"sample.OrderMapper", """
+						package sample;
+
+						import au.id.villar.utils.beangen.BeanMapper;
+						import au.id.villar.utils.beangen.Mapping;
+
+						@BeanMapper
+						public interface OrderMapper {
+
+							@Mapping(target = "customer", source = "customerName")
+							OrderDto toDto(Order order);
+
+							@Mapping(target = "customerName", source = "customer")
+							Order toOrder(OrderDto dto);
+
+							LineDto toDto(Line line);
+
+							Line toLine(LineDto dto);
+
+							default int toInt(long value) {
+								return Math.toIntExact(value);
+							}
+						}
+						"""));
+
+		assertThat(result.isSuccess()).as(result.errors()).isTrue();
+		assertThat(result.originatingElementsOf("sample.OrderMapperImpl")).containsExactly("sample.OrderMapper");
+
+		final ClassLoader classLoader = result.classLoader();
+		final Class<?> lineClass = classLoader.loadClass("sample.Line");
+		final Object line = lineClass.getConstructor().newInstance();
+		lineClass.getMethod("setProduct", String.class).invoke(line, "tea");
+		lineClass.getMethod("setQuantity", int.class).invoke(line, 3);
+		final Class<?> orderClass = classLoader.loadClass("sample.Order");
+		final Object order = orderClass.getConstructor(long.class, String.class).newInstance(12L, "Ada");
+		orderClass.getMethod("setLines", List.class).invoke(order, List.of(line));
+		orderClass.getMethod("setScores", int[].class).invoke(order, new int[] {4, 5});
+
+		final Class<?> mapperClass = classLoader.loadClass("sample.OrderMapperImpl");
+		final Object mapper = mapperClass.getField("INSTANCE").get(null);
+		final Class<?> dtoClass = classLoader.loadClass("sample.OrderDto");
+		final Object dto = mapperClass.getMethod("toDto", orderClass).invoke(mapper, order);
+
+		assertThat(dtoClass.getMethod("getSummary").invoke(dto)).isEqualTo("Ada #12");
+		assertThat(dtoClass.getMethod("getScores").invoke(dto)).isEqualTo(new long[] {4, 5});
+		assertThat(dtoClass.getMethod("getLines").invoke(dto)).hasToString("[LineDto[product=tea, quantity=3]]");
+		assertThat(mapperClass.getMethod("toOrder", dtoClass).invoke(mapper, dto)).isEqualTo(order);
+		assertThat(mapperClass.getMethod("toDto", orderClass).invoke(mapper, (Object) null)).isNull();
+	}
+
+	@Test
+	void mappersReportUnmappedPropertiesAtCompileTime() {
+		final InMemoryCompiler.Result result = new InMemoryCompiler().compile(Map.of(
+				"sample.CustomerTemplate", """
+						package sample;
+
+						@au.id.villar.utils.beangen.Bean
+						public class CustomerTemplate {
+							protected String name;
+						}
+						""",
+				"sample.CustomerDto", """
+						package sample;
+
+						public class CustomerDto {
+							public void setName(Thread name) { }
+							public void setEmail(String email) { }
+							public void setAge(int age) { }
+						}
+						""",
+				"sample.CustomerMapper", """
+						package sample;
+
+						@au.id.villar.utils.beangen.BeanMapper
+						public interface CustomerMapper {
+
+							@au.id.villar.utils.beangen.Mapping(target = "age", ignore = true)
+							CustomerDto toDto(Customer customer);
+						}
+						"""));
+
+		assertThat(result.isSuccess()).isFalse();
+		assertThat(result.errors())
+				.contains("sample.CustomerMapper.toDto: target property email isn't mapped")
+				.contains("can't map name of type java.lang.String to name of type java.lang.Thread")
+				.doesNotContain("age");
+	}
+}
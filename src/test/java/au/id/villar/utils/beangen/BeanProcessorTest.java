@@ -1,16 +1,232 @@
-/*
- * This Java source file was generated by the Gradle 'init' task.
- */
 package au.id.villar.utils.beangen;
 
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import javax.tools.Diagnostic;
 import org.junit.jupiter.api.Test;
-import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.io.TempDir;
 
 class BeanProcessorTest {
-/*
-    @Test void someLibraryMethodReturnsTrue() {
-        BeanProcessor classUnderTest = new BeanProcessor();
-        assertTrue(classUnderTest.someLibraryMethod(), "someLibraryMethod should return 'true'");
-    }
-*/
+
+	private static final String ORDER_TEMPLATE = """
+			package sample;
+
+			import au.id.villar.utils.beangen.BeanTemplate;
+
+			@BeanTemplate
+			public class OrderTemplate {
+				protected int number;
+			}
+			""";
+
+	private static final String CUSTOMER_TEMPLATE = """
+			package sample;
+
+			import au.id.villar.utils.beangen.Bean;
+
+			@Bean
+			public class CustomerTemplate {
+				protected String name;
+			}
+			""";
+
+	@Test
+	void eachGeneratedBeanIsOriginatedByItsOwnTemplateOnly() {
+		final InMemoryCompiler.Result result = new InMemoryCompiler().compile(Map.of(
+				"sample.OrderTemplate", ORDER_TEMPLATE,
+				"sample.CustomerTemplate", CUSTOMER_TEMPLATE));
+
+		assertThat(result.isSuccess()).as(result.errors()).isTrue();
+		assertThat(result.originatingElementsOf("sample.Order")).containsExactly("sample.OrderTemplate");
+		assertThat(result.originatingElementsOf("sample.Customer")).containsExactly("sample.CustomerTemplate");
+	}
+
+
+	@Test
+	void recompilingOneTemplateRegeneratesOnlyItsBean(@TempDir Path output) throws Exception {
+		final String orderTemplate = ORDER_TEMPLATE.replace("class OrderTemplate",
+				"class OrderTemplate extends Customer");
+		final String changedOrderTemplate = orderTemplate.replace("int number", "long number");
+		final InMemoryCompiler.Result full = new InMemoryCompiler().compile(Map.of(
+				"sample.OrderTemplate", orderTemplate,
+				"sample.CustomerTemplate", CUSTOMER_TEMPLATE));
+		full.writeClasses(output);
+
+		final InMemoryCompiler.Result incremental = new InMemoryCompiler().classpath(output).compile(Map.of(
+				"sample.OrderTemplate", changedOrderTemplate));
+		final InMemoryCompiler.Result rebuilt = new InMemoryCompiler().compile(Map.of(
+				"sample.OrderTemplate", changedOrderTemplate,
+				"sample.CustomerTemplate", CUSTOMER_TEMPLATE));
+
+		assertThat(full.isSuccess()).as(full.errors()).isTrue();
+		assertThat(incremental.isSuccess()).as(incremental.errors()).isTrue();
+		assertThat(incremental.generatedSourceNames()).containsExactly("sample.Order");
+		assertThat(incremental.classes()).containsOnlyKeys("sample.Order", "sample.OrderTemplate");
+		assertThat(incremental.generatedSource("sample.Order")).contains("public long getNumber()", "name=")
+				.isEqualTo(rebuilt.generatedSource("sample.Order"));
+	}
+
+	@Test
+	void declaresItselfAsIsolatingForGradle() throws Exception {
+		try (var in = BeanTemplateProcessor.class.getResourceAsStream(
+				"/META-INF/gradle/incremental.annotation.processors")) {
+			assertThat(in).isNotNull();
+			assertThat(new String(in.readAllBytes()).trim())
+					.isEqualTo(BeanTemplateProcessor.class.getName() + ",isolating");
+		}
+	}
+
+	@Test
+	void keepsItsAnnotationsInClassFilesForGradle() {
+		for (Class<?> annotation : List.of(Bean.class, BeanTemplate.class, Builder.class, Lazy.class, Ordering.class,
+				Mapping.class, BeanMapper.class)) {
+			assertThat(annotation.getAnnotation(Retention.class).value()).as(annotation.getSimpleName())
+					.isEqualTo(RetentionPolicy.CLASS);
+		}
+	}
+
+	@Test
+	void cachedBeansAreReusedAcrossCompilations(@TempDir Path cacheDirectory) {
+		final Map<String, String> sources = Map.of(
+				"sample.OrderTemplate", ORDER_TEMPLATE,
+				"sample.CustomerTemplate", CUSTOMER_TEMPLATE);
+		final InMemoryCompiler compiler = new InMemoryCompiler()
+				.option(BeanTemplateProcessor.CACHE_OPTION, cacheDirectory.toString());
+
+		final InMemoryCompiler.Result first = compiler.compile(sources);
+		final InMemoryCompiler.Result second = compiler.compile(sources);
+
+		assertThat(second.isSuccess()).as(second.errors()).isTrue();
+		assertThat(notes(first)).contains("Bean source cache: 0 hits, 2 misses");
+		assertThat(notes(second)).contains("Bean source cache: 2 hits, 0 misses");
+		assertThat(second.generatedSource("sample.Order")).isEqualTo(first.generatedSource("sample.Order"));
+	}
+
+	@Test
+	void parallelRenderingWritesTheSameBeansInNameOrder() {
+		final Map<String, String> sources = new TreeMap<>();
+		for (int i = 0; i < 20; i++) {
+			sources.put("sample.Item" + i + "Template", ORDER_TEMPLATE.replace("OrderTemplate", "Item" + i + "Template"));
+		}
+
+		final InMemoryCompiler.Result serial = new InMemoryCompiler()
+				.option(BeanTemplateProcessor.PARALLELISM_OPTION, "1")
+				.compile(sources);
+		final InMemoryCompiler.Result parallel = new InMemoryCompiler()
+				.option(BeanTemplateProcessor.PARALLELISM_OPTION, "4")
+				.compile(sources);
+
+		assertThat(parallel.isSuccess()).as(parallel.errors()).isTrue();
+		assertThat(List.copyOf(parallel.generatedSourceNames())).isSorted()
+				.containsExactlyElementsOf(serial.generatedSourceNames());
+		serial.generatedSourceNames().forEach(name ->
+				assertThat(parallel.generatedSource(name)).isEqualTo(serial.generatedSource(name)));
+	}
+
+	@Test
+	void beanSettersCanBeDisabled() {
+		final InMemoryCompiler.Result result = new InMemoryCompiler().compile(Map.of(
+				"sample.CustomerTemplate", CUSTOMER_TEMPLATE,
+				"sample.ReadOnlyTemplate", CUSTOMER_TEMPLATE
+						.replace("@Bean", "@Bean(setters = false)")
+						.replace("CustomerTemplate", "ReadOnlyTemplate")));
+
+		assertThat(result.isSuccess()).as(result.errors()).isTrue();
+		assertThat(result.generatedSource("sample.Customer")).contains("public void setName(java.lang.String name)");
+		assertThat(result.generatedSource("sample.ReadOnly")).doesNotContain("setName");
+	}
+
+	@Test
+	void writesMetricsReportWhenAsked(@TempDir Path directory) throws Exception {
+		final Path report = directory.resolve("metrics.json");
+
+		final InMemoryCompiler.Result result = new InMemoryCompiler()
+				.option(BeanTemplateProcessor.METRICS_OPTION, report.toString())
+				.compile(Map.of("sample.OrderTemplate", ORDER_TEMPLATE, "sample.CustomerTemplate", CUSTOMER_TEMPLATE));
+
+		assertThat(result.isSuccess()).as(result.errors()).isTrue();
+		assertThat(notes(result)).contains("Bean templates: 2 beans in ", "2 properties");
+		assertThat(Files.readString(report))
+				.contains("\"name\": \"sample.Order\"", "\"name\": \"sample.Customer\"", "\"discoveryNanos\"",
+						"\"renderNanos\"", "\"writeNanos\"", "\"builders\": 0");
+	}
+
+	@Test
+	void compilesASyntheticCorpusEndToEnd() {
+		final Map<String, String> corpus = SyntheticTemplates.corpus(100);
+
+		final InMemoryCompiler.Result result = new InMemoryCompiler().compile(corpus);
+
+		assertThat(result.isSuccess()).as(result.errors()).isTrue();
+		assertThat(result.generatedSourceNames()).hasSize(corpus.size());
+		for (int i = 0; i < corpus.size(); i++) {
+			final String beanName = "corpus.p0.Synthetic" + i;
+			assertThat(result.classes()).containsKey(beanName);
+			assertThat(result.generatedSource(beanName).contains("toBuilder()"))
+					.as(beanName).isEqualTo(SyntheticTemplates.hasBuilder(i));
+		}
+	}
+
+	@Test
+	void packagePrivateFieldsAreOnlyInheritedWithinTheirPackage() {
+		final InMemoryCompiler.Result result = new InMemoryCompiler().compile(Map.of(
+				"a.Base", """
+						package a;
+
+						public class Base {
+							int hidden;
+							protected int shown;
+						}
+						""",
+				"a.LocalTemplate", """
+						package a;
+
+						@au.id.villar.utils.beangen.Bean
+						public class LocalTemplate extends Base {
+						}
+						""",
+				"b.ThingTemplate", """
+						package b;
+
+						@au.id.villar.utils.beangen.Bean
+						public class ThingTemplate extends a.Base {
+						}
+						""",
+				"a.GeneratedBaseTemplate", """
+						package a;
+
+						@au.id.villar.utils.beangen.Bean
+						public class GeneratedBaseTemplate {
+							int hidden;
+							protected int shown;
+						}
+						""",
+				"b.OtherThingTemplate", """
+						package b;
+
+						@au.id.villar.utils.beangen.Bean
+						public class OtherThingTemplate extends a.GeneratedBase {
+						}
+						"""));
+
+		assertThat(result.isSuccess()).as(result.errors()).isTrue();
+		assertThat(result.generatedSource("a.Local")).contains("hidden", "shown");
+		assertThat(result.generatedSource("b.Thing")).contains("shown").doesNotContain("hidden");
+		assertThat(result.generatedSource("b.OtherThing")).contains("shown").doesNotContain("hidden");
+	}
+
+	private static String notes(InMemoryCompiler.Result result) {
+		return result.getDiagnostics().stream()
+				.filter(d -> d.getKind() == Diagnostic.Kind.NOTE)
+				.map(d -> d.getMessage(Locale.ROOT))
+				.reduce("", String::concat);
+	}
 }
@@ -0,0 +1,79 @@
+package au.id.villar.utils.beangen;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import au.id.villar.utils.beangen.runtime.BinaryCodec;
+import au.id.villar.utils.beangen.runtime.BinaryCodecException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+class BinaryCodecWriterTest {
+
+	@Test
+	void binaryCodecReadsSinglePropertiesAndWholeBeans() {
+		final Passenger<String> passenger = new Passenger<>(7, "Ada \u00e9", null, new BigDecimal("-1815.50"),
+				new int[] {1, 2}, List.of("x", "y"));
+		passenger.setInheritedField(3);
+		final PassengerBinaryCodec codec = PassengerBinaryCodec.INSTANCE;
+		final ByteBuffer buffer = ByteBuffer.allocateDirect(2 * codec.sizeOf(passenger) + 3).position(3);
+
+		codec.write(passenger, buffer);
+		codec.write(passenger, buffer);
+
+		assertThat(buffer.position()).isEqualTo(2 * codec.sizeOf(passenger) + 3);
+		final int second = 3 + codec.sizeOf(passenger);
+		assertThat(codec.readFare(buffer, second)).isEqualTo("-1815.50");
+		assertThat(codec.readLastName(buffer, second)).isNull();
+		assertThat(codec.readNotes(buffer, second)).containsExactly("x", "y");
+		assertThat(codec.readInheritedField(buffer, second)).isEqualTo(3);
+		assertThat(codec.read(buffer.position(second))).isEqualTo(passenger);
+		assertThat(buffer.position()).isEqualTo(second + codec.sizeOf(passenger));
+		assertThat(codec.fromBytes(codec.toBytes(passenger))).isEqualTo(passenger);
+	}
+
+	@Test
+	void binaryCodecRejectsRecordsOfAnotherSchema() throws Exception {
+		final InMemoryCompiler.Result result = new InMemoryCompiler().compile(Map.of("sample.OrderTemplate", """
+				package sample;
+
+				@au.id.villar.utils.beangen.BeanTemplate(binaryCodec = true, noArgsConstructor = true)
+				public class OrderTemplate {
+					protected int number;
+					protected Long total;
+				}
+				"""));
+
+		assertThat(result.isSuccess()).as(result.errors()).isTrue();
+
+		final ClassLoader classLoader = result.classLoader();
+		@SuppressWarnings("unchecked")
+		final BinaryCodec<Object> codec = (BinaryCodec<Object>) classLoader.loadClass("sample.OrderBinaryCodec")
+				.getField("INSTANCE").get(null);
+		final byte[] order = codec.toBytes(classLoader.loadClass("sample.Order").getConstructor().newInstance());
+
+		assertThat(codec.toBytes(codec.fromBytes(order))).isEqualTo(order);
+		assertThatThrownBy(() -> PassengerBinaryCodec.INSTANCE.fromBytes(order))
+				.isInstanceOf(BinaryCodecException.class)
+				.hasMessageContaining("schema hash " + Integer.toHexString(codec.schemaHash()));
+	}
+
+	@Test
+	void binaryCodecRejectsUnsupportedProperties() {
+		final InMemoryCompiler.Result result = new InMemoryCompiler().compile(Map.of("sample.CrewTemplate", """
+				package sample;
+
+				@au.id.villar.utils.beangen.BeanTemplate(binaryCodec = true)
+				public class CrewTemplate {
+					protected java.util.List<Thread> workers;
+				}
+				"""));
+
+		assertThat(result.isSuccess()).isFalse();
+		assertThat(result.errors()).contains(
+				"binaryCodec doesn't support property workers of type java.util.List<java.lang.Thread>");
+	}
+}
@@ -0,0 +1,43 @@
+package au.id.villar.utils.beangen;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class ColumnsWriterTest {
+
+	@Test
+	void columnsHoldBeansAsOneArrayPerProperty() {
+		final List<Subscriber<String>> subscribers = new ArrayList<>();
+		for (int i = 0; i < 20; i++) {
+			final Subscriber<String> subscriber = new Subscriber<>(i, "Given" + i, "Last" + i, List.of("x" + i));
+			subscriber.setInheritedField(-i);
+			subscribers.add(subscriber);
+		}
+
+		final SubscriberColumns<String> columns = SubscriberColumns.of(subscribers.subList(0, 10));
+		subscribers.subList(10, 20).forEach(columns::add);
+
+		assertThat(columns.size()).isEqualTo(20);
+		assertThat(columns.idColumn()).startsWith(0, 1, 2);
+		assertThat(columns.getGivenName(19)).isEqualTo("Given19");
+		assertThat(columns.getTopics(3)).containsExactly("x3");
+		assertThat(columns.toList()).isEqualTo(subscribers);
+		assertThatThrownBy(() -> columns.get(20)).isInstanceOf(IndexOutOfBoundsException.class);
+
+		final SubscriberColumns<String>.Cursor cursor = columns.cursor();
+		int inheritedSum = 0;
+		while (cursor.next()) {
+			inheritedSum += cursor.getInheritedField();
+		}
+		assertThat(inheritedSum).isEqualTo(-190);
+		assertThat(cursor.moveTo(5).getLastName()).isEqualTo("Last5");
+
+		columns.clear();
+		assertThat(columns.size()).isZero();
+		assertThat(columns.givenNameColumn()).containsOnlyNulls();
+	}
+}
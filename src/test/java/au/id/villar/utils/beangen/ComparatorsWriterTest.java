@@ -0,0 +1,62 @@
+package au.id.villar.utils.beangen;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.Test;
+
+class ComparatorsWriterTest {
+
+	@Test
+	void comparatorsOrderBeansByPropertiesOrderingsAndSortKeys() {
+		final Random random = new Random(7);
+		final String[] names = {null, "", "Ada", "Adalbert", "Adalberta", "Grace", "Gr", "\u00c9mile"};
+		final List<Author> people = new ArrayList<>();
+		for (int i = 0; i < 500; i++) {
+			people.add(new Author(random.nextInt(200) - 100, names[random.nextInt(names.length)],
+					names[random.nextInt(names.length)]));
+		}
+		final Comparator<String> nullsFirst = Comparator.nullsFirst(Comparator.naturalOrder());
+
+		final List<Author> byFullName = new ArrayList<>(people);
+		byFullName.sort(AuthorComparators.BY_FULL_NAME);
+		final List<Author> expected = new ArrayList<>(people);
+		expected.sort(Comparator.comparing((Author p) -> p.getLastName(), nullsFirst)
+				.thenComparing(Author::getGivenName, nullsFirst)
+				.thenComparing(Author::getId, Comparator.reverseOrder()));
+		assertThat(byFullName).containsExactlyElementsOf(expected);
+
+		final List<Author> byGivenName = new ArrayList<>(people);
+		byGivenName.sort(AuthorComparators.BY_GIVEN_NAME);
+		assertThat(IntStream.of(AuthorComparators.sortedIndicesByGivenName(people)).mapToObj(people::get))
+				.containsExactlyElementsOf(byGivenName);
+		final List<Author> byId = new ArrayList<>(people);
+		byId.sort(AuthorComparators.BY_ID);
+		assertThat(IntStream.of(AuthorComparators.sortedIndicesById(people)).mapToObj(people::get))
+				.containsExactlyElementsOf(byId);
+		assertThat(AuthorComparators.sortKeyOfId(people.get(0))).isEqualTo(people.get(0).getId());
+	}
+
+	@Test
+	void orderingsMustCompareComparableProperties() {
+		final InMemoryCompiler.Result result = new InMemoryCompiler().compile(Map.of("sample.JobTemplate", """
+				package sample;
+
+				@au.id.villar.utils.beangen.Ordering(name = "byWorker", properties = {"-number", "worker"})
+				@au.id.villar.utils.beangen.BeanTemplate(comparators = true)
+				public class JobTemplate {
+					protected int number;
+					protected Thread worker;
+				}
+				"""));
+
+		assertThat(result.isSuccess()).isFalse();
+		assertThat(result.errors()).contains(
+				"ordering byWorker can't compare worker, which isn't a comparable property with a getter");
+	}
+}
@@ -0,0 +1,138 @@
+package au.id.villar.utils.beangen;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.DoubleUnaryOperator;
+import java.util.function.IntUnaryOperator;
+import java.util.function.LongUnaryOperator;
+import java.util.function.UnaryOperator;
+import org.junit.jupiter.api.Test;
+
+class ConcurrentBeanTest {
+
+	@Test
+	void concurrentBeansUpdatePropertiesAtomically() throws Exception {
+		final InMemoryCompiler.Result result = new InMemoryCompiler().compile(Map.of("sample.CounterTemplate", """
+				package sample;
+
+				@au.id.villar.utils.beangen.Bean(concurrent = true)
+				public class CounterTemplate {
+					protected long hits;
+					protected short level;
+					protected double load;
+					protected boolean open;
+					protected java.util.List<String> owners = java.util.List.of();
+					protected final String name = "counter";
+				}
+				"""));
+
+		assertThat(result.isSuccess()).as(result.errors()).isTrue();
+		assertThat(result.generatedSource("sample.Counter")).contains("HITS_HANDLE.getAcquire(this)")
+				.contains("HITS_HANDLE.setRelease(this, hits)")
+				.doesNotContain("getAndAddOpen", "getAndAddOwners", "NAME_HANDLE", "compareAndSetName");
+
+		final Class<?> counterClass = result.classLoader().loadClass("sample.Counter");
+		final Object counter = counterClass.getConstructor().newInstance();
+		final Method getAndAddHits = counterClass.getMethod("getAndAddHits", long.class);
+		final Method updateOwners = counterClass.getMethod("updateOwners", UnaryOperator.class);
+		final UnaryOperator<List<String>> addOwner = owners -> {
+			final List<String> updated = new ArrayList<>(owners);
+			updated.add(Thread.currentThread().getName());
+			return updated;
+		};
+
+		final List<Thread> threads = new ArrayList<>();
+		for (int i = 0; i < 4; i++) {
+			threads.add(new Thread(() -> {
+				try {
+					for (int j = 0; j < 2_000; j++) {
+						getAndAddHits.invoke(counter, 1L);
+					}
+					updateOwners.invoke(counter, addOwner);
+				} catch (ReflectiveOperationException e) {
+					throw new IllegalStateException(e);
+				}
+			}, "worker" + i));
+		}
+		threads.forEach(Thread::start);
+		for (Thread thread : threads) {
+			thread.join();
+		}
+
+		assertThat(counterClass.getMethod("getHits").invoke(counter)).isEqualTo(8_000L);
+		@SuppressWarnings("unchecked")
+		final List<Object> owners = (List<Object>) counterClass.getMethod("getOwners").invoke(counter);
+		assertThat(owners).containsExactlyInAnyOrder("worker0", "worker1", "worker2", "worker3");
+
+		assertThat(counterClass.getMethod("compareAndSetLevel", short.class, short.class)
+				.invoke(counter, (short) 1, (short) 2)).isEqualTo(false);
+		assertThat(counterClass.getMethod("compareAndSetLevel", short.class, short.class)
+				.invoke(counter, (short) 0, (short) 2)).isEqualTo(true);
+		assertThat(counterClass.getMethod("getAndAddLevel", short.class).invoke(counter, (short) 3))
+				.isEqualTo((short) 2);
+		assertThat(counterClass.getMethod("updateLevel", IntUnaryOperator.class)
+				.invoke(counter, (IntUnaryOperator) level -> level * 10)).isEqualTo((short) 50);
+		assertThat(counterClass.getMethod("updateLoad", DoubleUnaryOperator.class)
+				.invoke(counter, (DoubleUnaryOperator) load -> load + 0.5)).isEqualTo(0.5);
+		assertThat(counterClass.getMethod("updateOpen", UnaryOperator.class)
+				.invoke(counter, (UnaryOperator<Boolean>) open -> !open)).isEqualTo(true);
+		counterClass.getMethod("setHits", long.class).invoke(counter, 3L);
+		assertThat(counterClass.getMethod("getHits").invoke(counter)).isEqualTo(3L);
+	}
+
+	@Test
+	void concurrentBeansUpdatePropertiesNamedLikeTheirAtomicMethodsVariables() throws Exception {
+		final InMemoryCompiler.Result result = new InMemoryCompiler().compile(Map.of("sample.ClashTemplate", """
+				package sample;
+
+				@au.id.villar.utils.beangen.Bean(concurrent = true)
+				public class ClashTemplate {
+					protected int expected;
+					protected int delta;
+					protected long operator;
+					protected int current;
+					protected String next;
+				}
+				"""));
+
+		assertThat(result.isSuccess()).as(result.errors()).isTrue();
+
+		final Class<?> clashClass = result.classLoader().loadClass("sample.Clash");
+		final Object clash = clashClass.getConstructor().newInstance();
+
+		assertThat(clashClass.getMethod("compareAndSetExpected", int.class, int.class).invoke(clash, 0, 5))
+				.isEqualTo(true);
+		assertThat(clashClass.getMethod("compareAndSetExpected", int.class, int.class).invoke(clash, 0, 6))
+				.isEqualTo(false);
+		assertThat(clashClass.getMethod("getExpected").invoke(clash)).isEqualTo(5);
+		assertThat(clashClass.getMethod("getAndAddDelta", int.class).invoke(clash, 3)).isEqualTo(0);
+		assertThat(clashClass.getMethod("getAndAddDelta", int.class).invoke(clash, 3)).isEqualTo(3);
+		clashClass.getMethod("updateOperator", LongUnaryOperator.class)
+				.invoke(clash, (LongUnaryOperator) v -> v + 7);
+		assertThat(clashClass.getMethod("getOperator").invoke(clash)).isEqualTo(7L);
+		assertThat(clashClass.getMethod("updateCurrent", IntUnaryOperator.class)
+				.invoke(clash, (IntUnaryOperator) v -> v - 1)).isEqualTo(-1);
+		assertThat(clashClass.getMethod("updateNext", UnaryOperator.class)
+				.invoke(clash, (UnaryOperator<String>) v -> v + "!")).isEqualTo("null!");
+	}
+
+	@Test
+	void concurrentEntitiesCantTrackDirtyProperties() {
+		final InMemoryCompiler.Result result = new InMemoryCompiler().compile(Map.of("sample.GaugeTemplate", """
+				package sample;
+
+				@au.id.villar.utils.beangen.BeanTemplate(concurrent = true, dirtyTracking = true)
+				public class GaugeTemplate {
+					protected int level;
+				}
+				"""));
+
+		assertThat(result.isSuccess()).isFalse();
+		assertThat(result.errors())
+				.contains("concurrent can't be combined with dirtyTracking, whose masks aren't updated atomically");
+	}
+}
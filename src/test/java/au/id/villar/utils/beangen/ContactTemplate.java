@@ -0,0 +1,23 @@
+package au.id.villar.utils.beangen;
+
+import java.math.BigDecimal;
+
+@BeanTemplate(query = true)
+public class ContactTemplate {
+
+	protected int id;
+
+	protected String givenName;
+
+	protected String lastName;
+
+	protected BigDecimal amount;
+
+	@Builder
+	public ContactTemplate(int id, String givenName, String lastName, BigDecimal amount) {
+		this.id = id;
+		this.givenName = givenName;
+		this.lastName = lastName;
+		this.amount = amount;
+	}
+}
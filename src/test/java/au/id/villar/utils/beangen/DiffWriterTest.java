@@ -0,0 +1,149 @@
+package au.id.villar.utils.beangen;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import au.id.villar.utils.beangen.runtime.BeanDiff;
+import au.id.villar.utils.beangen.runtime.BeanPatch;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InvalidObjectException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.math.BigDecimal;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+class DiffWriterTest {
+
+	@Test
+	void diffsPatchTheChangedPropertiesOnly() throws Exception {
+		final Parcel from = new Parcel(7, "Paris", BigDecimal.TEN, new int[] {1, 2, 3});
+		final Parcel to = new Parcel(7, "Lyon", BigDecimal.TEN, new int[] {1, 2, 4});
+		final ParcelDiff diff = ParcelDiff.INSTANCE;
+
+		assertThat(diff.diff(from, new Parcel(7, "Paris", BigDecimal.TEN, new int[] {1, 2, 3})).isEmpty()).isTrue();
+
+		final BeanPatch patch = diff.diff(from, to);
+		assertThat(patch.size()).isEqualTo(2);
+		assertThat(ParcelAccessor.INSTANCE.propertyName(patch.index(0))).isEqualTo("destination");
+		assertThat(ParcelAccessor.INSTANCE.propertyName(patch.index(1))).isEqualTo("items");
+
+		diff.apply(from, readPatch(diff, writePatch(diff, patch)));
+		assertThat(from).isEqualTo(to);
+
+		final BeanPatch stale = new BeanPatch.Builder(ParcelDiff.SCHEMA_HASH + 1, 0).build();
+		assertThatThrownBy(() -> diff.apply(to, stale)).isInstanceOf(IllegalArgumentException.class);
+		final ByteArrayOutputStream staleBytes = new ByteArrayOutputStream();
+		try (ObjectOutputStream out = new ObjectOutputStream(staleBytes)) {
+			out.writeInt(ParcelDiff.SCHEMA_HASH + 1);
+			out.writeInt(0);
+		}
+		assertThatThrownBy(() -> readPatch(diff, staleBytes.toByteArray()))
+				.isInstanceOf(InvalidObjectException.class);
+	}
+
+	@Test
+	void diffsKeepPrimitivesUnboxedThroughPatches() throws Exception {
+		final InMemoryCompiler.Result result = new InMemoryCompiler().compile(Map.of("sample.MeasureTemplate", """
+				package sample;
+
+				@au.id.villar.utils.beangen.Bean(diff = true, noArgsConstructor = true)
+				public class MeasureTemplate {
+					protected boolean active;
+					protected char grade;
+					protected short rank;
+					protected long stamp;
+					protected float ratio;
+					protected double weight;
+					protected Integer visits;
+					protected double[] samples;
+					protected String[][] tags;
+					protected final transient String kind = "measure";
+				}
+				"""));
+
+		assertThat(result.isSuccess()).as(result.errors()).isTrue();
+
+		final ClassLoader classLoader = result.classLoader();
+		final Class<?> measureClass = classLoader.loadClass("sample.Measure");
+		@SuppressWarnings("unchecked")
+		final BeanDiff<Object> diff = (BeanDiff<Object>) classLoader.loadClass("sample.MeasureDiff")
+				.getField("INSTANCE").get(null);
+		final Object from = measureClass.getConstructor().newInstance();
+		final Object to = measureClass.getConstructor().newInstance();
+		measureClass.getMethod("setActive", boolean.class).invoke(to, true);
+		measureClass.getMethod("setGrade", char.class).invoke(to, '\u00e9');
+		measureClass.getMethod("setRank", short.class).invoke(to, (short) -3);
+		measureClass.getMethod("setStamp", long.class).invoke(to, Long.MIN_VALUE);
+		measureClass.getMethod("setRatio", float.class).invoke(to, -0.5F);
+		measureClass.getMethod("setWeight", double.class).invoke(to, Double.NaN);
+		measureClass.getMethod("setVisits", Integer.class).invoke(to, 3);
+		measureClass.getMethod("setSamples", double[].class).invoke(to, (Object) new double[] {1.5});
+		measureClass.getMethod("setTags", String[][].class).invoke(to, (Object) new String[][] {{"a"}, {null}});
+
+		final BeanPatch patch = diff.diff(from, to);
+		assertThat(patch.size()).isEqualTo(9);
+		assertThat(diff.diff(to, to).isEmpty()).isTrue();
+
+		diff.apply(from, readPatch(diff, writePatch(diff, patch)));
+		assertThat(from).isEqualTo(to);
+
+		measureClass.getMethod("setVisits", Integer.class).invoke(to, (Object) null);
+		final BeanPatch nulled = readPatch(diff, writePatch(diff, diff.diff(from, to)));
+		assertThat(nulled.size()).isEqualTo(1);
+		diff.apply(from, nulled);
+		assertThat(measureClass.getMethod("getVisits").invoke(from)).isNull();
+	}
+
+	@Test
+	void diffsNeedPropertiesTheyCanPatch() {
+		final InMemoryCompiler.Result result = new InMemoryCompiler().compile(Map.of(
+				"sample.RateTemplate", """
+						package sample;
+
+						@au.id.villar.utils.beangen.Bean(immutable = true, diff = true)
+						public class RateTemplate {
+							protected final long basisPoints = 0;
+						}
+						""",
+				"sample.StockTemplate", """
+						package sample;
+
+						@au.id.villar.utils.beangen.Bean(diff = true)
+						public class StockTemplate {
+							protected final String code = "";
+							protected int quantity;
+						}
+						""",
+				"sample.CacheTemplate", """
+						package sample;
+
+						@au.id.villar.utils.beangen.Bean(diff = true)
+						public class CacheTemplate {
+							protected transient int hits;
+						}
+						"""));
+
+		assertThat(result.isSuccess()).isFalse();
+		assertThat(result.errors())
+				.contains("diff can't patch immutable beans, which have no setters")
+				.contains("diff can only patch properties with a getter and a setter, so these must be transient: code")
+				.contains("diff needs at least one property to patch");
+	}
+
+	private static <B> byte[] writePatch(BeanDiff<B> diff, BeanPatch patch) throws IOException {
+		final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+			diff.write(patch, out);
+		}
+		return bytes.toByteArray();
+	}
+
+	private static <B> BeanPatch readPatch(BeanDiff<B> diff, byte[] bytes) throws Exception {
+		try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+			return diff.read(in);
+		}
+	}
+}
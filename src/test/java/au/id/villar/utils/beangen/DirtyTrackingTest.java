@@ -0,0 +1,32 @@
+package au.id.villar.utils.beangen;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.math.BigDecimal;
+import org.junit.jupiter.api.Test;
+
+class DirtyTrackingTest {
+
+	@Test
+	void dirtyTrackingEntitiesRecordWhichPropertiesWereSet() {
+		final Profile profile = new Profile(1, "Ada", "Lovelace", BigDecimal.TEN);
+
+		assertThat(profile.isDirty()).isFalse();
+
+		profile.setGivenName("Augusta");
+		profile.setLastName("Byron");
+		profile.setInheritedField(3);
+
+		assertThat(profile.isDirty()).isTrue();
+		assertThat(profile.dirtyProperties()).containsExactly("givenName", "lastName");
+		assertThat(profile.isDirty("amount")).isFalse();
+		assertThatThrownBy(() -> profile.isDirty("kind")).isInstanceOf(IllegalArgumentException.class);
+
+		profile.clearDirty();
+		assertThat(profile.isDirty()).isFalse();
+
+		Profile.builder().from(profile).amount(BigDecimal.ONE).buildInto(profile);
+		assertThat(profile.dirtyProperties()).containsExactly("id", "givenName", "lastName", "amount");
+	}
+}
@@ -0,0 +1,34 @@
+package au.id.villar.utils.beangen;
+
+import java.math.BigDecimal;
+import javax.persistence.Column;
+import javax.persistence.Id;
+import javax.persistence.Table;
+
+@Table(name = "STAFF")
+@BeanTemplate(jdbcMapper = true, dirtyTracking = true)
+public class EmployeeTemplate {
+
+	@Id
+	@Column(name = "STAFF_ID", nullable = false)
+	protected int id;
+
+	@Column(name = "NAME", nullable = false)
+	protected String givenName;
+
+	@Column(name = "SURNAME", nullable = false)
+	protected String lastName;
+
+	@Column(name = "SALARY")
+	protected BigDecimal salary;
+
+	protected int[] scores;
+
+	@Builder
+	public EmployeeTemplate(int id, String givenName, String lastName, BigDecimal salary) {
+		this.id = id;
+		this.givenName = givenName;
+		this.lastName = lastName;
+		this.salary = salary;
+	}
+}
@@ -0,0 +1,142 @@
+package au.id.villar.utils.beangen;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamClass;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+class ExternalizableBeanTest {
+
+	@Test
+	void externalizableBeansRoundTripThroughJavaSerialization() throws Exception {
+		final InMemoryCompiler.Result result = new InMemoryCompiler().compile(Map.of(
+				"sample.SessionBase", """
+						package sample;
+
+						public class SessionBase {
+							protected byte[] token;
+
+							public byte[] getToken() {
+								return token;
+							}
+						}
+						""",
+				"sample.SessionTemplate", """
+						package sample;
+
+						@au.id.villar.utils.beangen.Bean(externalizable = true, noArgsConstructor = true)
+						public class SessionTemplate<T> extends SessionBase {
+							protected long id;
+							protected Integer visits;
+							protected String user;
+							protected int[] scores;
+							protected java.util.List<T> items;
+							@au.id.villar.utils.beangen.Lazy
+							protected int size;
+							protected transient int cache;
+							protected final transient String kind = "session";
+
+							protected SessionTemplate() {
+							}
+
+							public SessionTemplate(long id, String user, byte[] token) {
+								this.id = id;
+								this.user = user;
+								this.token = token;
+							}
+
+							protected int computeSize() {
+								return items == null ? 0 : items.size();
+							}
+						}
+						"""));
+
+		assertThat(result.isSuccess()).as(result.errors()).isTrue();
+
+		final ClassLoader classLoader = result.classLoader();
+		final Class<?> sessionClass = classLoader.loadClass("sample.Session");
+		final Object session = sessionClass.getConstructor(long.class, String.class, byte[].class)
+				.newInstance(7L, "x".repeat(70_000) + "\u00e9", new byte[] {1, 2, 3});
+		sessionClass.getMethod("setScores", int[].class).invoke(session, new int[] {4, 5});
+		sessionClass.getMethod("setItems", List.class).invoke(session, new ArrayList<>(List.of("a", "b")));
+
+		final Object copy = deserialize(classLoader, serialize(session));
+
+		assertThat(copy).isEqualTo(session);
+		assertThat(sessionClass.getMethod("getVisits").invoke(copy)).isNull();
+		assertThat(sessionClass.getMethod("getToken").invoke(copy)).isEqualTo(new byte[] {1, 2, 3});
+		assertThat(sessionClass.getMethod("getSize").invoke(copy)).isEqualTo(2);
+		assertThat(sessionClass.getMethod("getKind").invoke(copy)).isEqualTo("session");
+
+		sessionClass.getMethod("setCache", int.class).invoke(session, 42);
+		assertThat(sessionClass.getMethod("getCache").invoke(deserialize(classLoader, serialize(session))))
+				.isEqualTo(0);
+
+		final Object empty = sessionClass.getConstructor().newInstance();
+		sessionClass.getMethod("setVisits", Integer.class).invoke(empty, 3);
+		assertThat(deserialize(classLoader, serialize(empty))).isEqualTo(empty);
+	}
+
+	@Test
+	void externalizableBeansNeedAPublicNoArgsConstructor() {
+		final InMemoryCompiler.Result result = new InMemoryCompiler().compile(Map.of("sample.TicketTemplate", """
+				package sample;
+
+				@au.id.villar.utils.beangen.Bean(externalizable = true)
+				public class TicketTemplate {
+					protected int number;
+
+					public TicketTemplate(int number) {
+						this.number = number;
+					}
+				}
+				"""));
+
+		assertThat(result.isSuccess()).isFalse();
+		assertThat(result.errors()).contains("externalizable needs a public no-args constructor");
+	}
+
+	@Test
+	void externalizableBeansCantHaveFinalPropertiesToReadBack() {
+		final InMemoryCompiler.Result result = new InMemoryCompiler().compile(Map.of("sample.TicketTemplate", """
+				package sample;
+
+				@au.id.villar.utils.beangen.Bean(externalizable = true)
+				public class TicketTemplate {
+					protected final String id = "";
+					protected int number;
+				}
+				"""));
+
+		assertThat(result.isSuccess()).isFalse();
+		assertThat(result.errors()).contains(
+				"externalizable can't read back final properties, so they must be transient, but these aren't: id");
+	}
+
+	private static byte[] serialize(Object object) throws IOException {
+		final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+			out.writeObject(object);
+		}
+		return bytes.toByteArray();
+	}
+
+	private static Object deserialize(ClassLoader classLoader, byte[] bytes) throws Exception {
+		try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes)) {
+			@Override
+			protected Class<?> resolveClass(ObjectStreamClass description) throws ClassNotFoundException {
+				return Class.forName(description.getName(), false, classLoader);
+			}
+		}) {
+			return in.readObject();
+		}
+	}
+}
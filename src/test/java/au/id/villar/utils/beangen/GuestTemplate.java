@@ -0,0 +1,32 @@
+package au.id.villar.utils.beangen;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+@BeanTemplate(jsonCodec = true)
+public class GuestTemplate<T> extends SuperTestingBean {
+
+	protected int id;
+
+	protected String givenName;
+
+	protected String lastName;
+
+	protected BigDecimal bill;
+
+	protected int[] rooms;
+
+	protected List<T> requests;
+
+	protected final String kind = "guest";
+
+	@Builder
+	public GuestTemplate(int id, String givenName, String lastName, BigDecimal bill, int[] rooms, List<T> requests) {
+		this.id = id;
+		this.givenName = givenName;
+		this.lastName = lastName;
+		this.bill = bill;
+		this.rooms = rooms;
+		this.requests = requests;
+	}
+}
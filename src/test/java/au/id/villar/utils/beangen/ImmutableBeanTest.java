@@ -0,0 +1,79 @@
+package au.id.villar.utils.beangen;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+class ImmutableBeanTest {
+
+	@Test
+	void immutableBeansGetWithersAndAHashComputedOnConstruction() throws Exception {
+		final InMemoryCompiler.Result result = new InMemoryCompiler().compile(Map.of("sample.RateTemplate", """
+				package sample;
+
+				@au.id.villar.utils.beangen.Bean(immutable = true)
+				public class RateTemplate {
+					protected final String currency;
+					protected final long basisPoints;
+
+					@au.id.villar.utils.beangen.Builder
+					public RateTemplate(String currency, long basisPoints) {
+						this.currency = currency;
+						this.basisPoints = basisPoints;
+					}
+				}
+				"""));
+
+		assertThat(result.isSuccess()).as(result.errors()).isTrue();
+		assertThat(result.generatedSource("sample.Rate"))
+				.contains("public final class Rate", "private final int cachedHashCode;")
+				.doesNotContain("public void set");
+
+		final Class<?> rateClass = result.classLoader().loadClass("sample.Rate");
+		final Object rate = rateClass.getConstructor(String.class, long.class).newInstance("AUD", 250L);
+		final Object changed = rateClass.getMethod("withBasisPoints", long.class).invoke(rate, 300L);
+
+		assertThat(rateClass.getMethod("withBasisPoints", long.class).invoke(rate, 250L)).isSameAs(rate);
+		assertThat(changed).hasToString("Rate{currency=AUD, basisPoints=300}");
+		assertThat(rate).hasToString("Rate{currency=AUD, basisPoints=250}")
+				.hasSameHashCodeAs(rateClass.getConstructor(String.class, long.class).newInstance("AUD", 250L));
+	}
+
+	@Test
+	void immutableBuilderParametersMustBeNamedAfterProperties() {
+		final InMemoryCompiler.Result result = new InMemoryCompiler().compile(Map.of("sample.RateTemplate", """
+				package sample;
+
+				@au.id.villar.utils.beangen.Bean(immutable = true)
+				public class RateTemplate {
+					protected final long basisPoints;
+
+					@au.id.villar.utils.beangen.Builder
+					public RateTemplate(long points) {
+						this.basisPoints = points;
+					}
+				}
+				"""));
+
+		assertThat(result.isSuccess()).isFalse();
+		assertThat(result.errors())
+				.contains("immutable writes a wither per @Builder parameter, but points isn't named after a property");
+	}
+
+	@Test
+	void immutableBeansNeedFinalProperties() {
+		final InMemoryCompiler.Result result = new InMemoryCompiler().compile(Map.of("sample.RateTemplate", """
+				package sample;
+
+				@au.id.villar.utils.beangen.Bean(immutable = true)
+				public class RateTemplate {
+					protected final String currency = "AUD";
+					protected String name;
+				}
+				"""));
+
+		assertThat(result.isSuccess()).isFalse();
+		assertThat(result.errors()).contains("immutable needs all properties to be final, but these aren't: name");
+	}
+}
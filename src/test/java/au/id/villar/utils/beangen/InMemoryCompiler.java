@@ -0,0 +1,354 @@
+package au.id.villar.utils.beangen;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import javax.annotation.processing.Filer;
+import javax.annotation.processing.Messager;
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.annotation.processing.Processor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.util.Elements;
+import javax.lang.model.util.Types;
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.FileObject;
+import javax.tools.ForwardingJavaFileManager;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileManager;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.ToolProvider;
+
+/** Test helper that runs {@link BeanTemplateProcessor} through {@link JavaCompiler} without touching the disk. */
+class InMemoryCompiler {
+
+	private final List<String> options = new ArrayList<>();
+	private final List<String> classpath = new ArrayList<>(List.of(System.getProperty("java.class.path")));
+
+	InMemoryCompiler option(String name, String value) {
+		options.add("-A" + name + "=" + value);
+		return this;
+	}
+
+	/** Compiles against the classes in a directory too, as written by {@link Result#writeClasses(Path)}. */
+	InMemoryCompiler classpath(Path directory) {
+		classpath.add(directory.toString());
+		return this;
+	}
+
+	Result compile(Map<String, String> sources) {
+		return compile(sources, new BeanTemplateProcessor());
+	}
+
+	Result compile(Map<String, String> sources, Processor processor) {
+		final JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+		final DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+		final Result result = new Result();
+
+		try (MemoryFileManager fileManager = new MemoryFileManager(
+				compiler.getStandardFileManager(diagnostics, Locale.ROOT, StandardCharsets.UTF_8), result)) {
+
+			final List<JavaFileObject> units = sources.entrySet().stream()
+					.map(e -> (JavaFileObject) new SourceFile(e.getKey(), e.getValue()))
+					.toList();
+			final List<String> compilerOptions = new ArrayList<>(options);
+			compilerOptions.addAll(List.of("-classpath", String.join(File.pathSeparator, classpath)));
+
+			final JavaCompiler.CompilationTask task
+					= compiler.getTask(null, fileManager, diagnostics, compilerOptions, null, units);
+			task.setProcessors(List.of(new RecordingProcessor(processor, result)));
+			result.success = task.call();
+		} catch (IOException e) {
+			throw new AssertionError(e);
+		}
+
+		result.diagnostics.addAll(diagnostics.getDiagnostics());
+		return result;
+	}
+
+	static class Result {
+
+		private boolean success;
+		private final List<Diagnostic<? extends JavaFileObject>> diagnostics = new ArrayList<>();
+		private final Map<String, StringWriter> generatedSources = new LinkedHashMap<>();
+		private final Map<String, ByteArrayOutputStream> classes = new LinkedHashMap<>();
+		private final Map<String, List<String>> originatingElements = new LinkedHashMap<>();
+
+		boolean isSuccess() {
+			return success;
+		}
+
+		List<Diagnostic<? extends JavaFileObject>> getDiagnostics() {
+			return diagnostics;
+		}
+
+		Set<String> generatedSourceNames() {
+			return generatedSources.keySet();
+		}
+
+		String generatedSource(String qualifiedName) {
+			final StringWriter source = generatedSources.get(qualifiedName);
+			return source != null ? source.toString() : null;
+		}
+
+		long generatedBytes() {
+			return generatedSources.values().stream()
+					.mapToLong(s -> s.toString().getBytes(StandardCharsets.UTF_8).length)
+					.sum();
+		}
+
+		Map<String, byte[]> classes() {
+			final Map<String, byte[]> result = new LinkedHashMap<>();
+			classes.forEach((name, bytes) -> result.put(name, bytes.toByteArray()));
+			return result;
+		}
+
+		/** Writes the compiled classes to a directory, as a build would leave them for the next compilation. */
+		void writeClasses(Path directory) throws IOException {
+			for (Map.Entry<String, byte[]> entry : classes().entrySet()) {
+				final Path file = directory.resolve(entry.getKey().replace('.', '/')
+						+ JavaFileObject.Kind.CLASS.extension);
+				Files.createDirectories(file.getParent());
+				Files.write(file, entry.getValue());
+			}
+		}
+
+		/** Loads the compiled classes, generated beans included, in a class loader of their own. */
+		ClassLoader classLoader() {
+			final Map<String, byte[]> compiled = classes();
+			return new ClassLoader(InMemoryCompiler.class.getClassLoader()) {
+				@Override
+				protected Class<?> findClass(String name) throws ClassNotFoundException {
+					final byte[] bytes = compiled.get(name);
+					if (bytes == null) {
+						throw new ClassNotFoundException(name);
+					}
+					return defineClass(name, bytes, 0, bytes.length);
+				}
+			};
+		}
+
+		/** Qualified names of the elements passed as originating elements when creating each generated source. */
+		List<String> originatingElementsOf(String qualifiedName) {
+			return originatingElements.get(qualifiedName);
+		}
+
+		String errors() {
+			return diagnostics.stream()
+					.filter(d -> d.getKind() == Diagnostic.Kind.ERROR)
+					.map(d -> d.getMessage(Locale.ROOT))
+					.reduce("", (a, b) -> a + b + System.lineSeparator());
+		}
+	}
+
+	private static class SourceFile extends SimpleJavaFileObject {
+
+		private final String content;
+
+		SourceFile(String qualifiedName, String content) {
+			super(URI.create("string:///" + qualifiedName.replace('.', '/') + Kind.SOURCE.extension), Kind.SOURCE);
+			this.content = content;
+		}
+
+		@Override
+		public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+			return content;
+		}
+	}
+
+	private static class GeneratedSourceFile extends SimpleJavaFileObject {
+
+		private final StringWriter content;
+
+		GeneratedSourceFile(String qualifiedName, StringWriter content) {
+			super(URI.create("generated:///" + qualifiedName.replace('.', '/') + Kind.SOURCE.extension), Kind.SOURCE);
+			this.content = content;
+		}
+
+		@Override
+		public Writer openWriter() {
+			return content;
+		}
+
+		@Override
+		public OutputStream openOutputStream() {
+			return new OutputStream() {
+				@Override
+				public void write(int b) {
+					content.write(b);
+				}
+			};
+		}
+
+		@Override
+		public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+			return content.toString();
+		}
+	}
+
+	private static class ClassFile extends SimpleJavaFileObject {
+
+		private final ByteArrayOutputStream content;
+
+		ClassFile(String qualifiedName, ByteArrayOutputStream content) {
+			super(URI.create("class:///" + qualifiedName.replace('.', '/') + Kind.CLASS.extension), Kind.CLASS);
+			this.content = content;
+		}
+
+		@Override
+		public OutputStream openOutputStream() {
+			return content;
+		}
+	}
+
+	private static class MemoryFileManager extends ForwardingJavaFileManager<JavaFileManager> {
+
+		private final Result result;
+
+		MemoryFileManager(JavaFileManager fileManager, Result result) {
+			super(fileManager);
+			this.result = result;
+		}
+
+		@Override
+		public JavaFileObject getJavaFileForOutput(Location location, String className, JavaFileObject.Kind kind,
+				FileObject sibling) {
+			if (kind == JavaFileObject.Kind.CLASS) {
+				return new ClassFile(className, result.classes.computeIfAbsent(className,
+						n -> new ByteArrayOutputStream()));
+			}
+			return new GeneratedSourceFile(className, result.generatedSources.computeIfAbsent(className,
+					n -> new StringWriter()));
+		}
+	}
+
+	/** Wraps the processor under test so the {@link Filer} calls it makes can be inspected afterwards. */
+	private static class RecordingProcessor implements Processor {
+
+		private final Processor delegate;
+		private final Result result;
+
+		RecordingProcessor(Processor delegate, Result result) {
+			this.delegate = delegate;
+			this.result = result;
+		}
+
+		@Override
+		public Set<String> getSupportedOptions() {
+			return delegate.getSupportedOptions();
+		}
+
+		@Override
+		public Set<String> getSupportedAnnotationTypes() {
+			return delegate.getSupportedAnnotationTypes();
+		}
+
+		@Override
+		public SourceVersion getSupportedSourceVersion() {
+			return delegate.getSupportedSourceVersion();
+		}
+
+		@Override
+		public void init(ProcessingEnvironment processingEnv) {
+			delegate.init(new RecordingEnvironment(processingEnv, result));
+		}
+
+		@Override
+		public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+			return delegate.process(annotations, roundEnv);
+		}
+
+		@Override
+		public Iterable<? extends javax.annotation.processing.Completion> getCompletions(Element element,
+				AnnotationMirror annotation, ExecutableElement member, String userText) {
+			return delegate.getCompletions(element, annotation, member, userText);
+		}
+	}
+
+	private record RecordingEnvironment(ProcessingEnvironment delegate, Result result)
+			implements ProcessingEnvironment {
+
+		@Override
+		public Map<String, String> getOptions() {
+			return delegate.getOptions();
+		}
+
+		@Override
+		public Messager getMessager() {
+			return delegate.getMessager();
+		}
+
+		@Override
+		public Filer getFiler() {
+			final Filer filer = delegate.getFiler();
+			return new Filer() {
+				@Override
+				public JavaFileObject createSourceFile(CharSequence name, Element... originatingElements)
+						throws IOException {
+					result.originatingElements.put(name.toString(), Arrays.stream(originatingElements)
+							.map(e -> ((TypeElement) e).getQualifiedName().toString())
+							.toList());
+					return filer.createSourceFile(name, originatingElements);
+				}
+
+				@Override
+				public JavaFileObject createClassFile(CharSequence name, Element... originatingElements)
+						throws IOException {
+					return filer.createClassFile(name, originatingElements);
+				}
+
+				@Override
+				public FileObject createResource(JavaFileManager.Location location, CharSequence moduleAndPkg,
+						CharSequence relativeName, Element... originatingElements) throws IOException {
+					return filer.createResource(location, moduleAndPkg, relativeName, originatingElements);
+				}
+
+				@Override
+				public FileObject getResource(JavaFileManager.Location location, CharSequence moduleAndPkg,
+						CharSequence relativeName) throws IOException {
+					return filer.getResource(location, moduleAndPkg, relativeName);
+				}
+			};
+		}
+
+		@Override
+		public Elements getElementUtils() {
+			return delegate.getElementUtils();
+		}
+
+		@Override
+		public Types getTypeUtils() {
+			return delegate.getTypeUtils();
+		}
+
+		@Override
+		public SourceVersion getSourceVersion() {
+			return delegate.getSourceVersion();
+		}
+
+		@Override
+		public Locale getLocale() {
+			return delegate.getLocale();
+		}
+	}
+}
@@ -0,0 +1,120 @@
+package au.id.villar.utils.beangen;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Test helper standing in for a JDBC driver: result sets over rows held in memory, and connections whose prepared
+ * statements record the batches they execute instead of running them. Only the methods the generated mappers use are
+ * implemented.
+ */
+class InMemoryJdbc {
+
+	/** SQL of every statement prepared, in order. */
+	final List<String> preparedSql = new ArrayList<>();
+
+	/** Parameters of every row executed, one list per batch. */
+	final List<List<List<Object>>> batches = new ArrayList<>();
+
+	/** Number of times result sets were asked for their metadata. */
+	int metaDataReads;
+
+	Connection connection() {
+		return proxy(Connection.class, (proxy, method, args) -> switch (method.getName()) {
+			case "prepareStatement" -> preparedStatement((String) args[0]);
+			case "close" -> null;
+			default -> throw new UnsupportedOperationException(method.getName());
+		});
+	}
+
+	ResultSet resultSet(List<String> labels, Object[]... rows) {
+
+		final ResultSetMetaData metaData = proxy(ResultSetMetaData.class, (proxy, method, args) ->
+				switch (method.getName()) {
+					case "getColumnCount" -> labels.size();
+					case "getColumnLabel" -> labels.get((Integer) args[0] - 1);
+					default -> throw new UnsupportedOperationException(method.getName());
+				});
+		final int[] row = {-1};
+		final boolean[] wasNull = {false};
+
+		return proxy(ResultSet.class, (proxy, method, args) -> {
+			switch (method.getName()) {
+				case "next":
+					return ++row[0] < rows.length;
+				case "getMetaData":
+					metaDataReads++;
+					return metaData;
+				case "wasNull":
+					return wasNull[0];
+				case "close":
+					return null;
+				default:
+					if (!method.getName().startsWith("get") || args == null || !(args[0] instanceof Integer)) {
+						throw new UnsupportedOperationException(method.getName());
+					}
+			}
+			final Object value = rows[row[0]][(Integer) args[0] - 1];
+			wasNull[0] = value == null;
+			return switch (method.getName()) {
+				case "getInt" -> value != null ? ((Number) value).intValue() : 0;
+				case "getLong" -> value != null ? ((Number) value).longValue() : 0L;
+				case "getBigDecimal" -> value != null ? new BigDecimal(value.toString()) : null;
+				case "getString" -> value != null ? value.toString() : null;
+				default -> throw new UnsupportedOperationException(method.getName());
+			};
+		});
+	}
+
+	private PreparedStatement preparedStatement(String sql) {
+
+		preparedSql.add(sql);
+		final List<Object> parameters = new ArrayList<>();
+		final List<List<Object>> batch = new ArrayList<>();
+
+		return proxy(PreparedStatement.class, (proxy, method, args) -> {
+			switch (method.getName()) {
+				case "addBatch" -> {
+					batch.add(List.copyOf(parameters.stream().map(p -> p != null ? p : "NULL").toList()));
+					parameters.clear();
+				}
+				case "executeBatch" -> {
+					batches.add(List.copyOf(batch));
+					final int[] updateCounts = new int[batch.size()];
+					Arrays.fill(updateCounts, 1);
+					batch.clear();
+					return updateCounts;
+				}
+				case "setNull" -> set(parameters, (Integer) args[0], null);
+				case "close" -> {
+				}
+				default -> {
+					if (!method.getName().startsWith("set") || args.length != 2) {
+						throw new UnsupportedOperationException(method.getName());
+					}
+					set(parameters, (Integer) args[0], args[1]);
+				}
+			}
+			return null;
+		});
+	}
+
+	private static void set(List<Object> parameters, int index, Object value) {
+		while (parameters.size() < index) {
+			parameters.add(null);
+		}
+		parameters.set(index - 1, value);
+	}
+
+	private static <T> T proxy(Class<T> type, InvocationHandler handler) {
+		return type.cast(Proxy.newProxyInstance(InMemoryJdbc.class.getClassLoader(), new Class<?>[] {type}, handler));
+	}
+}
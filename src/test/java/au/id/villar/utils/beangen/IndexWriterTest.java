@@ -0,0 +1,76 @@
+package au.id.villar.utils.beangen;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+class IndexWriterTest {
+
+	@Test
+	void indexMapsPrimitiveIdsToEntitiesThroughChurn() throws Exception {
+		final AccountIndex index = new AccountIndex();
+		final Map<Integer, Account> expected = new HashMap<>();
+		final Random random = new Random(42);
+
+		for (int i = 0; i < 20_000; i++) {
+			final int id = random.nextInt(2_000) - 1_000;
+			if (random.nextInt(3) == 0) {
+				assertThat(index.remove(id)).isSameAs(expected.remove(id));
+			} else {
+				final Account account = new Account(id, "Owner" + i);
+				assertThat(index.put(account)).isSameAs(expected.put(id, account));
+			}
+		}
+
+		assertThat(index.size()).isEqualTo(expected.size());
+		for (int id = -1_000; id < 1_000; id++) {
+			assertThat(index.get(id)).isSameAs(expected.get(id));
+			assertThat(index.containsKey(id)).isEqualTo(expected.containsKey(id));
+		}
+		final List<Account> visited = new ArrayList<>();
+		index.forEach(visited::add);
+		assertThat(visited).containsExactlyInAnyOrderElementsOf(expected.values());
+
+		final AccountIndex loaded = AccountIndex.of(expected.values());
+		assertThat(loaded.size()).isEqualTo(expected.size());
+		expected.forEach((id, account) -> assertThat(loaded.get(id)).isSameAs(account));
+
+		final AccountIndex.Concurrent concurrent = new AccountIndex.Concurrent();
+		concurrent.putAll(expected.values());
+		final Thread writer = new Thread(() -> {
+			for (int i = 0; i < 5_000; i++) {
+				concurrent.put(new Account(10_000 + i, "New" + i));
+			}
+		});
+		writer.start();
+		while (writer.isAlive()) {
+			expected.forEach((id, account) -> assertThat(concurrent.get(id)).isSameAs(account));
+		}
+		writer.join();
+		assertThat(concurrent.size()).isEqualTo(expected.size() + 5_000);
+		assertThat(concurrent.remove(14_999).getOwner()).isEqualTo("New4999");
+		assertThat(concurrent.containsKey(14_999)).isFalse();
+	}
+
+	@Test
+	void indexNeedsASinglePrimitiveId() {
+		final InMemoryCompiler.Result result = new InMemoryCompiler().compile(Map.of("sample.TicketTemplate", """
+				package sample;
+
+				@au.id.villar.utils.beangen.BeanTemplate(index = true)
+				public class TicketTemplate {
+					@javax.persistence.Id
+					protected String number;
+				}
+				"""));
+
+		assertThat(result.isSuccess()).isFalse();
+		assertThat(result.errors()).contains("index needs the @Id property to be an int or a long, but number is a "
+				+ "java.lang.String");
+	}
+}
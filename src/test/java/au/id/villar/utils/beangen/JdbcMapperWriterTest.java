@@ -0,0 +1,67 @@
+package au.id.villar.utils.beangen;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+class JdbcMapperWriterTest {
+
+	@Test
+	void jdbcMapperReadsRowsByIndexAndBindsStatementsInBatches() throws Exception {
+		final InMemoryJdbc jdbc = new InMemoryJdbc();
+		final ResultSet resultSet = jdbc.resultSet(
+				List.of("surname", "STAFF_ID", "NAME", "SALARY", "STAFF_ID"),
+				new Object[] {"Lovelace", 1, "Ada", "10.50", 99},
+				new Object[] {null, 2, "Grace", null, 99});
+
+		final List<Employee> read = EmployeeJdbcMapper.INSTANCE.readAll(resultSet);
+
+		assertThat(jdbc.metaDataReads).isEqualTo(1);
+		assertThat(read).containsExactly(
+				new Employee(1, "Ada", "Lovelace", new BigDecimal("10.50")),
+				new Employee(2, "Grace", null, null));
+		assertThat(read.get(0).isDirty()).isFalse();
+
+		final List<Employee> employees = new ArrayList<>();
+		for (int i = 0; i < 5; i++) {
+			employees.add(new Employee(i, "Given" + i, i % 2 == 0 ? "Last" + i : null, BigDecimal.valueOf(i)));
+		}
+		final EmployeeJdbcMapper mapper = new EmployeeJdbcMapper(2);
+
+		assertThat(mapper.insertAll(jdbc.connection(), employees)).isEqualTo(5);
+		assertThat(mapper.updateAll(jdbc.connection(), employees.subList(1, 2))).isEqualTo(1);
+		assertThat(jdbc.preparedSql).containsExactly(
+				"INSERT INTO STAFF (STAFF_ID, NAME, SURNAME, SALARY) VALUES (?, ?, ?, ?)",
+				"UPDATE STAFF SET NAME = ?, SURNAME = ?, SALARY = ? WHERE STAFF_ID = ?");
+		assertThat(jdbc.batches).extracting(List::size).containsExactly(2, 2, 1, 1);
+		assertThat(jdbc.batches.get(2).get(0)).containsExactly(4, "Given4", "Last4", BigDecimal.valueOf(4));
+		assertThat(jdbc.batches.get(3).get(0)).containsExactly("Given1", "NULL", BigDecimal.ONE, 1);
+		assertThatThrownBy(() -> new EmployeeJdbcMapper(0)).isInstanceOf(IllegalArgumentException.class);
+	}
+
+	@Test
+	void jdbcMapperRejectsUnsupportedAndDuplicatedColumns() {
+		final InMemoryCompiler.Result result = new InMemoryCompiler().compile(Map.of("sample.JobTemplate", """
+				package sample;
+
+				@au.id.villar.utils.beangen.BeanTemplate(jdbcMapper = true)
+				public class JobTemplate {
+					@javax.persistence.Id
+					protected int number;
+					@javax.persistence.Column(name = "NUMBER")
+					protected Thread worker;
+				}
+				"""));
+
+		assertThat(result.isSuccess()).isFalse();
+		assertThat(result.errors())
+				.contains("jdbcMapper doesn't support column NUMBER of property worker, of type java.lang.Thread")
+				.contains("jdbcMapper can't map both number and worker to column NUMBER");
+	}
+}
@@ -0,0 +1,67 @@
+package au.id.villar.utils.beangen;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import au.id.villar.utils.beangen.runtime.JsonCodec;
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+class JsonCodecWriterTest {
+
+	@Test
+	void jsonCodecRoundTripsBeans() {
+		final Guest<String> guest = new Guest<>(7, "Ada \"A.\"", null, new BigDecimal("1815.50"), new int[] {1, 2},
+				List.of("x", "y"));
+		guest.setInheritedField(3);
+		final GuestJsonCodec codec = GuestJsonCodec.INSTANCE;
+
+		final String json = codec.toJson(guest);
+
+		assertThat(json).isEqualTo("{\"id\":7,\"givenName\":\"Ada \\\"A.\\\"\",\"lastName\":null,"
+				+ "\"bill\":1815.50,\"rooms\":[1,2],\"requests\":[\"x\",\"y\"],"
+				+ "\"kind\":\"guest\",\"inheritedField\":3}");
+		assertThat(codec.fromJson(json)).isEqualTo(guest);
+		assertThat(codec.fromJson(codec.toJsonBytes(guest))).isEqualTo(guest);
+		assertThat(codec.fromJson("{\"unknown\": {\"a\": [1]}, \"id\": 8}").getId()).isEqualTo(8);
+	}
+
+	@Test
+	void jsonCodecReadsBeansThroughSettersWithoutABuilder() throws Exception {
+		final InMemoryCompiler.Result result = new InMemoryCompiler().compile(Map.of("sample.OrderTemplate", """
+				package sample;
+
+				@au.id.villar.utils.beangen.BeanTemplate(jsonCodec = true)
+				public class OrderTemplate {
+					protected int number;
+					protected java.util.List<Long> lines;
+				}
+				"""));
+
+		assertThat(result.isSuccess()).as(result.errors()).isTrue();
+
+		@SuppressWarnings("unchecked")
+		final JsonCodec<Object> codec = (JsonCodec<Object>) result.classLoader().loadClass("sample.OrderJsonCodec")
+				.getField("INSTANCE").get(null);
+
+		final Object order = codec.fromJson("{\"lines\": [1, null], \"number\": 4}");
+
+		assertThat(codec.toJson(order)).isEqualTo("{\"number\":4,\"lines\":[1,null]}");
+	}
+
+	@Test
+	void jsonCodecRejectsUnsupportedProperties() {
+		final InMemoryCompiler.Result result = new InMemoryCompiler().compile(Map.of("sample.JobTemplate", """
+				package sample;
+
+				@au.id.villar.utils.beangen.BeanTemplate(jsonCodec = true)
+				public class JobTemplate {
+					protected Thread worker;
+				}
+				"""));
+
+		assertThat(result.isSuccess()).isFalse();
+		assertThat(result.errors()).contains("jsonCodec doesn't support property worker of type java.lang.Thread");
+	}
+}
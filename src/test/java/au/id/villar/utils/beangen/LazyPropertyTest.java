@@ -0,0 +1,147 @@
+package au.id.villar.utils.beangen;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.lang.reflect.Method;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import org.junit.jupiter.api.Test;
+
+class LazyPropertyTest {
+
+	@Test
+	void lazyPropertiesAreComputedOnFirstReadUnlessSet() throws Exception {
+		final InMemoryCompiler.Result result = new InMemoryCompiler().compile(Map.of("sample.DocumentTemplate", """
+				package sample;
+
+				import au.id.villar.utils.beangen.Lazy;
+
+				@au.id.villar.utils.beangen.BeanTemplate
+				public class DocumentTemplate {
+					protected String text;
+					@Lazy
+					protected int wordCount;
+					@Lazy(method = "split", publication = Lazy.Publication.VAR_HANDLE)
+					protected java.util.List<String> words;
+					protected transient int computations;
+
+					@au.id.villar.utils.beangen.Builder
+					public DocumentTemplate(String text, int wordCount) {
+						this.text = text;
+						this.wordCount = wordCount;
+					}
+
+					protected int computeWordCount() {
+						computations++;
+						return split().size();
+					}
+
+					protected java.util.List<String> split() {
+						computations++;
+						return java.util.List.of(text.split(" "));
+					}
+				}
+				"""));
+
+		assertThat(result.isSuccess()).as(result.errors()).isTrue();
+
+		final Class<?> documentClass = result.classLoader().loadClass("sample.Document");
+		final Object document = documentClass.getConstructor(String.class, int.class).newInstance("a b c", 7);
+
+		assertThat(documentClass.getMethod("getWordCount").invoke(document)).isEqualTo(7);
+		assertThat(documentClass.getMethod("getComputations").invoke(document)).isEqualTo(0);
+		assertThat(documentClass.getMethod("getWords").invoke(document)).isEqualTo(List.of("a", "b", "c"));
+		assertThat(documentClass.getMethod("getWords").invoke(document)).isEqualTo(List.of("a", "b", "c"));
+		assertThat(documentClass.getMethod("getComputations").invoke(document)).isEqualTo(1);
+
+		documentClass.getMethod("setWords", List.class).invoke(document, List.of("x"));
+		assertThat(documentClass.getMethod("getWords").invoke(document)).isEqualTo(List.of("x"));
+		assertThat(document).hasToString("Document{text=a b c, wordCount=7, words=[x], computations=1}");
+	}
+
+	@Test
+	void lockingLazySettersWaitForTheValueBeingComputed() throws Exception {
+		final InMemoryCompiler.Result result = new InMemoryCompiler().compile(Map.of("sample.ReportTemplate", """
+				package sample;
+
+				import java.util.concurrent.CountDownLatch;
+
+				@au.id.villar.utils.beangen.Bean
+				public class ReportTemplate {
+					public static final CountDownLatch COMPUTING = new CountDownLatch(1);
+					public static final CountDownLatch RELEASED = new CountDownLatch(1);
+
+					@au.id.villar.utils.beangen.Lazy
+					protected int total;
+
+					protected int computeTotal() {
+						COMPUTING.countDown();
+						try {
+							RELEASED.await();
+						} catch (InterruptedException e) {
+							Thread.currentThread().interrupt();
+						}
+						return 1;
+					}
+				}
+				"""));
+
+		assertThat(result.isSuccess()).as(result.errors()).isTrue();
+
+		final ClassLoader classLoader = result.classLoader();
+		final Class<?> templateClass = classLoader.loadClass("sample.ReportTemplate");
+		final Class<?> reportClass = classLoader.loadClass("sample.Report");
+		final Object report = reportClass.getConstructor().newInstance();
+		final Method getTotal = reportClass.getMethod("getTotal");
+		final Method setTotal = reportClass.getMethod("setTotal", int.class);
+
+		final Thread reader = new Thread(() -> invoke(getTotal, report));
+		reader.start();
+		((CountDownLatch) templateClass.getField("COMPUTING").get(null)).await();
+		final Thread writer = new Thread(() -> invoke(setTotal, report, 2));
+		writer.start();
+		while (writer.getState() != Thread.State.BLOCKED && writer.getState() != Thread.State.TERMINATED) {
+			Thread.onSpinWait();
+		}
+		((CountDownLatch) templateClass.getField("RELEASED").get(null)).countDown();
+		reader.join();
+		writer.join();
+
+		assertThat(getTotal.invoke(report)).isEqualTo(2);
+	}
+
+	@Test
+	void lazyPropertiesNeedTheirComputingMethod() {
+		final InMemoryCompiler.Result result = new InMemoryCompiler().compile(Map.of("sample.OrderTemplate", """
+				package sample;
+
+				import au.id.villar.utils.beangen.Lazy;
+
+				@au.id.villar.utils.beangen.BeanTemplate
+				public class OrderTemplate {
+					@Lazy
+					protected int number;
+					@Lazy(publication = Lazy.Publication.VAR_HANDLE)
+					protected long total;
+
+					protected long computeTotal() {
+						return 0;
+					}
+				}
+				"""));
+
+		assertThat(result.isSuccess()).isFalse();
+		assertThat(result.errors())
+				.contains("lazy property number needs the template to declare a method computeNumber() computing it")
+				.contains("lazy property total is primitive, so it can't use VAR_HANDLE publication");
+	}
+
+	private static Object invoke(Method method, Object target, Object... arguments) {
+		try {
+			return method.invoke(target, arguments);
+		} catch (ReflectiveOperationException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+}
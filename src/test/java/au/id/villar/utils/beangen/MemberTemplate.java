@@ -0,0 +1,23 @@
+package au.id.villar.utils.beangen;
+
+import java.util.List;
+
+@BeanTemplate
+public class MemberTemplate<T> {
+
+	protected int id;
+
+	protected String givenName;
+
+	protected String lastName;
+
+	protected List<T> roles;
+
+	@Builder(reusable = true, required = {"id", "givenName"})
+	public MemberTemplate(int id, String givenName, String lastName, List<T> roles) {
+		this.id = id;
+		this.givenName = givenName;
+		this.lastName = lastName;
+		this.roles = roles;
+	}
+}
@@ -0,0 +1,121 @@
+package au.id.villar.utils.beangen;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.lang.reflect.Constructor;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+class ObjectMethodsTest {
+
+	private static final String HASHED_ORDER_TEMPLATE = """
+			package sample;
+
+			@au.id.villar.utils.beangen.BeanTemplate(cachedHashCode = true)
+			public class OrderTemplate {
+				protected final int number = 7;
+			}
+			""";
+
+	@Test
+	void generatesEqualsHashCodeAndToStringFromProperties() throws Exception {
+		final InMemoryCompiler.Result result = new InMemoryCompiler().compile(Map.of("sample.PointTemplate", """
+				package sample;
+
+				@au.id.villar.utils.beangen.BeanTemplate
+				public class PointTemplate {
+					protected int x;
+					protected double weight;
+					protected int[] tags;
+					protected String label;
+
+					@au.id.villar.utils.beangen.Builder
+					public PointTemplate(int x, double weight, int[] tags, String label) {
+						this.x = x;
+						this.weight = weight;
+						this.tags = tags;
+						this.label = label;
+					}
+				}
+				"""));
+
+		assertThat(result.isSuccess()).as(result.errors()).isTrue();
+		assertThat(result.generatedSource("sample.Point")).doesNotContain("Objects.hash(");
+
+		final Constructor<?> constructor = result.classLoader().loadClass("sample.Point")
+				.getConstructor(int.class, double.class, int[].class, String.class);
+		final Object point = constructor.newInstance(1, 0.5, new int[] {2, 3}, "a");
+		final Object same = constructor.newInstance(1, 0.5, new int[] {2, 3}, "a");
+		final Object other = constructor.newInstance(1, 0.5, new int[] {2, 4}, "a");
+
+		assertThat(point).isEqualTo(same).isNotEqualTo(other).hasSameHashCodeAs(same);
+		assertThat(point).hasToString("Point{x=1, weight=0.5, tags=[2, 3], label=a}");
+	}
+
+	@Test
+	void objectMethodsReadPropertiesNamedLikeTheirOwnVariables() throws Exception {
+		final InMemoryCompiler.Result result = new InMemoryCompiler().compile(Map.of("sample.ClashTemplate", """
+				package sample;
+
+				@au.id.villar.utils.beangen.BeanTemplate
+				public class ClashTemplate {
+					protected int result;
+					protected String o;
+					protected String that;
+
+					@au.id.villar.utils.beangen.Builder
+					public ClashTemplate(int result, String o, String that) {
+						this.result = result;
+						this.o = o;
+						this.that = that;
+					}
+				}
+				"""));
+
+		assertThat(result.isSuccess()).as(result.errors()).isTrue();
+
+		final Constructor<?> constructor = result.classLoader().loadClass("sample.Clash")
+				.getConstructor(int.class, String.class, String.class);
+		final Object clash = constructor.newInstance(1, "a", "b");
+
+		assertThat(clash).isEqualTo(constructor.newInstance(1, "a", "b"))
+				.isNotEqualTo(constructor.newInstance(1, "a", "c"))
+				.hasSameHashCodeAs(constructor.newInstance(1, "a", "b"))
+				.doesNotHaveSameHashCodeAs(constructor.newInstance(2, "a", "b"));
+	}
+
+	@Test
+	void keepsObjectMethodsDeclaredByTheTemplate() {
+		final InMemoryCompiler.Result result = new InMemoryCompiler().compile(Map.of("sample.OrderTemplate", """
+				package sample;
+
+				@au.id.villar.utils.beangen.BeanTemplate
+				public class OrderTemplate {
+					protected int number;
+
+					@Override
+					public String toString() {
+						return "order";
+					}
+				}
+				"""));
+
+		assertThat(result.isSuccess()).as(result.errors()).isTrue();
+		assertThat(result.generatedSource("sample.Order"))
+				.contains("public boolean equals(Object o)", "public int hashCode()")
+				.doesNotContain("public String toString()");
+	}
+
+	@Test
+	void cachedHashCodeNeedsFinalProperties() {
+		final InMemoryCompiler.Result mutable = new InMemoryCompiler().compile(Map.of("sample.OrderTemplate",
+				HASHED_ORDER_TEMPLATE.replace("protected final int number = 7;", "protected int number;")));
+		final InMemoryCompiler.Result immutable = new InMemoryCompiler().compile(Map.of("sample.OrderTemplate",
+				HASHED_ORDER_TEMPLATE));
+
+		assertThat(mutable.isSuccess()).isFalse();
+		assertThat(mutable.errors()).contains("cachedHashCode needs all properties to be final", "number");
+		assertThat(immutable.isSuccess()).as(immutable.errors()).isTrue();
+		assertThat(immutable.generatedSource("sample.Order")).contains("private transient int cachedHashCode;");
+	}
+}
@@ -0,0 +1,23 @@
+package au.id.villar.utils.beangen;
+
+import java.math.BigDecimal;
+
+@BeanTemplate(accessor = true, diff = true)
+public class ParcelTemplate {
+
+	protected int id;
+
+	protected String destination;
+
+	protected BigDecimal weight;
+
+	protected int[] items;
+
+	@Builder
+	public ParcelTemplate(int id, String destination, BigDecimal weight, int[] items) {
+		this.id = id;
+		this.destination = destination;
+		this.weight = weight;
+		this.items = items;
+	}
+}
@@ -0,0 +1,32 @@
+package au.id.villar.utils.beangen;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+@BeanTemplate(binaryCodec = true)
+public class PassengerTemplate<T> extends SuperTestingBean {
+
+	protected int id;
+
+	protected String givenName;
+
+	protected String lastName;
+
+	protected BigDecimal fare;
+
+	protected int[] seats;
+
+	protected List<T> notes;
+
+	protected final String kind = "passenger";
+
+	@Builder
+	public PassengerTemplate(int id, String givenName, String lastName, BigDecimal fare, int[] seats, List<T> notes) {
+		this.id = id;
+		this.givenName = givenName;
+		this.lastName = lastName;
+		this.fare = fare;
+		this.seats = seats;
+		this.notes = notes;
+	}
+}
@@ -0,0 +1,90 @@
+package au.id.villar.utils.beangen;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Map;
+import javax.tools.Diagnostic;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Scaling benchmark for the processor. Compiles synthetic corpora of increasing size in memory and reports
+ * templates per second, peak heap and generated bytes. Excluded from the default build; run it with
+ * {@code mvn test -Pthroughput}, and choose the corpus sizes with {@code -Dbeantemplates.throughput.sizes=100,1000}.
+ */
+@Tag("throughput")
+class ProcessorThroughputTest {
+
+	private static final String SIZES_PROPERTY = "beantemplates.throughput.sizes";
+
+	@Test
+	void compilesSyntheticCorpora() {
+		final int[] sizes = Arrays.stream(System.getProperty(SIZES_PROPERTY, "100,1000,10000").split(","))
+				.map(String::trim)
+				.mapToInt(Integer::parseInt)
+				.toArray();
+
+		// Warms the compiler and the processor up so the first corpus isn't charged for class loading
+		new InMemoryCompiler().compile(SyntheticTemplates.corpus(50));
+
+		for (int size : sizes) {
+			final Map<String, String> corpus = SyntheticTemplates.corpus(size);
+
+			System.gc();
+			resetPeakHeap();
+			final long start = System.nanoTime();
+			final InMemoryCompiler.Result result = new InMemoryCompiler()
+					.option(BeanTemplateProcessor.METRICS_OPTION, tempReport())
+					.compile(corpus);
+			final long elapsed = System.nanoTime() - start;
+
+			assertThat(result.isSuccess()).as(result.errors()).isTrue();
+			assertThat(result.generatedSourceNames()).hasSize(size);
+
+			System.out.printf(Locale.ROOT, "%,7d templates: %8.1f templates/s, peak heap %,6d MB, generated %,d bytes%n"
+							+ "                  %s%n",
+					size, size / (elapsed / 1e9), peakHeap() / (1024 * 1024), result.generatedBytes(),
+					processorSummary(result));
+		}
+	}
+
+	private static String tempReport() {
+		try {
+			final Path report = Files.createTempFile("beantemplates-metrics", ".json");
+			report.toFile().deleteOnExit();
+			return report.toString();
+		} catch (IOException e) {
+			throw new AssertionError(e);
+		}
+	}
+
+	private static String processorSummary(InMemoryCompiler.Result result) {
+		return result.getDiagnostics().stream()
+				.filter(d -> d.getKind() == Diagnostic.Kind.NOTE)
+				.map(d -> d.getMessage(Locale.ROOT))
+				.filter(m -> m.startsWith("Bean templates:"))
+				.findFirst()
+				.orElse("");
+	}
+
+	private static void resetPeakHeap() {
+		ManagementFactory.getMemoryPoolMXBeans().stream()
+				.filter(p -> p.getType() == MemoryType.HEAP)
+				.forEach(MemoryPoolMXBean::resetPeakUsage);
+	}
+
+	private static long peakHeap() {
+		return ManagementFactory.getMemoryPoolMXBeans().stream()
+				.filter(p -> p.getType() == MemoryType.HEAP)
+				.mapToLong(p -> p.getPeakUsage().getUsed())
+				.sum();
+	}
+}
@@ -0,0 +1,25 @@
+package au.id.villar.utils.beangen;
+
+import java.math.BigDecimal;
+
+@BeanTemplate(dirtyTracking = true)
+public class ProfileTemplate extends SuperTestingBean {
+
+	protected int id;
+
+	protected String givenName;
+
+	protected String lastName;
+
+	protected BigDecimal amount;
+
+	protected final String kind = "profile";
+
+	@Builder(reusable = true)
+	public ProfileTemplate(int id, String givenName, String lastName, BigDecimal amount) {
+		this.id = id;
+		this.givenName = givenName;
+		this.lastName = lastName;
+		this.amount = amount;
+	}
+}
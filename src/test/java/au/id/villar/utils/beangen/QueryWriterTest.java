@@ -0,0 +1,70 @@
+package au.id.villar.utils.beangen;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.function.Predicate;
+import org.junit.jupiter.api.Test;
+
+class QueryWriterTest {
+
+	@Test
+	void queriesFilterBeansSequentiallyAndInParallel() {
+		final Random random = new Random(11);
+		final String[] names = {null, "Ada", "Grace", "Emile"};
+		final List<Contact> people = new ArrayList<>();
+		for (int i = 0; i < 50_000; i++) {
+			people.add(new Contact(random.nextInt(1_000) - 500, names[random.nextInt(names.length)],
+					names[random.nextInt(names.length)], random.nextBoolean() ? BigDecimal.valueOf(i) : null));
+		}
+
+		final ContactQuery query = ContactQuery.where().id().between(-50, 50)
+				.and().lastName().in("Grace", "Emile")
+				.and().amount().isNotNull()
+				.and().givenName().ne("Ada");
+		final List<Contact> expected = people.stream()
+				.filter(p -> p.getId() >= -50 && p.getId() <= 50)
+				.filter(p -> "Grace".equals(p.getLastName()) || "Emile".equals(p.getLastName()))
+				.filter(p -> p.getAmount() != null && !"Ada".equals(p.getGivenName()))
+				.toList();
+
+		assertThat(expected).isNotEmpty();
+		assertThat(query.filter(people)).containsExactlyElementsOf(expected);
+		assertThat(query.filterParallel(people)).containsExactlyElementsOf(expected);
+		assertThat(query.filterParallel(people.toArray(new Contact[0])))
+				.containsExactlyElementsOf(expected);
+		assertThat(query.count(people)).isEqualTo(expected.size());
+		assertThat(ContactQuery.where().amount().gt(BigDecimal.valueOf(49_990)).filter(people))
+				.allMatch(p -> p.getAmount().intValue() > 49_990);
+		assertThat(ContactQuery.where().filter(people)).hasSize(people.size());
+
+		final int[] tested = new int[2];
+		final Predicate<Contact> predicate = ContactQuery.where()
+				.matching(p -> ++tested[0] > 0, 0.9)
+				.and().matching(p -> ++tested[1] < 0, 0.01)
+				.toPredicate();
+		assertThat(people).noneMatch(predicate);
+		assertThat(tested).containsExactly(0, people.size());
+	}
+
+	@Test
+	void queriesCantHaveMethodsNamedLikeTheirOwn() {
+		final InMemoryCompiler.Result result = new InMemoryCompiler().compile(Map.of("sample.PlaceTemplate", """
+				package sample;
+
+				@au.id.villar.utils.beangen.BeanTemplate(query = true)
+				public class PlaceTemplate {
+					protected int number;
+					protected String where;
+				}
+				"""));
+
+		assertThat(result.isSuccess()).isFalse();
+		assertThat(result.errors()).contains(
+				"query can't have a method for property where, as queries already have a method of that name");
+	}
+}
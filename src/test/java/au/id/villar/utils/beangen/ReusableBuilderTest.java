@@ -0,0 +1,51 @@
+package au.id.villar.utils.beangen;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+class ReusableBuilderTest {
+
+	@Test
+	void reusableBuildersAreResetLoadedAndBuiltIntoExistingBeans() {
+		final Member<String> ada = new Member<>(1, "Ada", "Lovelace", List.of("author"));
+		final Member.MemberBuilder<String> builder = Member.builder();
+
+		assertThatThrownBy(builder.givenName("Grace")::build)
+				.isInstanceOf(IllegalStateException.class)
+				.hasMessage("Missing required properties of Member: id");
+		assertThat(builder.isSet("givenName")).isTrue();
+		assertThat(builder.isSet("lastName")).isFalse();
+
+		final Member<String> target = new Member<>(0, null, null, null);
+		assertThat(builder.from(ada).lastName("Byron").buildInto(target)).isSameAs(target);
+		assertThat(target.toBuilder().build()).isEqualTo(ada.toBuilder().lastName("Byron").build());
+
+		assertThat(builder.reset().isSet("givenName")).isFalse();
+		assertThatThrownBy(builder::build).hasMessage("Missing required properties of Member: id, givenName");
+		assertThat(builder.id(2).givenName("Grace").build().getLastName()).isNull();
+	}
+
+	@Test
+	void requiredBuilderPropertiesMustBeParameters() {
+		final InMemoryCompiler.Result result = new InMemoryCompiler().compile(Map.of("sample.TicketTemplate", """
+				package sample;
+
+				@au.id.villar.utils.beangen.BeanTemplate
+				public class TicketTemplate {
+					protected int number;
+
+					@au.id.villar.utils.beangen.Builder(required = "numbr")
+					public TicketTemplate(int number) {
+						this.number = number;
+					}
+				}
+				"""));
+
+		assertThat(result.isSuccess()).isFalse();
+		assertThat(result.errors()).contains("@Builder requires numbr, which isn't one of its parameters");
+	}
+}
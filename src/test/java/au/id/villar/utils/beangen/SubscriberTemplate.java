@@ -0,0 +1,23 @@
+package au.id.villar.utils.beangen;
+
+import java.util.List;
+
+@BeanTemplate(columns = true)
+public class SubscriberTemplate<T> extends SuperTestingBean {
+
+	protected int id;
+
+	protected String givenName;
+
+	protected String lastName;
+
+	protected List<T> topics;
+
+	@Builder
+	public SubscriberTemplate(int id, String givenName, String lastName, List<T> topics) {
+		this.id = id;
+		this.givenName = givenName;
+		this.lastName = lastName;
+		this.topics = topics;
+	}
+}
@@ -0,0 +1,70 @@
+package au.id.villar.utils.beangen;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Generates template sources for tests that need many of them. Templates vary in field count (1 to 20), every third
+ * one is generic, and every other one has a {@link Builder} constructor.
+ */
+final class SyntheticTemplates {
+
+	private static final String[] FIELD_TYPES = {
+			"int", "long", "String", "java.math.BigDecimal", "boolean", "double", "int[]", "java.util.List<String>"
+	};
+
+	private SyntheticTemplates() {
+	}
+
+	/** Returns {@code count} template sources keyed by qualified name. */
+	static Map<String, String> corpus(int count) {
+		final Map<String, String> sources = new LinkedHashMap<>();
+		for (int i = 0; i < count; i++) {
+			final String packageName = "corpus.p" + (i / 500);
+			final String simpleName = "Synthetic" + i + "Template";
+			sources.put(packageName + "." + simpleName, template(packageName, simpleName, i));
+		}
+		return sources;
+	}
+
+	static int fieldCount(int index) {
+		return 1 + index % 20;
+	}
+
+	static boolean isGeneric(int index) {
+		return index % 3 == 0;
+	}
+
+	static boolean hasBuilder(int index) {
+		return index % 2 == 0;
+	}
+
+	private static String template(String packageName, String simpleName, int index) {
+		final boolean generic = isGeneric(index);
+		final StringBuilder source = new StringBuilder(1024)
+				.append("package ").append(packageName).append(";\n\n")
+				.append("@au.id.villar.utils.beangen.").append(index % 4 == 0 ? "Bean" : "BeanTemplate").append('\n')
+				.append("public class ").append(simpleName).append(generic ? "<T>" : "").append(" {\n");
+
+		final StringBuilder parameters = new StringBuilder();
+		final StringBuilder assignments = new StringBuilder();
+
+		for (int f = 0; f < fieldCount(index); f++) {
+			final String type = generic && f == 0 ? "T" : FIELD_TYPES[(index + f) % FIELD_TYPES.length];
+			final String name = "field" + f;
+			source.append("\tprotected ").append(type).append(' ').append(name).append(";\n");
+			parameters.append(f > 0 ? ", " : "").append(type).append(' ').append(name);
+			assignments.append("\t\tthis.").append(name).append(" = ").append(name).append(";\n");
+		}
+
+		if (hasBuilder(index)) {
+			source.append("\n\tpublic ").append(simpleName).append("() {\n\t}\n")
+					.append("\n\t@au.id.villar.utils.beangen.Builder\n")
+					.append("\tpublic ").append(simpleName).append('(').append(parameters).append(") {\n")
+					.append(assignments)
+					.append("\t}\n");
+		}
+
+		return source.append("}\n").toString();
+	}
+}
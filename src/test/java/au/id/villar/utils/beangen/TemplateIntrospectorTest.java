@@ -0,0 +1,99 @@
+package au.id.villar.utils.beangen;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.TypeElement;
+import org.junit.jupiter.api.Test;
+
+class TemplateIntrospectorTest {
+
+	// The processor used here only introspects, so compilation fails where the generated beans are referenced
+
+	@Test
+	void discoversPropertiesInheritedThroughTemplatesAndPlainClasses() {
+		final IntrospectingProcessor processor = new IntrospectingProcessor();
+
+		new InMemoryCompiler().compile(Map.of(
+				"sample.Holder", """
+						package sample;
+						public class Holder<T> {
+							protected T value;
+							private int hidden;
+						}
+						""",
+				"sample.BaseTemplate", """
+						package sample;
+						@au.id.villar.utils.beangen.BeanTemplate
+						public class BaseTemplate extends Holder<Integer> {
+							protected long version;
+						}
+						""",
+				"sample.ChildTemplate", """
+						package sample;
+						@au.id.villar.utils.beangen.Bean
+						public class ChildTemplate extends Base {
+							protected String name;
+						}
+						"""), processor);
+
+		assertThat(processor.inherited.get("sample.Base"))
+				.containsExactly("value:java.lang.Integer");
+		assertThat(processor.inherited.get("sample.Child"))
+				.containsExactly("version:long", "value:java.lang.Integer");
+	}
+
+	@Test
+	void readsAttributesOfBeanAnnotations() {
+		final IntrospectingProcessor processor = new IntrospectingProcessor();
+
+		new InMemoryCompiler().compile(Map.of("sample.ValueTemplate", """
+				package sample;
+				@au.id.villar.utils.beangen.Bean(typeName = "Value", setters = false)
+				public class ValueTemplate {
+					protected String name;
+				}
+				"""), processor);
+
+		assertThat(processor.models.get("sample.Value").flag("setters")).isFalse();
+		assertThat(processor.models.get("sample.Value").flag("noArgsConstructor")).isFalse();
+	}
+
+	private static class IntrospectingProcessor extends AbstractProcessor {
+
+		private final Map<String, TemplateModel> models = new HashMap<>();
+		private final Map<String, List<String>> inherited = new HashMap<>();
+
+		@Override
+		public Set<String> getSupportedAnnotationTypes() {
+			return Set.of(BeanTemplate.class.getCanonicalName(), Bean.class.getCanonicalName());
+		}
+
+		@Override
+		public SourceVersion getSupportedSourceVersion() {
+			return SourceVersion.latestSupported();
+		}
+
+		@Override
+		public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+			final TemplateIntrospector introspector = new TemplateIntrospector(processingEnv);
+			final List<TemplateModel> roundModels = annotations.stream()
+					.flatMap(a -> roundEnv.getElementsAnnotatedWith(a).stream()
+							.map(e -> introspector.introspect((TypeElement) e, a)))
+					.toList();
+			for (TemplateModel model : roundModels) {
+				models.put(model.beanName(), model);
+				inherited.put(model.beanName(), introspector.inheritedProperties(model).stream()
+						.map(p -> p.getName() + ":" + p.getType())
+						.toList());
+			}
+			return true;
+		}
+	}
+}
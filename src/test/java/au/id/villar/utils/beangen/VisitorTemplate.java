@@ -0,0 +1,25 @@
+package au.id.villar.utils.beangen;
+
+import java.util.List;
+
+@BeanTemplate(accessor = true)
+public class VisitorTemplate<T> extends SuperTestingBean {
+
+	protected int id;
+
+	protected String givenName;
+
+	protected String lastName;
+
+	protected List<T> badges;
+
+	protected final String kind = "visitor";
+
+	@Builder
+	public VisitorTemplate(int id, String givenName, String lastName, List<T> badges) {
+		this.id = id;
+		this.givenName = givenName;
+		this.lastName = lastName;
+		this.badges = badges;
+	}
+}
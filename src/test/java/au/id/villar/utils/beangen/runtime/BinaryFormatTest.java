@@ -0,0 +1,69 @@
+package au.id.villar.utils.beangen.runtime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class BinaryFormatTest {
+
+	@Test
+	void sizesMatchWhatIsWritten() {
+		final String text = "a\u00e9\u20ac\uD83D\uDE00\uD800";
+		final List<Object> values = Arrays.asList(null, true, (byte) -1, (short) 300, 'x', -70000, Long.MIN_VALUE,
+				1.5f, -2.25, text, new BigInteger("-123456789012345678901234567890"), new BigDecimal("-0.0042"),
+				List.of(1, List.of("nested")), new long[] {7L}, Thread.State.NEW);
+
+		for (ByteBuffer buffer : List.of(ByteBuffer.allocate(512), ByteBuffer.allocateDirect(512))) {
+			BinaryFormat.write(buffer, text);
+			BinaryFormat.write(buffer, values);
+			BinaryFormat.write(buffer, new int[] {Integer.MIN_VALUE, 0});
+
+			assertThat(buffer.position())
+					.isEqualTo(BinaryFormat.sizeOf(text) + BinaryFormat.sizeOf(values) + BinaryFormat.sizeOf(new int[2]));
+			assertThat(BinaryFormat.readString(buffer, 0)).isEqualTo(new String(
+					text.getBytes(StandardCharsets.UTF_8), StandardCharsets.UTF_8));
+			assertThat(BinaryFormat.<Object>readList(buffer, BinaryFormat.sizeOf(text))).containsExactly(null, true,
+					(byte) -1, (short) 300, 'x', -70000, Long.MIN_VALUE, 1.5f, -2.25, text.replace('\uD800', '?'),
+					new BigInteger("-123456789012345678901234567890"), new BigDecimal("-0.0042"),
+					List.of(1, List.of("nested")), List.of(7L), "NEW");
+			assertThat(BinaryFormat.readIntArray(buffer, BinaryFormat.sizeOf(text) + BinaryFormat.sizeOf(values)))
+					.containsExactly(Integer.MIN_VALUE, 0);
+		}
+	}
+
+	@Test
+	void varintsTakeOneByteUpTo127() {
+		final ByteBuffer buffer = ByteBuffer.allocate(16);
+		for (int value : new int[] {0, 127, 128, 16383, 16384, Integer.MAX_VALUE, -1}) {
+			buffer.clear();
+			BinaryFormat.writeVarInt(buffer, value);
+
+			assertThat(buffer.position()).isEqualTo(BinaryFormat.sizeOfVarInt(value));
+			assertThat(BinaryFormat.readVarInt(buffer, 0)).isEqualTo(value);
+		}
+		assertThat(BinaryFormat.sizeOfVarInt(127)).isEqualTo(1);
+		assertThat(BinaryFormat.sizeOfVarInt(-1)).isEqualTo(5);
+	}
+
+	@Test
+	void rejectsWhatItCantWriteOrRead() {
+		final ByteBuffer buffer = ByteBuffer.allocate(16);
+
+		assertThatThrownBy(() -> BinaryFormat.writeValue(buffer, new Object()))
+				.isInstanceOf(BinaryCodecException.class)
+				.hasMessage("Can't write values of java.lang.Object");
+		assertThatThrownBy(() -> BinaryFormat.readValue(buffer.put(0, (byte) 99), 0))
+				.isInstanceOf(BinaryCodecException.class)
+				.hasMessage("Unknown value tag 99 at offset 0");
+		assertThatThrownBy(() -> BinaryFormat.begin(ByteBuffer.allocate(16).order(ByteOrder.LITTLE_ENDIAN), 8))
+				.isInstanceOf(IllegalArgumentException.class);
+	}
+}
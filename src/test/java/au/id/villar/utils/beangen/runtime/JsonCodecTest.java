@@ -0,0 +1,78 @@
+package au.id.villar.utils.beangen.runtime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+class JsonCodecTest {
+
+	@Test
+	void writesTheSameJsonAsTextAndAsBytes() {
+		final JsonBytesWriter bytes = JsonWriter.toBytes();
+		final StringBuilder text = new StringBuilder();
+
+		for (JsonWriter out : List.of(bytes, JsonWriter.to(text))) {
+			out.raw(JsonFragment.of("{\"a\":")).value(Long.MIN_VALUE)
+					.raw(JsonFragment.of(",\"b\":")).value("quote \" slash \\ tab \t \u00e9 \uD83D\uDE00")
+					.raw(JsonFragment.of(",\"c\":")).value(new long[] {0, 10, -99, Long.MAX_VALUE})
+					.raw(JsonFragment.of(",\"d\":")).value(2.5)
+					.raw(JsonFragment.of(",\"e\":")).value(Double.NaN)
+					.raw(JsonFragment.of(",\"f\":")).value((Object) List.of(true, 'x', Map.of("k", 1)))
+					.raw('}');
+		}
+
+		assertThat(text).hasToString("{\"a\":-9223372036854775808,"
+				+ "\"b\":\"quote \\\" slash \\\\ tab \\t \u00e9 \uD83D\uDE00\","
+				+ "\"c\":[0,10,-99,9223372036854775807],\"d\":2.5,\"e\":\"NaN\",\"f\":[true,\"x\",{\"k\":1}]}");
+		assertThat(new String(bytes.toByteArray(), StandardCharsets.UTF_8)).isEqualTo(text.toString());
+	}
+
+	@Test
+	void readsValuesInPlace() {
+		final JsonReader in = JsonReader.of(" { \"n\" : -42, \"s\":\"a\\u00e9\\n\uD83D\uDE00\", \"d\": 1.5e2,"
+				+ " \"x\": [1, {\"y\": null}], \"a\": [3, 4], \"big\": 12.50, \"nan\": \"NaN\" } ");
+
+		in.beginObject();
+		assertThat(in.nextField()).isTrue();
+		assertThat(in.nameIs(JsonReader.utf8("n"))).isTrue();
+		assertThat(in.nameHash()).isEqualTo(JsonReader.hash(JsonReader.utf8("n")));
+		assertThat(in.readInt()).isEqualTo(-42);
+		assertThat(in.nextField()).isTrue();
+		assertThat(in.readString()).isEqualTo("a\u00e9\n\uD83D\uDE00");
+		assertThat(in.nextField()).isTrue();
+		assertThat(in.readDouble()).isEqualTo(150.0);
+		assertThat(in.nextField()).isTrue();
+		in.skipValue();
+		assertThat(in.nextField()).isTrue();
+		assertThat(in.readIntArray()).containsExactly(3, 4);
+		assertThat(in.nextField()).isTrue();
+		assertThat(in.readBigDecimal()).isEqualTo(new BigDecimal("12.50"));
+		assertThat(in.nextField()).isTrue();
+		assertThat(in.readDouble()).isNaN();
+		assertThat(in.nextField()).isFalse();
+	}
+
+	@Test
+	void readsDynamicValues() {
+		final Object value = JsonReader.of(ByteBuffer.wrap("[1, 5000000000, 1.5, \"s\", null, {\"k\": false}]"
+				.getBytes(StandardCharsets.UTF_8))).readValue();
+
+		assertThat(value).isEqualTo(java.util.Arrays.asList(1, 5000000000L, 1.5, "s", null, Map.of("k", false)));
+	}
+
+	@Test
+	void reportsWhereTheInputIsWrong() {
+		assertThatThrownBy(() -> JsonReader.of("[1, 2.5]").readIntArray())
+				.isInstanceOf(JsonException.class)
+				.hasMessage("Expected an integer at offset 5");
+		assertThatThrownBy(() -> JsonReader.of("3000000000").readInt())
+				.isInstanceOf(JsonException.class)
+				.hasMessageStartingWith("Number out of int range");
+	}
+}
@@ -0,0 +1,69 @@
+package au.id.villar.utils.beangen.runtime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.Test;
+
+class SortKeysTest {
+
+	@Test
+	void floatingPointKeysFollowCompare() {
+		final double[] doubles = {Double.NEGATIVE_INFINITY, -Double.MAX_VALUE, -1.5, -Double.MIN_VALUE, -0.0,
+				0.0, Double.MIN_VALUE, 2.0, Double.MAX_VALUE, Double.POSITIVE_INFINITY, Double.NaN};
+
+		for (int i = 1; i < doubles.length; i++) {
+			assertThat(SortKeys.ofDouble(doubles[i - 1])).isLessThan(SortKeys.ofDouble(doubles[i]));
+			assertThat(SortKeys.ofFloat((float) doubles[i - 1]))
+					.isLessThanOrEqualTo(SortKeys.ofFloat((float) doubles[i]));
+		}
+		assertThat(SortKeys.ofFloat(-0.0f)).isLessThan(SortKeys.ofFloat(0.0f));
+		assertThat(SortKeys.ofDouble(Double.longBitsToDouble(0xFFF8000000000001L)))
+				.isEqualTo(SortKeys.ofDouble(Double.NaN));
+	}
+
+	@Test
+	void stringKeysFollowCompareToUpToTheirFourthChar() {
+		final List<String> strings = Arrays.asList(null, "", "\u0000", "A", "Ab", "Abcd", "Abcde", "Abd", "a",
+				"\uffff");
+
+		for (int i = 1; i < strings.size(); i++) {
+			assertThat(SortKeys.ofString(strings.get(i - 1))).isLessThanOrEqualTo(SortKeys.ofString(strings.get(i)));
+		}
+		assertThat(SortKeys.ofString("Abcd")).isEqualTo(SortKeys.ofString("Abcde"));
+		assertThat(SortKeys.ofString("Ab")).isLessThan(SortKeys.ofString("Abd"));
+	}
+
+	@Test
+	void sortedIndicesAreStableAndTiesCanBeRefined() {
+		final Random random = new Random(3);
+		final long[] keys = new long[10_000];
+		for (int i = 0; i < keys.length; i++) {
+			keys[i] = switch (i % 4) {
+				case 0 -> random.nextLong();
+				case 1 -> random.nextInt(50) - 25;
+				case 2 -> i % 8 == 2 ? Long.MIN_VALUE : Long.MAX_VALUE;
+				default -> random.nextInt(5);
+			};
+		}
+
+		final int[] indices = SortKeys.sortedIndices(keys);
+
+		assertThat(indices).containsExactly(IntStream.range(0, keys.length).boxed()
+				.sorted(Comparator.comparingLong(i -> keys[i]))
+				.mapToInt(Integer::intValue)
+				.toArray());
+
+		SortKeys.sortTies(indices, keys, (first, second) -> Integer.compare(second, first));
+
+		assertThat(indices).containsExactly(IntStream.range(0, keys.length).boxed()
+				.sorted(Comparator.<Integer>comparingLong(i -> keys[i]).thenComparing(Comparator.reverseOrder()))
+				.mapToInt(Integer::intValue)
+				.toArray());
+		assertThat(SortKeys.sortedIndices(new long[0])).isEmpty();
+	}
+}